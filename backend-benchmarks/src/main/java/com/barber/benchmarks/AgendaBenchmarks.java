@@ -0,0 +1,25 @@
+// src/main/java/com/barber/benchmarks/AgendaBenchmarks.java
+package com.barber.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Punto de entrada del jar de benchmarks: acepta las mismas opciones que JMH
+ * y siempre agrega el perfilador de GC para reportar bytes asignados por operación
+ * (gc.alloc.rate.norm) junto al throughput.
+ */
+public final class AgendaBenchmarks {
+
+  private AgendaBenchmarks() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    new Runner(new OptionsBuilder()
+        .parent(new CommandLineOptions(args))
+        .addProfiler(GCProfiler.class)
+        .build()).run();
+  }
+}
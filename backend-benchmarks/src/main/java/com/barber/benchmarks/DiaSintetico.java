@@ -0,0 +1,78 @@
+// src/main/java/com/barber/benchmarks/DiaSintetico.java
+package com.barber.benchmarks;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+/**
+ * Día de agenda sintético en el formato del motor: pares [inicio, fin) en epoch-seconds.
+ * Horario 09:00-14:00 y 15:00-21:00, un bloqueo de 30 min y N citas repartidas
+ * en las horas abiertas (con semilla fija para que las corridas sean comparables).
+ */
+final class DiaSintetico {
+
+  private static final LocalTime[][] FRANJAS = {
+      { LocalTime.of(9, 0), LocalTime.of(14, 0) },
+      { LocalTime.of(15, 0), LocalTime.of(21, 0) },
+  };
+
+  final long[] base;
+  final long[] ocupados;
+  final long inicioDia;
+
+  private DiaSintetico(long[] base, long[] ocupados, long inicioDia) {
+    this.base = base;
+    this.ocupados = ocupados;
+    this.inicioDia = inicioDia;
+  }
+
+  static DiaSintetico generar(LocalDate fecha, ZoneId tz, int citas, long semilla) {
+    Random rnd = new Random(semilla);
+
+    long[] base = new long[FRANJAS.length * 2];
+    int minutosAbiertos = 0;
+    for (int i = 0; i < FRANJAS.length; i++) {
+      base[2 * i] = ZonedDateTime.of(fecha, FRANJAS[i][0], tz).toEpochSecond();
+      base[2 * i + 1] = ZonedDateTime.of(fecha, FRANJAS[i][1], tz).toEpochSecond();
+      minutosAbiertos += (int) ((base[2 * i + 1] - base[2 * i]) / 60);
+    }
+
+    // 1 bloqueo (12:00-12:30) + citas separadas uniformemente con algo de ruido
+    long[] ocupados = new long[(citas + 1) * 2];
+    ocupados[0] = ZonedDateTime.of(fecha, LocalTime.of(12, 0), tz).toEpochSecond();
+    ocupados[1] = ocupados[0] + 30 * 60;
+    int separacion = Math.max(1, minutosAbiertos / Math.max(1, citas));
+    int duracion = Math.min(45, Math.max(5, separacion * 2 / 3));
+    for (int i = 0; i < citas; i++) {
+      int minuto = i * separacion + rnd.nextInt(Math.max(1, separacion / 4));
+      long ini = instanteAbierto(base, minuto);
+      ocupados[2 * (i + 1)] = ini;
+      ocupados[2 * (i + 1) + 1] = ini + duracion * 60L;
+    }
+    // el orden de llegada desde BD no está garantizado
+    for (int i = citas; i > 0; i--) {
+      int j = rnd.nextInt(i + 1);
+      long a = ocupados[2 * i], b = ocupados[2 * i + 1];
+      ocupados[2 * i] = ocupados[2 * j];
+      ocupados[2 * i + 1] = ocupados[2 * j + 1];
+      ocupados[2 * j] = a;
+      ocupados[2 * j + 1] = b;
+    }
+
+    return new DiaSintetico(base, ocupados, fecha.atStartOfDay(tz).toEpochSecond());
+  }
+
+  /** Epoch-second del minuto N contado solo dentro de las franjas abiertas. */
+  private static long instanteAbierto(long[] base, int minuto) {
+    long resto = minuto * 60L;
+    for (int i = 0; i < base.length; i += 2) {
+      long largo = base[i + 1] - base[i];
+      if (resto < largo) return base[i] + resto;
+      resto -= largo;
+    }
+    return base[base.length - 2];
+  }
+}
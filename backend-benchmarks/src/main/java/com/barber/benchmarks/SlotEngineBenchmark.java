@@ -0,0 +1,84 @@
+// src/main/java/com/barber/benchmarks/SlotEngineBenchmark.java
+package com.barber.benchmarks;
+
+import com.barber.backend.agenda.dto.SlotDTO;
+import com.barber.backend.agenda.service.SlotEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cálculo de slots de un día con el mismo motor y los mismos pasos que AgendaService.
+ *
+ * Las fechas cubren un día normal y los dos cambios de horario de America/New_York
+ * (días de 23 y 25 horas); America/Mexico_City ya no tiene horario de verano.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SlotEngineBenchmark {
+
+  @Param({ "1", "60" })
+  public int citasPorDia;
+
+  @Param({ "5", "15", "30" })
+  public int slotSizeMin;
+
+  @Param({ "2025-06-10", "2025-03-09", "2025-11-02" })
+  public String fecha;
+
+  @Param({ "America/New_York" })
+  public String zona;
+
+  private static final int DURACION_MIN = 30;
+  private static final long BUFFER_SEC = 5 * 60L;
+
+  private final SlotEngine motor = new SlotEngine();
+  private DiaSintetico dia;
+  private ZoneRules reglas;
+  private long minStart;
+  private long maxStart;
+
+  @Setup
+  public void preparar() {
+    ZoneId tz = ZoneId.of(zona);
+    dia = DiaSintetico.generar(LocalDate.parse(fecha), tz, citasPorDia, 42L);
+    reglas = tz.getRules();
+    // sin recorte por anticipos: se mide el día completo
+    minStart = dia.inicioDia;
+    maxStart = dia.inicioDia + 30L * 86_400L;
+  }
+
+  /** Solo el motor: resta, anticipos, buffer y alineación sobre arreglos primitivos. */
+  @Benchmark
+  public int motor() {
+    return calcular();
+  }
+
+  /** Motor más los SlotDTO de la respuesta, como en AgendaService.calcularSlots. */
+  @Benchmark
+  public List<SlotDTO> motorConDtos() {
+    int n = calcular();
+    long dur = DURACION_MIN * 60L;
+    List<SlotDTO> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      long ini = motor.inicioSlot(i);
+      out.add(new SlotDTO(Instant.ofEpochSecond(ini), Instant.ofEpochSecond(ini + dur)));
+    }
+    return out;
+  }
+
+  private int calcular() {
+    return motor.calcular(dia.base, dia.base.length, dia.ocupados, 0, dia.ocupados.length,
+        minStart, maxStart, BUFFER_SEC, reglas, slotSizeMin, DURACION_MIN);
+  }
+}
@@ -3,11 +3,15 @@ package com.barber.backend;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.analytics.config.AnalyticsProperties;
+import com.barber.backend.citas.config.CitasProperties;
 
 @SpringBootApplication
-@EnableConfigurationProperties(AgendaProperties.class)
+@EnableConfigurationProperties({ AgendaProperties.class, AnalyticsProperties.class, CitasProperties.class })
+@EnableScheduling
 public class BackendApplication {
 
 	public static void main(String[] args) {
@@ -12,6 +12,17 @@ public class AgendaProperties {
   private int bufferBetweenMin = 5;
   private int minAdvanceMin = 0;
   private int maxAdvanceDays = 30;
+  private boolean indexEnabled = true;
+  private boolean slotsCacheEnabled = true;
+  private long slotsCacheMaxSize = 10_000;
+  private int slotsCacheTtlSec = 60;
+  private int holdTtlSec = 300;
+  private int holdMaxPorUsuario = 2;
+  private boolean eventosEnabled = true;
+  private int eventosLote = 200;
+  private int eventosMaxLotes = 20;
+  private int eventosMaxIntentos = 10;
+  private int eventosRetencionHoras = 72;
 
   // getters & setters
   public String getTimezone() { return timezone; }
@@ -28,4 +39,26 @@ public class AgendaProperties {
   public void setMinAdvanceMin(int minAdvanceMin) { this.minAdvanceMin = minAdvanceMin; }
   public int getMaxAdvanceDays() { return maxAdvanceDays; }
   public void setMaxAdvanceDays(int maxAdvanceDays) { this.maxAdvanceDays = maxAdvanceDays; }
+  public boolean isIndexEnabled() { return indexEnabled; }
+  public void setIndexEnabled(boolean indexEnabled) { this.indexEnabled = indexEnabled; }
+  public boolean isSlotsCacheEnabled() { return slotsCacheEnabled; }
+  public void setSlotsCacheEnabled(boolean slotsCacheEnabled) { this.slotsCacheEnabled = slotsCacheEnabled; }
+  public long getSlotsCacheMaxSize() { return slotsCacheMaxSize; }
+  public void setSlotsCacheMaxSize(long slotsCacheMaxSize) { this.slotsCacheMaxSize = slotsCacheMaxSize; }
+  public int getSlotsCacheTtlSec() { return slotsCacheTtlSec; }
+  public void setSlotsCacheTtlSec(int slotsCacheTtlSec) { this.slotsCacheTtlSec = slotsCacheTtlSec; }
+  public int getHoldTtlSec() { return holdTtlSec; }
+  public void setHoldTtlSec(int holdTtlSec) { this.holdTtlSec = holdTtlSec; }
+  public int getHoldMaxPorUsuario() { return holdMaxPorUsuario; }
+  public void setHoldMaxPorUsuario(int holdMaxPorUsuario) { this.holdMaxPorUsuario = holdMaxPorUsuario; }
+  public boolean isEventosEnabled() { return eventosEnabled; }
+  public void setEventosEnabled(boolean eventosEnabled) { this.eventosEnabled = eventosEnabled; }
+  public int getEventosLote() { return eventosLote; }
+  public void setEventosLote(int eventosLote) { this.eventosLote = eventosLote; }
+  public int getEventosMaxLotes() { return eventosMaxLotes; }
+  public void setEventosMaxLotes(int eventosMaxLotes) { this.eventosMaxLotes = eventosMaxLotes; }
+  public int getEventosMaxIntentos() { return eventosMaxIntentos; }
+  public void setEventosMaxIntentos(int eventosMaxIntentos) { this.eventosMaxIntentos = eventosMaxIntentos; }
+  public int getEventosRetencionHoras() { return eventosRetencionHoras; }
+  public void setEventosRetencionHoras(int eventosRetencionHoras) { this.eventosRetencionHoras = eventosRetencionHoras; }
 }
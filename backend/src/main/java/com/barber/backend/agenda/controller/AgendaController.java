@@ -1,12 +1,26 @@
 // src/main/java/com/barber/backend/agenda/controller/AgendaController.java
 package com.barber.backend.agenda.controller;
 
+import com.barber.backend.agenda.dto.ApartadoDTO;
+import com.barber.backend.agenda.dto.ApartadoRequest;
+import com.barber.backend.agenda.dto.SlotsCualquierBarberoRequest;
+import com.barber.backend.agenda.dto.SlotsCualquierBarberoResponse;
+import com.barber.backend.agenda.dto.SlotsProximosRequest;
+import com.barber.backend.agenda.dto.SlotsProximosResponse;
+import com.barber.backend.agenda.dto.SlotsRangoRequest;
+import com.barber.backend.agenda.dto.SlotsRangoResponse;
 import com.barber.backend.agenda.dto.SlotsRequest;
 import com.barber.backend.agenda.dto.SlotsResponse;
 import com.barber.backend.agenda.service.AgendaService;
+import com.barber.backend.login.security.AppUserPrincipal;
 import jakarta.validation.Valid;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 // Habilita CORS si tu front corre en otro dominio/puerto
 @CrossOrigin(origins = {"http://localhost:5173", "http://localhost:3000"}, allowCredentials = "true")
@@ -24,4 +38,54 @@ public class AgendaController {
   public SlotsResponse slots(@Valid @RequestBody SlotsRequest req) {
     return svc.getSlots(req);
   }
-}
\ No newline at end of file
+
+  /**
+   * Igual que el POST pero condicional: responde 304 sin recalcular si el If-None-Match
+   * coincide con la versión actual de la agenda del barbero.
+   */
+  @GetMapping("/slots")
+  public ResponseEntity<SlotsResponse> slotsGet(@Valid @ModelAttribute SlotsRequest req, WebRequest request) {
+    String etag = svc.etagSlots(req);
+    if (etag != null && request.checkNotModified(etag)) {
+      return null; // 304; el ETag ya quedó en la respuesta
+    }
+    return ResponseEntity.ok()
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(svc.getSlots(req));
+  }
+
+  /** Slots de un rango de días (semana/mes) en una sola petición. */
+  @PostMapping(value = "/slots/rango", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public SlotsRangoResponse slotsRango(@Valid @RequestBody SlotsRangoRequest req) {
+    return svc.getSlotsRango(req);
+  }
+
+  /** Slots del servicio con cualquier barbero que lo ofrezca, anotando quién está libre. */
+  @PostMapping(value = "/slots/cualquier-barbero", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public SlotsCualquierBarberoResponse slotsCualquierBarbero(@Valid @RequestBody SlotsCualquierBarberoRequest req) {
+    return svc.getSlotsCualquierBarbero(req);
+  }
+
+  /** Próximos N slots libres desde ahora (con un barbero o con cualquiera). */
+  @PostMapping(value = "/slots/proximos", consumes = MediaType.APPLICATION_JSON_VALUE)
+  public SlotsProximosResponse slotsProximos(@Valid @RequestBody SlotsProximosRequest req) {
+    return svc.getSlotsProximos(req);
+  }
+
+  /** Aparta el slot elegido por unos minutos; el id se manda como holdId al crear la cita. */
+  @PostMapping(value = "/apartados", consumes = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseStatus(HttpStatus.CREATED)
+  public ApartadoDTO apartar(@Valid @RequestBody ApartadoRequest req,
+                             @AuthenticationPrincipal AppUserPrincipal principal) {
+    return svc.apartar(principal != null ? principal.getUsername() : null, req);
+  }
+
+  @DeleteMapping("/apartados/{holdId}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void liberarApartado(@PathVariable String holdId,
+                              @AuthenticationPrincipal AppUserPrincipal principal) {
+    svc.liberarApartado(holdId,
+        principal != null ? principal.getUsername() : null,
+        principal != null && principal.hasRole("ADMIN"));
+  }
+}
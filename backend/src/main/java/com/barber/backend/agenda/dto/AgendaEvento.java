@@ -0,0 +1,33 @@
+// src/main/java/com/barber/backend/agenda/dto/AgendaEvento.java
+package com.barber.backend.agenda.dto;
+
+import java.time.Instant;
+
+/**
+ * Cambio en la agenda de un barbero, tal como lo reciben los suscriptores.
+ * {@code entidadId} es la cita, el bloqueo, la inscripción en lista de espera
+ * (LISTA_ESPERA_OFERTA) o, para HORARIO_REEMPLAZADO, el barbero;
+ * {@code inicio}/{@code fin}/{@code estado} quedan null cuando no aplican.
+ */
+public record AgendaEvento(
+    Long id,
+    Tipo tipo,
+    Long entidadId,
+    Long barberoId,
+    Instant inicio,
+    Instant fin,
+    String estado,
+    Instant ocurridoEn
+) {
+  public enum Tipo {
+    CITA_CREADA,
+    CITA_ACTUALIZADA,
+    CITA_ESTADO,
+    CITA_ELIMINADA,
+    BLOQUEO_GUARDADO,
+    BLOQUEO_ELIMINADO,
+    HORARIO_REEMPLAZADO,
+    /** Hueco de una cita cancelada ofrecido a una inscripción de la lista de espera. */
+    LISTA_ESPERA_OFERTA
+  }
+}
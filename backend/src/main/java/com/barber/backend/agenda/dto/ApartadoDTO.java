@@ -0,0 +1,7 @@
+// src/main/java/com/barber/backend/agenda/dto/ApartadoDTO.java
+package com.barber.backend.agenda.dto;
+
+import java.time.Instant;
+
+/** Slot apartado temporalmente; {@code id} se envía como holdId al crear la cita. */
+public record ApartadoDTO(String id, Long barberoId, Instant inicio, Instant fin, Instant expiraEn) { }
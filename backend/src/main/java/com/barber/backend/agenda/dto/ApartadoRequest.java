@@ -0,0 +1,16 @@
+// src/main/java/com/barber/backend/agenda/dto/ApartadoRequest.java
+package com.barber.backend.agenda.dto;
+
+import com.barber.backend.citas.model.Cita;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+
+public record ApartadoRequest(
+    @NotNull Long barberoId,
+    @NotNull Long servicioId,
+    @NotNull Instant inicio,   // inicio del slot elegido
+    @Min(1) @Max(Cita.DURACION_MAX_MIN) Integer duracionMin,
+    @Min(1) Integer slotSizeMin // el mismo con que se pidieron los slots (default: agenda.slot-size-min)
+) {}
@@ -0,0 +1,8 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotBarberosDTO.java
+package com.barber.backend.agenda.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/** Slot libre y los barberos que pueden atenderlo. */
+public record SlotBarberosDTO(Instant inicio, Instant fin, List<Long> barberoIds) { }
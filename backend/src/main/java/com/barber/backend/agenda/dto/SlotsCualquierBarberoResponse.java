@@ -0,0 +1,12 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsCualquierBarberoResponse.java
+package com.barber.backend.agenda.dto;
+
+import java.util.List;
+
+public record SlotsCualquierBarberoResponse(
+    Long servicioId,
+    String fecha,         // eco
+    Integer slotSizeMin,  // efectivo
+    Integer duracionMin,  // efectiva
+    List<SlotBarberosDTO> slots
+) { }
@@ -0,0 +1,9 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsDiaDTO.java
+package com.barber.backend.agenda.dto;
+
+import java.util.List;
+
+public record SlotsDiaDTO(
+    String fecha,         // yyyy-MM-dd
+    List<SlotDTO> slots
+) { }
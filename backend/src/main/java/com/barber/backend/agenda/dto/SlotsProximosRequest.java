@@ -0,0 +1,14 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsProximosRequest.java
+package com.barber.backend.agenda.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public record SlotsProximosRequest(
+    Long barberoId,       // null = cualquier barbero que ofrezca el servicio
+    @NotNull Long servicioId,
+    @Min(1) @Max(50) Integer cantidad, // primeros N slots (default 5)
+    @Min(1) Integer slotSizeMin,
+    @Min(1) Integer duracionMin
+) {}
@@ -0,0 +1,12 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsProximosResponse.java
+package com.barber.backend.agenda.dto;
+
+import java.util.List;
+
+public record SlotsProximosResponse(
+    Long barberoId,       // eco (null = cualquier barbero)
+    Long servicioId,
+    Integer slotSizeMin,  // efectivo
+    Integer duracionMin,  // efectiva
+    List<SlotBarberosDTO> slots
+) { }
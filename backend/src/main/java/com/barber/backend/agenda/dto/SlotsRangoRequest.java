@@ -0,0 +1,19 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsRangoRequest.java
+package com.barber.backend.agenda.dto;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+public record SlotsRangoRequest(
+    @NotNull Long barberoId,
+    @NotNull Long servicioId,
+    // yyyy-MM-dd (inclusive)
+    @NotNull @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}$", message = "desde debe ser yyyy-MM-dd")
+    String desde,
+    // yyyy-MM-dd (inclusive)
+    @NotNull @Pattern(regexp = "^\\d{4}-\\d{2}-\\d{2}$", message = "hasta debe ser yyyy-MM-dd")
+    String hasta,
+    @Min(1) Integer slotSizeMin,
+    @Min(1) Integer duracionMin
+) {}
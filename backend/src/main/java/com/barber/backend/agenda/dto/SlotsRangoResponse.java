@@ -0,0 +1,14 @@
+// src/main/java/com/barber/backend/agenda/dto/SlotsRangoResponse.java
+package com.barber.backend.agenda.dto;
+
+import java.util.List;
+
+public record SlotsRangoResponse(
+    Long barberoId,
+    Long servicioId,
+    String desde,         // eco
+    String hasta,         // eco
+    Integer slotSizeMin,  // efectivo
+    Integer duracionMin,  // efectiva
+    List<SlotsDiaDTO> dias
+) { }
@@ -0,0 +1,151 @@
+package com.barber.backend.agenda.model;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/** Fila del outbox: un {@link AgendaEvento} pendiente (procesadoEn null) o ya entregado. */
+@Entity
+@Table(name = "agenda_eventos_outbox")
+public class AgendaEventoOutbox {
+  @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 40)
+  private AgendaEvento.Tipo tipo;
+
+  @Column(name = "entidad_id", nullable = false)
+  private Long entidadId;
+
+  @Column(name = "barbero_id", nullable = false)
+  private Long barberoId;
+
+  private Instant inicio;
+
+  private Instant fin;
+
+  @Column(length = 20)
+  private String estado;
+
+  @Column(name = "creado_en", nullable = false)
+  private Instant creadoEn;
+
+  @Column(name = "procesado_en")
+  private Instant procesadoEn;
+
+  @Column(nullable = false)
+  private int intentos;
+
+  @Column(name = "ultimo_error", length = 500)
+  private String ultimoError;
+
+  /** Suscriptores que ya recibieron el evento, separados por coma; null si ninguno. */
+  @Column(name = "entregado_a", length = 500)
+  private String entregadoA;
+
+  @PrePersist
+  void pre() {
+    if (creadoEn == null) creadoEn = Instant.now();
+  }
+
+  public AgendaEvento toEvento() {
+    return new AgendaEvento(id, tipo, entidadId, barberoId, inicio, fin, estado, creadoEn);
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public void setId(Long id) {
+    this.id = id;
+  }
+
+  public AgendaEvento.Tipo getTipo() {
+    return tipo;
+  }
+
+  public void setTipo(AgendaEvento.Tipo tipo) {
+    this.tipo = tipo;
+  }
+
+  public Long getEntidadId() {
+    return entidadId;
+  }
+
+  public void setEntidadId(Long entidadId) {
+    this.entidadId = entidadId;
+  }
+
+  public Long getBarberoId() {
+    return barberoId;
+  }
+
+  public void setBarberoId(Long barberoId) {
+    this.barberoId = barberoId;
+  }
+
+  public Instant getInicio() {
+    return inicio;
+  }
+
+  public void setInicio(Instant inicio) {
+    this.inicio = inicio;
+  }
+
+  public Instant getFin() {
+    return fin;
+  }
+
+  public void setFin(Instant fin) {
+    this.fin = fin;
+  }
+
+  public String getEstado() {
+    return estado;
+  }
+
+  public void setEstado(String estado) {
+    this.estado = estado;
+  }
+
+  public Instant getCreadoEn() {
+    return creadoEn;
+  }
+
+  public void setCreadoEn(Instant creadoEn) {
+    this.creadoEn = creadoEn;
+  }
+
+  public Instant getProcesadoEn() {
+    return procesadoEn;
+  }
+
+  public void setProcesadoEn(Instant procesadoEn) {
+    this.procesadoEn = procesadoEn;
+  }
+
+  public int getIntentos() {
+    return intentos;
+  }
+
+  public void setIntentos(int intentos) {
+    this.intentos = intentos;
+  }
+
+  public String getUltimoError() {
+    return ultimoError;
+  }
+
+  public void setUltimoError(String ultimoError) {
+    this.ultimoError = ultimoError;
+  }
+
+  public String getEntregadoA() {
+    return entregadoA;
+  }
+
+  public void setEntregadoA(String entregadoA) {
+    this.entregadoA = entregadoA;
+  }
+}
@@ -0,0 +1,39 @@
+// src/main/java/com/barber/backend/agenda/repository/AgendaEventoOutboxRepository.java
+package com.barber.backend.agenda.repository;
+
+import com.barber.backend.agenda.model.AgendaEventoOutbox;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface AgendaEventoOutboxRepository extends JpaRepository<AgendaEventoOutbox, Long> {
+
+  // Pendientes en orden de inserción; SKIP LOCKED (timeout -2) reparte lotes entre instancias
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("""
+      SELECT e FROM AgendaEventoOutbox e
+      WHERE e.procesadoEn IS NULL
+      ORDER BY e.id ASC
+      """)
+  List<AgendaEventoOutbox> findPendientes(Limit limit);
+
+  // Purga de entregados viejos por tandas, para no bloquear la tabla en un solo DELETE
+  @Modifying
+  @Query(value = """
+      DELETE FROM agenda_eventos_outbox
+      WHERE procesado_en IS NOT NULL AND procesado_en < :limite
+      ORDER BY procesado_en
+      LIMIT :lote
+      """, nativeQuery = true)
+  int purgarProcesados(@Param("limite") Instant limite, @Param("lote") int lote);
+}
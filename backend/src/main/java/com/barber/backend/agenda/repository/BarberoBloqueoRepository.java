@@ -5,10 +5,16 @@ import com.barber.backend.agenda.model.BarberoBloqueo;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
 public interface BarberoBloqueoRepository extends JpaRepository<BarberoBloqueo, Long> {
 
+  interface Intervalo {
+    Instant getInicio();
+    Instant getFin();
+  }
+
   List<BarberoBloqueo> findByBarberoIdAndInicioLessThanAndFinGreaterThan(
       Long barberoId,
       Instant hasta,  // end of day
@@ -20,6 +26,16 @@ public interface BarberoBloqueoRepository extends JpaRepository<BarberoBloqueo,
       Long barberoId, Instant desde, Instant hasta
   );
 
+  // Igual que el anterior pero sólo inicio/fin, ordenado por inicio (series de citas)
+  List<Intervalo> findIntervalosByBarbero_IdAndFinGreaterThanAndInicioLessThanOrderByInicioAsc(
+      Long barberoId, Instant desde, Instant hasta
+  );
+
+  // Igual que el anterior pero para varios barberos a la vez
+  List<BarberoBloqueo> findByBarbero_IdInAndFinGreaterThanAndInicioLessThan(
+      Collection<Long> barberoIds, Instant desde, Instant hasta
+  );
+
   // Conteo de traslapes (útil para validación)
   long countByBarbero_IdAndFinGreaterThanAndInicioLessThan(
       Long barberoId, Instant desde, Instant hasta
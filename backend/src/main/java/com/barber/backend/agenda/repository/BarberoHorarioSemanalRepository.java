@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface BarberoHorarioSemanalRepository extends JpaRepository<BarberoHorarioSemanal, Long> {
@@ -16,6 +17,12 @@ public interface BarberoHorarioSemanalRepository extends JpaRepository<BarberoHo
   // Usado por AgendaService para obtener horarios activos de un DOW
   List<BarberoHorarioSemanal> findByBarbero_IdAndDowAndActivoTrue(Long barberoId, Integer dow);
 
+  // Horarios activos de varios barberos para un DOW (búsqueda "cualquier barbero")
+  List<BarberoHorarioSemanal> findByBarbero_IdInAndDowAndActivoTrue(Collection<Long> barberoIds, Integer dow);
+
+  // Todos los tramos de varios barberos (búsqueda del próximo slot libre en el horizonte)
+  List<BarberoHorarioSemanal> findByBarbero_IdIn(Collection<Long> barberoIds);
+
   // Útiles opcionales:
   BarberoHorarioSemanal findFirstByBarbero_IdAndDowAndActivoTrueOrderByDesdeAsc(Long barberoId, Integer dow);
   boolean existsByBarbero_IdAndDowAndActivoTrue(Long barberoId, Integer dow);
@@ -0,0 +1,179 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaApartados.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.ApartadoDTO;
+import com.barber.backend.agenda.dto.SlotDTO;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla en memoria de apartados temporales de slots (holds) con expiración.
+ *
+ * Por barbero se guarda una lista inmutable que solo se reemplaza con
+ * {@code ConcurrentHashMap.compute}: las lecturas (ocultar slots, validar al reservar)
+ * no bloquean y las altas del mismo barbero se serializan sin locks explícitos.
+ * Los vencidos se ignoran al leer y se descartan en la siguiente escritura del barbero.
+ * Cada usuario tiene a lo más {@code agenda.hold-max-por-usuario} apartados vigentes,
+ * así nadie puede ocultar la agenda completa de un barbero. Como el índice, es por JVM.
+ */
+@Component
+public class AgendaApartados {
+
+  private final AgendaProperties props;
+  private final Map<Long, List<ApartadoDTO>> porBarbero = new ConcurrentHashMap<>();
+  /** Apartados por usuario, para el tope por usuario; mismas reglas que porBarbero. */
+  private final Map<String, List<ApartadoDTO>> porDueno = new ConcurrentHashMap<>();
+  /** holdId → barberoId, para liberar sin recorrer. */
+  private final Map<String, Long> barberoDe = new ConcurrentHashMap<>();
+  /** holdId → usuario que lo creó. */
+  private final Map<String, String> duenoDe = new ConcurrentHashMap<>();
+
+  public AgendaApartados(AgendaProperties props) {
+    this.props = props;
+  }
+
+  /**
+   * Aparta [inicio, fin) para {@code dueno} si no se traslapa con otro apartado vigente
+   * del barbero y el usuario no llegó a su tope. El alta del barbero ocurre dentro del
+   * compute del usuario: dos apartados simultáneos del mismo usuario no rebasan el tope.
+   */
+  public ApartadoDTO apartar(String dueno, Long barberoId, Instant inicio, Instant fin) {
+    Instant ahora = Instant.now();
+    ApartadoDTO nuevo = new ApartadoDTO(UUID.randomUUID().toString(), barberoId, inicio, fin,
+        ahora.plusSeconds(props.getHoldTtlSec()));
+    porDueno.compute(dueno, (u, suyos) -> {
+      List<ApartadoDTO> vigentesUsuario = vigentes(suyos, ahora);
+      if (vigentesUsuario.size() >= props.getHoldMaxPorUsuario()) {
+        throw new IllegalStateException("Ya tienes " + vigentesUsuario.size()
+            + " horarios apartados; libera uno antes de apartar otro");
+      }
+      porBarbero.compute(barberoId, (k, actuales) -> agregar(vigentes(actuales, ahora), nuevo, true));
+      return agregar(vigentesUsuario, nuevo, false);
+    });
+    barberoDe.put(nuevo.id(), barberoId);
+    duenoDe.put(nuevo.id(), dueno);
+    return nuevo;
+  }
+
+  private static List<ApartadoDTO> agregar(List<ApartadoDTO> vigentes, ApartadoDTO nuevo, boolean sinTraslapes) {
+    if (sinTraslapes) {
+      for (ApartadoDTO a : vigentes) {
+        if (traslapa(a, nuevo.inicio(), nuevo.fin())) {
+          throw new IllegalStateException("Ese horario ya está apartado por otro cliente");
+        }
+      }
+    }
+    List<ApartadoDTO> out = new ArrayList<>(vigentes.size() + 1);
+    out.addAll(vigentes);
+    out.add(nuevo);
+    return List.copyOf(out);
+  }
+
+  /**
+   * Libera un apartado a petición de {@code usuario}: sólo su dueño o un admin. False si no
+   * existe (ya vencido, usado o liberado) o es de otro usuario, sin distinguir ambos casos.
+   */
+  public boolean liberar(String holdId, String usuario, boolean admin) {
+    if (!admin && (usuario == null || !usuario.equals(duenoDe.get(holdId)))) return false;
+    return liberar(holdId);
+  }
+
+  /** Libera un apartado sin revisar dueño (uso interno al reservar). */
+  private boolean liberar(String holdId) {
+    Long barberoId = barberoDe.remove(holdId);
+    if (barberoId == null) return false;
+    Instant ahora = Instant.now();
+    porBarbero.computeIfPresent(barberoId, (k, actuales) -> sin(actuales, holdId, ahora));
+    String dueno = duenoDe.remove(holdId);
+    if (dueno != null) porDueno.computeIfPresent(dueno, (k, suyos) -> sin(suyos, holdId, ahora));
+    return true;
+  }
+
+  private List<ApartadoDTO> sin(List<ApartadoDTO> actuales, String holdId, Instant ahora) {
+    List<ApartadoDTO> out = vigentes(actuales, ahora).stream()
+        .filter(a -> !a.id().equals(holdId))
+        .toList();
+    return out.isEmpty() ? null : out;
+  }
+
+  /** Libera el apartado cuando la transacción en curso confirma (la cita ya existe). */
+  public void liberarAlConfirmar(String holdId) {
+    if (holdId == null || holdId.isBlank()) return;
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          liberar(holdId);
+        }
+      });
+    } else {
+      liberar(holdId);
+    }
+  }
+
+  /**
+   * Falla si [inicio, fin) se traslapa con un apartado vigente del barbero que no sea
+   * {@code holdPropio} (el que trae quien reserva).
+   */
+  public void verificar(Long barberoId, Instant inicio, Instant fin, String holdPropio) {
+    Instant ahora = Instant.now();
+    for (ApartadoDTO a : porBarbero.getOrDefault(barberoId, List.of())) {
+      if (a.expiraEn().isAfter(ahora) && !a.id().equals(holdPropio) && traslapa(a, inicio, fin)) {
+        throw new IllegalStateException("Ese horario está apartado por otro cliente");
+      }
+    }
+  }
+
+  /** Quita de la lista los slots que chocan con apartados vigentes del barbero. */
+  public List<SlotDTO> ocultar(Long barberoId, List<SlotDTO> slots) {
+    List<ApartadoDTO> vigentes = vigentes(porBarbero.get(barberoId), Instant.now());
+    if (vigentes.isEmpty() || slots.isEmpty()) return slots;
+    List<SlotDTO> out = new ArrayList<>(slots.size());
+    for (SlotDTO s : slots) {
+      boolean libre = true;
+      for (ApartadoDTO a : vigentes) {
+        if (traslapa(a, s.inicio(), s.fin())) {
+          libre = false;
+          break;
+        }
+      }
+      if (libre) out.add(s);
+    }
+    return out;
+  }
+
+  /** Huella de los apartados vigentes del barbero (0 si no hay); entra en el ETag de slots. */
+  public long firma(Long barberoId) {
+    long h = 0;
+    for (ApartadoDTO a : vigentes(porBarbero.get(barberoId), Instant.now())) {
+      h = 31 * h + a.id().hashCode();
+    }
+    return h;
+  }
+
+  private List<ApartadoDTO> vigentes(List<ApartadoDTO> actuales, Instant ahora) {
+    if (actuales == null || actuales.isEmpty()) return List.of();
+    List<ApartadoDTO> out = new ArrayList<>(actuales.size());
+    for (ApartadoDTO a : actuales) {
+      if (a.expiraEn().isAfter(ahora)) out.add(a);
+      else {
+        barberoDe.remove(a.id());
+        duenoDe.remove(a.id());
+      }
+    }
+    return out;
+  }
+
+  private static boolean traslapa(ApartadoDTO a, Instant inicio, Instant fin) {
+    return a.inicio().isBefore(fin) && inicio.isBefore(a.fin());
+  }
+}
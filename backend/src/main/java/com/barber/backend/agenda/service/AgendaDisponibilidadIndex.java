@@ -0,0 +1,484 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaDisponibilidadIndex.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.model.BarberoBloqueo;
+import com.barber.backend.agenda.model.BarberoHorarioSemanal;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.agenda.repository.BarberoHorarioSemanalRepository;
+import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.catalogo.model.Servicio;
+import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.repository.CitaRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Índice en memoria de disponibilidad por barbero.
+ *
+ * Para cada barbero se guarda su horario semanal y los bloqueos / citas AGENDADA
+ * dentro del horizonte {@code agenda.max-advance-days}. De ahí se deriva, por día,
+ * un bitmap de minutos libres (bit = 1 → minuto disponible) que {@link AgendaService}
+ * consulta sin tocar la base de datos.
+ *
+ * Se carga perezosamente por barbero y se actualiza de forma incremental cuando
+ * los servicios de citas, bloqueos y horario confirman (afterCommit) sus escrituras.
+ * Es un índice por JVM: con varias instancias cada una ve solo sus propias escrituras.
+ * Cada cambio aplicado invalida también los mismos días en {@link AgendaSlotsCache} y,
+ * al final, incrementa la versión de agenda del barbero (base del ETag de slots).
+ */
+@Component
+public class AgendaDisponibilidadIndex {
+
+  /** Reintentos de carga si hubo escrituras concurrentes mientras se leía la BD. */
+  private static final int MAX_INTENTOS_CARGA = 3;
+  private static final long[] SIN_VENTANAS = new long[0];
+
+  private final AgendaProperties props;
+  private final BarberoRepository barberoRepo;
+  private final ServicioRepository servicioRepo;
+  private final BarberoHorarioSemanalRepository horarioRepo;
+  private final BarberoBloqueoRepository bloqueoRepo;
+  private final CitaRepository citaRepo;
+  private final AgendaSlotsCache slotsCache;
+
+  private final Map<Long, AgendaBarbero> barberos = new ConcurrentHashMap<>();
+  /** citaId → barberoId de las citas indexadas (para mover/quitar sin consultar). */
+  private final Map<Long, Long> citaBarbero = new ConcurrentHashMap<>();
+  /** bloqueoId → barberoId de los bloqueos indexados. */
+  private final Map<Long, Long> bloqueoBarbero = new ConcurrentHashMap<>();
+  /** servicioId → duración en minutos. */
+  private final Map<Long, Integer> duracionServicio = new ConcurrentHashMap<>();
+  /** Contador de escrituras por barbero; detecta cargas que compiten con escrituras. */
+  private final Map<Long, AtomicLong> escrituras = new ConcurrentHashMap<>();
+  /**
+   * Versión de agenda por barbero: sube después de aplicar cada escritura (índice y caché
+   * ya al día), así que quien lee la versión y luego calcula ve datos al menos de esa versión.
+   */
+  private final Map<Long, AtomicLong> versiones = new ConcurrentHashMap<>();
+  /** Versión del catálogo (duraciones de servicio). */
+  private final AtomicLong versionCatalogo = new AtomicLong();
+  /** Distingue versiones de distintos arranques: los contadores empiezan en 0 en cada JVM. */
+  private final long instancia = System.currentTimeMillis();
+
+  public AgendaDisponibilidadIndex(AgendaProperties props,
+                                   BarberoRepository barberoRepo,
+                                   ServicioRepository servicioRepo,
+                                   BarberoHorarioSemanalRepository horarioRepo,
+                                   BarberoBloqueoRepository bloqueoRepo,
+                                   CitaRepository citaRepo,
+                                   AgendaSlotsCache slotsCache) {
+    this.props = props;
+    this.barberoRepo = barberoRepo;
+    this.servicioRepo = servicioRepo;
+    this.horarioRepo = horarioRepo;
+    this.bloqueoRepo = bloqueoRepo;
+    this.citaRepo = citaRepo;
+    this.slotsCache = slotsCache;
+  }
+
+  // ===== Lecturas =====
+
+  /**
+   * Ventanas libres del barbero en la fecha local indicada, como pares
+   * [inicio0, fin0, inicio1, fin1, ...] en epoch-seconds. Fuera del horizonte
+   * devuelve un arreglo vacío (esas fechas no pueden ofrecer slots).
+   * El arreglo se comparte entre lecturas del mismo día: no debe modificarse.
+   */
+  public long[] ventanasLibres(Long barberoId, LocalDate fecha) {
+    AgendaBarbero agenda = agenda(barberoId);
+    if (fecha.isBefore(agenda.desde) || fecha.isAfter(agenda.hasta)) return SIN_VENTANAS;
+    return agenda.dia(fecha).ventanas();
+  }
+
+  /** Duración (min) del servicio; la primera vez se lee de BD y luego queda en memoria. */
+  public int duracionServicio(Long servicioId) {
+    Integer cached = duracionServicio.get(servicioId);
+    if (cached != null) return cached;
+    Servicio s = servicioRepo.findById(servicioId)
+        .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
+    int dur = s.getDuracionMin() != null ? s.getDuracionMin() : 0;
+    duracionServicio.put(servicioId, dur);
+    return dur;
+  }
+
+  // ===== Versiones =====
+
+  /** Versión de la agenda del barbero en esta JVM; solo memoria, sin BD. */
+  public long version(Long barberoId) {
+    AtomicLong v = versiones.get(barberoId);
+    return v != null ? v.get() : 0L;
+  }
+
+  public long versionCatalogo() {
+    return versionCatalogo.get();
+  }
+
+  public long instancia() {
+    return instancia;
+  }
+
+  // ===== Escrituras (se aplican al confirmar la transacción) =====
+
+  /**
+   * Estado de una cita antes de modificarla o borrarla: sus días (del barbero que la
+   * tenía) se invalidan al confirmar, aunque ese barbero no esté cargado en el índice.
+   */
+  public void citaPorCambiar(Cita c) {
+    if (c.getEstado() != Cita.Estado.AGENDADA || c.getBarbero() == null
+        || c.getInicio() == null || c.getFin() == null) return;
+    Long barberoId = c.getBarbero().getId();
+    long[] iv = intervalo(c.getInicio(), c.getFin());
+    alConfirmar(() -> invalidarDias(barberoId, iv));
+  }
+
+  public void citaGuardada(Cita c) {
+    // Se lee al confirmar: fin se recalcula en @PreUpdate durante el flush
+    alConfirmar(() -> {
+      Long citaId = c.getId();
+      Long barberoId = c.getBarbero() != null ? c.getBarbero().getId() : null;
+      quitarCita(citaId);
+      if (c.getEstado() == Cita.Estado.AGENDADA && barberoId != null
+          && c.getInicio() != null && c.getFin() != null) {
+        long[] iv = intervalo(c.getInicio(), c.getFin());
+        modificar(barberoId, a -> {
+          a.citas.put(citaId, iv);
+          a.invalidar(iv[0], iv[1]);
+        });
+        slotsCache.invalidar(barberoId, iv[0], iv[1]);
+        citaBarbero.put(citaId, barberoId);
+        nuevaVersion(barberoId);
+      }
+    });
+  }
+
+  /**
+   * Cita que dejó de estar AGENDADA por un UPDATE en bloque (sin entidad): libera su
+   * intervalo al confirmar, esté o no cargado su barbero.
+   */
+  public void citaCerrada(Long citaId, Long barberoId, Instant inicio, Instant fin) {
+    long[] iv = intervalo(inicio, fin);
+    alConfirmar(() -> {
+      quitarCita(citaId);
+      invalidarDias(barberoId, iv);
+    });
+  }
+
+  public void citaEliminada(Long citaId) {
+    alConfirmar(() -> quitarCita(citaId));
+  }
+
+  /** Como {@link #citaPorCambiar(Cita)}, para un bloqueo que se va a mover o borrar. */
+  public void bloqueoPorCambiar(BarberoBloqueo b) {
+    if (b.getBarbero() == null || b.getInicio() == null || b.getFin() == null) return;
+    Long barberoId = b.getBarbero().getId();
+    long[] iv = intervalo(b.getInicio(), b.getFin());
+    alConfirmar(() -> invalidarDias(barberoId, iv));
+  }
+
+  public void bloqueoGuardado(BarberoBloqueo b) {
+    alConfirmar(() -> {
+      Long bloqueoId = b.getId();
+      Long barberoId = b.getBarbero() != null ? b.getBarbero().getId() : null;
+      quitarBloqueo(bloqueoId);
+      if (barberoId != null) {
+        long[] iv = intervalo(b.getInicio(), b.getFin());
+        modificar(barberoId, a -> {
+          a.bloqueos.put(bloqueoId, iv);
+          a.invalidar(iv[0], iv[1]);
+        });
+        slotsCache.invalidar(barberoId, iv[0], iv[1]);
+        bloqueoBarbero.put(bloqueoId, barberoId);
+        nuevaVersion(barberoId);
+      }
+    });
+  }
+
+  public void bloqueoEliminado(Long bloqueoId) {
+    alConfirmar(() -> quitarBloqueo(bloqueoId));
+  }
+
+  public void horarioReemplazado(Long barberoId, List<BarberoHorarioSemanal> franjas) {
+    final List<LocalTime[]>[] porDow = agruparHorario(franjas);
+    alConfirmar(() -> {
+      modificar(barberoId, a -> {
+        a.horario = porDow;
+        a.dias.clear();
+      });
+      slotsCache.invalidarBarbero(barberoId);
+      nuevaVersion(barberoId);
+    });
+  }
+
+  public void servicioCambiado(Long servicioId) {
+    alConfirmar(() -> {
+      duracionServicio.remove(servicioId);
+      versionCatalogo.incrementAndGet();
+    });
+  }
+
+  // ===== Internos =====
+
+  private void quitarCita(Long citaId) {
+    Long barberoId = citaBarbero.remove(citaId);
+    if (barberoId == null) return;
+    long[][] prev = new long[1][];
+    modificar(barberoId, a -> {
+      prev[0] = a.citas.remove(citaId);
+      if (prev[0] != null) a.invalidar(prev[0][0], prev[0][1]);
+    });
+    if (prev[0] != null) slotsCache.invalidar(barberoId, prev[0][0], prev[0][1]);
+    nuevaVersion(barberoId);
+  }
+
+  private void quitarBloqueo(Long bloqueoId) {
+    Long barberoId = bloqueoBarbero.remove(bloqueoId);
+    if (barberoId == null) return;
+    long[][] prev = new long[1][];
+    modificar(barberoId, a -> {
+      prev[0] = a.bloqueos.remove(bloqueoId);
+      if (prev[0] != null) a.invalidar(prev[0][0], prev[0][1]);
+    });
+    if (prev[0] != null) slotsCache.invalidar(barberoId, prev[0][0], prev[0][1]);
+    nuevaVersion(barberoId);
+  }
+
+  /** Invalida los días que toca [ini, fin) en el índice y después en la caché de slots. */
+  private void invalidarDias(Long barberoId, long[] iv) {
+    modificar(barberoId, a -> a.invalidar(iv[0], iv[1]));
+    slotsCache.invalidar(barberoId, iv[0], iv[1]);
+    nuevaVersion(barberoId);
+  }
+
+  private void nuevaVersion(Long barberoId) {
+    versiones.computeIfAbsent(barberoId, k -> new AtomicLong()).incrementAndGet();
+  }
+
+  /**
+   * Marca una escritura del barbero y, si su agenda ya está cargada, aplica el cambio
+   * (que se encarga de invalidar los días que toca).
+   *
+   * Todo ocurre dentro del compute de la clave: una carga que valida su contador e
+   * instala en {@link #instalar} no puede quedar a medias con esta escritura.
+   */
+  private void modificar(Long barberoId, Consumer<AgendaBarbero> cambio) {
+    barberos.compute(barberoId, (k, a) -> {
+      escrituras.computeIfAbsent(barberoId, x -> new AtomicLong()).incrementAndGet();
+      if (a != null) {
+        synchronized (a) {
+          cambio.accept(a);
+        }
+      }
+      return a;
+    });
+  }
+
+  private static void alConfirmar(Runnable r) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          r.run();
+        }
+      });
+    } else {
+      r.run();
+    }
+  }
+
+  private AgendaBarbero agenda(Long barberoId) {
+    ZoneId tz = zona();
+    LocalDate hoy = LocalDate.now(tz);
+    AgendaBarbero a = barberos.get(barberoId);
+    if (a != null && a.cargadoEl.equals(hoy)) return a;
+    return cargar(barberoId, tz, hoy);
+  }
+
+  private AgendaBarbero cargar(Long barberoId, ZoneId tz, LocalDate hoy) {
+    if (!barberoRepo.existsById(barberoId)) {
+      throw new EntityNotFoundException("Barbero no encontrado");
+    }
+    AtomicLong contador = escrituras.computeIfAbsent(barberoId, k -> new AtomicLong());
+    AgendaBarbero a = null;
+    for (int intento = 0; intento < MAX_INTENTOS_CARGA; intento++) {
+      long antes = contador.get();
+      a = leer(barberoId, tz, hoy);
+      AgendaBarbero instalada = instalar(barberoId, a, contador, antes);
+      if (instalada != null) return instalada;
+    }
+    // Escrituras continuas: responde con la lectura más reciente sin instalarla
+    return a;
+  }
+
+  private AgendaBarbero leer(Long barberoId, ZoneId tz, LocalDate hoy) {
+    LocalDate hasta = hoy.plusDays(props.getMaxAdvanceDays());
+    Instant desdeUtc = hoy.atStartOfDay(tz).toInstant();
+    Instant hastaUtc = hasta.plusDays(1).atStartOfDay(tz).toInstant();
+
+    AgendaBarbero a = new AgendaBarbero(tz, hoy, hoy, hasta);
+    a.horario = agruparHorario(horarioRepo.findByBarbero_IdOrderByDowAsc(barberoId));
+    for (BarberoBloqueo b : bloqueoRepo.findByBarbero_IdAndFinGreaterThanAndInicioLessThan(barberoId, desdeUtc, hastaUtc)) {
+      a.bloqueos.put(b.getId(), intervalo(b.getInicio(), b.getFin()));
+    }
+    for (Cita c : citaRepo.findAgendadasDelBarberoEnRango(barberoId, desdeUtc, hastaUtc)) {
+      a.citas.put(c.getId(), intervalo(c.getInicio(), c.getFin()));
+    }
+    return a;
+  }
+
+  /**
+   * Instala la lectura si nadie escribió desde {@code antes}; comprobar e instalar es un
+   * solo compute, excluyente con {@link #modificar}. Si otra carga del mismo día ya
+   * instaló (igual de válida), se queda esa. Devuelve la agenda vigente, o null si
+   * hubo escrituras y hay que volver a leer.
+   */
+  private AgendaBarbero instalar(Long barberoId, AgendaBarbero a, AtomicLong contador, long antes) {
+    AgendaBarbero[] vigente = new AgendaBarbero[1];
+    barberos.compute(barberoId, (k, actual) -> {
+      if (contador.get() != antes) return actual;
+      if (actual != null && !actual.cargadoEl.isBefore(a.cargadoEl)) {
+        vigente[0] = actual;
+        return actual;
+      }
+      a.citas.keySet().forEach(id -> citaBarbero.put(id, barberoId));
+      a.bloqueos.keySet().forEach(id -> bloqueoBarbero.put(id, barberoId));
+      vigente[0] = a;
+      return a;
+    });
+    return vigente[0];
+  }
+
+  private ZoneId zona() {
+    return ZoneId.of(props.getTimezone().trim());
+  }
+
+  private static long[] intervalo(Instant inicio, Instant fin) {
+    return new long[] { inicio.getEpochSecond(), fin.getEpochSecond() };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<LocalTime[]>[] agruparHorario(List<BarberoHorarioSemanal> franjas) {
+    List<LocalTime[]>[] porDow = new List[7];
+    for (int i = 0; i < 7; i++) porDow[i] = new ArrayList<>();
+    for (BarberoHorarioSemanal h : franjas) {
+      if (!Boolean.TRUE.equals(h.getActivo()) || h.getDow() == null) continue;
+      if (h.getDow() < 0 || h.getDow() > 6) continue;
+      porDow[h.getDow()].add(new LocalTime[] { h.getDesde(), h.getHasta() });
+    }
+    return porDow;
+  }
+
+  /** Agenda en memoria de un barbero; todo acceso mutable va sincronizado sobre la instancia. */
+  private static final class AgendaBarbero {
+    final ZoneId tz;
+    final LocalDate cargadoEl;
+    final LocalDate desde;
+    final LocalDate hasta;
+    volatile List<LocalTime[]>[] horario;
+    final Map<Long, long[]> citas = new HashMap<>();
+    final Map<Long, long[]> bloqueos = new HashMap<>();
+    final Map<LocalDate, DiaLibre> dias = new ConcurrentHashMap<>();
+
+    AgendaBarbero(ZoneId tz, LocalDate cargadoEl, LocalDate desde, LocalDate hasta) {
+      this.tz = tz;
+      this.cargadoEl = cargadoEl;
+      this.desde = desde;
+      this.hasta = hasta;
+    }
+
+    DiaLibre dia(LocalDate fecha) {
+      DiaLibre d = dias.get(fecha);
+      if (d != null) return d;
+      synchronized (this) {
+        return dias.computeIfAbsent(fecha, this::calcular);
+      }
+    }
+
+    /** Descarta los bitmaps de los días locales que toca el intervalo [ini, fin). */
+    void invalidar(long iniSec, long finSec) {
+      LocalDate d = Instant.ofEpochSecond(iniSec).atZone(tz).toLocalDate();
+      LocalDate ultimo = Instant.ofEpochSecond(Math.max(iniSec, finSec - 1)).atZone(tz).toLocalDate();
+      for (; !d.isAfter(ultimo); d = d.plusDays(1)) {
+        dias.remove(d);
+      }
+    }
+
+    private DiaLibre calcular(LocalDate fecha) {
+      long inicioDia = fecha.atStartOfDay(tz).toEpochSecond();
+      long finDia = fecha.plusDays(1).atStartOfDay(tz).toEpochSecond();
+      int minutos = (int) ((finDia - inicioDia) / 60);
+      long[] bits = new long[(minutos + 63) >>> 6];
+
+      // 1) Horario del DOW (0=domingo … 6=sábado)
+      int dow = fecha.getDayOfWeek().getValue() % 7;
+      for (LocalTime[] f : horario[dow]) {
+        long ini = ZonedDateTime.of(fecha, f[0], tz).toEpochSecond();
+        long fin = ZonedDateTime.of(fecha, f[1], tz).toEpochSecond();
+        if (fin > ini) marcar(bits, minutos, minutoPiso(ini, inicioDia), minutoTecho(fin, inicioDia), true);
+      }
+
+      // 2) Bloqueos y 3) citas AGENDADA: se ocupan los minutos que tocan
+      for (long[] b : bloqueos.values()) ocupar(bits, minutos, b, inicioDia, finDia);
+      for (long[] c : citas.values()) ocupar(bits, minutos, c, inicioDia, finDia);
+
+      return new DiaLibre(inicioDia, minutos, bits, rachasLibres(bits, minutos, inicioDia));
+    }
+
+    private static void ocupar(long[] bits, int minutos, long[] iv, long inicioDia, long finDia) {
+      if (iv[1] <= inicioDia || iv[0] >= finDia) return;
+      marcar(bits, minutos, minutoPiso(iv[0], inicioDia), minutoTecho(iv[1], inicioDia), false);
+    }
+
+    private static int minutoPiso(long sec, long inicioDia) {
+      return (int) Math.floorDiv(sec - inicioDia, 60L);
+    }
+
+    private static int minutoTecho(long sec, long inicioDia) {
+      return (int) -Math.floorDiv(inicioDia - sec, 60L);
+    }
+
+    private static void marcar(long[] bits, int minutos, int desde, int hasta, boolean libre) {
+      int a = Math.max(0, desde);
+      int b = Math.min(minutos, hasta);
+      for (int m = a; m < b; m++) {
+        if (libre) bits[m >>> 6] |= 1L << (m & 63);
+        else       bits[m >>> 6] &= ~(1L << (m & 63));
+      }
+    }
+  }
+
+  /**
+   * Bitmap de minutos libres de un día local y sus rachas ya extraídas;
+   * inmutable una vez calculado.
+   */
+  private record DiaLibre(long inicioDia, int minutos, long[] bits, long[] ventanas) {}
+
+  /** Rachas de minutos libres como pares [inicio, fin) en epoch-seconds. */
+  private static long[] rachasLibres(long[] bits, int minutos, long inicioDia) {
+    long[] out = new long[8];
+    int n = 0;
+    int m = 0;
+    while (m < minutos) {
+      if ((bits[m >>> 6] & (1L << (m & 63))) == 0) { m++; continue; }
+      int ini = m;
+      while (m < minutos && (bits[m >>> 6] & (1L << (m & 63))) != 0) m++;
+      if (n + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+      out[n++] = inicioDia + ini * 60L;
+      out[n++] = inicioDia + m * 60L;
+    }
+    return Arrays.copyOf(out, n);
+  }
+}
@@ -0,0 +1,18 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaEventoSuscriptor.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+
+import java.util.List;
+
+/**
+ * Consumidor en proceso de los eventos de agenda. Basta con declararlo como bean.
+ *
+ * La entrega es al menos una vez y se lleva por suscriptor: si uno falla, sólo él vuelve
+ * a recibir los eventos (primero de uno en uno, luego en la siguiente pasada). Aun así un
+ * evento puede repetirse, así que cada uno debe tolerarlo (el {@code id} es estable).
+ * Se llama dentro de la transacción del despachador; no debe usar la BD ni tardar mucho.
+ */
+public interface AgendaEventoSuscriptor {
+  void alRecibir(List<AgendaEvento> eventos);
+}
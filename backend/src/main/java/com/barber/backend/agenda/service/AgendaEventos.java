@@ -0,0 +1,68 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaEventos.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
+import com.barber.backend.agenda.model.AgendaEventoOutbox;
+import com.barber.backend.agenda.model.BarberoBloqueo;
+import com.barber.backend.agenda.repository.AgendaEventoOutboxRepository;
+import com.barber.backend.citas.model.Cita;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publica eventos de agenda en el outbox. Exige transacción: el evento se guarda o se
+ * pierde junto con el cambio que lo produjo, y nadie lo ve antes del commit.
+ */
+@Component
+public class AgendaEventos {
+
+  private final AgendaEventoOutboxRepository repo;
+
+  public AgendaEventos(AgendaEventoOutboxRepository repo) {
+    this.repo = repo;
+  }
+
+  /** {@code fin} se pasa aparte: en una actualización el de la entidad se recalcula al hacer flush. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void cita(Tipo tipo, Long citaId, Long barberoId, Instant inicio, Instant fin, Cita.Estado estado) {
+    repo.save(fila(tipo, citaId, barberoId, inicio, fin, estado != null ? estado.name() : null));
+  }
+
+  /** Varios eventos en un solo saveAll (series, cierres en bloque); se ignoran id y ocurridoEn. */
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void publicar(List<AgendaEvento> eventos) {
+    List<AgendaEventoOutbox> filas = new ArrayList<>(eventos.size());
+    for (AgendaEvento e : eventos) {
+      filas.add(fila(e.tipo(), e.entidadId(), e.barberoId(), e.inicio(), e.fin(), e.estado()));
+    }
+    repo.saveAll(filas);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void bloqueo(Tipo tipo, BarberoBloqueo b) {
+    repo.save(fila(tipo, b.getId(), b.getBarbero().getId(), b.getInicio(), b.getFin(), null));
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void horarioReemplazado(Long barberoId) {
+    repo.save(fila(Tipo.HORARIO_REEMPLAZADO, barberoId, barberoId, null, null, null));
+  }
+
+  private static AgendaEventoOutbox fila(Tipo tipo, Long entidadId, Long barberoId,
+                                         Instant inicio, Instant fin, String estado) {
+    AgendaEventoOutbox e = new AgendaEventoOutbox();
+    e.setTipo(tipo);
+    e.setEntidadId(entidadId);
+    e.setBarberoId(barberoId);
+    e.setInicio(inicio);
+    e.setFin(fin);
+    e.setEstado(estado);
+    return e;
+  }
+}
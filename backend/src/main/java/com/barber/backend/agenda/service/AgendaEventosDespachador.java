@@ -0,0 +1,151 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaEventosDespachador.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.model.AgendaEventoOutbox;
+import com.barber.backend.agenda.repository.AgendaEventoOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.ClassUtils;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entrega los eventos pendientes del outbox a los {@link AgendaEventoSuscriptor} en lotes,
+ * fuera del request que los produjo.
+ *
+ * Cada lote es una transacción corta: toma las filas con SKIP LOCKED (otra instancia se
+ * lleva el lote siguiente), llama a los suscriptores y marca procesado_en. La entrega se
+ * lleva por suscriptor (nombre de su clase) en entregado_a: si uno falla con el lote, a
+ * ese mismo se le pasan los eventos de uno en uno y sólo los que vuelven a fallar quedan
+ * pendientes, con un intento más y sólo para él; los demás suscriptores no los reciben de
+ * nuevo. Al llegar al máximo de intentos el evento se marca procesado con el error en
+ * ultimo_error.
+ */
+@Component
+public class AgendaEventosDespachador {
+
+  private static final Logger log = LoggerFactory.getLogger(AgendaEventosDespachador.class);
+  private static final int PURGA_LOTE = 1000;
+  private static final int ERROR_MAX = 500;
+
+  private final AgendaEventoOutboxRepository repo;
+  private final ObjectProvider<AgendaEventoSuscriptor> suscriptores;
+  private final AgendaProperties props;
+  private final TransactionTemplate tx;
+
+  public AgendaEventosDespachador(AgendaEventoOutboxRepository repo,
+                                  ObjectProvider<AgendaEventoSuscriptor> suscriptores,
+                                  AgendaProperties props,
+                                  PlatformTransactionManager txManager) {
+    this.repo = repo;
+    this.suscriptores = suscriptores;
+    this.props = props;
+    this.tx = new TransactionTemplate(txManager);
+  }
+
+  @Scheduled(initialDelayString = "${agenda.eventos-retraso-inicial-ms:5000}",
+      fixedDelayString = "${agenda.eventos-intervalo-ms:1000}")
+  public void ejecutar() {
+    if (!props.isEventosEnabled()) return;
+    despachar();
+  }
+
+  @Scheduled(initialDelayString = "${agenda.eventos-purga-retraso-inicial-ms:60000}",
+      fixedDelayString = "${agenda.eventos-purga-intervalo-ms:3600000}")
+  public void purgar() {
+    Instant limite = Instant.now().minusSeconds(props.getEventosRetencionHoras() * 3600L);
+    int total = 0;
+    Integer n;
+    do {
+      n = tx.execute(s -> repo.purgarProcesados(limite, PURGA_LOTE));
+      total += n != null ? n : 0;
+    } while (n != null && n == PURGA_LOTE);
+    if (total > 0) {
+      log.info("Outbox de agenda: {} eventos entregados purgados", total);
+    }
+  }
+
+  /** Entrega hasta {@code eventosMaxLotes} lotes; devuelve cuántos eventos quedaron procesados. */
+  int despachar() {
+    int lote = Math.max(1, props.getEventosLote());
+    int total = 0;
+    for (int i = 0; i < props.getEventosMaxLotes(); i++) {
+      Lote r = tx.execute(s -> despacharLote(lote));
+      if (r == null) break;
+      total += r.procesados();
+      // Con error no se reintenta en esta pasada: el lote fallido volvería a salir primero
+      if (r.fallo() || r.filas() < lote) break;
+    }
+    return total;
+  }
+
+  private Lote despacharLote(int lote) {
+    List<AgendaEventoOutbox> filas = repo.findPendientes(Limit.of(lote));
+    if (filas.isEmpty()) return new Lote(0, 0, false);
+
+    Map<Long, String> errores = new HashMap<>();
+    for (AgendaEventoSuscriptor s : suscriptores.orderedStream().toList()) {
+      String nombre = ClassUtils.getUserClass(s).getSimpleName();
+      List<AgendaEventoOutbox> faltan = filas.stream().filter(f -> !entregado(f, nombre)).toList();
+      if (faltan.isEmpty()) continue;
+      try {
+        s.alRecibir(faltan.stream().map(AgendaEventoOutbox::toEvento).toList());
+        faltan.forEach(f -> marcarEntregado(f, nombre));
+      } catch (RuntimeException e) {
+        log.warn("Suscriptor {} falló con {} eventos de agenda; se reintentan de uno en uno",
+            nombre, faltan.size(), e);
+        for (AgendaEventoOutbox f : faltan) {
+          try {
+            s.alRecibir(List.of(f.toEvento()));
+            marcarEntregado(f, nombre);
+          } catch (RuntimeException e1) {
+            errores.putIfAbsent(f.getId(), recortar(nombre + ": " + e1));
+          }
+        }
+      }
+    }
+
+    Instant ahora = Instant.now();
+    int procesados = 0;
+    for (AgendaEventoOutbox f : filas) {
+      String error = errores.get(f.getId());
+      if (error != null) {
+        f.setIntentos(f.getIntentos() + 1);
+        f.setUltimoError(error);
+        if (f.getIntentos() < props.getEventosMaxIntentos()) continue;
+        log.error("Evento de agenda {} descartado tras {} intentos: {}", f.getId(), f.getIntentos(), error);
+      }
+      f.setProcesadoEn(ahora);
+      procesados++;
+    }
+    return new Lote(filas.size(), procesados, !errores.isEmpty());
+  }
+
+  private static boolean entregado(AgendaEventoOutbox f, String suscriptor) {
+    String a = f.getEntregadoA();
+    return a != null && Arrays.asList(a.split(",")).contains(suscriptor);
+  }
+
+  private static void marcarEntregado(AgendaEventoOutbox f, String suscriptor) {
+    String a = f.getEntregadoA();
+    f.setEntregadoA(a == null ? suscriptor : a + "," + suscriptor);
+  }
+
+  private static String recortar(String s) {
+    return s.length() <= ERROR_MAX ? s : s.substring(0, ERROR_MAX);
+  }
+
+  private record Lote(int filas, int procesados, boolean fallo) { }
+}
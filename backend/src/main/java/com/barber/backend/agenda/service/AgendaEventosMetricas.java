@@ -0,0 +1,34 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaEventosMetricas.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/** Suscriptor de ejemplo: cuenta eventos por tipo en /actuator/metrics/agenda.eventos. */
+@Component
+public class AgendaEventosMetricas implements AgendaEventoSuscriptor {
+
+  private final Map<AgendaEvento.Tipo, Counter> porTipo = new EnumMap<>(AgendaEvento.Tipo.class);
+
+  public AgendaEventosMetricas(MeterRegistry registry) {
+    for (AgendaEvento.Tipo t : AgendaEvento.Tipo.values()) {
+      porTipo.put(t, Counter.builder("agenda.eventos")
+          .description("Eventos de agenda entregados desde el outbox")
+          .tag("tipo", t.name())
+          .register(registry));
+    }
+  }
+
+  @Override
+  public void alRecibir(List<AgendaEvento> eventos) {
+    for (AgendaEvento e : eventos) {
+      porTipo.get(e.tipo()).increment();
+    }
+  }
+}
@@ -2,7 +2,17 @@
 package com.barber.backend.agenda.service;
 
 import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.ApartadoDTO;
+import com.barber.backend.agenda.dto.ApartadoRequest;
+import com.barber.backend.agenda.dto.SlotBarberosDTO;
 import com.barber.backend.agenda.dto.SlotDTO;
+import com.barber.backend.agenda.dto.SlotsCualquierBarberoRequest;
+import com.barber.backend.agenda.dto.SlotsCualquierBarberoResponse;
+import com.barber.backend.agenda.dto.SlotsDiaDTO;
+import com.barber.backend.agenda.dto.SlotsProximosRequest;
+import com.barber.backend.agenda.dto.SlotsProximosResponse;
+import com.barber.backend.agenda.dto.SlotsRangoRequest;
+import com.barber.backend.agenda.dto.SlotsRangoResponse;
 import com.barber.backend.agenda.dto.SlotsRequest;
 import com.barber.backend.agenda.dto.SlotsResponse;
 import com.barber.backend.agenda.model.BarberoBloqueo;
@@ -18,11 +28,20 @@ import com.barber.backend.citas.repository.CitaRepository;
 import jakarta.persistence.EntityNotFoundException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class AgendaService {
@@ -33,21 +52,32 @@ public class AgendaService {
   private final ServicioRepository servicioRepo;
   private final BarberoHorarioSemanalRepository horarioRepo;
   private final BarberoBloqueoRepository bloqueoRepo;
+  private final AgendaDisponibilidadIndex index;
+  private final AgendaSlotsCache slotsCache;
+  private final AgendaApartados apartados;
 
   private static final DateTimeFormatter YYYY_MM_DD = DateTimeFormatter.ISO_LOCAL_DATE;
+  private static final int DEFAULT_PROXIMOS = 5;
+  private static final int MAX_PROXIMOS = 50;
 
   public AgendaService(AgendaProperties props,
                        CitaRepository citaRepo,
                        BarberoRepository barberoRepo,
                        ServicioRepository servicioRepo,
                        BarberoHorarioSemanalRepository horarioRepo,
-                       BarberoBloqueoRepository bloqueoRepo) {
+                       BarberoBloqueoRepository bloqueoRepo,
+                       AgendaDisponibilidadIndex index,
+                       AgendaSlotsCache slotsCache,
+                       AgendaApartados apartados) {
     this.props = props;
     this.citaRepo = citaRepo;
     this.barberoRepo = barberoRepo;
     this.servicioRepo = servicioRepo;
     this.horarioRepo = horarioRepo;
     this.bloqueoRepo = bloqueoRepo;
+    this.index = index;
+    this.slotsCache = slotsCache;
+    this.apartados = apartados;
   }
 
   public SlotsResponse getSlots(SlotsRequest r) {
@@ -58,17 +88,8 @@ public class AgendaService {
     // timezone desde properties
     final ZoneId tz = ZoneId.of(props.getTimezone().trim());
 
-    // validaciones de existencia
-    barberoRepo.findById(r.barberoId())
-        .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
-    final Servicio servicio = servicioRepo.findById(r.servicioId())
-        .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
-
-    // duración efectiva del servicio
-    int duracionMin = (r.duracionMin() != null && r.duracionMin() > 0)
-        ? r.duracionMin()
-        : (servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0);
-    if (duracionMin <= 0) duracionMin = 15;
+    // duración efectiva del servicio (también valida que exista)
+    int duracionMin = duracionEfectiva(r.servicioId(), r.duracionMin());
 
     // tamaño de slot efectivo
     int slotSizeMin = (r.slotSizeMin() != null && r.slotSizeMin() > 0)
@@ -81,135 +102,543 @@ public class AgendaService {
     final Instant minStart = now.plus(Duration.ofMinutes(props.getMinAdvanceMin()));
     final Instant maxStart = now.plus(Duration.ofDays(props.getMaxAdvanceDays()));
 
-    // rango UTC del día en zona local
-    final Instant startOfDayUtc = ld.atStartOfDay(tz).toInstant();
-    final Instant endOfDayUtc   = ld.plusDays(1).atStartOfDay(tz).minusNanos(1).toInstant();
+    // 1-3) Ventanas base y ocupados: del índice en memoria o, si está deshabilitado, de BD
+    // 4-6) Resta, anticipos, buffer y generación de slots en un solo barrido (o de caché)
+    List<SlotDTO> slots = slotsDelDia(r.barberoId(), ld, tz, slotSizeMin, duracionMin, minStart, maxStart,
+        () -> props.isIndexEnabled()
+            ? disponibilidadDelIndice(r.barberoId(), ld)
+            : disponibilidadDesdeBd(r.barberoId(), ld, tz));
 
-    // 1) Ventanas base: horario semanal activo del barbero para el DOW del día
-    //    Tu DOW es 0=domingo … 6=sábado; java = 1=lun … 7=dom → mapeo: (javaDow % 7)
-    int javaDow = ld.getDayOfWeek().getValue(); // 1..7
-    int myDow = javaDow % 7;                    // 0..6 (0=domingo)
-    List<BarberoHorarioSemanal> franjas =
-    horarioRepo.findByBarbero_IdAndDowAndActivoTrue(r.barberoId(), Integer.valueOf(myDow));
-
-    List<Window> ventanas = new ArrayList<>();
-    for (BarberoHorarioSemanal h : franjas) {
-      // convierte LocalTime del horario a instantes concretos en la fecha
-      Instant ini = ZonedDateTime.of(ld, h.getDesde(), tz).toInstant();
-      Instant fin = ZonedDateTime.of(ld, h.getHasta(), tz).toInstant();
-      if (fin.isAfter(ini)) {
-        ventanas.add(new Window(ini, fin));
-      }
+    return new SlotsResponse(r.barberoId(), r.servicioId(), r.fecha(), slotSizeMin, duracionMin, slots);
+  }
+
+  /**
+   * ETag de {@link #getSlots(SlotsRequest)} calculado solo en memoria (sin repositorios):
+   * versión de agenda del barbero, versión del catálogo, parámetros efectivos y, solo si
+   * la fecha es la que recorta el anticipo mínimo o el horizonte, el minuto actual.
+   *
+   * Devuelve null con {@code agenda.index-enabled=false}: esas versiones solo ven las
+   * escrituras de esta JVM, y con varias instancias una reserva hecha en otra nunca
+   * cambiaría el ETag (304 con disponibilidad vieja sin límite de tiempo).
+   */
+  public String etagSlots(SlotsRequest r) {
+    if (r.barberoId() == null) throw new IllegalArgumentException("barberoId es requerido");
+    if (r.servicioId() == null) throw new IllegalArgumentException("servicioId es requerido");
+    if (r.fecha() == null || r.fecha().isBlank()) throw new IllegalArgumentException("fecha es requerida (yyyy-MM-dd)");
+    if (!props.isIndexEnabled()) return null;
+
+    // un servicio inexistente responde 404, no un ETag con un id inventado
+    duracionServicio(r.servicioId());
+
+    final ZoneId tz = ZoneId.of(props.getTimezone().trim());
+    final LocalDate ld = LocalDate.parse(r.fecha(), YYYY_MM_DD);
+    final Instant now = Instant.now();
+    final Instant minStart = now.plus(Duration.ofMinutes(props.getMinAdvanceMin()));
+    final Instant maxStart = now.plus(Duration.ofDays(props.getMaxAdvanceDays()));
+    int slotSizeMin = (r.slotSizeMin() != null && r.slotSizeMin() > 0)
+        ? r.slotSizeMin()
+        : props.getSlotSizeMin();
+
+    StringBuilder sb = new StringBuilder()
+        .append(index.instancia()).append('|')
+        .append(r.barberoId()).append('|').append(index.version(r.barberoId())).append('|')
+        .append(r.servicioId()).append('|').append(index.versionCatalogo()).append('|')
+        .append(r.duracionMin()).append('|').append(slotSizeMin).append('|').append(ld).append('|')
+        .append(apartados.firma(r.barberoId()));
+    // hoy (y antes) cambia al avanzar el anticipo; el último día, al avanzar el horizonte
+    if (!ld.isAfter(minStart.atZone(tz).toLocalDate())) sb.append("|min").append(minStart.getEpochSecond() / 60);
+    if (!ld.isBefore(maxStart.atZone(tz).toLocalDate())) sb.append("|max").append(maxStart.getEpochSecond() / 60);
+    return "\"" + DigestUtils.md5DigestAsHex(sb.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+  }
+
+  /**
+   * Aparta temporalmente el slot elegido para que otro cliente no lo tome mientras se
+   * llena el formulario; deja de mostrarse en los slots hasta que vence o se libera.
+   * Solo se aparta un slot que {@link #getSlots(SlotsRequest)} ofrecería (horario,
+   * bloqueos, citas, anticipo y horizonte), con tope de apartados por usuario.
+   */
+  public ApartadoDTO apartar(String usuario, ApartadoRequest r) {
+    if (usuario == null || usuario.isBlank()) throw new IllegalArgumentException("usuario es requerido");
+    if (r.barberoId() == null) throw new IllegalArgumentException("barberoId es requerido");
+    if (r.servicioId() == null) throw new IllegalArgumentException("servicioId es requerido");
+    if (r.inicio() == null) throw new IllegalArgumentException("inicio es requerido");
+
+    int duracionMin = duracionEfectiva(r.servicioId(), r.duracionMin());
+    if (duracionMin > Cita.DURACION_MAX_MIN) {
+      throw new IllegalArgumentException("duracionMin no puede exceder " + Cita.DURACION_MAX_MIN);
     }
-    // si no hay horario ese día → no hay slots
-    if (ventanas.isEmpty()) {
-      return new SlotsResponse(r.barberoId(), r.servicioId(), r.fecha(), slotSizeMin, duracionMin, List.of());
+    Instant fin = r.inicio().plusSeconds(duracionMin * 60L);
+
+    final ZoneId tz = ZoneId.of(props.getTimezone().trim());
+    String fecha = r.inicio().atZone(tz).toLocalDate().format(YYYY_MM_DD);
+    SlotsResponse ofrecidos = getSlots(new SlotsRequest(r.barberoId(), r.servicioId(), fecha, r.slotSizeMin(), duracionMin));
+    if (ofrecidos.slots().stream().noneMatch(s -> s.inicio().equals(r.inicio()))) {
+      throw new IllegalStateException("Ese horario no está disponible");
+    }
+    // el índice puede ir detrás de otra instancia: la BD tiene la última palabra sobre citas
+    if (citaRepo.countOverlaps(r.barberoId(), r.inicio(), fin) > 0) {
+      throw new IllegalStateException("El barbero ya tiene una cita en ese horario");
     }
+    return apartados.apartar(usuario, r.barberoId(), r.inicio(), fin);
+  }
 
-    // 2) Restar bloqueos del barbero que crucen el día
-    List<BarberoBloqueo> bloqueos = bloqueoRepo.findByBarberoIdAndInicioLessThanAndFinGreaterThan(
-        r.barberoId(), endOfDayUtc, startOfDayUtc);
-    ventanas = restarVentanas(ventanas, bloqueos.stream()
-        .map(b -> new Window(b.getInicio(), b.getFin()))
-        .toList());
+  /** Sólo el dueño del apartado o un admin; para cualquier otro es 404, como si no existiera. */
+  public void liberarApartado(String holdId, String usuario, boolean admin) {
+    if (!apartados.liberar(holdId, usuario, admin)) throw new EntityNotFoundException("Apartado no encontrado");
+  }
 
-    // 3) Restar citas AGENDADA que crucen el día
-    List<Cita> citasDia = citaRepo.findAgendadasDelBarberoEnRango(r.barberoId(), startOfDayUtc, endOfDayUtc);
-    ventanas = restarVentanas(ventanas, citasDia.stream()
-        .map(c -> new Window(c.getInicio(), c.getFin()))
-        .toList());
+  /**
+   * Slots de varios días consecutivos [desde, hasta] en una sola llamada.
+   * Sin índice en memoria hace una consulta por tabla (horario, bloqueos, citas) para
+   * todo el rango, solo si algún día no está en caché, y luego recorre los días en una
+   * sola pasada sobre los ocupados ordenados.
+   */
+  public SlotsRangoResponse getSlotsRango(SlotsRangoRequest r) {
+    if (r.barberoId() == null) throw new IllegalArgumentException("barberoId es requerido");
+    if (r.servicioId() == null) throw new IllegalArgumentException("servicioId es requerido");
+    if (r.desde() == null || r.desde().isBlank() || r.hasta() == null || r.hasta().isBlank()) {
+      throw new IllegalArgumentException("desde/hasta son requeridos (yyyy-MM-dd)");
+    }
 
-    // 4) Aplicar anticipo mínimo y horizonte máximo (sobre el inicio del slot)
-    ventanas = aplicarAnticipos(ventanas, minStart, maxStart);
+    final ZoneId tz = ZoneId.of(props.getTimezone().trim());
+    final LocalDate desde = LocalDate.parse(r.desde(), YYYY_MM_DD);
+    final LocalDate hasta = LocalDate.parse(r.hasta(), YYYY_MM_DD);
+    if (hasta.isBefore(desde)) {
+      throw new IllegalArgumentException("'desde' debe ser anterior o igual a 'hasta'");
+    }
+    // el horizonte de reserva acota el rango útil: +1 por el día en curso
+    long dias = Duration.between(desde.atStartOfDay(), hasta.atStartOfDay()).toDays() + 1;
+    if (dias > props.getMaxAdvanceDays() + 1L) {
+      throw new IllegalArgumentException("El rango no puede exceder " + (props.getMaxAdvanceDays() + 1) + " días");
+    }
 
-    // 5) Aplicar buffer a ambos lados de cada ventana (para preparar/limpiar)
-    int bufferMin = props.getBufferBetweenMin();
-    ventanas = aplicarBuffer(ventanas, bufferMin);
+    int duracionMin = duracionEfectiva(r.servicioId(), r.duracionMin());
+    int slotSizeMin = (r.slotSizeMin() != null && r.slotSizeMin() > 0)
+        ? r.slotSizeMin()
+        : props.getSlotSizeMin();
 
-    // 6) Generar slots alineados a slotSizeMin y quepan duracionMin completa
-    List<SlotDTO> slots = generarSlots(ventanas, tz, slotSizeMin, duracionMin);
+    final Instant now = Instant.now();
+    final Instant minStart = now.plus(Duration.ofMinutes(props.getMinAdvanceMin()));
+    final Instant maxStart = now.plus(Duration.ofDays(props.getMaxAdvanceDays()));
 
-    return new SlotsResponse(r.barberoId(), r.servicioId(), r.fecha(), slotSizeMin, duracionMin, slots);
+    List<SlotsDiaDTO> out = new ArrayList<>((int) dias);
+    RangoBd rango = props.isIndexEnabled() ? null : new RangoBd(List.of(r.barberoId()), desde, hasta, tz);
+    for (LocalDate ld = desde; !ld.isAfter(hasta); ld = ld.plusDays(1)) {
+      final LocalDate dia = ld;
+      List<SlotDTO> slots = slotsDelDia(r.barberoId(), dia, tz, slotSizeMin, duracionMin, minStart, maxStart,
+          () -> rango == null ? disponibilidadDelIndice(r.barberoId(), dia) : rango.dia(r.barberoId(), dia));
+      out.add(new SlotsDiaDTO(dia.format(YYYY_MM_DD), slots));
+    }
+
+    return new SlotsRangoResponse(r.barberoId(), r.servicioId(), r.desde(), r.hasta(), slotSizeMin, duracionMin, out);
+  }
+
+  /**
+   * Slots de un servicio con cualquier barbero que lo ofrezca: une los slots de todos
+   * los candidatos y anota qué barberos están libres en cada uno. Sin índice en memoria
+   * usa una consulta por tabla para todos los candidatos (IN) en lugar de N llamadas.
+   */
+  public SlotsCualquierBarberoResponse getSlotsCualquierBarbero(SlotsCualquierBarberoRequest r) {
+    if (r.servicioId() == null) throw new IllegalArgumentException("servicioId es requerido");
+    if (r.fecha() == null || r.fecha().isBlank()) throw new IllegalArgumentException("fecha es requerida (yyyy-MM-dd)");
+
+    final ZoneId tz = ZoneId.of(props.getTimezone().trim());
+
+    int duracionMin = duracionEfectiva(r.servicioId(), r.duracionMin());
+    final int slotSizeMin = (r.slotSizeMin() != null && r.slotSizeMin() > 0)
+        ? r.slotSizeMin()
+        : props.getSlotSizeMin();
+    final int duracion = duracionMin;
+
+    final LocalDate ld = LocalDate.parse(r.fecha(), YYYY_MM_DD);
+    final Instant now = Instant.now();
+    final Instant minStart = now.plus(Duration.ofMinutes(props.getMinAdvanceMin()));
+    final Instant maxStart = now.plus(Duration.ofDays(props.getMaxAdvanceDays()));
+
+    // Candidatos: barberos activos con el servicio (barbero_servicio)
+    List<Long> candidatos = barberoRepo.findIdsActivosPorServicio(r.servicioId());
+    if (candidatos.isEmpty()) {
+      return new SlotsCualquierBarberoResponse(r.servicioId(), r.fecha(), slotSizeMin, duracionMin, List.of());
+    }
+
+    // Toda la E/S va antes y en este hilo; el tramo paralelo corre en el ForkJoinPool común
+    // y no debe bloquearse en JDBC. Con índice: se carga (o se toma) cada barbero en orden.
+    // Sin índice: una consulta por tabla (IN) solo para los barberos que no están en caché.
+    final Map<Long, Disponibilidad> precargadas;
+    if (props.isIndexEnabled()) {
+      precargadas = new HashMap<>();
+      for (Long id : candidatos) precargadas.put(id, disponibilidadDelIndice(id, ld));
+    } else {
+      List<Long> faltan = candidatos.stream()
+          .filter(id -> !slotsCache.admite(duracion, slotSizeMin)
+              || !slotsCache.contiene(new AgendaSlotsCache.Clave(id, ld, duracion, slotSizeMin)))
+          .toList();
+      precargadas = faltan.isEmpty() ? Map.of() : disponibilidadDesdeBd(faltan, ld, tz);
+    }
+
+    // Cálculo por barbero en paralelo (CPU puro, sin E/S; un motor por hilo). Si una
+    // entrada expiró de la caché entre la consulta y el cálculo, el barbero queda fuera
+    // y se calcula después, de vuelta en este hilo.
+    Map<Long, List<SlotDTO>> slotsPorBarbero = new ConcurrentHashMap<>();
+    candidatos.parallelStream().forEach(id -> {
+      try {
+        slotsPorBarbero.put(id, slotsDelDia(id, ld, tz, slotSizeMin, duracion, minStart, maxStart,
+            () -> {
+              Disponibilidad d = precargadas.get(id);
+              if (d == null) throw SinPrecarga.INSTANCIA;
+              return d;
+            }));
+      } catch (SinPrecarga e) {
+        // se completa abajo
+      }
+    });
+    List<Long> expiradas = candidatos.stream().filter(id -> !slotsPorBarbero.containsKey(id)).toList();
+    if (!expiradas.isEmpty()) {
+      Map<Long, Disponibilidad> tardias = disponibilidadDesdeBd(expiradas, ld, tz);
+      for (Long id : expiradas) {
+        slotsPorBarbero.put(id, slotsDelDia(id, ld, tz, slotSizeMin, duracion, minStart, maxStart,
+            () -> tardias.get(id)));
+      }
+    }
+
+    List<SlotBarberosDTO> slots = unirPorInicio(candidatos, slotsPorBarbero);
+    return new SlotsCualquierBarberoResponse(r.servicioId(), r.fecha(), slotSizeMin, duracionMin, slots);
+  }
+
+  /**
+   * Primeros N slots libres a partir de ahora para un barbero o, sin barberoId, para
+   * cualquiera que ofrezca el servicio. Recorre el horizonte día por día y se detiene en
+   * cuanto junta N; sin índice en memoria los bloqueos y citas de todo el horizonte se
+   * leen con una consulta por tabla.
+   */
+  public SlotsProximosResponse getSlotsProximos(SlotsProximosRequest r) {
+    if (r.servicioId() == null) throw new IllegalArgumentException("servicioId es requerido");
+
+    final ZoneId tz = ZoneId.of(props.getTimezone().trim());
+
+    int duracionMin = duracionEfectiva(r.servicioId(), r.duracionMin());
+    final int slotSizeMin = (r.slotSizeMin() != null && r.slotSizeMin() > 0)
+        ? r.slotSizeMin()
+        : props.getSlotSizeMin();
+    final int duracion = duracionMin;
+    final int cantidad = (r.cantidad() != null && r.cantidad() > 0)
+        ? Math.min(r.cantidad(), MAX_PROXIMOS)
+        : DEFAULT_PROXIMOS;
+
+    final Instant now = Instant.now();
+    final Instant minStart = now.plus(Duration.ofMinutes(props.getMinAdvanceMin()));
+    final Instant maxStart = now.plus(Duration.ofDays(props.getMaxAdvanceDays()));
+    final LocalDate hoy = LocalDate.now(tz);
+    final LocalDate ultimo = hoy.plusDays(props.getMaxAdvanceDays());
+
+    List<Long> barberos = r.barberoId() != null
+        ? List.of(r.barberoId())
+        : barberoRepo.findIdsActivosPorServicio(r.servicioId());
+    List<SlotBarberosDTO> slots = new ArrayList<>(cantidad);
+    if (barberos.isEmpty()) {
+      return new SlotsProximosResponse(r.barberoId(), r.servicioId(), slotSizeMin, duracionMin, slots);
+    }
+
+    RangoBd rango = props.isIndexEnabled() ? null : new RangoBd(barberos, hoy, ultimo, tz);
+    for (LocalDate ld = hoy; !ld.isAfter(ultimo) && slots.size() < cantidad; ld = ld.plusDays(1)) {
+      final LocalDate dia = ld;
+      Map<Long, List<SlotDTO>> slotsPorBarbero = new HashMap<>();
+      for (Long id : barberos) {
+        slotsPorBarbero.put(id, slotsDelDia(id, dia, tz, slotSizeMin, duracion, minStart, maxStart,
+            () -> rango == null ? disponibilidadDelIndice(id, dia) : rango.dia(id, dia)));
+      }
+      for (SlotBarberosDTO s : unirPorInicio(barberos, slotsPorBarbero)) {
+        if (slots.size() == cantidad) break;
+        slots.add(s);
+      }
+    }
+
+    return new SlotsProximosResponse(r.barberoId(), r.servicioId(), slotSizeMin, duracionMin, slots);
   }
 
   // ===== Helpers =====
 
-  /** Una ventana de disponibilidad [inicio, fin). */
-  private record Window(Instant inicio, Instant fin) {}
-
-  /** Resta de ventanas (base - restas). */
-  private List<Window> restarVentanas(List<Window> base, List<Window> restas) {
-    List<Window> result = new ArrayList<>(base);
-    for (Window r : restas) {
-      List<Window> next = new ArrayList<>();
-      for (Window w : result) {
-        // Sin intersección
-        if (r.fin().isBefore(w.inicio()) || r.inicio().isAfter(w.fin())) {
-          next.add(w);
-          continue;
-        }
-        // Particiones
-        if (r.inicio().isAfter(w.inicio())) next.add(new Window(w.inicio(), r.inicio()));
-        if (r.fin().isBefore(w.fin()))     next.add(new Window(r.fin(), w.fin()));
+  /** Une los slots de varios barberos por inicio; los ids quedan en el orden de {@code barberoIds}. */
+  private static List<SlotBarberosDTO> unirPorInicio(List<Long> barberoIds, Map<Long, List<SlotDTO>> slotsPorBarbero) {
+    TreeMap<Instant, List<Long>> porInicio = new TreeMap<>();
+    Map<Instant, Instant> finPorInicio = new HashMap<>();
+    for (Long id : barberoIds) {
+      for (SlotDTO slot : slotsPorBarbero.get(id)) {
+        porInicio.computeIfAbsent(slot.inicio(), k -> new ArrayList<>()).add(id);
+        finPorInicio.putIfAbsent(slot.inicio(), slot.fin());
       }
-      result = next.stream().filter(x -> x.inicio().isBefore(x.fin())).toList();
     }
-    return result;
+    List<SlotBarberosDTO> out = new ArrayList<>(porInicio.size());
+    porInicio.forEach((inicio, ids) -> out.add(new SlotBarberosDTO(inicio, finPorInicio.get(inicio), List.copyOf(ids))));
+    return out;
   }
 
-  /** Recorta ventanas por anticipo mínimo y horizonte máximo. */
-  private List<Window> aplicarAnticipos(List<Window> ventanas, Instant minStart, Instant maxStart) {
-    List<Window> out = new ArrayList<>();
-    for (Window w : ventanas) {
-      Instant ini = w.inicio();
-      Instant fin = w.fin();
+  /**
+   * Ventanas base del día y ocupados a restar, como pares planos de epoch-seconds;
+   * de {@code ocupados} se usa el tramo [ocDesde, ocHasta).
+   * Desde el índice las ventanas ya vienen libres y no hay ocupados.
+   */
+  private record Disponibilidad(long[] base, long[] ocupados, int ocDesde, int ocHasta) {
+    Disponibilidad(long[] base, long[] ocupados) {
+      this(base, ocupados, 0, ocupados.length);
+    }
+  }
 
-      // si todo el bloque queda antes del anticipo, descartar
-      if (!fin.isAfter(minStart)) continue;
-      // si todo el bloque queda después del horizonte, descartar
-      if (!ini.isBefore(maxStart)) continue;
+  private static final long[] SIN_OCUPADOS = new long[0];
 
-      Instant recIni = ini.isBefore(minStart) ? minStart : ini;
-      Instant recFin = fin.isAfter(maxStart) ? maxStart : fin;
-      if (recIni.isBefore(recFin)) out.add(new Window(recIni, recFin));
+  /** El tramo paralelo pidió una disponibilidad que no se precargó; sin traza, es control de flujo. */
+  private static final class SinPrecarga extends RuntimeException {
+    static final SinPrecarga INSTANCIA = new SinPrecarga();
+
+    private SinPrecarga() {
+      super(null, null, false, false);
+    }
+  }
+
+  /** Un motor por hilo: reutiliza sus arreglos de trabajo entre peticiones. */
+  private static final ThreadLocal<SlotEngine> MOTOR = ThreadLocal.withInitial(SlotEngine::new);
+
+  /**
+   * Slots de un barbero en un día. Si la combinación es cacheable se toman de
+   * {@link AgendaSlotsCache} (calculados sin anticipo ni horizonte) y se recortan aquí;
+   * si no, se calculan directamente con los límites de la petición. En ambos casos se
+   * ocultan los slots apartados por otros clientes.
+   */
+  private List<SlotDTO> slotsDelDia(Long barberoId, LocalDate ld, ZoneId tz, int slotSizeMin, int duracionMin,
+                                    Instant minStart, Instant maxStart, Supplier<Disponibilidad> fuente) {
+    if (!slotsCache.admite(duracionMin, slotSizeMin)) {
+      return apartados.ocultar(barberoId, calcularSlots(fuente.get(),
+          minStart.getEpochSecond(), maxStart.getEpochSecond(), tz, slotSizeMin, duracionMin));
+    }
+    List<SlotDTO> dia = slotsCache.obtener(new AgendaSlotsCache.Clave(barberoId, ld, duracionMin, slotSizeMin),
+        () -> calcularSlots(fuente.get(), Long.MIN_VALUE, Long.MAX_VALUE, tz, slotSizeMin, duracionMin));
+    return apartados.ocultar(barberoId, recortar(dia, minStart, maxStart));
+  }
+
+  /**
+   * Recorta slots calculados sin límites al anticipo mínimo y al horizonte, igual que
+   * si se hubieran aplicado antes del buffer. El inicio se compara al minuto porque la
+   * alineación descarta los segundos.
+   */
+  private List<SlotDTO> recortar(List<SlotDTO> slots, Instant minStart, Instant maxStart) {
+    long bufferSec = props.getBufferBetweenMin() * 60L;
+    long desde = Math.floorDiv(minStart.getEpochSecond() + bufferSec, 60L) * 60L;
+    long hasta = maxStart.getEpochSecond() - bufferSec;
+    if (slots.isEmpty()
+        || (slots.get(0).inicio().getEpochSecond() >= desde
+            && slots.get(slots.size() - 1).fin().getEpochSecond() <= hasta)) {
+      return slots;
+    }
+    List<SlotDTO> out = new ArrayList<>(slots.size());
+    for (SlotDTO s : slots) {
+      if (s.inicio().getEpochSecond() >= desde && s.fin().getEpochSecond() <= hasta) out.add(s);
+    }
+    return out;
+  }
+
+  /** Pasos 4-6 sobre el motor primitivo; solo se crean objetos para la respuesta. */
+  private List<SlotDTO> calcularSlots(Disponibilidad d, long minStart, long maxStart,
+                                      ZoneId tz, int slotSizeMin, int duracionMin) {
+    if (d.base().length == 0) return List.of();
+    SlotEngine motor = MOTOR.get();
+    int n = motor.calcular(d.base(), d.base().length, d.ocupados(), d.ocDesde(), d.ocHasta(),
+        minStart, maxStart, props.getBufferBetweenMin() * 60L,
+        tz.getRules(), slotSizeMin, duracionMin);
+    long dur = duracionMin * 60L;
+    List<SlotDTO> out = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      long ini = motor.inicioSlot(i);
+      out.add(new SlotDTO(Instant.ofEpochSecond(ini), Instant.ofEpochSecond(ini + dur)));
+    }
+    return out;
+  }
+
+  /** Ventanas del día para varios barberos con una consulta por tabla (IN). */
+  private Map<Long, Disponibilidad> disponibilidadDesdeBd(List<Long> barberoIds, LocalDate ld, ZoneId tz) {
+    final Instant diaIni = ld.atStartOfDay(tz).toInstant();
+    final Instant diaFin = ld.plusDays(1).atStartOfDay(tz).toInstant();
+    int myDow = ld.getDayOfWeek().getValue() % 7;
+
+    Map<Long, List<BarberoHorarioSemanal>> horarios = horarioRepo
+        .findByBarbero_IdInAndDowAndActivoTrue(barberoIds, myDow).stream()
+        .collect(Collectors.groupingBy(h -> h.getBarbero().getId()));
+    Map<Long, List<BarberoBloqueo>> bloqueos = bloqueoRepo
+        .findByBarbero_IdInAndFinGreaterThanAndInicioLessThan(barberoIds, diaIni, diaFin).stream()
+        .collect(Collectors.groupingBy(b -> b.getBarbero().getId()));
+    Map<Long, List<Cita>> citas = citaRepo
+        .findAgendadasDeBarberosEnRango(barberoIds, diaIni, diaFin).stream()
+        .collect(Collectors.groupingBy(c -> c.getBarbero().getId()));
+
+    Map<Long, Disponibilidad> out = new HashMap<>();
+    for (Long id : barberoIds) {
+      out.put(id, new Disponibilidad(
+          ventanasHorario(horarios.getOrDefault(id, List.of()), ld, tz),
+          ocupados(bloqueos.getOrDefault(id, List.of()), citas.getOrDefault(id, List.of()))));
     }
     return out;
   }
 
-  /** Aplica un buffer a ambos extremos de las ventanas. */
-  private List<Window> aplicarBuffer(List<Window> ventanas, int bufferMin) {
-    long bsec = bufferMin * 60L;
-    return ventanas.stream()
-        .map(w -> new Window(w.inicio().plusSeconds(bsec), w.fin().minusSeconds(bsec)))
-        .filter(w -> w.inicio().isBefore(w.fin()))
-        .toList();
-  }
-
-  /** Genera slots alineados a slotSizeMin y que quepan duracionMin. */
-  private List<SlotDTO> generarSlots(List<Window> ventanas, ZoneId tz, int slotSizeMin, int duracionMin) {
-    List<SlotDTO> out = new ArrayList<>();
-    for (Window w : ventanas) {
-      Instant cursor = alignTo(w.inicio(), tz, slotSizeMin);
-      Instant lastPossibleStart = w.fin().minusSeconds(duracionMin * 60L);
-      while (!cursor.isAfter(lastPossibleStart)) {
-        Instant sStart = cursor;
-        Instant sEnd = cursor.plusSeconds(duracionMin * 60L);
-        out.add(new SlotDTO(sStart, sEnd));
-        cursor = cursor.plusSeconds(slotSizeMin * 60L);
+  /** Ventanas base del día a partir del horario semanal activo (todos los DOW ya cargados). */
+  private long[] ventanasHorario(List<BarberoHorarioSemanal> horario, LocalDate ld, ZoneId tz) {
+    int myDow = ld.getDayOfWeek().getValue() % 7; // 0=domingo … 6=sábado
+    long[] out = new long[horario.size() * 2];
+    int n = 0;
+    for (BarberoHorarioSemanal h : horario) {
+      if (!Boolean.TRUE.equals(h.getActivo()) || h.getDow() == null || h.getDow() != myDow) continue;
+      long ini = ZonedDateTime.of(ld, h.getDesde(), tz).toEpochSecond();
+      long fin = ZonedDateTime.of(ld, h.getHasta(), tz).toEpochSecond();
+      if (fin > ini) {
+        out[n++] = ini;
+        out[n++] = fin;
       }
     }
+    return n == out.length ? out : Arrays.copyOf(out, n);
+  }
+
+  /**
+   * Bloqueos y citas como pares [inicio, fin) en epoch-seconds, sin ordenar.
+   * Inicio hacia abajo y fin hacia arriba: nunca se ofrece un segundo ocupado.
+   */
+  private static long[] ocupados(List<BarberoBloqueo> bloqueos, List<Cita> citas) {
+    long[] out = new long[(bloqueos.size() + citas.size()) * 2];
+    int n = 0;
+    for (BarberoBloqueo b : bloqueos) {
+      out[n++] = b.getInicio().getEpochSecond();
+      out[n++] = segundoTecho(b.getFin());
+    }
+    for (Cita c : citas) {
+      out[n++] = c.getInicio().getEpochSecond();
+      out[n++] = segundoTecho(c.getFin());
+    }
     return out;
   }
 
-  /** Alinea un instante al siguiente múltiplo de N minutos según su zona. */
-  private Instant alignTo(Instant instant, ZoneId tz, int minutes) {
-    var zdt = instant.atZone(tz);
-    int m = zdt.getMinute();
-    int mod = m % minutes;
-    if (mod == 0 && zdt.getSecond() == 0 && zdt.getNano() == 0) return instant;
+  private static long segundoTecho(Instant t) {
+    return t.getNano() == 0 ? t.getEpochSecond() : t.getEpochSecond() + 1;
+  }
+
+  /**
+   * Horario, bloqueos y citas de uno o varios barberos en un rango de días, leídos de BD
+   * con una consulta por tabla la primera vez que se pide un día. Para cada barbero los
+   * días se piden en orden creciente.
+   */
+  private final class RangoBd {
+    private final List<Long> barberoIds;
+    private final LocalDate desde;
+    private final LocalDate hasta;
+    private final ZoneId tz;
+    private Map<Long, Tramos> porBarbero;
+
+    RangoBd(List<Long> barberoIds, LocalDate desde, LocalDate hasta, ZoneId tz) {
+      this.barberoIds = barberoIds;
+      this.desde = desde;
+      this.hasta = hasta;
+      this.tz = tz;
+    }
+
+    Disponibilidad dia(Long barberoId, LocalDate ld) {
+      Tramos t;
+      synchronized (this) {
+        if (porBarbero == null) cargar();
+        t = porBarbero.get(barberoId);
+      }
+      long diaIni = ld.atStartOfDay(tz).toEpochSecond();
+      long diaFin = ld.plusDays(1).atStartOfDay(tz).toEpochSecond();
+      while (t.primero < t.nOc && t.ocupados[t.primero + 1] <= diaIni) t.primero += 2;
+      int ultimo = t.primero;
+      while (ultimo < t.nOc && t.ocupados[ultimo] < diaFin) ultimo += 2;
+      return new Disponibilidad(ventanasHorario(t.horario, ld, tz), t.ocupados, t.primero, ultimo);
+    }
+
+    private void cargar() {
+      // un solo barbero es siempre uno pedido explícitamente: 404 si no existe
+      if (barberoIds.size() == 1) {
+        barberoRepo.findById(barberoIds.get(0))
+            .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
+      }
+      final Instant rangoIni = desde.atStartOfDay(tz).toInstant();
+      final Instant rangoFin = hasta.plusDays(1).atStartOfDay(tz).toInstant();
+
+      // 1 consulta por tabla para todo el rango y todos los barberos
+      Map<Long, List<BarberoHorarioSemanal>> horarios = horarioRepo.findByBarbero_IdIn(barberoIds).stream()
+          .collect(Collectors.groupingBy(h -> h.getBarbero().getId()));
+      Map<Long, List<BarberoBloqueo>> bloqueos = bloqueoRepo
+          .findByBarbero_IdInAndFinGreaterThanAndInicioLessThan(barberoIds, rangoIni, rangoFin).stream()
+          .collect(Collectors.groupingBy(b -> b.getBarbero().getId()));
+      Map<Long, List<Cita>> citas = citaRepo
+          .findAgendadasDeBarberosEnRango(barberoIds, rangoIni, rangoFin).stream()
+          .collect(Collectors.groupingBy(c -> c.getBarbero().getId()));
+
+      porBarbero = new HashMap<>();
+      for (Long id : barberoIds) {
+        long[] ocupados = ocupados(bloqueos.getOrDefault(id, List.of()), citas.getOrDefault(id, List.of()));
+        // ordenados y fusionados una vez: inicio y fin crecientes → cada día es un tramo contiguo
+        SlotEngine.ordenar(ocupados, ocupados.length);
+        int nOc = SlotEngine.fusionar(ocupados, ocupados.length);
+        porBarbero.put(id, new Tramos(horarios.getOrDefault(id, List.of()), ocupados, nOc));
+      }
+    }
+  }
+
+  /** Datos de un barbero dentro de {@link RangoBd}. */
+  private static final class Tramos {
+    final List<BarberoHorarioSemanal> horario;
+    final long[] ocupados;
+    final int nOc;
+    int primero; // primer ocupado que aún puede tocar el día en curso
+
+    Tramos(List<BarberoHorarioSemanal> horario, long[] ocupados, int nOc) {
+      this.horario = horario;
+      this.ocupados = ocupados;
+      this.nOc = nOc;
+    }
+  }
+
+  /**
+   * Duración de la petición o, si no viene, la del servicio. El servicio se busca
+   * siempre (en memoria con el índice), así un id inexistente responde 404.
+   */
+  private int duracionEfectiva(Long servicioId, Integer duracionMin) {
+    int delServicio = duracionServicio(servicioId);
+    int dur = (duracionMin != null && duracionMin > 0) ? duracionMin : delServicio;
+    return dur > 0 ? dur : 15;
+  }
+
+  private int duracionServicio(Long servicioId) {
+    if (props.isIndexEnabled()) return index.duracionServicio(servicioId);
+    Servicio servicio = servicioRepo.findById(servicioId)
+        .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
+    return servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0;
+  }
+
+  /** Ventanas libres del día tomadas del bitmap en memoria (sin SQL ni copias). */
+  private Disponibilidad disponibilidadDelIndice(Long barberoId, LocalDate ld) {
+    return new Disponibilidad(index.ventanasLibres(barberoId, ld), SIN_OCUPADOS);
+  }
+
+  /** Ventanas base y ocupados del día con consultas a horario, bloqueos y citas. */
+  private Disponibilidad disponibilidadDesdeBd(Long barberoId, LocalDate ld, ZoneId tz) {
+    barberoRepo.findById(barberoId)
+        .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
+
+    // rango UTC del día en zona local
+    final Instant startOfDayUtc = ld.atStartOfDay(tz).toInstant();
+    final Instant endOfDayUtc   = ld.plusDays(1).atStartOfDay(tz).minusNanos(1).toInstant();
+
+    // 1) Ventanas base: horario semanal activo del barbero para el DOW del día
+    //    Tu DOW es 0=domingo … 6=sábado; java = 1=lun … 7=dom → mapeo: (javaDow % 7)
+    int javaDow = ld.getDayOfWeek().getValue(); // 1..7
+    int myDow = javaDow % 7;                    // 0..6 (0=domingo)
+    List<BarberoHorarioSemanal> franjas =
+        horarioRepo.findByBarbero_IdAndDowAndActivoTrue(barberoId, Integer.valueOf(myDow));
+    long[] base = ventanasHorario(franjas, ld, tz);
+    // si no hay horario ese día → no hay slots
+    if (base.length == 0) return new Disponibilidad(base, SIN_OCUPADOS);
 
-    var next = zdt.withSecond(0).withNano(0)
-        .plusMinutes(mod == 0 ? 0 : (minutes - mod));
-    return next.toInstant();
+    // 2) Bloqueos y 3) citas AGENDADA que crucen el día
+    List<BarberoBloqueo> bloqueos = bloqueoRepo.findByBarberoIdAndInicioLessThanAndFinGreaterThan(
+        barberoId, endOfDayUtc, startOfDayUtc);
+    List<Cita> citasDia = citaRepo.findAgendadasDelBarberoEnRango(barberoId, startOfDayUtc, endOfDayUtc);
+    return new Disponibilidad(base, ocupados(bloqueos, citasDia));
   }
-}
\ No newline at end of file
+}
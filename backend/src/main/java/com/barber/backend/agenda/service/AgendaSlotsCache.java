@@ -0,0 +1,111 @@
+// src/main/java/com/barber/backend/agenda/service/AgendaSlotsCache.java
+package com.barber.backend.agenda.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.SlotDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caché acotada (tamaño + TTL) de los slots de un barbero en un día, por duración
+ * efectiva y tamaño de slot. Los valores se calculan sin anticipo ni horizonte, de modo
+ * que sirven a cualquier hora; AgendaService los recorta al responder.
+ *
+ * Se invalida por barbero y día desde los hooks de AgendaDisponibilidadIndex, al
+ * confirmar cada cambio de citas, bloqueos u horario. Hits/misses/evictions se
+ * publican en Micrometer como cache "agenda.slots".
+ */
+@Component
+public class AgendaSlotsCache {
+
+  /** Tope de combinaciones (duración, slot) distintas: los valores vienen de la petición. */
+  private static final int MAX_COMBINACIONES = 64;
+
+  public record Clave(Long barberoId, LocalDate fecha, int duracionMin, int slotSizeMin) {}
+
+  private final AgendaProperties props;
+  private final Cache<Clave, List<SlotDTO>> cache;
+  /** (duracionMin << 32 | slotSizeMin) vistos: para invalidar un día sin recorrer la caché. */
+  private final Set<Long> combinaciones = ConcurrentHashMap.newKeySet();
+  /** Escrituras por barbero: detecta cálculos que se cruzaron con una invalidación. */
+  private final Map<Long, AtomicLong> generaciones = new ConcurrentHashMap<>();
+
+  public AgendaSlotsCache(AgendaProperties props, MeterRegistry meterRegistry) {
+    this.props = props;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(props.getSlotsCacheMaxSize())
+        .expireAfterWrite(Duration.ofSeconds(props.getSlotsCacheTtlSec()))
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "agenda.slots");
+  }
+
+  /**
+   * Si la combinación se puede cachear. Solo tamaños de slot que dividen la hora:
+   * con ellos la rejilla de alineación no depende de dónde empiece la ventana y
+   * recortar después por anticipo da lo mismo que recortar antes.
+   */
+  public boolean admite(int duracionMin, int slotSizeMin) {
+    if (!props.isSlotsCacheEnabled() || slotSizeMin <= 0 || 60 % slotSizeMin != 0) return false;
+    long combinacion = ((long) duracionMin << 32) | slotSizeMin;
+    if (combinaciones.contains(combinacion)) return true;
+    if (combinaciones.size() >= MAX_COMBINACIONES) return false;
+    combinaciones.add(combinacion);
+    return true;
+  }
+
+  /** Slots del día desde la caché o, si no están, calculados y guardados. */
+  public List<SlotDTO> obtener(Clave clave, Supplier<List<SlotDTO>> calcular) {
+    List<SlotDTO> slots = cache.getIfPresent(clave);
+    if (slots != null) return slots;
+
+    long generacion = generacion(clave.barberoId()).get();
+    slots = List.copyOf(calcular.get());
+    cache.put(clave, slots);
+    // si hubo una escritura mientras se calculaba, el valor puede venir viejo
+    if (generacion(clave.barberoId()).get() != generacion) cache.invalidate(clave);
+    return slots;
+  }
+
+  /** Si la clave está en caché, sin contarla como hit/miss. */
+  public boolean contiene(Clave clave) {
+    return cache.asMap().containsKey(clave);
+  }
+
+  /** Invalida los días locales del barbero que toca el intervalo [ini, fin) en epoch-seconds. */
+  public void invalidar(Long barberoId, long iniSec, long finSec) {
+    generacion(barberoId).incrementAndGet();
+    ZoneId tz = ZoneId.of(props.getTimezone().trim());
+    LocalDate d = Instant.ofEpochSecond(iniSec).atZone(tz).toLocalDate();
+    LocalDate ultimo = Instant.ofEpochSecond(Math.max(iniSec, finSec - 1)).atZone(tz).toLocalDate();
+    for (; !d.isAfter(ultimo); d = d.plusDays(1)) {
+      for (long c : combinaciones) {
+        cache.invalidate(new Clave(barberoId, d, (int) (c >>> 32), (int) c));
+      }
+    }
+  }
+
+  /** Invalida todos los días del barbero (p. ej. al reemplazar su horario semanal). */
+  public void invalidarBarbero(Long barberoId) {
+    generacion(barberoId).incrementAndGet();
+    cache.asMap().keySet().removeIf(k -> k.barberoId().equals(barberoId));
+  }
+
+  private AtomicLong generacion(Long barberoId) {
+    return generaciones.computeIfAbsent(barberoId, k -> new AtomicLong());
+  }
+}
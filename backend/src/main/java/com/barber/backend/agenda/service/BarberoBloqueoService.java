@@ -1,6 +1,7 @@
 // src/main/java/com/barber/backend/agenda/service/BarberoBloqueoService.java
 package com.barber.backend.agenda.service;
 
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
 import com.barber.backend.agenda.dto.BarberoBloqueoDTO;
 import com.barber.backend.agenda.dto.BarberoBloqueoSaveRequest;
 import com.barber.backend.agenda.model.BarberoBloqueo;
@@ -21,13 +22,19 @@ public class BarberoBloqueoService {
   private final BarberoBloqueoRepository repo;
   private final BarberoRepository barberoRepo;
   private final CitaRepository citaRepo;
+  private final AgendaDisponibilidadIndex index;
+  private final AgendaEventos eventos;
 
   public BarberoBloqueoService(BarberoBloqueoRepository repo,
                                BarberoRepository barberoRepo,
-                               CitaRepository citaRepo) {
+                               CitaRepository citaRepo,
+                               AgendaDisponibilidadIndex index,
+                               AgendaEventos eventos) {
     this.repo = repo;
     this.barberoRepo = barberoRepo;
     this.citaRepo = citaRepo;
+    this.index = index;
+    this.eventos = eventos;
   }
 
   @Transactional(readOnly = true)
@@ -67,7 +74,10 @@ public class BarberoBloqueoService {
     b.setFin(in.fin());
     b.setMotivo(in.motivo());
 
-    return toDTO(repo.save(b));
+    BarberoBloqueo saved = repo.save(b);
+    index.bloqueoGuardado(saved);
+    eventos.bloqueo(Tipo.BLOQUEO_GUARDADO, saved);
+    return toDTO(saved);
   }
 
   @Transactional
@@ -93,10 +103,14 @@ public class BarberoBloqueoService {
       throw new IllegalStateException("Hay citas agendadas en el rango; no se puede mover el bloqueo ahí");
     }
 
+    index.bloqueoPorCambiar(b);
     b.setInicio(in.inicio());
     b.setFin(in.fin());
     b.setMotivo(in.motivo());
-    return toDTO(repo.save(b));
+    BarberoBloqueo saved = repo.save(b);
+    index.bloqueoGuardado(saved);
+    eventos.bloqueo(Tipo.BLOQUEO_GUARDADO, saved);
+    return toDTO(saved);
   }
 
   @Transactional
@@ -107,7 +121,10 @@ public class BarberoBloqueoService {
     if (!b.getBarbero().getId().equals(barberoId)) {
       throw new IllegalArgumentException("El bloqueo no pertenece al barbero indicado");
     }
+    index.bloqueoPorCambiar(b);
     repo.delete(b);
+    index.bloqueoEliminado(bloqueoId);
+    eventos.bloqueo(Tipo.BLOQUEO_ELIMINADO, b);
   }
 
   // ===== Helpers =====
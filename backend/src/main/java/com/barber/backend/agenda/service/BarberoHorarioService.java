@@ -19,10 +19,17 @@ public class BarberoHorarioService {
 
   private final BarberoHorarioSemanalRepository repo;
   private final BarberoRepository barberoRepo;
+  private final AgendaDisponibilidadIndex index;
+  private final AgendaEventos eventos;
 
-  public BarberoHorarioService(BarberoHorarioSemanalRepository repo, BarberoRepository barberoRepo) {
+  public BarberoHorarioService(BarberoHorarioSemanalRepository repo,
+                               BarberoRepository barberoRepo,
+                               AgendaDisponibilidadIndex index,
+                               AgendaEventos eventos) {
     this.repo = repo;
     this.barberoRepo = barberoRepo;
+    this.index = index;
+    this.eventos = eventos;
   }
 
   @Transactional(readOnly = true)
@@ -72,6 +79,8 @@ public class BarberoHorarioService {
     }).toList();
 
     repo.saveAll(toSave);
+    index.horarioReemplazado(barberoId, toSave);
+    eventos.horarioReemplazado(barberoId);
 
     // 3) devolver el horario resultante
     return getHorario(barberoId);
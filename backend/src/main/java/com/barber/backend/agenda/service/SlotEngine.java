@@ -0,0 +1,171 @@
+// src/main/java/com/barber/backend/agenda/service/SlotEngine.java
+package com.barber.backend.agenda.service;
+
+import java.time.Instant;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+
+/**
+ * Motor de slots sobre intervalos primitivos: cada intervalo [inicio, fin) es un par de
+ * epoch-seconds guardado plano en un long[] (inicio0, fin0, inicio1, fin1, ...).
+ *
+ * Hace en un solo barrido lo que antes eran cuatro pasadas con listas de objetos:
+ * resta de ocupados, anticipo mínimo / horizonte, buffer y generación de slots alineados.
+ * Los arreglos de trabajo se reutilizan entre llamadas, así que no es thread-safe:
+ * cada hilo debe usar su propia instancia.
+ */
+public final class SlotEngine {
+
+  private long[] base = new long[16];
+  private long[] ocupados = new long[64];
+  private long[] ventanas = new long[32];
+  private long[] slots = new long[128];
+
+  /**
+   * Calcula los slots de un día y devuelve cuántos hay; sus inicios se leen con
+   * {@link #inicioSlot(int)} hasta la siguiente llamada.
+   *
+   * @param base      ventanas base (horario); no se modifica
+   * @param nBase     longitud usada de {@code base} (2 por ventana)
+   * @param ocupados  bloqueos y citas a restar; no se modifica
+   * @param ocDesde   primer índice usado de {@code ocupados} (par)
+   * @param ocHasta   índice exclusivo final de {@code ocupados}
+   * @param minStart  anticipo mínimo (epoch-second)
+   * @param maxStart  horizonte máximo (epoch-second)
+   * @param bufferSec buffer a ambos lados de cada ventana libre
+   * @param reglas    reglas de la zona horaria usadas para alinear
+   */
+  public int calcular(long[] base, int nBase,
+                      long[] ocupados, int ocDesde, int ocHasta,
+                      long minStart, long maxStart, long bufferSec,
+                      ZoneRules reglas, int slotSizeMin, int duracionMin) {
+    // 1) Ventanas base ordenadas por inicio (copia: el origen puede ser compartido)
+    this.base = asegurar(this.base, nBase);
+    System.arraycopy(base, 0, this.base, 0, nBase);
+    ordenar(this.base, nBase);
+
+    // 2) Ocupados válidos, ordenados y fusionados → disjuntos con inicio y fin crecientes
+    this.ocupados = asegurar(this.ocupados, ocHasta - ocDesde);
+    int nOc = 0;
+    for (int i = ocDesde; i < ocHasta; i += 2) {
+      if (ocupados[i + 1] <= ocupados[i]) continue;
+      this.ocupados[nOc++] = ocupados[i];
+      this.ocupados[nOc++] = ocupados[i + 1];
+    }
+    ordenar(this.ocupados, nOc);
+    nOc = fusionar(this.ocupados, nOc);
+
+    // 3) Barrido: base - ocupados, recortado por anticipos y buffer
+    int nv = barrer(nBase, nOc, minStart, maxStart, bufferSec);
+
+    // 4) Slots alineados a slotSizeMin que quepan duracionMin completa
+    return generar(nv, reglas, slotSizeMin, duracionMin);
+  }
+
+  /** Inicio (epoch-second) del slot i del último cálculo. */
+  public long inicioSlot(int i) {
+    return slots[i];
+  }
+
+  /**
+   * Ordena in situ los primeros n elementos (n/2 pares) por inicio. Inserción: las
+   * listas de un día son cortas y suelen llegar casi ordenadas, y no reserva memoria.
+   */
+  public static void ordenar(long[] pares, int n) {
+    for (int i = 2; i < n; i += 2) {
+      long ini = pares[i];
+      long fin = pares[i + 1];
+      int j = i - 2;
+      while (j >= 0 && pares[j] > ini) {
+        pares[j + 2] = pares[j];
+        pares[j + 3] = pares[j + 1];
+        j -= 2;
+      }
+      pares[j + 2] = ini;
+      pares[j + 3] = fin;
+    }
+  }
+
+  /**
+   * Fusiona in situ pares ya ordenados que se solapan o se tocan y devuelve la nueva
+   * longitud. El resultado queda con inicios y fines estrictamente crecientes.
+   */
+  public static int fusionar(long[] pares, int n) {
+    if (n == 0) return 0;
+    int w = 0;
+    for (int i = 2; i < n; i += 2) {
+      if (pares[i] <= pares[w + 1]) {
+        if (pares[i + 1] > pares[w + 1]) pares[w + 1] = pares[i + 1];
+      } else {
+        w += 2;
+        pares[w] = pares[i];
+        pares[w + 1] = pares[i + 1];
+      }
+    }
+    return w + 2;
+  }
+
+  private int barrer(int nBase, int nOc, long minStart, long maxStart, long bufferSec) {
+    int nv = 0;
+    int j = 0; // primer ocupado que aún puede tocar la ventana en curso
+    for (int i = 0; i < nBase; i += 2) {
+      long ws = base[i];
+      long we = base[i + 1];
+      if (we <= ws) continue;
+
+      // las bases van por inicio creciente: lo que terminó antes ya no sirve a ninguna
+      while (j < nOc && ocupados[j + 1] <= ws) j += 2;
+
+      long cursor = ws;
+      for (int k = j; k < nOc && ocupados[k] < we; k += 2) {
+        if (ocupados[k] > cursor) nv = emitir(nv, cursor, ocupados[k], minStart, maxStart, bufferSec);
+        if (ocupados[k + 1] > cursor) cursor = ocupados[k + 1];
+      }
+      if (cursor < we) nv = emitir(nv, cursor, we, minStart, maxStart, bufferSec);
+    }
+    return nv;
+  }
+
+  /** Recorta [ini, fin) por anticipo/horizonte y buffer; si sobrevive, la agrega. */
+  private int emitir(int nv, long ini, long fin, long minStart, long maxStart, long bufferSec) {
+    if (fin <= minStart || ini >= maxStart) return nv;
+    ini = Math.max(ini, minStart) + bufferSec;
+    fin = Math.min(fin, maxStart) - bufferSec;
+    if (ini >= fin) return nv;
+    ventanas = asegurar(ventanas, nv + 2);
+    ventanas[nv] = ini;
+    ventanas[nv + 1] = fin;
+    return nv + 2;
+  }
+
+  private int generar(int nv, ZoneRules reglas, int slotSizeMin, int duracionMin) {
+    long dur = duracionMin * 60L;
+    long paso = slotSizeMin * 60L;
+    int n = 0;
+    for (int i = 0; i < nv; i += 2) {
+      long ultimoInicio = ventanas[i + 1] - dur;
+      for (long cursor = alinear(ventanas[i], reglas, slotSizeMin); cursor <= ultimoInicio; cursor += paso) {
+        if (n == slots.length) slots = Arrays.copyOf(slots, n * 2);
+        slots[n++] = cursor;
+      }
+    }
+    return n;
+  }
+
+  /** Alinea un epoch-second al siguiente múltiplo de N minutos de la hora local. */
+  private static long alinear(long sec, ZoneRules reglas, int minutos) {
+    int offset = reglas.isFixedOffset()
+        ? reglas.getOffset(Instant.EPOCH).getTotalSeconds()
+        : reglas.getOffset(Instant.ofEpochSecond(sec)).getTotalSeconds();
+    long local = sec + offset;
+    int segundo = (int) Math.floorMod(local, 60L);
+    int minuto = (int) Math.floorMod(Math.floorDiv(local, 60L), 60L);
+    int mod = minuto % minutos;
+    if (mod == 0 && segundo == 0) return sec;
+    return sec - segundo + (mod == 0 ? 0 : (minutos - mod) * 60L);
+  }
+
+  private static long[] asegurar(long[] a, int n) {
+    return n <= a.length ? a : Arrays.copyOf(a, Math.max(n, a.length * 2));
+  }
+}
@@ -0,0 +1,35 @@
+// src/main/java/com/barber/backend/analytics/config/AnalyticsProperties.java
+package com.barber.backend.analytics.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "analytics")
+public class AnalyticsProperties {
+  private int dashboardHilos = 4;
+  private int dashboardColaMax = 64;
+  private long dashboardTimeoutMs = 5_000;
+  private boolean dashboardCacheEnabled = true;
+  private long dashboardCacheMaxSize = 10_000;
+  private int dashboardCacheAdminTtlSec = 10;
+  private int dashboardCacheBarberoTtlSec = 15;
+  private int dashboardCacheClienteTtlSec = 30;
+
+  // getters & setters
+
+  public int getDashboardHilos() { return dashboardHilos; }
+  public void setDashboardHilos(int dashboardHilos) { this.dashboardHilos = dashboardHilos; }
+  public int getDashboardColaMax() { return dashboardColaMax; }
+  public void setDashboardColaMax(int dashboardColaMax) { this.dashboardColaMax = dashboardColaMax; }
+  public long getDashboardTimeoutMs() { return dashboardTimeoutMs; }
+  public void setDashboardTimeoutMs(long dashboardTimeoutMs) { this.dashboardTimeoutMs = dashboardTimeoutMs; }
+  public boolean isDashboardCacheEnabled() { return dashboardCacheEnabled; }
+  public void setDashboardCacheEnabled(boolean dashboardCacheEnabled) { this.dashboardCacheEnabled = dashboardCacheEnabled; }
+  public long getDashboardCacheMaxSize() { return dashboardCacheMaxSize; }
+  public void setDashboardCacheMaxSize(long dashboardCacheMaxSize) { this.dashboardCacheMaxSize = dashboardCacheMaxSize; }
+  public int getDashboardCacheAdminTtlSec() { return dashboardCacheAdminTtlSec; }
+  public void setDashboardCacheAdminTtlSec(int dashboardCacheAdminTtlSec) { this.dashboardCacheAdminTtlSec = dashboardCacheAdminTtlSec; }
+  public int getDashboardCacheBarberoTtlSec() { return dashboardCacheBarberoTtlSec; }
+  public void setDashboardCacheBarberoTtlSec(int dashboardCacheBarberoTtlSec) { this.dashboardCacheBarberoTtlSec = dashboardCacheBarberoTtlSec; }
+  public int getDashboardCacheClienteTtlSec() { return dashboardCacheClienteTtlSec; }
+  public void setDashboardCacheClienteTtlSec(int dashboardCacheClienteTtlSec) { this.dashboardCacheClienteTtlSec = dashboardCacheClienteTtlSec; }
+}
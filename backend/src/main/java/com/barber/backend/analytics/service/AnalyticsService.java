@@ -1,5 +1,6 @@
 package com.barber.backend.analytics.service;
 
+import com.barber.backend.agenda.config.AgendaProperties;
 import com.barber.backend.analytics.dto.ResumenDashboardDTO;
 import com.barber.backend.analytics.dto.ResumenDashboardDTO.AdminDashboard;
 import com.barber.backend.analytics.dto.ResumenDashboardDTO.BarberoDashboard;
@@ -8,10 +9,11 @@ import com.barber.backend.analytics.dto.ResumenDashboardDTO.CitaCliente;
 import com.barber.backend.analytics.dto.ResumenDashboardDTO.ClienteDashboard;
 import com.barber.backend.analytics.dto.ResumenDashboardDTO.DashboardRole;
 import com.barber.backend.barberos.model.Barbero;
-import com.barber.backend.barberos.repository.BarberoRepository;
 import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.model.CitaArchivada;
 import com.barber.backend.citas.repository.CitaRepository;
-import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.repository.CitaRollupRepository;
+import com.barber.backend.citas.service.CitaArchivo;
 import com.barber.backend.login.model.Usuario;
 import com.barber.backend.login.repository.UsuarioRepository;
 import com.barber.backend.login.security.AppUserPrincipal;
@@ -24,58 +26,77 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AnalyticsService {
 
     private final CitaRepository citaRepository;
+    private final CitaArchivo citaArchivo;
+    private final CitaRollupRepository rollupRepository;
     private final UsuarioRepository usuarioRepository;
-    private final BarberoRepository barberoRepository;
-    private final ServicioRepository servicioRepository;
-    private final ZoneId zoneId = ZoneId.systemDefault();
+    private final DashboardEjecutor ejecutor;
+    private final DashboardCache cache;
+    // Misma zona con la que CitaRollup asigna cada cita a su día
+    private final ZoneId zoneId;
 
     public AnalyticsService(
             CitaRepository citaRepository,
+            CitaArchivo citaArchivo,
+            CitaRollupRepository rollupRepository,
             UsuarioRepository usuarioRepository,
-            BarberoRepository barberoRepository,
-            ServicioRepository servicioRepository) {
+            DashboardEjecutor ejecutor,
+            DashboardCache cache,
+            AgendaProperties agendaProps) {
         this.citaRepository = citaRepository;
+        this.citaArchivo = citaArchivo;
+        this.rollupRepository = rollupRepository;
         this.usuarioRepository = usuarioRepository;
-        this.barberoRepository = barberoRepository;
-        this.servicioRepository = servicioRepository;
+        this.ejecutor = ejecutor;
+        this.cache = cache;
+        this.zoneId = ZoneId.of(agendaProps.getTimezone().trim());
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Sin transacción propia: el usuario se resuelve en una lectura corta y cada consulta
+     * de la sección corre en paralelo con su conexión (ver {@link DashboardEjecutor}), así
+     * la latencia es la de la consulta más lenta y no la suma de todas.
+     */
     public ResumenDashboardDTO obtenerResumenDashboard(AppUserPrincipal principal) {
-        Usuario usuario = resolveUsuario(principal);
-        DashboardRole role = resolveRole(principal, usuario);
+        long inicio = System.nanoTime();
+        record Quien(Usuario usuario, DashboardRole role, Long barberoId) { }
+        Quien quien = ejecutor.leer(() -> {
+            Usuario u = resolveUsuario(principal);
+            DashboardRole r = resolveRole(principal, u);
+            return new Quien(u, r, r == DashboardRole.BARBERO ? resolveBarberoId(principal, u) : null);
+        });
+        Usuario usuario = quien.usuario();
+        DashboardRole role = quien.role();
 
         LocalDate hoy = LocalDate.now(zoneId);
         Instant ahora = Instant.now();
 
         AdminDashboard adminSection = role == DashboardRole.ADMIN
-                ? buildAdminDashboard(hoy)
+                ? cache.admin(() -> buildAdminDashboard(hoy))
                 : null;
 
         BarberoDashboard barberoSection = role == DashboardRole.BARBERO
-                ? buildBarberoDashboard(hoy, ahora, resolveBarberoId(principal, usuario))
+                ? cache.barbero(quien.barberoId(), () -> buildBarberoDashboard(hoy, ahora, quien.barberoId()))
                 : null;
 
         ClienteDashboard clienteSection = role == DashboardRole.CLIENTE
                 ? buildClienteDashboard(ahora, usuario)
                 : null;
 
+        ejecutor.registrarTablero(role.name(), inicio);
         return new ResumenDashboardDTO(role, adminSection, barberoSection, clienteSection);
     }
 
+    // Conteos e ingresos de citas salen de cita_rollup_diaria: rangos de días, no de citas
     private AdminDashboard buildAdminDashboard(LocalDate hoy) {
-        Instant inicioDia = hoy.atStartOfDay(zoneId).toInstant();
-        Instant finDia = hoy.plusDays(1).atStartOfDay(zoneId).toInstant();
-
         LocalDate inicioSemana = hoy.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate finSemana = inicioSemana.plusDays(7);
         Instant inicioSemanaInstant = inicioSemana.atStartOfDay(zoneId).toInstant();
@@ -85,37 +106,31 @@ public class AnalyticsService {
         LocalDate inicioMesSiguiente = inicioMes.plusMonths(1);
         LocalDate inicioMesAnterior = inicioMes.minusMonths(1);
 
-        Instant inicioMesInstant = inicioMes.atStartOfDay(zoneId).toInstant();
-        Instant inicioMesSiguienteInstant = inicioMesSiguiente.atStartOfDay(zoneId).toInstant();
-        Instant inicioMesAnteriorInstant = inicioMesAnterior.atStartOfDay(zoneId).toInstant();
-
-        long citasHoy = citaRepository.countByEstadoBetween(Cita.Estado.AGENDADA, inicioDia, finDia);
-        long citasSemana = citaRepository.countByEstadoBetween(Cita.Estado.AGENDADA, inicioSemanaInstant, finSemanaInstant);
-        long canceladasSemana = citaRepository.countByEstadoBetween(Cita.Estado.CANCELADA, inicioSemanaInstant, finSemanaInstant);
-
-        long clientesActivos = usuarioRepository.countByRolAndActivoTrue(Usuario.Rol.CLIENTE);
-        long clientesVerificados = usuarioRepository.countByRolAndTelefonoVerificadoTrue(Usuario.Rol.CLIENTE);
-        long nuevosClientesSemana = usuarioRepository.countByRolAndCreadoEnBetween(
-                Usuario.Rol.CLIENTE,
-                inicioSemanaInstant,
-                finSemanaInstant);
-
-        long barberosActivos = barberoRepository.countByActivoTrue();
-        long serviciosActivos = servicioRepository.countByActivoTrue();
-
-        long ingresosMes = safeLong(citaRepository.sumIngresosCompletadasBetween(inicioMesInstant, inicioMesSiguienteInstant));
-        long ingresosMesAnterior = safeLong(citaRepository.sumIngresosCompletadasBetween(inicioMesAnteriorInstant, inicioMesInstant));
+        // Dos viajes a la BD: todos los contadores de citas juntos y todos los de usuarios juntos
+        LocalDate desde = min(inicioMesAnterior, inicioSemana);
+        LocalDate hasta = max(inicioMesSiguiente, finSemana);
+        CompletableFuture<CitaRollupRepository.ResumenAdmin> citasF = ejecutor.lanzar("admin.citas",
+                () -> rollupRepository.resumenAdmin(
+                        desde, hasta, hoy, inicioSemana, finSemana, inicioMesAnterior, inicioMes, inicioMesSiguiente));
+        CompletableFuture<UsuarioRepository.ResumenClientes> clientesF = ejecutor.lanzar("admin.usuarios",
+                () -> usuarioRepository.resumenClientes(inicioSemanaInstant, finSemanaInstant));
+        ejecutor.esperarTodas(citasF, clientesF);
+        CitaRollupRepository.ResumenAdmin citas = citasF.join();
+        UsuarioRepository.ResumenClientes clientes = clientesF.join();
+
+        long ingresosMes = citas.getIngresosMes().longValue();
+        long ingresosMesAnterior = citas.getIngresosMesAnterior().longValue();
         double variacion = calcularVariacion(ingresosMesAnterior, ingresosMes);
 
         return new AdminDashboard(
-                citasHoy,
-                citasSemana,
-                canceladasSemana,
-                clientesActivos,
-                clientesVerificados,
-                nuevosClientesSemana,
-                barberosActivos,
-                serviciosActivos,
+                citas.getCitasHoy().longValue(),
+                citas.getCitasSemana().longValue(),
+                citas.getCanceladasSemana().longValue(),
+                clientes.getClientesActivos().longValue(),
+                clientes.getClientesVerificados().longValue(),
+                clientes.getNuevosClientes().longValue(),
+                clientes.getBarberosActivos().longValue(),
+                clientes.getServiciosActivos().longValue(),
                 ingresosMes,
                 ingresosMesAnterior,
                 variacion);
@@ -126,37 +141,43 @@ public class AnalyticsService {
             return new BarberoDashboard(0, 0, 0, 0, 0, Collections.emptyList());
         }
 
-        Instant inicioDia = hoy.atStartOfDay(zoneId).toInstant();
-        Instant finDia = hoy.plusDays(1).atStartOfDay(zoneId).toInstant();
-
         LocalDate inicioSemana = hoy.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
         LocalDate finSemana = inicioSemana.plusDays(7);
-        Instant inicioSemanaInstant = inicioSemana.atStartOfDay(zoneId).toInstant();
-        Instant finSemanaInstant = finSemana.atStartOfDay(zoneId).toInstant();
-
         LocalDate inicioMes = hoy.withDayOfMonth(1);
         LocalDate inicioMesSiguiente = inicioMes.plusMonths(1);
-        Instant inicioMesInstant = inicioMes.atStartOfDay(zoneId).toInstant();
-        Instant inicioMesSiguienteInstant = inicioMesSiguiente.atStartOfDay(zoneId).toInstant();
-
-        long citasHoy = citaRepository.countByBarberoAndEstadoBetween(barberoId, Cita.Estado.AGENDADA, inicioDia, finDia);
-        long citasSemana = citaRepository.countByBarberoAndEstadoBetween(barberoId, Cita.Estado.AGENDADA, inicioSemanaInstant, finSemanaInstant);
-        long canceladasSemana = citaRepository.countByBarberoAndEstadoBetween(barberoId, Cita.Estado.CANCELADA, inicioSemanaInstant, finSemanaInstant);
-        long completadasMes = citaRepository.countByBarberoAndEstadoBetween(barberoId, Cita.Estado.COMPLETADA, inicioMesInstant, inicioMesSiguienteInstant);
-        long ingresosMes = safeLong(citaRepository.sumIngresosCompletadasBarberoBetween(barberoId, inicioMesInstant, inicioMesSiguienteInstant));
-
-        List<BarberoProximaCita> proximas = citaRepository
-                .findProximasCitasBarbero(barberoId, ahora, Pageable.ofSize(3))
-                .stream()
-                .map(c -> new BarberoProximaCita(
-                        Optional.ofNullable(c.getId()).orElse(0L),
-                        truncate(c.getClienteNombre(), 60),
-                        c.getServicio() != null ? c.getServicio().getNombre() : "Servicio",
-                        c.getInicio(),
-                        c.getFin()))
-                .collect(Collectors.toList());
-
-        return new BarberoDashboard(citasHoy, citasSemana, canceladasSemana, completadasMes, ingresosMes, proximas);
+
+        CompletableFuture<Long> citasHoy = ejecutor.lanzar("barbero.citasHoy",
+                () -> rollupRepository.sumCitasByBarberoAndEstadoBetween(barberoId, Cita.Estado.AGENDADA, hoy, hoy.plusDays(1)));
+        CompletableFuture<Long> citasSemana = ejecutor.lanzar("barbero.citasSemana",
+                () -> rollupRepository.sumCitasByBarberoAndEstadoBetween(barberoId, Cita.Estado.AGENDADA, inicioSemana, finSemana));
+        CompletableFuture<Long> canceladasSemana = ejecutor.lanzar("barbero.canceladasSemana",
+                () -> rollupRepository.sumCitasByBarberoAndEstadoBetween(barberoId, Cita.Estado.CANCELADA, inicioSemana, finSemana));
+        CompletableFuture<Long> completadasMes = ejecutor.lanzar("barbero.completadasMes",
+                () -> rollupRepository.sumCitasByBarberoAndEstadoBetween(barberoId, Cita.Estado.COMPLETADA, inicioMes, inicioMesSiguiente));
+        CompletableFuture<Long> ingresosMes = ejecutor.lanzar("barbero.ingresosMes",
+                () -> rollupRepository.sumIngresosCompletadasBarberoBetween(barberoId, inicioMes, inicioMesSiguiente));
+
+        // El servicio es LAZY: el DTO se arma dentro de la transacción de la consulta
+        CompletableFuture<List<BarberoProximaCita>> proximas = ejecutor.lanzar("barbero.proximas",
+                () -> citaRepository
+                        .findProximasCitasBarbero(barberoId, ahora, Pageable.ofSize(3))
+                        .stream()
+                        .map(c -> new BarberoProximaCita(
+                                Optional.ofNullable(c.getId()).orElse(0L),
+                                truncate(c.getClienteNombre(), 60),
+                                c.getServicio() != null ? c.getServicio().getNombre() : "Servicio",
+                                c.getInicio(),
+                                c.getFin()))
+                        .collect(Collectors.toList()));
+
+        ejecutor.esperarTodas(citasHoy, citasSemana, canceladasSemana, completadasMes, ingresosMes, proximas);
+        return new BarberoDashboard(
+                citasHoy.join(),
+                citasSemana.join(),
+                canceladasSemana.join(),
+                completadasMes.join(),
+                ingresosMes.join(),
+                proximas.join());
     }
 
     private ClienteDashboard buildClienteDashboard(Instant ahora, Usuario usuario) {
@@ -170,31 +191,46 @@ public class AnalyticsService {
         boolean telefonoVerificado = usuario.isTelefonoVerificado();
         String preferido = !nombre.isBlank() ? firstToken(nombre) : fallbackNombre(usuario);
 
-        long pendientes = 0L;
-        long historicas = 0L;
-        CitaCliente proxima = null;
-        CitaCliente ultima = null;
-
-        if (!telefono.isBlank()) {
-            pendientes = citaRepository.countByClienteTelE164AndEstadoAndInicioAfter(telefono, Cita.Estado.AGENDADA, ahora);
-            historicas = citaRepository.countByClienteTelE164AndEstado(telefono, Cita.Estado.COMPLETADA);
+        DashboardCache.CitasCliente citas = cache.cliente(telefono, () -> buildCitasCliente(ahora, telefono));
+        return new ClienteDashboard(perfilCompleto, telefonoVerificado, preferido,
+                citas.pendientes(), citas.historicas(), citas.proxima(), citas.ultima());
+    }
 
-            proxima = citaRepository
-                    .findProximasCitasCliente(telefono, ahora, Pageable.ofSize(1))
-                    .stream()
-                    .findFirst()
-                    .map(this::toClienteCita)
-                    .orElse(null);
+    private DashboardCache.CitasCliente buildCitasCliente(Instant ahora, String telefono) {
+        if (telefono.isBlank()) {
+            return new DashboardCache.CitasCliente(0L, 0L, null, null);
+        }
 
-            ultima = citaRepository
+        CompletableFuture<Long> pendientesF = ejecutor.lanzar("cliente.pendientes",
+                () -> citaRepository.countByClienteTelE164AndEstadoAndInicioAfter(telefono, Cita.Estado.AGENDADA, ahora));
+        CompletableFuture<Long> historicasF = ejecutor.lanzar("cliente.historicas",
+                () -> citaArchivo.contarCliente(telefono, Cita.Estado.COMPLETADA));
+        CompletableFuture<CitaCliente> proximaF = ejecutor.lanzar("cliente.proxima",
+                () -> citaRepository
+                        .findProximasCitasCliente(telefono, ahora, Pageable.ofSize(1))
+                        .stream()
+                        .findFirst()
+                        .map(this::toClienteCita)
+                        .orElse(null));
+        CompletableFuture<CitaCliente> ultimaF = ejecutor.lanzar("cliente.ultima", () -> {
+            Optional<Cita> ultimaActiva = citaRepository
                     .findUltimasCitasCliente(telefono, Pageable.ofSize(1))
                     .stream()
-                    .findFirst()
-                    .map(this::toClienteCita)
-                    .orElse(null);
-        }
-
-        return new ClienteDashboard(perfilCompleto, telefonoVerificado, preferido, pendientes, historicas, proxima, ultima);
+                    .findFirst();
+            // Si la última completada ya se archivó, la más reciente puede estar en el archivo
+            Optional<CitaArchivada> ultimaArchivada = citaArchivo.ultimaCompletadaArchivada(
+                    telefono, ultimaActiva.map(Cita::getInicio).orElse(null));
+            return ultimaArchivada.isPresent()
+                    ? toClienteCita(ultimaArchivada.get())
+                    : ultimaActiva.map(this::toClienteCita).orElse(null);
+        });
+
+        ejecutor.esperarTodas(pendientesF, historicasF, proximaF, ultimaF);
+        return new DashboardCache.CitasCliente(
+                pendientesF.join(),
+                historicasF.join(),
+                proximaF.join(),
+                ultimaF.join());
     }
 
     private CitaCliente toClienteCita(Cita cita) {
@@ -210,6 +246,15 @@ public class AnalyticsService {
         return new CitaCliente(Optional.ofNullable(cita.getId()).orElse(0L), barberoNombre, servicioNombre, cita.getInicio());
     }
 
+    private CitaCliente toClienteCita(CitaArchivada cita) {
+        String barberoNombre = Optional.ofNullable(cita.getBarbero())
+                .map(Barbero::getNombre)
+                .filter(n -> !n.isBlank())
+                .orElse("Barbero asignado");
+        String servicioNombre = cita.getServicio() != null ? cita.getServicio().getNombre() : "Servicio";
+        return new CitaCliente(cita.getId(), barberoNombre, servicioNombre, cita.getInicio());
+    }
+
     private Usuario resolveUsuario(AppUserPrincipal principal) {
         if (principal == null || principal.getUserId() == null) {
             return null;
@@ -247,8 +292,12 @@ public class AnalyticsService {
         return null;
     }
 
-    private static long safeLong(Long value) {
-        return value != null ? value : 0L;
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
     }
 
     private static double calcularVariacion(long base, long actual) {
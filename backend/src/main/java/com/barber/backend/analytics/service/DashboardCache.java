@@ -0,0 +1,126 @@
+package com.barber.backend.analytics.service;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.service.AgendaEventoSuscriptor;
+import com.barber.backend.analytics.config.AnalyticsProperties;
+import com.barber.backend.analytics.dto.ResumenDashboardDTO.AdminDashboard;
+import com.barber.backend.analytics.dto.ResumenDashboardDTO.BarberoDashboard;
+import com.barber.backend.analytics.dto.ResumenDashboardDTO.CitaCliente;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caché corta de las secciones del tablero: una entrada global para admin, una por
+ * barbero y una por teléfono de cliente, cada una con su TTL ({@code analytics.dashboard-cache-*}).
+ *
+ * Los fallos simultáneos de la misma clave se juntan: el primero calcula en su hilo y
+ * el resto espera ese mismo futuro, así diez pantallas que refrescan a la vez hacen una
+ * sola ronda de consultas. Un cálculo que falla no se queda en la caché.
+ *
+ * Se invalida con los eventos de citas del outbox (admin, el barbero del evento y los
+ * clientes, porque el evento no trae teléfono). El outbox entrega cada evento a una sola
+ * instancia: en las demás la entrada vive hasta su TTL, por eso los TTL son de segundos.
+ * Hits/misses se publican en Micrometer como caches "analytics.dashboard.*".
+ */
+@Component
+public class DashboardCache implements AgendaEventoSuscriptor {
+
+    /** Parte del tablero de cliente que depende de sus citas; el perfil se arma en cada petición. */
+    public record CitasCliente(long pendientes, long historicas, CitaCliente proxima, CitaCliente ultima) { }
+
+    private static final String GLOBAL = "global";
+    private static final Set<AgendaEvento.Tipo> DE_CITAS = EnumSet.of(
+            AgendaEvento.Tipo.CITA_CREADA,
+            AgendaEvento.Tipo.CITA_ACTUALIZADA,
+            AgendaEvento.Tipo.CITA_ESTADO,
+            AgendaEvento.Tipo.CITA_ELIMINADA);
+
+    private final boolean enabled;
+    private final AsyncCache<String, AdminDashboard> admin;
+    private final AsyncCache<Long, BarberoDashboard> barberos;
+    private final AsyncCache<String, CitasCliente> clientes;
+
+    public DashboardCache(AnalyticsProperties props, MeterRegistry meterRegistry) {
+        this.enabled = props.isDashboardCacheEnabled();
+        this.admin = nueva(1, props.getDashboardCacheAdminTtlSec());
+        this.barberos = nueva(props.getDashboardCacheMaxSize(), props.getDashboardCacheBarberoTtlSec());
+        this.clientes = nueva(props.getDashboardCacheMaxSize(), props.getDashboardCacheClienteTtlSec());
+        CaffeineCacheMetrics.monitor(meterRegistry, admin, "analytics.dashboard.admin");
+        CaffeineCacheMetrics.monitor(meterRegistry, barberos, "analytics.dashboard.barbero");
+        CaffeineCacheMetrics.monitor(meterRegistry, clientes, "analytics.dashboard.cliente");
+    }
+
+    public AdminDashboard admin(Supplier<AdminDashboard> calcular) {
+        return obtener(admin, GLOBAL, calcular);
+    }
+
+    public BarberoDashboard barbero(Long barberoId, Supplier<BarberoDashboard> calcular) {
+        return barberoId == null ? calcular.get() : obtener(barberos, barberoId, calcular);
+    }
+
+    public CitasCliente cliente(String telefonoE164, Supplier<CitasCliente> calcular) {
+        return telefonoE164 == null || telefonoE164.isBlank()
+                ? calcular.get()
+                : obtener(clientes, telefonoE164, calcular);
+    }
+
+    @Override
+    public void alRecibir(List<AgendaEvento> eventos) {
+        boolean hubo = false;
+        for (AgendaEvento e : eventos) {
+            if (!DE_CITAS.contains(e.tipo())) continue;
+            hubo = true;
+            if (e.barberoId() != null) barberos.synchronous().invalidate(e.barberoId());
+        }
+        if (hubo) {
+            admin.synchronous().invalidateAll();
+            clientes.synchronous().invalidateAll();
+        }
+    }
+
+    private <K, V> V obtener(AsyncCache<K, V> cache, K clave, Supplier<V> calcular) {
+        if (!enabled) return calcular.get();
+
+        // get con función (no asMap) para que Caffeine cuente el hit o el miss; la función sólo
+        // instala el futuro vacío, el cálculo va afuera para no tenerlo dentro del compute del mapa
+        CompletableFuture<V> propio = new CompletableFuture<>();
+        CompletableFuture<V> existente = cache.get(clave, (k, executor) -> propio);
+        if (existente != propio) {
+            try {
+                return existente.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+
+        // Nos tocó calcular: en el hilo de la petición, no en el pool de Caffeine
+        try {
+            V valor = calcular.get();
+            propio.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            // completar con error la saca de la caché y despierta a los que esperaban
+            propio.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <K, V> AsyncCache<K, V> nueva(long maxSize, int ttlSec) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSec))
+                .recordStats()
+                .buildAsync();
+    }
+}
@@ -0,0 +1,132 @@
+package com.barber.backend.analytics.service;
+
+import com.barber.backend.analytics.config.AnalyticsProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Corre en paralelo las consultas independientes de un tablero, cada una en su propia
+ * transacción de sólo lectura (y por tanto su propia conexión).
+ *
+ * El pool es fijo de {@code analytics.dashboard-hilos} para todos los tableros a la vez:
+ * eso acota cuántas conexiones de Hikari pueden tomar, por muchos que se abran juntos.
+ * Las consultas sólo corren en el pool: si además se llena la cola
+ * ({@code analytics.dashboard-cola-max}) la consulta se rechaza y el tablero responde 503,
+ * en vez de correrla en el hilo de la petición con una conexión más y fuera del plazo.
+ * Cada consulta se mide en {@code analytics.dashboard.consulta} y el tablero completo en
+ * {@code analytics.dashboard}.
+ */
+@Component
+public class DashboardEjecutor implements DisposableBean {
+
+    private final ThreadPoolExecutor pool;
+    private final TransactionTemplate lectura;
+    private final MeterRegistry registry;
+    private final long timeoutMs;
+
+    public DashboardEjecutor(
+            AnalyticsProperties props,
+            PlatformTransactionManager txManager,
+            MeterRegistry registry) {
+        int hilos = Math.max(1, props.getDashboardHilos());
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(
+                hilos, hilos, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, props.getDashboardColaMax())),
+                r -> {
+                    Thread t = new Thread(r, "dashboard-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.pool.allowCoreThreadTimeOut(true);
+        this.lectura = new TransactionTemplate(txManager);
+        this.lectura.setReadOnly(true);
+        this.registry = registry;
+        this.timeoutMs = props.getDashboardTimeoutMs();
+    }
+
+    /**
+     * Lanza la consulta en el pool; {@code nombre} etiqueta su tiempo. Con el pool saturado
+     * devuelve un futuro ya fallido (503): {@link #esperarTodas} cancela las demás del tablero.
+     */
+    public <T> CompletableFuture<T> lanzar(String nombre, Supplier<T> consulta) {
+        Timer timer = Timer.builder("analytics.dashboard.consulta").tag("consulta", nombre).register(registry);
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(() -> lectura.execute(s -> consulta.get())), pool);
+        } catch (RejectedExecutionException e) {
+            registry.counter("analytics.dashboard.rechazadas").increment();
+            return CompletableFuture.failedFuture(new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Tableros saturados; reintenta en unos segundos"));
+        }
+    }
+
+    /** Corre {@code consulta} en el hilo actual, en una transacción de sólo lectura. */
+    public <T> T leer(Supplier<T> consulta) {
+        return lectura.execute(s -> consulta.get());
+    }
+
+    /**
+     * Espera todas las consultas de un tablero con un solo plazo (el timeout del tablero,
+     * no uno por consulta). Termina en cuanto una falla y relanza su excepción original;
+     * si falla o vence el plazo cancela las demás, así las que siguen en cola ya no corren
+     * ni toman conexión. Al volver, {@code join()} de cada futuro no bloquea.
+     */
+    public void esperarTodas(CompletableFuture<?>... futuros) {
+        CompletableFuture<Object> primeraFalla = new CompletableFuture<>();
+        for (CompletableFuture<?> f : futuros) {
+            f.whenComplete((v, e) -> {
+                if (e != null) primeraFalla.completeExceptionally(e);
+            });
+        }
+        try {
+            CompletableFuture.anyOf(CompletableFuture.allOf(futuros), primeraFalla)
+                    .get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | CompletionException e) {
+            cancelar(futuros);
+            Throwable causa = e.getCause() instanceof CompletionException ce ? ce.getCause() : e.getCause();
+            if (causa instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(causa);
+        } catch (TimeoutException e) {
+            cancelar(futuros);
+            throw new IllegalStateException("El tablero tardó más de " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            cancelar(futuros);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Tablero interrumpido", e);
+        }
+    }
+
+    private static void cancelar(CompletableFuture<?>... futuros) {
+        for (CompletableFuture<?> f : futuros) {
+            f.cancel(true);
+        }
+    }
+
+    /** Tiempo total del tablero de un rol, desde {@code inicioNanos} (System.nanoTime()). */
+    public void registrarTablero(String rol, long inicioNanos) {
+        Timer.builder("analytics.dashboard").tag("rol", rol).register(registry)
+                .record(System.nanoTime() - inicioNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+}
@@ -2,10 +2,17 @@
 package com.barber.backend.barberos.repository;
 
 import com.barber.backend.barberos.model.Barbero;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
 
 public interface BarberoRepository extends JpaRepository<Barbero, Long> {
 
@@ -17,4 +24,19 @@ public interface BarberoRepository extends JpaRepository<Barbero, Long> {
   Page<Barbero> findAll(Pageable pageable);
 
   long countByActivoTrue();
+
+  // Barberos activos que ofrecen el servicio (join barbero_servicio)
+  @Query("""
+      SELECT b.id
+      FROM Barbero b JOIN b.servicios s
+      WHERE s.id = :servicioId
+        AND b.activo = true
+      ORDER BY b.id
+      """)
+  List<Long> findIdsActivosPorServicio(@Param("servicioId") Long servicioId);
+
+  // SELECT ... FOR UPDATE sobre la fila del barbero: serializa reservas entre instancias
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT b FROM Barbero b WHERE b.id = :id")
+  Optional<Barbero> findByIdParaReservar(@Param("id") Long id);
 }
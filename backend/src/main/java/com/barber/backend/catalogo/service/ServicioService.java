@@ -1,5 +1,6 @@
 package com.barber.backend.catalogo.service;
 
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
 import com.barber.backend.catalogo.dto.*;
 import com.barber.backend.catalogo.model.Servicio;
 import com.barber.backend.catalogo.repository.ServicioRepository;
@@ -10,8 +11,12 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 public class ServicioService {
   private final ServicioRepository repo;
+  private final AgendaDisponibilidadIndex disponibilidadIndex;
 
-  public ServicioService(ServicioRepository repo) { this.repo = repo; }
+  public ServicioService(ServicioRepository repo, AgendaDisponibilidadIndex disponibilidadIndex) {
+    this.repo = repo;
+    this.disponibilidadIndex = disponibilidadIndex;
+  }
 
   private static ServicioDTO toDTO(Servicio s) {
     return new ServicioDTO(
@@ -51,6 +56,7 @@ public class ServicioService {
     s.setDuracionMin(req.duracionMin());
     s.setPrecioCentavos(req.precioCentavos());
     s.setActivo(req.activo());
+    disponibilidadIndex.servicioCambiado(id);
     return toDTO(s);
   }
 
@@ -58,6 +64,7 @@ public class ServicioService {
   public void delete(Long id) {
     if (!repo.existsById(id)) return;
     repo.deleteById(id);
+    disponibilidadIndex.servicioCambiado(id);
   }
 
   @Transactional(readOnly = true)
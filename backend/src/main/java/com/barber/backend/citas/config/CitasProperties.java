@@ -0,0 +1,57 @@
+// src/main/java/com/barber/backend/citas/config/CitasProperties.java
+package com.barber.backend.citas.config;
+
+import com.barber.backend.citas.model.Cita.Estado;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "citas")
+public class CitasProperties {
+  private boolean autoCierreEnabled = true;
+  private Estado autoCierreEstado = Estado.NO_ASISTIO;
+  private int autoCierreGraciaMin = 120;
+  private int autoCierreLote = 200;
+  private int autoCierreMaxLotes = 50;
+  private long idempotenciaCacheMax = 10_000;
+  private int idempotenciaTtlHoras = 24;
+  private boolean archivoEnabled = true;
+  private int archivoRetencionDias = 180;
+  private int archivoLote = 500;
+  private int archivoMaxLotes = 100;
+  private boolean listaEsperaEnabled = true;
+  private int listaEsperaOfertasPorHueco = 3;
+  private boolean rollupEnabled = true;
+  private int rollupReparacionDias = 2;
+
+  // getters & setters
+
+  public boolean isAutoCierreEnabled() { return autoCierreEnabled; }
+  public void setAutoCierreEnabled(boolean autoCierreEnabled) { this.autoCierreEnabled = autoCierreEnabled; }
+  public Estado getAutoCierreEstado() { return autoCierreEstado; }
+  public void setAutoCierreEstado(Estado autoCierreEstado) { this.autoCierreEstado = autoCierreEstado; }
+  public int getAutoCierreGraciaMin() { return autoCierreGraciaMin; }
+  public void setAutoCierreGraciaMin(int autoCierreGraciaMin) { this.autoCierreGraciaMin = autoCierreGraciaMin; }
+  public int getAutoCierreLote() { return autoCierreLote; }
+  public void setAutoCierreLote(int autoCierreLote) { this.autoCierreLote = autoCierreLote; }
+  public int getAutoCierreMaxLotes() { return autoCierreMaxLotes; }
+  public void setAutoCierreMaxLotes(int autoCierreMaxLotes) { this.autoCierreMaxLotes = autoCierreMaxLotes; }
+  public long getIdempotenciaCacheMax() { return idempotenciaCacheMax; }
+  public void setIdempotenciaCacheMax(long idempotenciaCacheMax) { this.idempotenciaCacheMax = idempotenciaCacheMax; }
+  public int getIdempotenciaTtlHoras() { return idempotenciaTtlHoras; }
+  public void setIdempotenciaTtlHoras(int idempotenciaTtlHoras) { this.idempotenciaTtlHoras = idempotenciaTtlHoras; }
+  public boolean isArchivoEnabled() { return archivoEnabled; }
+  public void setArchivoEnabled(boolean archivoEnabled) { this.archivoEnabled = archivoEnabled; }
+  public int getArchivoRetencionDias() { return archivoRetencionDias; }
+  public void setArchivoRetencionDias(int archivoRetencionDias) { this.archivoRetencionDias = archivoRetencionDias; }
+  public int getArchivoLote() { return archivoLote; }
+  public void setArchivoLote(int archivoLote) { this.archivoLote = archivoLote; }
+  public int getArchivoMaxLotes() { return archivoMaxLotes; }
+  public void setArchivoMaxLotes(int archivoMaxLotes) { this.archivoMaxLotes = archivoMaxLotes; }
+  public boolean isListaEsperaEnabled() { return listaEsperaEnabled; }
+  public void setListaEsperaEnabled(boolean listaEsperaEnabled) { this.listaEsperaEnabled = listaEsperaEnabled; }
+  public int getListaEsperaOfertasPorHueco() { return listaEsperaOfertasPorHueco; }
+  public void setListaEsperaOfertasPorHueco(int listaEsperaOfertasPorHueco) { this.listaEsperaOfertasPorHueco = listaEsperaOfertasPorHueco; }
+  public boolean isRollupEnabled() { return rollupEnabled; }
+  public void setRollupEnabled(boolean rollupEnabled) { this.rollupEnabled = rollupEnabled; }
+  public int getRollupReparacionDias() { return rollupReparacionDias; }
+  public void setRollupReparacionDias(int rollupReparacionDias) { this.rollupReparacionDias = rollupReparacionDias; }
+}
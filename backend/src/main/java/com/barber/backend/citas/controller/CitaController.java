@@ -1,16 +1,27 @@
 package com.barber.backend.citas.controller;
 
+import com.barber.backend.citas.dto.CitaCursorPage;
 import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.dto.CitaEstadoMasivoRequest;
+import com.barber.backend.citas.dto.CitaEstadoMasivoResponse;
 import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.dto.CitaSerieRequest;
+import com.barber.backend.citas.dto.CitaSerieResponse;
 import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.service.CitaEstadoMasivoService;
+import com.barber.backend.citas.service.CitaExportService;
 import com.barber.backend.citas.service.CitaService;
 import com.barber.backend.login.security.AppUserPrincipal;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.*;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import com.barber.backend.login.security.AppUserPrincipal;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
@@ -21,9 +32,16 @@ import java.time.Instant;
 public class CitaController {
 
     private final CitaService service;
+    private final CitaExportService exportService;
+    private final CitaEstadoMasivoService estadoMasivoService;
 
-    public CitaController(CitaService service) {
+    public CitaController(
+            CitaService service,
+            CitaExportService exportService,
+            CitaEstadoMasivoService estadoMasivoService) {
         this.service = service;
+        this.exportService = exportService;
+        this.estadoMasivoService = estadoMasivoService;
     }
 
     @GetMapping
@@ -54,16 +72,70 @@ public class CitaController {
         return service.list(barberoId, estado, desde, hasta, pageable);
     }
 
+    /**
+     * Listado por cursor (keyset): para rangos grandes o páginas profundas. No calcula
+     * totales; se sigue con el {@code nextCursor} de la respuesta hasta que venga null.
+     */
+    @GetMapping("/cursor")
+    public CitaCursorPage listCursor(
+            @RequestParam(required = false) Long barberoId,
+            @RequestParam(required = false) Estado estado,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant hasta,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        // Mismos defaults que el listado paginado
+        Instant now = Instant.now();
+        if (desde == null)
+            desde = now.minusSeconds(7L * 24 * 3600);
+        if (hasta == null)
+            hasta = now.plusSeconds(30L * 24 * 3600);
+        return service.listCursor(barberoId, estado, desde, hasta, cursor, size);
+    }
+
+    /**
+     * Exportación completa (CSV o NDJSON) con los mismos filtros que el listado. Se escribe
+     * en streaming mientras se lee de la BD, sin paginar ni juntar el resultado en memoria.
+     */
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(required = false) Long barberoId,
+            @RequestParam(required = false) Estado estado,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant desde,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant hasta,
+            @RequestParam(defaultValue = "csv") String formato) {
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("'desde' debe ser anterior a 'hasta'");
+        }
+        CitaExportService.Formato f = CitaExportService.Formato.of(formato);
+        StreamingResponseBody body = out -> exportService.exportar(barberoId, estado, desde, hasta, f, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(f.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"citas." + f.extension() + "\"")
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     public CitaDTO get(@PathVariable Long id) {
         return service.get(id);
     }
 
+    // Idempotency-Key opcional: el reintento con la misma clave responde la cita original
     @PostMapping
     public ResponseEntity<CitaDTO> create(
             @Valid @RequestBody CitaSaveRequest in,
+            @AuthenticationPrincipal AppUserPrincipal principal,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey) {
+        return ResponseEntity.ok(service.create(in, principal, idempotencyKey));
+    }
+
+    // Serie recurrente: responde el resultado de cada ocurrencia (creada o con qué choca)
+    @PostMapping("/serie")
+    public ResponseEntity<CitaSerieResponse> createSerie(
+            @Valid @RequestBody CitaSerieRequest in,
             @AuthenticationPrincipal AppUserPrincipal principal) {
-        return ResponseEntity.ok(service.create(in, principal));
+        return ResponseEntity.ok(service.crearSerie(in, principal));
     }
 
     @PutMapping("/{id}")
@@ -91,4 +163,11 @@ public class CitaController {
         return service.cambiarEstado(id, Estado.CANCELADA);
     }
 
+    // Cierre en bloque (ids o barbero + día); responde el resultado de cada cita
+    @PostMapping("/estado")
+    @PreAuthorize("hasAnyRole('ADMIN','BARBERO')")
+    public CitaEstadoMasivoResponse cambiarEstadoMasivo(@Valid @RequestBody CitaEstadoMasivoRequest in) {
+        return estadoMasivoService.cambiarEstado(in);
+    }
+
 }
\ No newline at end of file
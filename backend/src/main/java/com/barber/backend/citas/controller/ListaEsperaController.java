@@ -0,0 +1,69 @@
+package com.barber.backend.citas.controller;
+
+import com.barber.backend.citas.dto.ListaEsperaDTO;
+import com.barber.backend.citas.dto.ListaEsperaRequest;
+import com.barber.backend.citas.service.ListaEsperaService;
+import com.barber.backend.login.security.AppUserPrincipal;
+import jakarta.validation.Valid;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/lista-espera")
+public class ListaEsperaController {
+
+    private final ListaEsperaService service;
+
+    public ListaEsperaController(ListaEsperaService service) {
+        this.service = service;
+    }
+
+    @PostMapping
+    public ResponseEntity<ListaEsperaDTO> create(
+            @Valid @RequestBody ListaEsperaRequest in,
+            @AuthenticationPrincipal AppUserPrincipal principal) {
+        return ResponseEntity.ok(service.create(in, principal));
+    }
+
+    // Inscripciones vigentes (ACTIVA u OFRECIDA) del usuario en sesión
+    @GetMapping
+    public List<ListaEsperaDTO> mias(@AuthenticationPrincipal AppUserPrincipal principal) {
+        return service.mias(principal);
+    }
+
+    @GetMapping("/todas")
+    @PreAuthorize("hasAnyRole('ADMIN','BARBERO')")
+    public List<ListaEsperaDTO> todas() {
+        return service.todas();
+    }
+
+    // A quién se le ofrecería el hueco, en orden, sin ofrecerlo
+    @GetMapping("/coincidencias")
+    @PreAuthorize("hasAnyRole('ADMIN','BARBERO')")
+    public List<ListaEsperaDTO> coincidencias(
+            @RequestParam Long barberoId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant fin) {
+        return service.coincidencias(barberoId, inicio, fin);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancelar(
+            @PathVariable Long id,
+            @AuthenticationPrincipal AppUserPrincipal principal) {
+        service.cancelar(id, principal);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/reactivar")
+    public ListaEsperaDTO reactivar(
+            @PathVariable Long id,
+            @AuthenticationPrincipal AppUserPrincipal principal) {
+        return service.reactivar(id, principal);
+    }
+}
@@ -0,0 +1,13 @@
+package com.barber.backend.citas.dto;
+
+import java.util.List;
+
+/**
+ * Página por cursor (keyset) del listado de citas. {@code nextCursor} es opaco y viene
+ * null cuando ya no hay más resultados.
+ */
+public record CitaCursorPage(
+    List<CitaDTO> content,
+    int size,
+    String nextCursor
+) {}
@@ -0,0 +1,18 @@
+package com.barber.backend.citas.dto;
+
+import com.barber.backend.citas.model.Cita.Estado;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Cambio de estado en bloque: una lista de ids, o bien todas las citas AGENDADAS de un
+ * barbero en un día (fecha local de la agenda). Se usa uno de los dos modos, no ambos.
+ */
+public record CitaEstadoMasivoRequest(
+    @NotNull Estado estado,
+    @Size(max = 500) List<Long> ids,
+    Long barberoId,
+    LocalDate fecha
+) {}
@@ -0,0 +1,15 @@
+package com.barber.backend.citas.dto;
+
+import com.barber.backend.citas.model.Cita.Estado;
+import java.util.List;
+
+public record CitaEstadoMasivoResponse(
+    Estado estado,
+    int actualizadas,
+    List<Resultado> resultados
+) {
+
+    public enum Motivo { ACTUALIZADA, NO_ENCONTRADA, YA_CERRADA }
+
+    public record Resultado(Long id, Motivo resultado) {}
+}
@@ -11,5 +11,6 @@ public record CitaSaveRequest(
     @NotNull Instant inicio,                // ISO desde el front
     Integer overrideDuracionMin,            // opcional
     Integer overridePrecioCentavos,         // opcional
-    String notas
+    String notas,
+    String holdId                           // opcional: apartado del slot (POST /api/agenda/apartados)
 ) {}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.barber.backend.citas.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.Instant;
+
+/**
+ * Serie de citas: la misma hora local cada {@code cadaSemanas} semanas, {@code repeticiones}
+ * veces a partir de {@code inicio}. Con {@code todasONinguna} no se crea nada si alguna choca.
+ */
+public record CitaSerieRequest(
+    @NotNull Long barberoId,
+    @NotNull Long servicioId,
+    String clienteNombre,
+    String clienteTelE164,
+    @NotNull Instant inicio,                // primera ocurrencia
+    @NotNull @Min(1) @Max(12) Integer cadaSemanas,
+    @NotNull @Min(2) @Max(26) Integer repeticiones,
+    Integer overrideDuracionMin,
+    Integer overridePrecioCentavos,
+    String notas,
+    boolean todasONinguna
+) {}
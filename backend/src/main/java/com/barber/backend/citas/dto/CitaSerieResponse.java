@@ -0,0 +1,16 @@
+package com.barber.backend.citas.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record CitaSerieResponse(
+    int creadas,
+    int conflictos,
+    List<Ocurrencia> ocurrencias
+) {
+
+    public enum Resultado { CREADA, CHOCA_CITA, CHOCA_BLOQUEO, CHOCA_APARTADO, OMITIDA }
+
+    /** {@code citaId} sólo viene en las CREADAS. */
+    public record Ocurrencia(int numero, Instant inicio, Instant fin, Resultado resultado, Long citaId) {}
+}
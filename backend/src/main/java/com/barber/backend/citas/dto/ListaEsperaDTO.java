@@ -0,0 +1,22 @@
+package com.barber.backend.citas.dto;
+
+import com.barber.backend.citas.model.ListaEspera.Estado;
+import java.time.Instant;
+import java.util.List;
+
+/** Inscripción en lista de espera; los campos oferta* son el último hueco ofrecido. */
+public record ListaEsperaDTO(
+    Long id,
+    Long servicioId,
+    List<Long> barberoIds,
+    List<ListaEsperaRequest.Ventana> ventanas,
+    String clienteNombre,
+    String clienteTelE164,
+    int prioridad,
+    Estado estado,
+    Instant creadoEn,
+    Long ofertaBarberoId,
+    Instant ofertaInicio,
+    Instant ofertaFin,
+    Instant ofertaEn
+) {}
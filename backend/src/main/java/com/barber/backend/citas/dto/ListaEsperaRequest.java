@@ -0,0 +1,23 @@
+package com.barber.backend.citas.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Inscripción en lista de espera: cualquier hueco de {@code servicioId} con alguno de los
+ * barberos y dentro de alguna ventana sirve. {@code prioridad} sólo la puede fijar ADMIN.
+ */
+public record ListaEsperaRequest(
+    @NotNull Long servicioId,
+    @NotEmpty @Size(max = 5) List<@NotNull Long> barberoIds,
+    @NotEmpty @Size(max = 20) List<@Valid Ventana> ventanas,
+    String clienteNombre,
+    String clienteTelE164,
+    Integer prioridad
+) {
+  public record Ventana(@NotNull Instant inicio, @NotNull Instant fin) { }
+}
@@ -10,7 +10,10 @@ import java.time.Instant;
 @Table(name = "citas")
 public class Cita {
 
-  public enum Estado { AGENDADA, CANCELADA, COMPLETADA }
+  public enum Estado { AGENDADA, CANCELADA, COMPLETADA, NO_ASISTIO }
+
+  /** Ninguna cita dura más que esto; permite acotar por abajo las búsquedas por rango. */
+  public static final int DURACION_MAX_MIN = 24 * 60;
 
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,76 @@
+package com.barber.backend.citas.model;
+
+import com.barber.backend.barberos.model.Barbero;
+import com.barber.backend.catalogo.model.Servicio;
+import com.barber.backend.citas.model.Cita.Estado;
+import jakarta.persistence.*;
+import java.time.Instant;
+import org.hibernate.annotations.Immutable;
+
+/** Cita movida a citas_archivo; sólo lectura (la escribe CitaArchivoJob con SQL). */
+@Entity
+@Immutable
+@Table(name = "citas_archivo")
+public class CitaArchivada {
+
+  @Id
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "barbero_id", nullable = false)
+  private Barbero barbero;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "servicio_id", nullable = false)
+  private Servicio servicio;
+
+  @Column(name = "cliente_nombre", nullable = false, length = 200)
+  private String clienteNombre;
+
+  @Column(name = "cliente_tel_e164", length = 32)
+  private String clienteTelE164;
+
+  @Column(name = "inicio", nullable = false)
+  private Instant inicio;
+
+  @Column(name = "fin", nullable = false)
+  private Instant fin;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "estado", nullable = false, length = 20)
+  private Estado estado;
+
+  @Column(name = "override_duracion_min")
+  private Integer overrideDuracionMin;
+
+  @Column(name = "override_precio_centavos")
+  private Integer overridePrecioCentavos;
+
+  @Column(name = "notas", length = 1000)
+  private String notas;
+
+  @Column(name = "creado_en", nullable = false)
+  private Instant creadoEn;
+
+  @Column(name = "actualizado_en")
+  private Instant actualizadoEn;
+
+  @Column(name = "archivado_en", nullable = false)
+  private Instant archivadoEn;
+
+  /* ===== Getters ===== */
+  public Long getId() { return id; }
+  public Barbero getBarbero() { return barbero; }
+  public Servicio getServicio() { return servicio; }
+  public String getClienteNombre() { return clienteNombre; }
+  public String getClienteTelE164() { return clienteTelE164; }
+  public Instant getInicio() { return inicio; }
+  public Instant getFin() { return fin; }
+  public Estado getEstado() { return estado; }
+  public Integer getOverrideDuracionMin() { return overrideDuracionMin; }
+  public Integer getOverridePrecioCentavos() { return overridePrecioCentavos; }
+  public String getNotas() { return notas; }
+  public Instant getCreadoEn() { return creadoEn; }
+  public Instant getActualizadoEn() { return actualizadoEn; }
+  public Instant getArchivadoEn() { return archivadoEn; }
+}
@@ -0,0 +1,40 @@
+package com.barber.backend.citas.model;
+
+import jakarta.persistence.*;
+import java.time.Instant;
+
+/** Idempotency-Key ya usada para crear una cita, con la huella de la solicitud original. */
+@Entity
+@Table(name = "cita_idempotencia")
+public class CitaClaveIdempotencia {
+
+  @Id
+  @Column(name = "clave", length = 100)
+  private String clave;
+
+  @Column(name = "cita_id", nullable = false)
+  private Long citaId;
+
+  @Column(name = "huella", nullable = false, length = 64)
+  private String huella;
+
+  @Column(name = "creado_en", nullable = false)
+  private Instant creadoEn;
+
+  @PrePersist
+  public void prePersist() {
+    if (creadoEn == null) creadoEn = Instant.now();
+  }
+
+  public String getClave() { return clave; }
+  public void setClave(String clave) { this.clave = clave; }
+
+  public Long getCitaId() { return citaId; }
+  public void setCitaId(Long citaId) { this.citaId = citaId; }
+
+  public String getHuella() { return huella; }
+  public void setHuella(String huella) { this.huella = huella; }
+
+  public Instant getCreadoEn() { return creadoEn; }
+  public void setCreadoEn(Instant creadoEn) { this.creadoEn = creadoEn; }
+}
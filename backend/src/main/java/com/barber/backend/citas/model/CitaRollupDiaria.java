@@ -0,0 +1,60 @@
+package com.barber.backend.citas.model;
+
+import com.barber.backend.citas.model.Cita.Estado;
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+import org.hibernate.annotations.Immutable;
+
+/** Fila de cita_rollup_diaria; sólo lectura (la escriben CitaRollup y CitaRollupJob con SQL). */
+@Entity
+@Immutable
+@IdClass(CitaRollupDiaria.Clave.class)
+@Table(name = "cita_rollup_diaria")
+public class CitaRollupDiaria {
+
+  @Id
+  @Column(name = "dia", nullable = false)
+  private LocalDate dia;
+
+  @Id
+  @Column(name = "barbero_id", nullable = false)
+  private Long barberoId;
+
+  @Id
+  @Enumerated(EnumType.STRING)
+  @Column(name = "estado", nullable = false, length = 20)
+  private Estado estado;
+
+  @Column(name = "citas", nullable = false)
+  private int citas;
+
+  @Column(name = "ingresos_centavos", nullable = false)
+  private long ingresosCentavos;
+
+  protected CitaRollupDiaria() { }
+
+  public LocalDate getDia() { return dia; }
+  public Long getBarberoId() { return barberoId; }
+  public Estado getEstado() { return estado; }
+  public int getCitas() { return citas; }
+  public long getIngresosCentavos() { return ingresosCentavos; }
+
+  public static class Clave implements Serializable {
+    private LocalDate dia;
+    private Long barberoId;
+    private Estado estado;
+
+    public Clave() { }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Clave k
+          && Objects.equals(dia, k.dia) && Objects.equals(barberoId, k.barberoId) && estado == k.estado;
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(dia, barberoId, estado); }
+  }
+}
@@ -0,0 +1,103 @@
+package com.barber.backend.citas.model;
+
+import com.barber.backend.catalogo.model.Servicio;
+import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+@Entity
+@Table(name = "lista_espera")
+public class ListaEspera {
+
+  /** ACTIVA: espera hueco. OFRECIDA: se le ofreció uno (sale del índice). CERRADA: ya no espera. */
+  public enum Estado { ACTIVA, OFRECIDA, CERRADA }
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "usuario_id")
+  private Long usuarioId;
+
+  @ManyToOne(optional = false, fetch = FetchType.LAZY)
+  @JoinColumn(name = "servicio_id", nullable = false)
+  private Servicio servicio;
+
+  // Los listados cargan varias inscripciones: sus colecciones se traen en tandas, no una por fila
+  @ElementCollection
+  @BatchSize(size = 50)
+  @CollectionTable(name = "lista_espera_barbero", joinColumns = @JoinColumn(name = "lista_espera_id"))
+  @Column(name = "barbero_id", nullable = false)
+  private Set<Long> barberoIds = new LinkedHashSet<>();
+
+  @ElementCollection
+  @BatchSize(size = 50)
+  @CollectionTable(name = "lista_espera_ventana", joinColumns = @JoinColumn(name = "lista_espera_id"))
+  private List<ListaEsperaVentana> ventanas = new ArrayList<>();
+
+  @Column(name = "cliente_nombre", nullable = false, length = 200)
+  private String clienteNombre;
+
+  @Column(name = "cliente_tel_e164", nullable = false, length = 32)
+  private String clienteTelE164;
+
+  @Column(name = "prioridad", nullable = false)
+  private int prioridad;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "estado", nullable = false, length = 20)
+  private Estado estado = Estado.ACTIVA;
+
+  @Column(name = "creado_en", nullable = false, updatable = false)
+  private Instant creadoEn;
+
+  @Column(name = "oferta_barbero_id")
+  private Long ofertaBarberoId;
+
+  @Column(name = "oferta_inicio")
+  private Instant ofertaInicio;
+
+  @Column(name = "oferta_fin")
+  private Instant ofertaFin;
+
+  @Column(name = "oferta_en")
+  private Instant ofertaEn;
+
+  @PrePersist
+  public void prePersist() {
+    if (creadoEn == null) creadoEn = Instant.now();
+    if (estado == null) estado = Estado.ACTIVA;
+  }
+
+  /* ===== Getters/Setters ===== */
+  public Long getId() { return id; }
+  public Long getUsuarioId() { return usuarioId; }
+  public void setUsuarioId(Long usuarioId) { this.usuarioId = usuarioId; }
+  public Servicio getServicio() { return servicio; }
+  public void setServicio(Servicio servicio) { this.servicio = servicio; }
+  public Set<Long> getBarberoIds() { return barberoIds; }
+  public void setBarberoIds(Set<Long> barberoIds) { this.barberoIds = barberoIds; }
+  public List<ListaEsperaVentana> getVentanas() { return ventanas; }
+  public void setVentanas(List<ListaEsperaVentana> ventanas) { this.ventanas = ventanas; }
+  public String getClienteNombre() { return clienteNombre; }
+  public void setClienteNombre(String clienteNombre) { this.clienteNombre = clienteNombre; }
+  public String getClienteTelE164() { return clienteTelE164; }
+  public void setClienteTelE164(String clienteTelE164) { this.clienteTelE164 = clienteTelE164; }
+  public int getPrioridad() { return prioridad; }
+  public void setPrioridad(int prioridad) { this.prioridad = prioridad; }
+  public Estado getEstado() { return estado; }
+  public void setEstado(Estado estado) { this.estado = estado; }
+  public Instant getCreadoEn() { return creadoEn; }
+  public Long getOfertaBarberoId() { return ofertaBarberoId; }
+  public void setOfertaBarberoId(Long ofertaBarberoId) { this.ofertaBarberoId = ofertaBarberoId; }
+  public Instant getOfertaInicio() { return ofertaInicio; }
+  public void setOfertaInicio(Instant ofertaInicio) { this.ofertaInicio = ofertaInicio; }
+  public Instant getOfertaFin() { return ofertaFin; }
+  public void setOfertaFin(Instant ofertaFin) { this.ofertaFin = ofertaFin; }
+  public Instant getOfertaEn() { return ofertaEn; }
+  public void setOfertaEn(Instant ofertaEn) { this.ofertaEn = ofertaEn; }
+}
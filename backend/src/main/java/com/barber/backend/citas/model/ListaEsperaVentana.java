@@ -0,0 +1,26 @@
+package com.barber.backend.citas.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import java.time.Instant;
+
+/** Ventana [inicio, fin) en la que el cliente en espera aceptaría una cita. */
+@Embeddable
+public class ListaEsperaVentana {
+
+  @Column(name = "inicio", nullable = false)
+  private Instant inicio;
+
+  @Column(name = "fin", nullable = false)
+  private Instant fin;
+
+  protected ListaEsperaVentana() { }
+
+  public ListaEsperaVentana(Instant inicio, Instant fin) {
+    this.inicio = inicio;
+    this.fin = fin;
+  }
+
+  public Instant getInicio() { return inicio; }
+  public Instant getFin() { return fin; }
+}
@@ -0,0 +1,118 @@
+package com.barber.backend.citas.repository;
+
+import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.model.CitaArchivada;
+import com.barber.backend.citas.model.Cita.Estado;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+/**
+ * Histórico frío (citas_archivo). Las consultas repiten las de {@link CitaRepository} que
+ * pueden llegar a fechas archivadas, con los mismos filtros y orden, para que CitaArchivo
+ * pueda fusionar ambos resultados.
+ */
+public interface CitaArchivadaRepository extends JpaRepository<CitaArchivada, Long> {
+
+  /** Inicio más reciente archivado (null si no hay nada): por encima, citas basta. */
+  @Query("SELECT MAX(c.inicio) FROM CitaArchivada c")
+  Instant findMaxInicio();
+
+  /** Copia las citas indicadas tal cual; el borrado de citas va en la misma transacción. */
+  @Modifying
+  @Query(value = """
+      INSERT INTO citas_archivo (id, barbero_id, servicio_id, cliente_nombre, cliente_tel_e164,
+                                 inicio, fin, estado, override_duracion_min, override_precio_centavos,
+                                 notas, creado_en, actualizado_en, archivado_en)
+      SELECT id, barbero_id, servicio_id, cliente_nombre, cliente_tel_e164,
+             inicio, fin, estado, override_duracion_min, override_precio_centavos,
+             notas, creado_en, actualizado_en, :ahora
+      FROM citas
+      WHERE id IN :ids
+      """, nativeQuery = true)
+  int copiarDesdeCitas(@Param("ids") Collection<Long> ids, @Param("ahora") Instant ahora);
+
+  @Query("""
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
+      FROM CitaArchivada c
+      WHERE c.id = :id
+      """)
+  Optional<CitaDTO> findDtoById(@Param("id") Long id);
+
+  @Query(value = """
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
+      FROM CitaArchivada c
+      WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
+        AND (:estado   IS NULL OR c.estado = :estado)
+        AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
+      ORDER BY c.inicio ASC
+      """, countQuery = """
+      SELECT COUNT(c)
+      FROM CitaArchivada c
+      WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
+        AND (:estado   IS NULL OR c.estado = :estado)
+        AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
+      """)
+  Page<CitaDTO> findByFiltro(
+      @Param("barberoId") Long barberoId,
+      @Param("estado") Estado estado,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin,
+      Pageable pageable);
+
+  @Query("""
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
+      FROM CitaArchivada c
+      WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
+        AND (:estado   IS NULL OR c.estado = :estado)
+        AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
+        AND (:cursorInicio IS NULL
+             OR c.inicio > :cursorInicio
+             OR (c.inicio = :cursorInicio AND c.id > :cursorId))
+      ORDER BY c.inicio ASC, c.id ASC
+      """)
+  List<CitaDTO> findByFiltroDesdeCursor(
+      @Param("barberoId") Long barberoId,
+      @Param("estado") Estado estado,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin,
+      @Param("cursorInicio") Instant cursorInicio,
+      @Param("cursorId") Long cursorId,
+      Limit limit);
+
+  long countByClienteTelE164AndEstado(String clienteTelE164, Estado estado);
+
+  @Query("""
+        SELECT c
+        FROM CitaArchivada c
+        WHERE c.clienteTelE164 = :telefono
+          AND c.estado = com.barber.backend.citas.model.Cita.Estado.COMPLETADA
+        ORDER BY c.inicio DESC
+      """)
+  List<CitaArchivada> findUltimasCitasCliente(
+      @Param("telefono") String telefono,
+      Pageable pageable);
+}
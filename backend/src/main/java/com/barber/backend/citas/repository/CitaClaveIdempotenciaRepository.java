@@ -0,0 +1,21 @@
+package com.barber.backend.citas.repository;
+
+import com.barber.backend.citas.model.CitaClaveIdempotencia;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CitaClaveIdempotenciaRepository extends JpaRepository<CitaClaveIdempotencia, String> {
+
+  // Purga por tandas sobre idx_cita_idempotencia_creado
+  @Modifying
+  @Query(value = """
+      DELETE FROM cita_idempotencia
+      WHERE creado_en < :limite
+      ORDER BY creado_en
+      LIMIT :lote
+      """, nativeQuery = true)
+  int purgarAnteriores(@Param("limite") Instant limite, @Param("lote") int lote);
+}
@@ -1,24 +1,60 @@
 package com.barber.backend.citas.repository;
 
+import com.barber.backend.citas.dto.CitaDTO;
 import com.barber.backend.citas.model.Cita;
 import com.barber.backend.citas.model.Cita.Estado;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface CitaRepository extends JpaRepository<Cita, Long> {
 
+  /** Lo mínimo para decidir y aplicar un cambio de estado sin hidratar la entidad. */
+  interface EstadoActual {
+    Long getId();
+    Long getBarberoId();
+    Estado getEstado();
+    Instant getInicio();
+    Instant getFin();
+  }
+
+  interface Intervalo {
+    Instant getInicio();
+    Instant getFin();
+  }
+
+  /**
+   * Listados: proyección directa a CitaDTO. c.barbero.id / c.servicio.id salen de las FK,
+   * sin join ni proxies, y nada entra al contexto de persistencia (sin snapshots).
+   *
+   * {@code inicioMin} (desde menos la duración máxima de una cita) no cambia el resultado,
+   * pero acota el rango por abajo: sin él "inicio < hasta" recorre toda la historia.
+   */
   @Query(value = """
-      SELECT c
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
       FROM Cita c
       WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
         AND (:estado   IS NULL OR c.estado = :estado)
         AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
       ORDER BY c.inicio ASC
       """, countQuery = """
       SELECT COUNT(c)
@@ -26,14 +62,185 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
       WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
         AND (:estado   IS NULL OR c.estado = :estado)
         AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
       """)
-  Page<Cita> findByFiltro(
+  Page<CitaDTO> findByFiltro(
       @Param("barberoId") Long barberoId,
       @Param("estado") Estado estado,
       @Param("desde") Instant desde,
       @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin,
       Pageable pageable);
 
+  /**
+   * Listado por cursor (keyset) sobre (inicio, id): sin COUNT y sin OFFSET, así el costo
+   * de una página no crece con la profundidad. Con cursor nulo devuelve la primera página.
+   */
+  @Query("""
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
+      FROM Cita c
+      WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
+        AND (:estado   IS NULL OR c.estado = :estado)
+        AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
+        AND (:cursorInicio IS NULL
+             OR c.inicio > :cursorInicio
+             OR (c.inicio = :cursorInicio AND c.id > :cursorId))
+      ORDER BY c.inicio ASC, c.id ASC
+      """)
+  List<CitaDTO> findByFiltroDesdeCursor(
+      @Param("barberoId") Long barberoId,
+      @Param("estado") Estado estado,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin,
+      @Param("cursorInicio") Instant cursorInicio,
+      @Param("cursorId") Long cursorId,
+      Limit limit);
+
+  /**
+   * Exportación: mismos filtros que findByFiltro, leídos fila a fila. Con fetch size
+   * Integer.MIN_VALUE Connector/J no carga el resultado completo en memoria (streaming);
+   * el Stream debe consumirse y cerrarse dentro de una transacción de solo lectura.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("""
+      SELECT new com.barber.backend.citas.dto.CitaDTO(
+          c.id, c.barbero.id, c.servicio.id, c.clienteNombre, c.clienteTelE164,
+          c.inicio, c.fin, c.estado, c.overrideDuracionMin, c.overridePrecioCentavos,
+          c.notas, c.creadoEn, c.actualizadoEn)
+      FROM Cita c
+      WHERE (:barberoId IS NULL OR c.barbero.id = :barberoId)
+        AND (:estado   IS NULL OR c.estado = :estado)
+        AND (c.inicio < :hasta AND c.fin > :desde)
+        AND c.inicio >= :inicioMin
+      ORDER BY c.inicio ASC, c.id ASC
+      """)
+  Stream<CitaDTO> streamByFiltro(
+      @Param("barberoId") Long barberoId,
+      @Param("estado") Estado estado,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin);
+
+  /**
+   * Cambios de estado en bloque: lee y bloquea (FOR UPDATE) las filas pedidas, así el
+   * resultado por id que se reporta es exactamente lo que hace el UPDATE posterior.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("""
+      SELECT c.id AS id, c.barbero.id AS barberoId, c.estado AS estado,
+             c.inicio AS inicio, c.fin AS fin
+      FROM Cita c
+      WHERE c.id IN :ids
+      """)
+  List<EstadoActual> findEstadoActualParaCambio(@Param("ids") Collection<Long> ids);
+
+  /**
+   * Cambio de estado o borrado de una cita: la bloquea (FOR UPDATE) para que dos
+   * peticiones, o una petición y el auto-cierre, no apliquen la misma transición dos veces.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM Cita c WHERE c.id = :id")
+  Optional<Cita> findByIdParaCambio(@Param("id") Long id);
+
+  interface Precio {
+    Long getId();
+    Integer getPrecioCentavos();
+  }
+
+  // Precio efectivo para el rollup de cambios en bloque; lectura simple, sin bloquear servicios
+  @Query("""
+      SELECT c.id AS id, COALESCE(c.overridePrecioCentavos, s.precioCentavos) AS precioCentavos
+      FROM Cita c
+        JOIN c.servicio s
+      WHERE c.id IN :ids
+      """)
+  List<Precio> findPrecios(@Param("ids") Collection<Long> ids);
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("""
+      SELECT c.id AS id, c.barbero.id AS barberoId, c.estado AS estado,
+             c.inicio AS inicio, c.fin AS fin
+      FROM Cita c
+      WHERE c.barbero.id = :barberoId
+        AND c.estado = com.barber.backend.citas.model.Cita.Estado.AGENDADA
+        AND c.inicio >= :desde AND c.inicio < :hasta
+      ORDER BY c.inicio ASC
+      """)
+  List<EstadoActual> findAgendadasParaCambio(
+      @Param("barberoId") Long barberoId,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta);
+
+  /**
+   * Auto-cierre: siguiente lote de citas AGENDADAS que terminaron antes de {@code limite},
+   * en orden (inicio, id) desde el cursor. SKIP LOCKED: las filas que otra transacción
+   * tiene tomadas se saltan en vez de esperarlas; se recogen en la siguiente corrida.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("""
+      SELECT c.id AS id, c.barbero.id AS barberoId, c.estado AS estado,
+             c.inicio AS inicio, c.fin AS fin
+      FROM Cita c
+      WHERE c.estado = com.barber.backend.citas.model.Cita.Estado.AGENDADA
+        AND c.inicio < :limite
+        AND c.fin <= :limite
+        AND (c.inicio > :cursorInicio OR (c.inicio = :cursorInicio AND c.id > :cursorId))
+      ORDER BY c.inicio ASC, c.id ASC
+      """)
+  List<EstadoActual> findVencidasParaCerrar(
+      @Param("limite") Instant limite,
+      @Param("cursorInicio") Instant cursorInicio,
+      @Param("cursorId") Long cursorId,
+      Limit limit);
+
+  /** Un solo UPDATE para todas; sólo toca las que siguen AGENDADAS. */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("""
+      UPDATE Cita c
+      SET c.estado = :nuevo, c.actualizadoEn = :ahora
+      WHERE c.id IN :ids
+        AND c.estado = com.barber.backend.citas.model.Cita.Estado.AGENDADA
+      """)
+  int cerrarAgendadas(
+      @Param("ids") Collection<Long> ids,
+      @Param("nuevo") Estado nuevo,
+      @Param("ahora") Instant ahora);
+
+  /**
+   * Archivo: siguiente lote de citas cerradas que empezaron antes de {@code limite}, por
+   * cursor (inicio, id) sobre idx_citas_inicio. Bloquea el lote con SKIP LOCKED, como el
+   * auto-cierre, para que dos instancias no copien la misma cita.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("""
+      SELECT c.id AS id, c.barbero.id AS barberoId, c.estado AS estado,
+             c.inicio AS inicio, c.fin AS fin
+      FROM Cita c
+      WHERE c.inicio < :limite
+        AND c.estado <> com.barber.backend.citas.model.Cita.Estado.AGENDADA
+        AND (c.inicio > :cursorInicio OR (c.inicio = :cursorInicio AND c.id > :cursorId))
+      ORDER BY c.inicio ASC, c.id ASC
+      """)
+  List<EstadoActual> findParaArchivar(
+      @Param("limite") Instant limite,
+      @Param("cursorInicio") Instant cursorInicio,
+      @Param("cursorId") Long cursorId,
+      Limit limit);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("DELETE FROM Cita c WHERE c.id IN :ids")
+  int eliminarPorIds(@Param("ids") Collection<Long> ids);
+
   /**
    * Para CREAR: valida empalmes de citas AGENDADAS en el rango dado.
    */
@@ -72,6 +279,36 @@ public interface CitaRepository extends JpaRepository<Cita, Long> {
       """)
   List<Cita> findAgendadasDelBarberoEnRango(Long barberoId, Instant desde, Instant hasta);
 
+  /**
+   * Sólo los intervalos ocupados del barbero en [desde, hasta), ordenados por inicio: lo
+   * que necesita una serie para revisar todas sus ocurrencias con una sola consulta.
+   */
+  @Query("""
+        SELECT c.inicio AS inicio, c.fin AS fin
+        FROM Cita c
+        WHERE c.barbero.id = :barberoId
+          AND c.estado = com.barber.backend.citas.model.Cita.Estado.AGENDADA
+          AND (c.inicio < :hasta AND c.fin > :desde)
+          AND c.inicio >= :inicioMin
+        ORDER BY c.inicio ASC
+      """)
+  List<Intervalo> findIntervalosAgendados(
+      @Param("barberoId") Long barberoId,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta,
+      @Param("inicioMin") Instant inicioMin);
+
+  @Query("""
+        SELECT c FROM Cita c
+        WHERE c.barbero.id IN :barberoIds
+          AND c.estado = com.barber.backend.citas.model.Cita.Estado.AGENDADA
+          AND (c.inicio < :hasta AND c.fin > :desde)
+      """)
+  List<Cita> findAgendadasDeBarberosEnRango(
+      @Param("barberoIds") Collection<Long> barberoIds,
+      @Param("desde") Instant desde,
+      @Param("hasta") Instant hasta);
+
   @Query("""
         SELECT COUNT(c)
         FROM Cita c
@@ -0,0 +1,146 @@
+package com.barber.backend.citas.repository;
+
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.model.CitaRollupDiaria;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface CitaRollupRepository extends JpaRepository<CitaRollupDiaria, CitaRollupDiaria.Clave> {
+
+  /** Total de un (barbero, estado) en un rango de citas crudas, para reconstruir un día. */
+  interface Agregado {
+    Long getBarberoId();
+    String getEstado();
+    Number getCitas();
+    Number getIngresosCentavos();
+  }
+
+  // Suma un delta (puede ser negativo) a la fila del día; la crea si no existe
+  @Modifying
+  @Query(value = """
+      INSERT INTO cita_rollup_diaria (dia, barbero_id, estado, citas, ingresos_centavos)
+      VALUES (:dia, :barberoId, :estado, :citas, :ingresos) AS d
+      ON DUPLICATE KEY UPDATE
+        citas = cita_rollup_diaria.citas + d.citas,
+        ingresos_centavos = cita_rollup_diaria.ingresos_centavos + d.ingresos_centavos
+      """, nativeQuery = true)
+  int sumarDelta(
+      @Param("dia") LocalDate dia,
+      @Param("barberoId") Long barberoId,
+      @Param("estado") String estado,
+      @Param("citas") int citas,
+      @Param("ingresos") long ingresos);
+
+  @Modifying
+  @Query(value = "DELETE FROM cita_rollup_diaria WHERE dia = :dia", nativeQuery = true)
+  int borrarDia(@Param("dia") LocalDate dia);
+
+  @Query("SELECT MIN(r.dia) FROM CitaRollupDiaria r")
+  LocalDate findPrimerDia();
+
+  /*
+   * Reconstrucción de un día: lecturas con FOR SHARE para ver lo último confirmado y
+   * frenar mientras tanto a quien escriba citas de ese rango (sus deltas esperan y quedan
+   * después del recálculo). Primero el archivo y luego citas, en el orden en que
+   * CitaArchivoJob las escribe, para no cruzar locks con él.
+   */
+  @Query(value = """
+      SELECT a.barbero_id AS barberoId, a.estado AS estado, COUNT(*) AS citas,
+             COALESCE(SUM(COALESCE(a.override_precio_centavos, s.precio_centavos)), 0) AS ingresosCentavos
+      FROM citas_archivo a
+        JOIN servicios s ON s.id = a.servicio_id
+      WHERE a.inicio >= :desde AND a.inicio < :hasta
+      GROUP BY a.barbero_id, a.estado
+      FOR SHARE
+      """, nativeQuery = true)
+  List<Agregado> agregarArchivo(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+  @Query(value = """
+      SELECT c.barbero_id AS barberoId, c.estado AS estado, COUNT(*) AS citas,
+             COALESCE(SUM(COALESCE(c.override_precio_centavos, s.precio_centavos)), 0) AS ingresosCentavos
+      FROM citas c
+        JOIN servicios s ON s.id = c.servicio_id
+      WHERE c.inicio >= :desde AND c.inicio < :hasta
+      GROUP BY c.barbero_id, c.estado
+      FOR SHARE
+      """, nativeQuery = true)
+  List<Agregado> agregarCitas(@Param("desde") Instant desde, @Param("hasta") Instant hasta);
+
+  // MIN/MAX por idx_citas_inicio e idx_citas_archivo_inicio: un extremo del índice cada uno
+  @Query("SELECT MIN(c.inicio) FROM Cita c")
+  Instant findPrimerInicioCitas();
+
+  @Query("SELECT MIN(a.inicio) FROM CitaArchivada a")
+  Instant findPrimerInicioArchivo();
+
+  @Query("SELECT MAX(c.inicio) FROM Cita c")
+  Instant findUltimoInicioCitas();
+
+  /* ===== Lecturas de tablero: unas cuantas filas por día en vez de recorrer citas ===== */
+
+  /** Contadores del tablero de admin; cada uno es una ventana [desde, hasta) de días. */
+  interface ResumenAdmin {
+    Number getCitasHoy();
+    Number getCitasSemana();
+    Number getCanceladasSemana();
+    Number getIngresosMes();
+    Number getIngresosMesAnterior();
+  }
+
+  // Un solo recorrido del rango más amplio (mes anterior .. fin de semana/mes) por la PK
+  @Query(value = """
+      SELECT
+        COALESCE(SUM(CASE WHEN r.estado = 'AGENDADA' AND r.dia = :hoy
+                          THEN r.citas END), 0) AS citasHoy,
+        COALESCE(SUM(CASE WHEN r.estado = 'AGENDADA' AND r.dia >= :semanaDesde AND r.dia < :semanaHasta
+                          THEN r.citas END), 0) AS citasSemana,
+        COALESCE(SUM(CASE WHEN r.estado = 'CANCELADA' AND r.dia >= :semanaDesde AND r.dia < :semanaHasta
+                          THEN r.citas END), 0) AS canceladasSemana,
+        COALESCE(SUM(CASE WHEN r.estado = 'COMPLETADA' AND r.dia >= :mesDesde AND r.dia < :mesHasta
+                          THEN r.ingresos_centavos END), 0) AS ingresosMes,
+        COALESCE(SUM(CASE WHEN r.estado = 'COMPLETADA' AND r.dia >= :mesAnteriorDesde AND r.dia < :mesDesde
+                          THEN r.ingresos_centavos END), 0) AS ingresosMesAnterior
+      FROM cita_rollup_diaria r
+      WHERE r.dia >= :desde AND r.dia < :hasta
+        AND r.estado IN ('AGENDADA', 'CANCELADA', 'COMPLETADA')
+      """, nativeQuery = true)
+  ResumenAdmin resumenAdmin(
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta,
+      @Param("hoy") LocalDate hoy,
+      @Param("semanaDesde") LocalDate semanaDesde,
+      @Param("semanaHasta") LocalDate semanaHasta,
+      @Param("mesAnteriorDesde") LocalDate mesAnteriorDesde,
+      @Param("mesDesde") LocalDate mesDesde,
+      @Param("mesHasta") LocalDate mesHasta);
+
+  @Query("""
+        SELECT COALESCE(SUM(r.citas), 0)
+        FROM CitaRollupDiaria r
+        WHERE r.barberoId = :barberoId
+          AND r.estado = :estado
+          AND r.dia >= :desde AND r.dia < :hasta
+      """)
+  long sumCitasByBarberoAndEstadoBetween(
+      @Param("barberoId") Long barberoId,
+      @Param("estado") Estado estado,
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta);
+
+  @Query("""
+        SELECT COALESCE(SUM(r.ingresosCentavos), 0)
+        FROM CitaRollupDiaria r
+        WHERE r.barberoId = :barberoId
+          AND r.estado = com.barber.backend.citas.model.Cita.Estado.COMPLETADA
+          AND r.dia >= :desde AND r.dia < :hasta
+      """)
+  long sumIngresosCompletadasBarberoBetween(
+      @Param("barberoId") Long barberoId,
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta);
+}
@@ -0,0 +1,58 @@
+package com.barber.backend.citas.repository;
+
+import com.barber.backend.citas.model.ListaEspera;
+import com.barber.backend.citas.model.ListaEspera.Estado;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+public interface ListaEsperaRepository extends JpaRepository<ListaEspera, Long> {
+
+  /** Una fila por (inscripción ACTIVA, barbero, ventana vigente): lo que carga ListaEsperaIndex. */
+  interface VentanaActiva {
+    Long getId();
+    Integer getPrioridad();
+    Integer getDuracionMin();
+    Long getBarberoId();
+    Instant getInicio();
+    Instant getFin();
+  }
+
+  // Entra por idx_lista_espera_estado; barberos y ventanas por su llave a lista_espera
+  @Query("""
+      select l.id as id, l.prioridad as prioridad, s.duracionMin as duracionMin,
+             b as barberoId, v.inicio as inicio, v.fin as fin
+      from ListaEspera l
+        join l.servicio s
+        join l.barberoIds b
+        join l.ventanas v
+      where l.estado = com.barber.backend.citas.model.ListaEspera.Estado.ACTIVA
+        and v.fin > :ahora
+      """)
+  List<VentanaActiva> findVentanasActivas(@Param("ahora") Instant ahora);
+
+  /**
+   * Bloquea las candidatas que siguen ACTIVAS; las que otro ya ofreció o cerró se saltan
+   * (SKIP LOCKED) en vez de esperar, así dos cancelaciones no ofrecen a la misma persona.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("""
+      select l from ListaEspera l
+      where l.id in :ids
+        and l.estado = com.barber.backend.citas.model.ListaEspera.Estado.ACTIVA
+      """)
+  List<ListaEspera> findActivasParaOfrecer(@Param("ids") Collection<Long> ids);
+
+  List<ListaEspera> findByUsuarioIdAndEstadoInOrderByIdDesc(Long usuarioId, Collection<Estado> estados);
+
+  List<ListaEspera> findByEstadoInOrderByPrioridadDescIdAsc(Collection<Estado> estados, Limit limit);
+}
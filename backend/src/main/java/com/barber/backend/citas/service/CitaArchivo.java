@@ -0,0 +1,258 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.model.CitaArchivada;
+import com.barber.backend.citas.repository.CitaArchivadaRepository;
+import com.barber.backend.citas.repository.CitaRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * Unión transparente de citas (caliente) y citas_archivo (frío). Todo lo archivado empezó
+ * antes de {@link #corte()}; un rango que no baja de ahí se resuelve sólo con citas y no
+ * toca el archivo.
+ *
+ * El corte es el mayor entre el inicio archivado más reciente (leído de la BD cada pocos
+ * minutos y adelantado por CitaArchivoJob) y la retención configurada, que acota lo que
+ * puede haber archivado otra instancia desde la última lectura.
+ */
+@Component
+public class CitaArchivo {
+
+    private static final Duration REFRESCO = Duration.ofMinutes(5);
+    /** Tope de filas a fusionar por lado en el listado paginado; más allá, usar /cursor. */
+    private static final int MAX_FILAS_FUSION = 5_000;
+
+    /** Orden por (inicio, id): el de los listados por cursor y la exportación. */
+    public static final Comparator<CitaDTO> POR_INICIO_ID =
+            Comparator.comparing(CitaDTO::inicio).thenComparing(CitaDTO::id);
+
+    private static final Map<String, Function<CitaDTO, Comparable<?>>> CAMPOS = Map.ofEntries(
+            Map.entry("id", CitaDTO::id),
+            Map.entry("inicio", CitaDTO::inicio),
+            Map.entry("fin", CitaDTO::fin),
+            // MySQL ordena el estado como texto, no por ordinal
+            Map.entry("estado", c -> c.estado() != null ? c.estado().name() : null),
+            Map.entry("clienteNombre", c -> minusculas(c.clienteNombre())),
+            Map.entry("clienteTelE164", CitaDTO::clienteTelE164),
+            Map.entry("notas", c -> minusculas(c.notas())),
+            Map.entry("overrideDuracionMin", CitaDTO::overrideDuracionMin),
+            Map.entry("overridePrecioCentavos", CitaDTO::overridePrecioCentavos),
+            Map.entry("creadoEn", CitaDTO::creadoEn),
+            Map.entry("actualizadoEn", CitaDTO::actualizadoEn));
+
+    private final CitaRepository repo;
+    private final CitaArchivadaRepository archivoRepo;
+    private final CitasProperties props;
+
+    private volatile Instant corteBd;
+    private volatile long leidoEnNanos;
+    private volatile boolean leido;
+
+    public CitaArchivo(CitaRepository repo, CitaArchivadaRepository archivoRepo, CitasProperties props) {
+        this.repo = repo;
+        this.archivoRepo = archivoRepo;
+        this.props = props;
+    }
+
+    /** Cota superior (exclusiva) del inicio de cualquier cita archivada, o null si no hay. */
+    public Instant corte() {
+        if (!leido || System.nanoTime() - leidoEnNanos > REFRESCO.toNanos()) {
+            Instant max = archivoRepo.findMaxInicio();
+            corteBd = mayor(corteBd, max != null ? max.plusSeconds(1) : null);
+            leidoEnNanos = System.nanoTime();
+            leido = true;
+        }
+        Instant politica = props.isArchivoEnabled()
+                ? Instant.now().minus(Duration.ofDays(props.getArchivoRetencionDias()))
+                : null;
+        return mayor(corteBd, politica);
+    }
+
+    /** Si un rango cuyas citas empiezan desde {@code inicioMin} puede tener archivadas. */
+    public boolean alcanza(Instant inicioMin) {
+        Instant corte = corte();
+        return corte != null && inicioMin.isBefore(corte);
+    }
+
+    /** Avisado por CitaArchivoJob tras confirmar cada lote. */
+    void archivadasHasta(Instant inicio) {
+        corteBd = mayor(corteBd, inicio.plusSeconds(1));
+    }
+
+    public Optional<CitaDTO> buscar(Long id) {
+        return archivoRepo.findDtoById(id);
+    }
+
+    /**
+     * Página del listado sobre ambas tablas: las primeras offset+size filas de cada una en
+     * el mismo orden que findByFiltro (inicio y luego el sort pedido), fusionadas.
+     */
+    public Page<CitaDTO> listar(Long barberoId, Estado estado, Instant desde, Instant hasta,
+            Instant inicioMin, Pageable pageable) {
+        long filas = pageable.getOffset() + pageable.getPageSize();
+        if (filas > MAX_FILAS_FUSION) {
+            throw new IllegalArgumentException(
+                    "Página demasiado profunda para un rango con histórico; usa /api/citas/cursor");
+        }
+        Pageable primeras = PageRequest.of(0, (int) filas, pageable.getSort());
+        Page<CitaDTO> calientes = repo.findByFiltro(barberoId, estado, desde, hasta, inicioMin, primeras);
+        Page<CitaDTO> frias = archivoRepo.findByFiltro(barberoId, estado, desde, hasta, inicioMin, primeras);
+
+        List<CitaDTO> todas = new ArrayList<>(calientes.getContent());
+        todas.addAll(frias.getContent());
+        todas.sort(comparador(pageable.getSort()));
+        int desdeFila = (int) Math.min(pageable.getOffset(), todas.size());
+        int hastaFila = (int) Math.min(filas, todas.size());
+        return new PageImpl<>(List.copyOf(todas.subList(desdeFila, hastaFila)), pageable,
+                calientes.getTotalElements() + frias.getTotalElements());
+    }
+
+    /** Siguientes {@code limite} filas por (inicio, id) sobre ambas tablas. */
+    public List<CitaDTO> desdeCursor(Long barberoId, Estado estado, Instant desde, Instant hasta,
+            Instant inicioMin, Instant cursorInicio, Long cursorId, int limite) {
+        List<CitaDTO> todas = new ArrayList<>(repo.findByFiltroDesdeCursor(
+                barberoId, estado, desde, hasta, inicioMin, cursorInicio, cursorId, Limit.of(limite)));
+        todas.addAll(archivoRepo.findByFiltroDesdeCursor(
+                barberoId, estado, desde, hasta, inicioMin, cursorInicio, cursorId, Limit.of(limite)));
+        todas.sort(POR_INICIO_ID);
+        return todas.size() > limite ? todas.subList(0, limite) : todas;
+    }
+
+    /** Conteo histórico del cliente, sin rango: incluye el archivo si hay algo archivado. */
+    public long contarCliente(String telefono, Estado estado) {
+        long n = repo.countByClienteTelE164AndEstado(telefono, estado);
+        return corte() != null ? n + archivoRepo.countByClienteTelE164AndEstado(telefono, estado) : n;
+    }
+
+    /**
+     * Última cita COMPLETADA archivada del cliente, sólo si es más reciente que
+     * {@code ultimaActiva} (la de citas, o null). Si ésa ya pasa del corte, ni se consulta.
+     */
+    public Optional<CitaArchivada> ultimaCompletadaArchivada(String telefono, Instant ultimaActiva) {
+        Instant corte = corte();
+        if (corte == null || (ultimaActiva != null && !ultimaActiva.isBefore(corte))) return Optional.empty();
+        return archivoRepo.findUltimasCitasCliente(telefono, PageRequest.of(0, 1)).stream()
+                .findFirst()
+                .filter(a -> ultimaActiva == null || a.getInicio().isAfter(ultimaActiva));
+    }
+
+    /**
+     * Recorre en orden (inicio, id) ambas tablas para la exportación: cada una se lee por
+     * páginas de {@code pagina} filas con el cursor de la última, y las dos se fusionan.
+     * En memoria hay a lo más una página por tabla, sin cursores abiertos entre lecturas.
+     */
+    public Iterator<CitaDTO> recorrer(Long barberoId, Estado estado, Instant desde, Instant hasta,
+            Instant inicioMin, int pagina) {
+        return fusionar(
+                porPaginas((ci, id, l) -> archivoRepo.findByFiltroDesdeCursor(
+                        barberoId, estado, desde, hasta, inicioMin, ci, id, l), pagina),
+                porPaginas((ci, id, l) -> repo.findByFiltroDesdeCursor(
+                        barberoId, estado, desde, hasta, inicioMin, ci, id, l), pagina));
+    }
+
+    /** Una consulta por cursor (inicio, id): la siguiente página después de ese punto. */
+    private interface Pagina {
+        List<CitaDTO> despuesDe(Instant cursorInicio, Long cursorId, Limit limit);
+    }
+
+    private static Iterator<CitaDTO> porPaginas(Pagina pagina, int tamano) {
+        return new Iterator<>() {
+            private Iterator<CitaDTO> actual = Collections.emptyIterator();
+            private CitaDTO ultima;
+            private boolean completa = true;
+
+            @Override
+            public boolean hasNext() {
+                if (actual.hasNext()) return true;
+                // Una página corta fue la última; si venía llena puede haber más
+                if (!completa) return false;
+                List<CitaDTO> filas = ultima == null
+                        ? pagina.despuesDe(null, null, Limit.of(tamano))
+                        : pagina.despuesDe(ultima.inicio(), ultima.id(), Limit.of(tamano));
+                completa = filas.size() == tamano;
+                actual = filas.iterator();
+                return actual.hasNext();
+            }
+
+            @Override
+            public CitaDTO next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ultima = actual.next();
+                return ultima;
+            }
+        };
+    }
+
+    /** Fusiona dos secuencias ya ordenadas por (inicio, id); para la exportación en streaming. */
+    public static Iterator<CitaDTO> fusionar(Iterator<CitaDTO> a, Iterator<CitaDTO> b) {
+        return new Iterator<>() {
+            private CitaDTO sigA = a.hasNext() ? a.next() : null;
+            private CitaDTO sigB = b.hasNext() ? b.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return sigA != null || sigB != null;
+            }
+
+            @Override
+            public CitaDTO next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                CitaDTO r;
+                if (sigB == null || (sigA != null && POR_INICIO_ID.compare(sigA, sigB) <= 0)) {
+                    r = sigA;
+                    sigA = a.hasNext() ? a.next() : null;
+                } else {
+                    r = sigB;
+                    sigB = b.hasNext() ? b.next() : null;
+                }
+                return r;
+            }
+        };
+    }
+
+    /** findByFiltro ordena por inicio y después por el sort pedido; el id desempata. */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Comparator<CitaDTO> comparador(Sort sort) {
+        Comparator<CitaDTO> c = Comparator.comparing(CitaDTO::inicio);
+        for (Sort.Order o : sort) {
+            Function<CitaDTO, Comparable<?>> campo = CAMPOS.get(o.getProperty());
+            if (campo == null) {
+                throw new IllegalArgumentException("No se puede ordenar por '" + o.getProperty() + "'");
+            }
+            // Como MySQL: nulos primero en ASC y al final en DESC
+            Comparator<Comparable> natural = Comparator.nullsFirst(Comparator.naturalOrder());
+            Comparator<CitaDTO> porCampo = Comparator.comparing(d -> (Comparable) campo.apply(d), natural);
+            c = c.thenComparing(o.isAscending() ? porCampo : porCampo.reversed());
+        }
+        return c.thenComparing(CitaDTO::id);
+    }
+
+    private static String minusculas(String s) {
+        return s != null ? s.toLowerCase() : null;
+    }
+
+    private static Instant mayor(Instant a, Instant b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        return a.isAfter(b) ? a : b;
+    }
+}
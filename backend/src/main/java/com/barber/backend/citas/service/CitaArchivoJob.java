@@ -0,0 +1,100 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.repository.CitaArchivadaRepository;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.barber.backend.citas.repository.CitaRepository.EstadoActual;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Mueve a citas_archivo las citas cerradas (no AGENDADAS) que empezaron hace más de
+ * {@code citas.archivo-retencion-dias}, para que citas sólo guarde lo que usan reservas,
+ * slots y el día a día.
+ *
+ * Igual que el auto-cierre: cursor (inicio, id), un lote por transacción corta con SKIP
+ * LOCKED, y en cada lote INSERT ... SELECT al archivo y DELETE de citas en la misma
+ * transacción, así una cita nunca está en las dos tablas ni en ninguna.
+ */
+@Component
+public class CitaArchivoJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CitaArchivoJob.class);
+
+    private final CitaRepository repo;
+    private final CitaArchivadaRepository archivoRepo;
+    private final CitaArchivo archivo;
+    private final CitasProperties props;
+    private final TransactionTemplate tx;
+
+    public CitaArchivoJob(
+            CitaRepository repo,
+            CitaArchivadaRepository archivoRepo,
+            CitaArchivo archivo,
+            CitasProperties props,
+            PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.archivoRepo = archivoRepo;
+        this.archivo = archivo;
+        this.props = props;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(
+            initialDelayString = "${citas.archivo-retraso-inicial-ms:300000}",
+            fixedDelayString = "${citas.archivo-intervalo-ms:3600000}")
+    public void ejecutar() {
+        if (!props.isArchivoEnabled()) return;
+        int movidas = archivar(Instant.now());
+        if (movidas > 0) {
+            log.info("Archivo de citas: {} citas movidas a citas_archivo", movidas);
+        }
+    }
+
+    /** Archiva hasta {@code archivoMaxLotes} lotes de citas anteriores a la retención. */
+    int archivar(Instant ahora) {
+        Instant limite = ahora.minus(Duration.ofDays(props.getArchivoRetencionDias()));
+        int lote = Math.max(1, props.getArchivoLote());
+
+        Instant cursorInicio = Instant.EPOCH;
+        long cursorId = 0;
+        int total = 0;
+        for (int i = 0; i < props.getArchivoMaxLotes(); i++) {
+            final Instant desdeInicio = cursorInicio;
+            final long desdeId = cursorId;
+            List<EstadoActual> movidas = tx.execute(s -> archivarLote(limite, desdeInicio, desdeId, lote, ahora));
+            if (movidas == null || movidas.isEmpty()) break;
+
+            total += movidas.size();
+            EstadoActual ultima = movidas.get(movidas.size() - 1);
+            cursorInicio = ultima.getInicio();
+            cursorId = ultima.getId();
+            archivo.archivadasHasta(ultima.getInicio());
+            if (movidas.size() < lote) break;
+        }
+        return total;
+    }
+
+    private List<EstadoActual> archivarLote(Instant limite, Instant cursorInicio, long cursorId,
+            int lote, Instant ahora) {
+        List<EstadoActual> candidatas = repo.findParaArchivar(limite, cursorInicio, cursorId, Limit.of(lote));
+        if (candidatas.isEmpty()) return candidatas;
+
+        List<Long> ids = candidatas.stream().map(EstadoActual::getId).toList();
+        int copiadas = archivoRepo.copiarDesdeCitas(ids, ahora);
+        if (copiadas != ids.size()) {
+            // Las filas están bloqueadas: no debería pasar; mejor deshacer que perder citas
+            throw new IllegalStateException("Archivo de citas: se copiaron " + copiadas + " de " + ids.size());
+        }
+        repo.eliminarPorIds(ids);
+        return candidatas;
+    }
+}
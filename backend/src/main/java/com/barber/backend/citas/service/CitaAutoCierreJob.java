@@ -0,0 +1,112 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.barber.backend.citas.repository.CitaRepository.EstadoActual;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Cierra las citas AGENDADAS que ya pasaron (más un margen para marcarlas a mano), para
+ * que no sigan pesando en cada consulta por estado = AGENDADA.
+ *
+ * Recorre por cursor (inicio, id) en lotes; cada lote es su propia transacción corta y
+ * bloquea sólo las filas del lote, con SKIP LOCKED para no esperar a nadie. Las citas
+ * pasadas no son las que toca una reserva en curso.
+ */
+@Component
+public class CitaAutoCierreJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CitaAutoCierreJob.class);
+
+    private final CitaRepository repo;
+    private final CitasProperties props;
+    private final AgendaDisponibilidadIndex disponibilidadIndex;
+    private final AgendaEventos eventos;
+    private final CitaRollup rollup;
+    private final TransactionTemplate tx;
+
+    public CitaAutoCierreJob(
+            CitaRepository repo,
+            CitasProperties props,
+            AgendaDisponibilidadIndex disponibilidadIndex,
+            AgendaEventos eventos,
+            CitaRollup rollup,
+            PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.props = props;
+        this.disponibilidadIndex = disponibilidadIndex;
+        this.eventos = eventos;
+        this.rollup = rollup;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(
+            initialDelayString = "${citas.auto-cierre-retraso-inicial-ms:60000}",
+            fixedDelayString = "${citas.auto-cierre-intervalo-ms:300000}")
+    public void ejecutar() {
+        if (!props.isAutoCierreEnabled()) return;
+        int cerradas = cerrarVencidas(Instant.now());
+        if (cerradas > 0) {
+            log.info("Auto-cierre: {} citas pasadas a {}", cerradas, props.getAutoCierreEstado());
+        }
+    }
+
+    /** Cierra hasta {@code maxLotes} lotes de citas vencidas a {@code ahora}; devuelve cuántas. */
+    int cerrarVencidas(Instant ahora) {
+        Estado nuevo = props.getAutoCierreEstado();
+        if (nuevo == null || nuevo == Estado.AGENDADA) {
+            throw new IllegalStateException("citas.auto-cierre-estado debe ser un estado cerrado");
+        }
+        Instant limite = ahora.minusSeconds(props.getAutoCierreGraciaMin() * 60L);
+        int lote = Math.max(1, props.getAutoCierreLote());
+
+        Instant cursorInicio = Instant.EPOCH;
+        long cursorId = 0;
+        int total = 0;
+        for (int i = 0; i < props.getAutoCierreMaxLotes(); i++) {
+            final Instant desdeInicio = cursorInicio;
+            final long desdeId = cursorId;
+            List<EstadoActual> procesadas = tx.execute(s -> cerrarLote(limite, desdeInicio, desdeId, lote, nuevo));
+            if (procesadas == null || procesadas.isEmpty()) break;
+
+            total += procesadas.size();
+            EstadoActual ultima = procesadas.get(procesadas.size() - 1);
+            cursorInicio = ultima.getInicio();
+            cursorId = ultima.getId();
+            if (procesadas.size() < lote) break;
+        }
+        return total;
+    }
+
+    private List<EstadoActual> cerrarLote(Instant limite, Instant cursorInicio, long cursorId,
+            int lote, Estado nuevo) {
+        List<EstadoActual> vencidas = repo.findVencidasParaCerrar(limite, cursorInicio, cursorId, Limit.of(lote));
+        if (vencidas.isEmpty()) return vencidas;
+
+        // Las filas quedaron bloqueadas por el SELECT: el UPDATE cierra exactamente estas
+        List<Long> ids = vencidas.stream().map(EstadoActual::getId).toList();
+        repo.cerrarAgendadas(ids, nuevo, Instant.now());
+        rollup.cerradas(vencidas, nuevo);
+        for (EstadoActual c : vencidas) {
+            disponibilidadIndex.citaCerrada(c.getId(), c.getBarberoId(), c.getInicio(), c.getFin());
+        }
+        eventos.publicar(vencidas.stream()
+                .map(c -> new AgendaEvento(null, Tipo.CITA_ESTADO, c.getId(), c.getBarberoId(),
+                        c.getInicio(), c.getFin(), nuevo.name(), null))
+                .toList());
+        return vencidas;
+    }
+}
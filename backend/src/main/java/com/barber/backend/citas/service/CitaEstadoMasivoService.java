@@ -0,0 +1,122 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.citas.dto.CitaEstadoMasivoRequest;
+import com.barber.backend.citas.dto.CitaEstadoMasivoResponse;
+import com.barber.backend.citas.dto.CitaEstadoMasivoResponse.Motivo;
+import com.barber.backend.citas.dto.CitaEstadoMasivoResponse.Resultado;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.barber.backend.citas.repository.CitaRepository.EstadoActual;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Cierre de citas en bloque (fin de día): un SELECT ... FOR UPDATE para conocer el estado
+ * de cada una y un solo UPDATE para todas, en vez de findById + dirty-check por cita.
+ * Aplica las mismas reglas que {@link CitaService#cambiarEstado}.
+ */
+@Service
+public class CitaEstadoMasivoService {
+
+    private final CitaRepository repo;
+    private final AgendaProperties props;
+    private final AgendaDisponibilidadIndex disponibilidadIndex;
+    private final AgendaEventos eventos;
+    private final ListaEsperaService listaEspera;
+    private final CitaRollup rollup;
+
+    public CitaEstadoMasivoService(
+            CitaRepository repo,
+            AgendaProperties props,
+            AgendaDisponibilidadIndex disponibilidadIndex,
+            AgendaEventos eventos,
+            ListaEsperaService listaEspera,
+            CitaRollup rollup) {
+        this.repo = repo;
+        this.props = props;
+        this.disponibilidadIndex = disponibilidadIndex;
+        this.eventos = eventos;
+        this.listaEspera = listaEspera;
+        this.rollup = rollup;
+    }
+
+    @Transactional
+    public CitaEstadoMasivoResponse cambiarEstado(CitaEstadoMasivoRequest in) {
+        Estado nuevo = in.estado();
+        if (nuevo == Estado.AGENDADA) {
+            throw new IllegalArgumentException("Transición inválida");
+        }
+        boolean porIds = in.ids() != null && !in.ids().isEmpty();
+        boolean porDia = in.barberoId() != null || in.fecha() != null;
+        if (porIds == porDia) {
+            throw new IllegalArgumentException("Indica 'ids' o bien 'barberoId' y 'fecha'");
+        }
+
+        Set<Long> pedidos;
+        List<EstadoActual> actuales;
+        if (porIds) {
+            pedidos = new LinkedHashSet<>(in.ids());
+            pedidos.remove(null);
+            actuales = repo.findEstadoActualParaCambio(pedidos);
+        } else {
+            if (in.barberoId() == null || in.fecha() == null) {
+                throw new IllegalArgumentException("'barberoId' y 'fecha' son requeridos juntos");
+            }
+            ZoneId tz = ZoneId.of(props.getTimezone().trim());
+            Instant desde = in.fecha().atStartOfDay(tz).toInstant();
+            Instant hasta = in.fecha().plusDays(1).atStartOfDay(tz).toInstant();
+            actuales = repo.findAgendadasParaCambio(in.barberoId(), desde, hasta);
+            pedidos = new LinkedHashSet<>();
+            for (EstadoActual c : actuales) pedidos.add(c.getId());
+        }
+
+        Map<Long, EstadoActual> porId = new HashMap<>();
+        List<Long> abiertas = new ArrayList<>();
+        List<EstadoActual> porCerrar = new ArrayList<>();
+        for (EstadoActual c : actuales) {
+            porId.put(c.getId(), c);
+            // Cerradas (CANCELADA/COMPLETADA/NO_ASISTIO) ya no cambian, igual que en cambiarEstado
+            if (c.getEstado() == Estado.AGENDADA) {
+                abiertas.add(c.getId());
+                porCerrar.add(c);
+            }
+        }
+
+        int actualizadas = abiertas.isEmpty() ? 0 : repo.cerrarAgendadas(abiertas, nuevo, Instant.now());
+        rollup.cerradas(porCerrar, nuevo);
+
+        List<Resultado> resultados = new ArrayList<>(pedidos.size());
+        List<AgendaEvento> cerradas = new ArrayList<>(abiertas.size());
+        for (Long id : pedidos) {
+            EstadoActual c = porId.get(id);
+            if (c == null) {
+                resultados.add(new Resultado(id, Motivo.NO_ENCONTRADA));
+            } else if (c.getEstado() != Estado.AGENDADA) {
+                resultados.add(new Resultado(id, Motivo.YA_CERRADA));
+            } else {
+                resultados.add(new Resultado(id, Motivo.ACTUALIZADA));
+                disponibilidadIndex.citaCerrada(c.getId(), c.getBarberoId(), c.getInicio(), c.getFin());
+                cerradas.add(new AgendaEvento(null, Tipo.CITA_ESTADO, c.getId(), c.getBarberoId(),
+                        c.getInicio(), c.getFin(), nuevo.name(), null));
+                if (nuevo == Estado.CANCELADA) {
+                    listaEspera.ofrecer(c.getBarberoId(), c.getInicio(), c.getFin());
+                }
+            }
+        }
+        if (!cerradas.isEmpty()) eventos.publicar(cerradas);
+        return new CitaEstadoMasivoResponse(nuevo, actualizadas, resultados);
+    }
+}
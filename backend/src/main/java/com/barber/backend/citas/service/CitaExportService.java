@@ -0,0 +1,181 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Exportación de citas en CSV o NDJSON. Las filas salen del cursor de la BD directo al
+ * OutputStream: la memoria no depende del rango pedido.
+ */
+@Service
+public class CitaExportService {
+
+    public enum Formato {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Formato(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public static Formato of(String valor) {
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("Formato no soportado: usa 'csv' o 'ndjson'");
+            }
+        }
+    }
+
+    private static final String CSV_ENCABEZADO =
+            "id,barberoId,servicioId,clienteNombre,clienteTelE164,inicio,fin,estado,"
+                    + "overrideDuracionMin,overridePrecioCentavos,notas,creadoEn,actualizadoEn";
+    private static final int FILAS_POR_FLUSH = 500;
+    /** Filas por consulta al recorrer el tramo histórico, en cada tabla. */
+    private static final int FILAS_POR_PAGINA = 1_000;
+
+    private final CitaRepository repo;
+    private final CitaArchivo archivo;
+    private final ObjectMapper mapper;
+
+    public CitaExportService(
+            CitaRepository repo,
+            CitaArchivo archivo,
+            ObjectMapper mapper) {
+        this.repo = repo;
+        this.archivo = archivo;
+        this.mapper = mapper;
+    }
+
+    /**
+     * Escribe las citas que cumplen los mismos filtros que el listado. La transacción de
+     * solo lectura mantiene abierta la conexión mientras se recorre el cursor.
+     *
+     * Si el rango llega al histórico va en dos tramos, porque una conexión no admite dos
+     * cursores abiertos: antes del corte, el archivo y las citas viejas que siguen en citas
+     * (AGENDADAS o aún sin archivar) se leen por páginas con cursor y se fusionan; después,
+     * sólo citas en streaming. Ningún tramo junta el rango completo en memoria.
+     */
+    @Transactional(readOnly = true)
+    public void exportar(Long barberoId, Estado estado, Instant desde, Instant hasta,
+            Formato formato, OutputStream out) throws IOException {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Parámetros 'desde' y 'hasta' son requeridos");
+        }
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("'desde' debe ser anterior a 'hasta'");
+        }
+        Instant inicioMin = desde.minusSeconds(Cita.DURACION_MAX_MIN * 60L);
+
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            w.write(CSV_ENCABEZADO);
+            w.write('\n');
+        }
+        int n = 0;
+        Instant corte = archivo.corte();
+        if (corte != null && inicioMin.isBefore(corte)) {
+            Instant hastaFrio = hasta.isBefore(corte) ? hasta : corte;
+            n = escribir(w, archivo.recorrer(barberoId, estado, desde, hastaFrio, inicioMin, FILAS_POR_PAGINA),
+                    formato, n);
+            inicioMin = corte;
+        }
+        if (inicioMin.isBefore(hasta)) {
+            try (Stream<CitaDTO> filas = repo.streamByFiltro(barberoId, estado, desde, hasta, inicioMin)) {
+                escribir(w, filas.iterator(), formato, n);
+            }
+        }
+        w.flush();
+    }
+
+    private int escribir(Writer w, Iterator<CitaDTO> filas, Formato formato, int n) throws IOException {
+        while (filas.hasNext()) {
+            CitaDTO c = filas.next();
+            if (formato == Formato.CSV) {
+                escribirCsv(w, c);
+            } else {
+                w.write(mapper.writeValueAsString(c));
+                w.write('\n');
+            }
+            if (++n % FILAS_POR_FLUSH == 0) {
+                w.flush();
+            }
+        }
+        return n;
+    }
+
+    private static void escribirCsv(Writer w, CitaDTO c) throws IOException {
+        w.write(String.valueOf(c.id()));
+        w.write(',');
+        w.write(texto(c.barberoId()));
+        w.write(',');
+        w.write(texto(c.servicioId()));
+        w.write(',');
+        w.write(csv(sinFormula(c.clienteNombre())));
+        w.write(',');
+        w.write(csv(c.clienteTelE164()));
+        w.write(',');
+        w.write(texto(c.inicio()));
+        w.write(',');
+        w.write(texto(c.fin()));
+        w.write(',');
+        w.write(texto(c.estado()));
+        w.write(',');
+        w.write(texto(c.overrideDuracionMin()));
+        w.write(',');
+        w.write(texto(c.overridePrecioCentavos()));
+        w.write(',');
+        w.write(csv(sinFormula(c.notas())));
+        w.write(',');
+        w.write(texto(c.creadoEn()));
+        w.write(',');
+        w.write(texto(c.actualizadoEn()));
+        w.write('\n');
+    }
+
+    private static String texto(Object v) {
+        return v == null ? "" : v.toString();
+    }
+
+    /** Entre comillas sólo si hace falta (coma, comillas o salto de línea). */
+    private static String csv(String v) {
+        if (v == null) return "";
+        boolean comillas = v.indexOf(',') >= 0 || v.indexOf('"') >= 0
+                || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0;
+        return comillas ? '"' + v.replace("\"", "\"\"") + '"' : v;
+    }
+
+    /** Evita que Excel/Sheets interpreten como fórmula el texto libre del cliente. */
+    private static String sinFormula(String v) {
+        if (v == null || v.isEmpty()) return v;
+        char c = v.charAt(0);
+        return (c == '=' || c == '+' || c == '-' || c == '@') ? "'" + v : v;
+    }
+}
@@ -0,0 +1,155 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.model.CitaClaveIdempotencia;
+import com.barber.backend.citas.repository.CitaClaveIdempotenciaRepository;
+import com.barber.backend.login.security.AppUserPrincipal;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Idempotency-Key de POST /api/citas. Primero una caché acotada (tamaño + TTL) con la
+ * respuesta de cada clave reciente, que resuelve el reintento sin tocar la BD; detrás,
+ * la tabla cita_idempotencia, cuya PK es la garantía entre instancias y reinicios.
+ *
+ * La huella resume la solicitud (y quién la hace): la misma clave con otro cuerpo es un
+ * error del cliente, no un reintento.
+ */
+@Component
+public class CitaIdempotencia {
+
+    private static final Logger log = LoggerFactory.getLogger(CitaIdempotencia.class);
+    private static final int CLAVE_MAX = 100;
+    private static final int PURGA_LOTE = 1000;
+
+    record Entrada(String huella, CitaDTO cita) { }
+
+    private final CitaClaveIdempotenciaRepository repo;
+    private final CitasProperties props;
+    private final TransactionTemplate tx;
+    private final Cache<String, Entrada> recientes;
+
+    public CitaIdempotencia(
+            CitaClaveIdempotenciaRepository repo,
+            CitasProperties props,
+            PlatformTransactionManager txManager,
+            MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.props = props;
+        this.tx = new TransactionTemplate(txManager);
+        this.recientes = Caffeine.newBuilder()
+                .maximumSize(props.getIdempotenciaCacheMax())
+                .expireAfterWrite(Duration.ofHours(props.getIdempotenciaTtlHoras()))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recientes, "citas.idempotencia");
+    }
+
+    /** Valida la clave y calcula la huella de la solicitud. */
+    public String huella(String clave, CitaSaveRequest in, AppUserPrincipal principal) {
+        if (clave.isBlank() || clave.length() > CLAVE_MAX) {
+            throw new IllegalArgumentException("Idempotency-Key debe tener entre 1 y " + CLAVE_MAX + " caracteres");
+        }
+        String raw = String.join("\u001f",
+                principal != null ? principal.getUsername() : "",
+                String.valueOf(in.barberoId()),
+                String.valueOf(in.servicioId()),
+                String.valueOf(in.clienteNombre()),
+                String.valueOf(in.clienteTelE164()),
+                String.valueOf(in.inicio()),
+                String.valueOf(in.overrideDuracionMin()),
+                String.valueOf(in.overridePrecioCentavos()),
+                String.valueOf(in.notas()));
+        try {
+            byte[] h = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(h);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Respuesta ya conocida en memoria para la clave, o null. */
+    public CitaDTO enCache(String clave, String huella) {
+        Entrada e = recientes.getIfPresent(clave);
+        if (e == null) return null;
+        verificar(e.huella(), huella);
+        return e.cita();
+    }
+
+    /** Cita creada antes con la clave según la BD (p. ej. desde otra instancia). */
+    public Optional<Long> registrada(String clave, String huella) {
+        return repo.findById(clave).map(r -> {
+            verificar(r.getHuella(), huella);
+            return r.getCitaId();
+        });
+    }
+
+    /**
+     * Registra la clave en la transacción en curso; pasa a la caché sólo si confirma, para
+     * no responder con una cita que se deshizo.
+     */
+    public void registrar(String clave, String huella, CitaDTO cita) {
+        CitaClaveIdempotencia r = new CitaClaveIdempotencia();
+        r.setClave(clave);
+        r.setCitaId(cita.id());
+        r.setHuella(huella);
+        repo.save(r);
+        recordarAlConfirmar(clave, huella, cita);
+    }
+
+    /** Guarda en caché una respuesta que se reconstruyó desde la BD. */
+    public void recordarAlConfirmar(String clave, String huella, CitaDTO cita) {
+        Runnable r = () -> recientes.put(clave, new Entrada(huella, cita));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+
+    @Scheduled(
+            initialDelayString = "${citas.idempotencia-purga-retraso-inicial-ms:120000}",
+            fixedDelayString = "${citas.idempotencia-purga-intervalo-ms:3600000}")
+    public void purgar() {
+        Instant limite = Instant.now().minus(Duration.ofHours(props.getIdempotenciaTtlHoras()));
+        int total = 0;
+        Integer n;
+        do {
+            n = tx.execute(s -> repo.purgarAnteriores(limite, PURGA_LOTE));
+            total += n != null ? n : 0;
+        } while (n != null && n == PURGA_LOTE);
+        if (total > 0) {
+            log.info("Idempotencia de citas: {} claves vencidas purgadas", total);
+        }
+    }
+
+    private static void verificar(String original, String huella) {
+        if (!original.equals(huella)) {
+            throw new IllegalArgumentException("Idempotency-Key ya se usó con otra solicitud");
+        }
+    }
+}
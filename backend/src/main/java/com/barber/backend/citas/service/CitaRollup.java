@@ -0,0 +1,122 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.barber.backend.citas.repository.CitaRepository.EstadoActual;
+import com.barber.backend.citas.repository.CitaRollupRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Mantiene cita_rollup_diaria al día con cada escritura de citas: quien cambia una cita
+ * llama {@link #restar} con cómo estaba y {@link #sumar} con cómo quedó. Los deltas se
+ * juntan por transacción y se escriben justo antes del commit, ya netos (un cambio que no
+ * mueve día, barbero, estado ni precio no escribe nada) y en orden de llave, para que dos
+ * transacciones no se bloqueen en cruz sobre las mismas filas.
+ */
+@Component
+public class CitaRollup {
+
+    private static final Comparator<Clave> ORDEN = Comparator.comparing(Clave::dia)
+            .thenComparing(Clave::barberoId)
+            .thenComparing(Clave::estado);
+
+    record Clave(LocalDate dia, Long barberoId, Estado estado) { }
+
+    private final CitaRollupRepository repo;
+    private final CitaRepository citaRepo;
+    private final AgendaProperties agendaProps;
+
+    public CitaRollup(CitaRollupRepository repo, CitaRepository citaRepo, AgendaProperties agendaProps) {
+        this.repo = repo;
+        this.citaRepo = citaRepo;
+        this.agendaProps = agendaProps;
+    }
+
+    public void sumar(Cita c) {
+        acumular(c.getBarbero().getId(), c.getInicio(), c.getEstado(), precio(c), 1);
+    }
+
+    public void restar(Cita c) {
+        acumular(c.getBarbero().getId(), c.getInicio(), c.getEstado(), precio(c), -1);
+    }
+
+    /** Citas AGENDADAS (ya bloqueadas) que un UPDATE en bloque pasa a {@code nuevo}. */
+    public void cerradas(List<EstadoActual> citas, Estado nuevo) {
+        if (citas.isEmpty()) return;
+        Map<Long, Integer> precios = new HashMap<>();
+        for (CitaRepository.Precio p : citaRepo.findPrecios(citas.stream().map(EstadoActual::getId).toList())) {
+            precios.put(p.getId(), p.getPrecioCentavos() != null ? p.getPrecioCentavos() : 0);
+        }
+        for (EstadoActual c : citas) {
+            long precio = precios.getOrDefault(c.getId(), 0);
+            acumular(c.getBarberoId(), c.getInicio(), Estado.AGENDADA, precio, -1);
+            acumular(c.getBarberoId(), c.getInicio(), nuevo, precio, 1);
+        }
+    }
+
+    /** Día de agenda al que cuenta una cita (el de su inicio en la zona del negocio). */
+    LocalDate dia(Instant inicio) {
+        return LocalDate.ofInstant(inicio, zona());
+    }
+
+    ZoneId zona() {
+        return ZoneId.of(agendaProps.getTimezone().trim());
+    }
+
+    private static long precio(Cita c) {
+        if (c.getOverridePrecioCentavos() != null) return c.getOverridePrecioCentavos();
+        Integer base = c.getServicio() != null ? c.getServicio().getPrecioCentavos() : null;
+        return base != null ? base : 0;
+    }
+
+    private void acumular(Long barberoId, Instant inicio, Estado estado, long precio, int signo) {
+        Clave k = new Clave(dia(inicio), barberoId, estado);
+        Map<Clave, long[]> pendientes = pendientes();
+        if (pendientes == null) {
+            repo.sumarDelta(k.dia(), k.barberoId(), k.estado().name(), signo, signo * precio);
+            return;
+        }
+        long[] d = pendientes.computeIfAbsent(k, x -> new long[2]);
+        d[0] += signo;
+        d[1] += signo * precio;
+    }
+
+    /** Deltas de la transacción en curso; null si no hay transacción (se escribe directo). */
+    @SuppressWarnings("unchecked")
+    private Map<Clave, long[]> pendientes() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) return null;
+        Map<Clave, long[]> actuales = (Map<Clave, long[]>) TransactionSynchronizationManager.getResource(this);
+        if (actuales != null) return actuales;
+
+        Map<Clave, long[]> nuevos = new TreeMap<>(ORDEN);
+        TransactionSynchronizationManager.bindResource(this, nuevos);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                nuevos.forEach((k, d) -> {
+                    if (d[0] != 0 || d[1] != 0) {
+                        repo.sumarDelta(k.dia(), k.barberoId(), k.estado().name(), (int) d[0], d[1]);
+                    }
+                });
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(CitaRollup.this);
+            }
+        });
+        return nuevos;
+    }
+}
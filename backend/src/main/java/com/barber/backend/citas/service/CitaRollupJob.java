@@ -0,0 +1,118 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRollupRepository;
+import com.barber.backend.citas.repository.CitaRollupRepository.Agregado;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reconstruye cita_rollup_diaria desde las citas (calientes y archivadas). Mientras el
+ * rollup no llegue al día de la cita más vieja hace la carga inicial, del día más lejano
+ * hacia atrás: si se corta, el primer día sigue faltando y la siguiente corrida la repite.
+ * Ya cargado, sólo repasa los últimos {@code citas.rollup-reparacion-dias}, por si algún
+ * delta se perdió (p. ej. una escritura hecha a mano en la BD).
+ *
+ * Cada día es su propia transacción corta: lee con FOR SHARE, borra las filas del día y
+ * escribe los totales recalculados.
+ */
+@Component
+public class CitaRollupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CitaRollupJob.class);
+
+    private final CitaRollupRepository repo;
+    private final CitaRollup rollup;
+    private final CitasProperties props;
+    private final TransactionTemplate tx;
+
+    public CitaRollupJob(
+            CitaRollupRepository repo,
+            CitaRollup rollup,
+            CitasProperties props,
+            PlatformTransactionManager txManager) {
+        this.repo = repo;
+        this.rollup = rollup;
+        this.props = props;
+        this.tx = new TransactionTemplate(txManager);
+    }
+
+    @Scheduled(
+            initialDelayString = "${citas.rollup-retraso-inicial-ms:120000}",
+            fixedDelayString = "${citas.rollup-intervalo-ms:21600000}")
+    public void ejecutar() {
+        if (!props.isRollupEnabled()) return;
+        LocalDate hoy = LocalDate.now(rollup.zona());
+        int dias = cargarFaltante(hoy);
+        if (dias > 0) {
+            log.info("Rollup diario: carga inicial de {} días", dias);
+            return;
+        }
+        reconstruir(hoy.minusDays(Math.max(0, props.getRollupReparacionDias())), hoy);
+    }
+
+    /**
+     * Carga inicial, si falta: de la cita más lejana a futuro (o de hoy) hasta la más vieja,
+     * archivo incluido. Devuelve cuántos días recalculó; 0 si el rollup ya estaba completo.
+     */
+    int cargarFaltante(LocalDate hoy) {
+        Instant primeraCitas = repo.findPrimerInicioCitas();
+        Instant primeraArchivo = repo.findPrimerInicioArchivo();
+        Instant primera = primeraArchivo == null || (primeraCitas != null && primeraCitas.isBefore(primeraArchivo))
+                ? primeraCitas
+                : primeraArchivo;
+        if (primera == null) return 0;
+        LocalDate primerDia = rollup.dia(primera);
+        LocalDate cargadoDesde = repo.findPrimerDia();
+        if (cargadoDesde != null && !cargadoDesde.isAfter(primerDia)) return 0;
+
+        Instant ultima = repo.findUltimoInicioCitas();
+        LocalDate hasta = ultima != null && rollup.dia(ultima).isAfter(hoy) ? rollup.dia(ultima) : hoy;
+        return reconstruir(primerDia, hasta);
+    }
+
+    /** Recalcula cada día de [desde, hasta], ambos incluidos y del último al primero; devuelve cuántos. */
+    public int reconstruir(LocalDate desde, LocalDate hasta) {
+        int dias = 0;
+        for (LocalDate d = hasta; !d.isBefore(desde); d = d.minusDays(1)) {
+            final LocalDate dia = d;
+            tx.executeWithoutResult(s -> reconstruirDia(dia));
+            dias++;
+        }
+        return dias;
+    }
+
+    private void reconstruirDia(LocalDate dia) {
+        ZoneId tz = rollup.zona();
+        Instant desde = dia.atStartOfDay(tz).toInstant();
+        Instant hasta = dia.plusDays(1).atStartOfDay(tz).toInstant();
+
+        // Archivo primero: ver CitaRollupRepository
+        Map<CitaRollup.Clave, long[]> totales = new HashMap<>();
+        juntar(totales, dia, repo.agregarArchivo(desde, hasta));
+        juntar(totales, dia, repo.agregarCitas(desde, hasta));
+
+        repo.borrarDia(dia);
+        totales.forEach((k, t) -> repo.sumarDelta(k.dia(), k.barberoId(), k.estado().name(), (int) t[0], t[1]));
+    }
+
+    private static void juntar(Map<CitaRollup.Clave, long[]> totales, LocalDate dia, List<Agregado> filas) {
+        for (Agregado a : filas) {
+            long[] t = totales.computeIfAbsent(
+                    new CitaRollup.Clave(dia, a.getBarberoId(), Estado.valueOf(a.getEstado())), k -> new long[2]);
+            t[0] += a.getCitas().longValue();
+            t[1] += a.getIngresosCentavos().longValue();
+        }
+    }
+}
@@ -1,9 +1,22 @@
 package com.barber.backend.citas.service;
 
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.agenda.service.AgendaApartados;
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.agenda.service.SlotEngine;
 import com.barber.backend.barberos.model.Barbero;
 import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.citas.dto.CitaCursorPage;
 import com.barber.backend.citas.dto.CitaDTO;
 import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.dto.CitaSerieRequest;
+import com.barber.backend.citas.dto.CitaSerieResponse;
+import com.barber.backend.citas.dto.CitaSerieResponse.Ocurrencia;
+import com.barber.backend.citas.dto.CitaSerieResponse.Resultado;
 import com.barber.backend.citas.model.Cita;
 import com.barber.backend.citas.model.Cita.Estado;
 import com.barber.backend.citas.repository.CitaRepository;
@@ -12,8 +25,19 @@ import com.barber.backend.catalogo.repository.ServicioRepository;
 import com.barber.backend.login.security.AppUserPrincipal;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -22,20 +46,52 @@ import org.springframework.util.StringUtils;
 @Service
 public class CitaService {
 
+    private static final int MAX_CURSOR_SIZE = 200;
+
     private final CitaRepository repo;
     private final BarberoRepository barberoRepo;
     private final ServicioRepository servicioRepo;
     private final ClientePerfilResolver clientePerfilResolver;
+    private final AgendaDisponibilidadIndex disponibilidadIndex;
+    private final AgendaApartados apartados;
+    private final ReservaLocks reservaLocks;
+    private final BarberoBloqueoRepository bloqueoRepo;
+    private final AgendaProperties agendaProps;
+    private final AgendaEventos eventos;
+    private final CitaIdempotencia idempotencia;
+    private final CitaArchivo archivo;
+    private final ListaEsperaService listaEspera;
+    private final CitaRollup rollup;
 
     public CitaService(
             CitaRepository repo,
             BarberoRepository barberoRepo,
             ServicioRepository servicioRepo,
-            ClientePerfilResolver clientePerfilResolver) {
+            ClientePerfilResolver clientePerfilResolver,
+            AgendaDisponibilidadIndex disponibilidadIndex,
+            AgendaApartados apartados,
+            ReservaLocks reservaLocks,
+            BarberoBloqueoRepository bloqueoRepo,
+            AgendaProperties agendaProps,
+            AgendaEventos eventos,
+            CitaIdempotencia idempotencia,
+            CitaArchivo archivo,
+            ListaEsperaService listaEspera,
+            CitaRollup rollup) {
         this.repo = repo;
         this.barberoRepo = barberoRepo;
         this.servicioRepo = servicioRepo;
         this.clientePerfilResolver = clientePerfilResolver;
+        this.disponibilidadIndex = disponibilidadIndex;
+        this.apartados = apartados;
+        this.reservaLocks = reservaLocks;
+        this.bloqueoRepo = bloqueoRepo;
+        this.agendaProps = agendaProps;
+        this.eventos = eventos;
+        this.idempotencia = idempotencia;
+        this.archivo = archivo;
+        this.listaEspera = listaEspera;
+        this.rollup = rollup;
     }
 
     public Page<CitaDTO> list(Long barberoId, Estado estado, Instant desde, Instant hasta, Pageable pageable) {
@@ -45,19 +101,87 @@ public class CitaService {
         if (!desde.isBefore(hasta)) {
             throw new IllegalArgumentException("'desde' debe ser anterior a 'hasta'");
         }
-        return repo.findByFiltro(barberoId, estado, desde, hasta, pageable).map(this::toDTO);
+        Instant inicioMin = inicioMin(desde);
+        if (archivo.alcanza(inicioMin)) {
+            return archivo.listar(barberoId, estado, desde, hasta, inicioMin, pageable);
+        }
+        return repo.findByFiltro(barberoId, estado, desde, hasta, inicioMin, pageable);
+    }
+
+    /**
+     * Listado por cursor sobre (inicio, id). Pide un elemento de más para saber si hay
+     * página siguiente sin lanzar el COUNT del modo por offset.
+     */
+    public CitaCursorPage listCursor(Long barberoId, Estado estado, Instant desde, Instant hasta,
+            String cursor, int size) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Parámetros 'desde' y 'hasta' son requeridos");
+        }
+        if (!desde.isBefore(hasta)) {
+            throw new IllegalArgumentException("'desde' debe ser anterior a 'hasta'");
+        }
+        if (size < 1 || size > MAX_CURSOR_SIZE) {
+            throw new IllegalArgumentException("'size' debe estar entre 1 y " + MAX_CURSOR_SIZE);
+        }
+        Instant cursorInicio = null;
+        Long cursorId = null;
+        if (StringUtils.hasText(cursor)) {
+            String[] partes = decodificarCursor(cursor);
+            cursorInicio = Instant.parse(partes[0]);
+            cursorId = Long.valueOf(partes[1]);
+        }
+
+        Instant inicioMin = inicioMin(desde);
+        List<CitaDTO> filas = archivo.alcanza(inicioMin)
+                ? archivo.desdeCursor(barberoId, estado, desde, hasta, inicioMin, cursorInicio, cursorId, size + 1)
+                : repo.findByFiltroDesdeCursor(barberoId, estado, desde, hasta, inicioMin, cursorInicio, cursorId,
+                        Limit.of(size + 1));
+        boolean hayMas = filas.size() > size;
+        List<CitaDTO> pagina = hayMas ? filas.subList(0, size) : filas;
+        String siguiente = null;
+        if (hayMas) {
+            CitaDTO ultima = pagina.get(pagina.size() - 1);
+            siguiente = codificarCursor(ultima.inicio(), ultima.id());
+        }
+        return new CitaCursorPage(List.copyOf(pagina), size, siguiente);
     }
 
     public CitaDTO get(Long id) {
         return repo.findById(id)
                 .map(this::toDTO)
+                .or(() -> archivo.buscar(id))
                 .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada"));
     }
 
     @Transactional
     public CitaDTO create(CitaSaveRequest in, AppUserPrincipal principal) {
-        Barbero barbero = barberoRepo.findById(in.barberoId())
-                .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
+        return create(in, principal, null);
+    }
+
+    /**
+     * Con {@code idempotencyKey}, un reintento de la misma solicitud devuelve la cita que
+     * creó la primera sin volver a validar: desde la caché si está, si no desde la tabla de
+     * claves, leída ya con el lock del barbero (los reintentos van al mismo barbero y así
+     * no pueden cruzarse dos creaciones con la misma clave).
+     */
+    @Transactional
+    public CitaDTO create(CitaSaveRequest in, AppUserPrincipal principal, String idempotencyKey) {
+        String huella = null;
+        if (idempotencyKey != null) {
+            huella = idempotencia.huella(idempotencyKey, in, principal);
+            CitaDTO previa = idempotencia.enCache(idempotencyKey, huella);
+            if (previa != null) return previa;
+        }
+
+        Barbero barbero = bloquearBarbero(in.barberoId());
+        if (idempotencyKey != null) {
+            Optional<Long> previaId = idempotencia.registrada(idempotencyKey, huella);
+            if (previaId.isPresent()) {
+                CitaDTO previa = get(previaId.get());
+                idempotencia.recordarAlConfirmar(idempotencyKey, huella, previa);
+                return previa;
+            }
+        }
         Servicio servicio = servicioRepo.findById(in.servicioId())
                 .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
 
@@ -75,29 +199,35 @@ public class CitaService {
         c.setNotas(in.notas());
 
         // Calcular fin para validar solape
-        int durMin = (in.overrideDuracionMin() != null && in.overrideDuracionMin() > 0)
-                ? in.overrideDuracionMin()
-                : (servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0);
-        if (durMin <= 0)
-            durMin = 1;
+        int durMin = duracionMin(in.overrideDuracionMin(), servicio);
         Instant fin = in.inicio().plusSeconds(durMin * 60L);
 
+        // Un apartado vigente de otro cliente gana aunque no haya cita todavía
+        apartados.verificar(barbero.getId(), in.inicio(), fin, in.holdId());
+
         long overlaps = repo.countOverlaps(barbero.getId(), in.inicio(), fin);
         if (overlaps > 0) {
             throw new IllegalStateException("El barbero ya tiene una cita en ese horario");
         }
 
         Cita saved = repo.save(c);
-        return toDTO(saved);
+        disponibilidadIndex.citaGuardada(saved);
+        rollup.sumar(saved);
+        apartados.liberarAlConfirmar(in.holdId());
+        eventos.cita(Tipo.CITA_CREADA, saved.getId(), barbero.getId(), in.inicio(), fin, saved.getEstado());
+        CitaDTO dto = toDTO(saved);
+        if (idempotencyKey != null) idempotencia.registrar(idempotencyKey, huella, dto);
+        return dto;
     }
 
     @Transactional
     public CitaDTO update(Long id, CitaSaveRequest in, AppUserPrincipal principal) {
+        Barbero barbero = bloquearBarbero(in.barberoId());
         Cita c = repo.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada"));
+        disponibilidadIndex.citaPorCambiar(c);
+        rollup.restar(c);
 
-        Barbero barbero = barberoRepo.findById(in.barberoId())
-                .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
         Servicio servicio = servicioRepo.findById(in.servicioId())
                 .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
 
@@ -113,13 +243,11 @@ public class CitaService {
         c.setNotas(in.notas());
 
         // Recalcular fin para validar solape
-        int durMin = (in.overrideDuracionMin() != null && in.overrideDuracionMin() > 0)
-                ? in.overrideDuracionMin()
-                : (servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0);
-        if (durMin <= 0)
-            durMin = 1;
+        int durMin = duracionMin(in.overrideDuracionMin(), servicio);
         Instant fin = in.inicio().plusSeconds(durMin * 60L);
 
+        apartados.verificar(barbero.getId(), in.inicio(), fin, in.holdId());
+
         // Usar query que excluye la misma cita
         long overlaps = repo.countOverlapsExcludingId(barbero.getId(), in.inicio(), fin, id);
         if (overlaps > 0) {
@@ -127,25 +255,218 @@ public class CitaService {
         }
 
         Cita saved = repo.save(c);
+        disponibilidadIndex.citaGuardada(saved);
+        rollup.sumar(saved);
+        apartados.liberarAlConfirmar(in.holdId());
+        eventos.cita(Tipo.CITA_ACTUALIZADA, saved.getId(), barbero.getId(), in.inicio(), fin, saved.getEstado());
         return toDTO(saved);
     }
 
+    /**
+     * Serie de citas (cliente frecuente): expande la recurrencia en hora local, revisa
+     * todas las ocurrencias contra citas AGENDADAS y bloqueos con una consulta de rango
+     * cada una, e inserta las que no chocan en esta misma transacción.
+     */
+    @Transactional
+    public CitaSerieResponse crearSerie(CitaSerieRequest in, AppUserPrincipal principal) {
+        Barbero barbero = bloquearBarbero(in.barberoId());
+        Servicio servicio = servicioRepo.findById(in.servicioId())
+                .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
+        ClientePerfilResolver.ClienteData data = clientePerfilResolver.resolve(
+                new CitaSaveRequest(in.barberoId(), in.servicioId(), in.clienteNombre(), in.clienteTelE164(),
+                        in.inicio(), in.overrideDuracionMin(), in.overridePrecioCentavos(), in.notas(), null),
+                principal, null, null);
+        long durSeg = duracionMin(in.overrideDuracionMin(), servicio) * 60L;
+
+        // Misma hora local en cada ocurrencia, aunque cambie el horario de verano
+        ZonedDateTime primera = in.inicio().atZone(ZoneId.of(agendaProps.getTimezone().trim()));
+        int n = in.repeticiones();
+        Instant[] inicios = new Instant[n];
+        for (int k = 0; k < n; k++) {
+            inicios[k] = primera.plusWeeks((long) k * in.cadaSemanas()).toInstant();
+        }
+        Instant desde = inicios[0];
+        Instant hasta = inicios[n - 1].plusSeconds(durSeg);
+
+        long[] citas = fusionados(
+                repo.findIntervalosAgendados(barbero.getId(), desde, hasta, inicioMin(desde)),
+                CitaRepository.Intervalo::getInicio, CitaRepository.Intervalo::getFin);
+        long[] bloqueos = fusionados(
+                bloqueoRepo.findIntervalosByBarbero_IdAndFinGreaterThanAndInicioLessThanOrderByInicioAsc(
+                        barbero.getId(), desde, hasta),
+                BarberoBloqueoRepository.Intervalo::getInicio, BarberoBloqueoRepository.Intervalo::getFin);
+
+        Resultado[] resultados = new Resultado[n];
+        int conflictos = 0;
+        int jc = 0;
+        int jb = 0;
+        for (int k = 0; k < n; k++) {
+            long ini = inicios[k].getEpochSecond();
+            long fin = ini + durSeg;
+            // Intervalos fusionados: inicios y fines crecientes, y las ocurrencias también
+            while (jc < citas.length && citas[jc + 1] <= ini) jc += 2;
+            while (jb < bloqueos.length && bloqueos[jb + 1] <= ini) jb += 2;
+            if (jc < citas.length && citas[jc] < fin) {
+                resultados[k] = Resultado.CHOCA_CITA;
+            } else if (jb < bloqueos.length && bloqueos[jb] < fin) {
+                resultados[k] = Resultado.CHOCA_BLOQUEO;
+            } else if (apartadoAjeno(barbero.getId(), inicios[k], inicios[k].plusSeconds(durSeg))) {
+                resultados[k] = Resultado.CHOCA_APARTADO;
+            } else {
+                resultados[k] = Resultado.CREADA;
+                continue;
+            }
+            conflictos++;
+        }
+        if (conflictos > 0 && in.todasONinguna()) {
+            for (int k = 0; k < n; k++) {
+                if (resultados[k] == Resultado.CREADA) resultados[k] = Resultado.OMITIDA;
+            }
+        }
+
+        List<Cita> nuevas = new ArrayList<>();
+        for (int k = 0; k < n; k++) {
+            if (resultados[k] != Resultado.CREADA) continue;
+            Cita c = new Cita();
+            c.setBarbero(barbero);
+            c.setServicio(servicio);
+            c.setClienteNombre(data.nombre());
+            c.setClienteTelE164(data.telefono());
+            c.setInicio(inicios[k]);
+            c.setEstado(Cita.Estado.AGENDADA);
+            c.setOverrideDuracionMin(in.overrideDuracionMin());
+            c.setOverridePrecioCentavos(in.overridePrecioCentavos());
+            c.setNotas(in.notas());
+            nuevas.add(c);
+        }
+        List<Cita> guardadas = repo.saveAll(nuevas);
+        guardadas.forEach(disponibilidadIndex::citaGuardada);
+        guardadas.forEach(rollup::sumar);
+        eventos.publicar(guardadas.stream()
+                .map(c -> new AgendaEvento(null, Tipo.CITA_CREADA, c.getId(), barbero.getId(),
+                        c.getInicio(), c.getInicio().plusSeconds(durSeg), c.getEstado().name(), null))
+                .toList());
+
+        List<Ocurrencia> ocurrencias = new ArrayList<>(n);
+        int g = 0;
+        for (int k = 0; k < n; k++) {
+            Long citaId = resultados[k] == Resultado.CREADA ? guardadas.get(g++).getId() : null;
+            ocurrencias.add(new Ocurrencia(
+                    k + 1, inicios[k], inicios[k].plusSeconds(durSeg), resultados[k], citaId));
+        }
+        return new CitaSerieResponse(guardadas.size(), conflictos, ocurrencias);
+    }
+
+    @Transactional
     public void delete(Long id) {
-        repo.deleteById(id);
+        // Con la fila bloqueada, un borrado concurrente espera y luego ya no la encuentra:
+        // el rollup y el evento se aplican una sola vez
+        Optional<Cita> previa = repo.findByIdParaCambio(id);
+        if (previa.isEmpty()) return;
+        Cita c = previa.get();
+        repo.delete(c);
+        disponibilidadIndex.citaPorCambiar(c);
+        rollup.restar(c);
+        disponibilidadIndex.citaEliminada(id);
+        eventos.cita(Tipo.CITA_ELIMINADA, id, c.getBarbero().getId(),
+                c.getInicio(), c.getFin(), c.getEstado());
     }
 
+    @Transactional
     public CitaDTO cambiarEstado(Long id, Estado nuevo) {
-        Cita c = repo.findById(id)
+        // FOR UPDATE: quien llegue segundo (otra petición, el auto-cierre o un cambio en
+        // bloque) ve el estado ya confirmado y no vuelve a restar el rollup ni a ofrecer el hueco
+        Cita c = repo.findByIdParaCambio(id)
                 .orElseThrow(() -> new EntityNotFoundException("Cita no encontrada"));
-        if (c.getEstado() == Estado.CANCELADA || c.getEstado() == Estado.COMPLETADA) {
+        if (c.getEstado() != Estado.AGENDADA) {
             throw new IllegalStateException("La cita ya está cerrada");
         }
         if (nuevo == Estado.AGENDADA) {
             throw new IllegalArgumentException("Transición inválida");
         }
+        disponibilidadIndex.citaPorCambiar(c);
+        rollup.restar(c);
         c.setEstado(nuevo);
         c.setActualizadoEn(Instant.now());
-        return toDTO(repo.save(c));
+        Cita saved = repo.save(c);
+        disponibilidadIndex.citaGuardada(saved);
+        rollup.sumar(saved);
+        eventos.cita(Tipo.CITA_ESTADO, saved.getId(), saved.getBarbero().getId(),
+                saved.getInicio(), saved.getFin(), nuevo);
+        if (nuevo == Estado.CANCELADA) {
+            // El hueco liberado se ofrece a la lista de espera en la misma transacción
+            listaEspera.ofrecer(saved.getBarbero().getId(), saved.getInicio(), saved.getFin());
+        }
+        return toDTO(saved);
+    }
+
+    /**
+     * Serializa las reservas del barbero: primero el lock a rayas de la JVM (las reservas
+     * del mismo barbero de esta instancia esperan en memoria, no en el lock de BD) y luego
+     * SELECT ... FOR UPDATE sobre su fila, que cubre varias instancias. Debe ser lo primero
+     * de la transacción: en REPEATABLE READ la foto que usa countOverlaps se toma en la
+     * primera lectura normal, y así ya incluye las citas que confirmó quien tenía el lock.
+     */
+    private Barbero bloquearBarbero(Long barberoId) {
+        reservaLocks.bloquear(barberoId);
+        return barberoRepo.findByIdParaReservar(barberoId)
+                .orElseThrow(() -> new EntityNotFoundException("Barbero no encontrado"));
+    }
+
+    private static int duracionMin(Integer overrideDuracionMin, Servicio servicio) {
+        int durMin = (overrideDuracionMin != null && overrideDuracionMin > 0)
+                ? overrideDuracionMin
+                : (servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0);
+        if (durMin <= 0)
+            durMin = 1;
+        if (durMin > Cita.DURACION_MAX_MIN) {
+            throw new IllegalArgumentException("La duración de la cita no puede pasar de 24 horas");
+        }
+        return durMin;
+    }
+
+    private boolean apartadoAjeno(Long barberoId, Instant inicio, Instant fin) {
+        try {
+            apartados.verificar(barberoId, inicio, fin, null);
+            return false;
+        } catch (IllegalStateException e) {
+            return true;
+        }
+    }
+
+    /** Intervalos [inicio, fin) como pares epoch-second, ordenados y fusionados. */
+    private static <T> long[] fusionados(List<T> filas, Function<T, Instant> inicio, Function<T, Instant> fin) {
+        long[] pares = new long[filas.size() * 2];
+        int i = 0;
+        for (T f : filas) {
+            pares[i++] = inicio.apply(f).getEpochSecond();
+            pares[i++] = fin.apply(f).getEpochSecond();
+        }
+        SlotEngine.ordenar(pares, i);
+        return Arrays.copyOf(pares, SlotEngine.fusionar(pares, i));
+    }
+
+    /** Una cita que se traslapa con [desde, ...) no puede empezar antes de esto. */
+    private static Instant inicioMin(Instant desde) {
+        return desde.minusSeconds(Cita.DURACION_MAX_MIN * 60L);
+    }
+
+    private static String codificarCursor(Instant inicio, Long id) {
+        String raw = inicio + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodificarCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = raw.split("\\|", -1);
+            if (partes.length != 2) throw new IllegalArgumentException();
+            Instant.parse(partes[0]);
+            Long.parseLong(partes[1]);
+            return partes;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor inválido");
+        }
     }
 
     private CitaDTO toDTO(Cita c) {
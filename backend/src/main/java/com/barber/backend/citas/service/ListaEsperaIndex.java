@@ -0,0 +1,219 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.citas.model.ListaEspera;
+import com.barber.backend.citas.model.ListaEsperaVentana;
+import com.barber.backend.citas.repository.ListaEsperaRepository;
+import com.barber.backend.citas.repository.ListaEsperaRepository.VentanaActiva;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Índice en memoria de la lista de espera: para cada (barbero, día) las ventanas de las
+ * inscripciones ACTIVAS, ordenadas por inicio. Cuando se libera un hueco basta una
+ * búsqueda binaria en los días del hueco para saber a quién le sirve, sin tocar la BD.
+ *
+ * Los arreglos se reemplazan completos en cada cambio (copy-on-write), así las lecturas
+ * no toman lock. Se carga perezosamente, se actualiza al confirmar (afterCommit) cada
+ * alta/baja y se recarga completo cada cierto tiempo, lo que además tira las ventanas
+ * vencidas. Es un índice por JVM, igual que {@code AgendaDisponibilidadIndex}.
+ */
+@Component
+public class ListaEsperaIndex {
+
+    private static final long SEG_DIA = 86_400;
+    private static final Ventana[] VACIO = new Ventana[0];
+    private static final Comparator<Ventana> POR_INICIO = Comparator.comparingLong(Ventana::inicio);
+    /** Orden de oferta: más prioridad primero y, a igual prioridad, quien se inscribió antes. */
+    private static final Comparator<Ventana> POR_TURNO =
+            Comparator.comparingInt(Ventana::prioridad).reversed().thenComparingLong(Ventana::listaId);
+
+    /** Ventana [inicio, fin) en epoch-seconds que acepta un servicio de {@code duracionSeg}. */
+    record Ventana(long listaId, int prioridad, long duracionSeg, long inicio, long fin) { }
+
+    /** Inscripción a la que le cabe el hueco, con el horario [inicio, fin) que se le ofrece. */
+    public record Candidato(long listaId, Instant inicio, Instant fin) { }
+
+    private record Clave(long barberoId, long dia) { }
+
+    private final ListaEsperaRepository repo;
+
+    private volatile Map<Clave, Ventana[]> porDia = new ConcurrentHashMap<>();
+    /** listaId → claves donde tiene ventanas, para quitarla sin recorrer todo. */
+    private volatile Map<Long, List<Clave>> clavesPorLista = new ConcurrentHashMap<>();
+    private volatile boolean cargado;
+
+    public ListaEsperaIndex(ListaEsperaRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Inscripciones a las que les sirve el hueco [inicio, fin) del barbero: alguna de sus
+     * ventanas se cruza con el hueco y en la intersección cabe el servicio completo. El
+     * horario ofrecido empieza en lo más temprano posible, max(inicio de ventana, inicio del
+     * hueco); con varias ventanas se queda el más temprano. Sin repetir, en orden de oferta.
+     */
+    public List<Candidato> candidatos(Long barberoId, Instant inicio, Instant fin) {
+        if (!cargado) recargar();
+        long ini = inicio.getEpochSecond();
+        long fn = fin.getEpochSecond();
+        if (fn <= ini) return List.of();
+
+        // Por lista: la ventana que permite el inicio más temprano
+        Map<Long, Ventana> mejor = new HashMap<>();
+        Map<Long, Long> desdeDe = new HashMap<>();
+        for (long d = dia(ini); d <= dia(fn - 1); d++) {
+            Ventana[] ventanas = porDia.getOrDefault(new Clave(barberoId, d), VACIO);
+            // Sólo se cruzan con el hueco las que empiezan antes de que termine
+            int hasta = primeraDespuesDe(ventanas, fn - 1);
+            for (int i = 0; i < hasta; i++) {
+                Ventana v = ventanas[i];
+                if (v.fin() <= ini) continue;
+                long desde = Math.max(v.inicio(), ini);
+                if (desde + v.duracionSeg() > Math.min(v.fin(), fn)) continue;
+                Long previo = desdeDe.get(v.listaId());
+                if (previo == null || desde < previo) {
+                    mejor.put(v.listaId(), v);
+                    desdeDe.put(v.listaId(), desde);
+                }
+            }
+        }
+        List<Ventana> sirven = new ArrayList<>(mejor.values());
+        sirven.sort(POR_TURNO);
+        List<Candidato> out = new ArrayList<>(sirven.size());
+        for (Ventana v : sirven) {
+            long desde = desdeDe.get(v.listaId());
+            out.add(new Candidato(v.listaId(), Instant.ofEpochSecond(desde),
+                    Instant.ofEpochSecond(desde + v.duracionSeg())));
+        }
+        return out;
+    }
+
+    // ===== Escrituras (al confirmar la transacción) =====
+
+    public void agregar(ListaEspera l) {
+        if (l.getEstado() != ListaEspera.Estado.ACTIVA) return;
+        int durMin = l.getServicio().getDuracionMin() != null ? l.getServicio().getDuracionMin() : 0;
+        long durSeg = Math.max(1, durMin) * 60L;
+        Map<Clave, List<Ventana>> nuevas = new HashMap<>();
+        for (Long barberoId : l.getBarberoIds()) {
+            for (ListaEsperaVentana v : l.getVentanas()) {
+                ubicar(nuevas, barberoId, new Ventana(l.getId(), l.getPrioridad(), durSeg,
+                        v.getInicio().getEpochSecond(), v.getFin().getEpochSecond()));
+            }
+        }
+        long id = l.getId();
+        alConfirmar(() -> aplicar(List.of(id), nuevas));
+    }
+
+    public void quitar(Collection<Long> listaIds) {
+        if (listaIds.isEmpty()) return;
+        List<Long> ids = List.copyOf(listaIds);
+        alConfirmar(() -> aplicar(ids, Map.of()));
+    }
+
+    /** Recarga completa desde BD; también descarta las ventanas que ya terminaron. */
+    @Scheduled(
+            initialDelayString = "${citas.lista-espera-resync-ms:600000}",
+            fixedDelayString = "${citas.lista-espera-resync-ms:600000}")
+    public synchronized void recargar() {
+        Map<Clave, List<Ventana>> nuevas = new HashMap<>();
+        for (VentanaActiva v : repo.findVentanasActivas(Instant.now())) {
+            int durMin = v.getDuracionMin() != null ? v.getDuracionMin() : 0;
+            ubicar(nuevas, v.getBarberoId(), new Ventana(v.getId(), v.getPrioridad(),
+                    Math.max(1, durMin) * 60L, v.getInicio().getEpochSecond(), v.getFin().getEpochSecond()));
+        }
+        Map<Clave, Ventana[]> dias = new ConcurrentHashMap<>();
+        Map<Long, List<Clave>> claves = new ConcurrentHashMap<>();
+        nuevas.forEach((k, lista) -> {
+            dias.put(k, ordenadas(lista));
+            for (Ventana v : lista) claves.computeIfAbsent(v.listaId(), x -> new ArrayList<>()).add(k);
+        });
+        claves.replaceAll((id, ks) -> List.copyOf(new LinkedHashSet<>(ks)));
+        porDia = dias;
+        clavesPorLista = claves;
+        cargado = true;
+    }
+
+    /** Quita todo lo de {@code listaIds} y agrega {@code nuevas}; sin cargar, no hay nada que tocar. */
+    private synchronized void aplicar(List<Long> listaIds, Map<Clave, List<Ventana>> nuevas) {
+        if (!cargado) return;
+        for (Long id : listaIds) {
+            List<Clave> claves = clavesPorLista.remove(id);
+            if (claves == null) continue;
+            for (Clave k : claves) {
+                Ventana[] actuales = porDia.get(k);
+                if (actuales == null) continue;
+                Ventana[] restantes = Arrays.stream(actuales).filter(v -> v.listaId() != id).toArray(Ventana[]::new);
+                if (restantes.length == 0) porDia.remove(k);
+                else porDia.put(k, restantes);
+            }
+        }
+        nuevas.forEach((k, lista) -> {
+            Ventana[] actuales = porDia.getOrDefault(k, VACIO);
+            List<Ventana> todas = new ArrayList<>(Arrays.asList(actuales));
+            todas.addAll(lista);
+            porDia.put(k, ordenadas(todas));
+            for (Ventana v : lista) {
+                clavesPorLista.compute(v.listaId(), (id, ks) -> {
+                    LinkedHashSet<Clave> s = ks == null ? new LinkedHashSet<>() : new LinkedHashSet<>(ks);
+                    s.add(k);
+                    return List.copyOf(s);
+                });
+            }
+        });
+    }
+
+    /** Una ventana que cruza medianoche queda en cada día que toca (son a lo más unos días). */
+    private static void ubicar(Map<Clave, List<Ventana>> destino, Long barberoId, Ventana v) {
+        if (v.fin() <= v.inicio()) return;
+        for (long d = dia(v.inicio()); d <= dia(v.fin() - 1); d++) {
+            destino.computeIfAbsent(new Clave(barberoId, d), k -> new ArrayList<>()).add(v);
+        }
+    }
+
+    private static Ventana[] ordenadas(List<Ventana> ventanas) {
+        Ventana[] arr = ventanas.toArray(Ventana[]::new);
+        Arrays.sort(arr, POR_INICIO);
+        return arr;
+    }
+
+    /** Índice de la primera ventana con inicio > {@code t} (búsqueda binaria). */
+    private static int primeraDespuesDe(Ventana[] ventanas, long t) {
+        int lo = 0, hi = ventanas.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ventanas[mid].inicio() <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static long dia(long epochSeg) {
+        return Math.floorDiv(epochSeg, SEG_DIA);
+    }
+
+    private static void alConfirmar(Runnable r) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    r.run();
+                }
+            });
+        } else {
+            r.run();
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.barber.backend.citas.service;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.dto.AgendaEvento.Tipo;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.catalogo.model.Servicio;
+import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.dto.ListaEsperaDTO;
+import com.barber.backend.citas.dto.ListaEsperaRequest;
+import com.barber.backend.citas.model.ListaEspera;
+import com.barber.backend.citas.model.ListaEspera.Estado;
+import com.barber.backend.citas.model.ListaEsperaVentana;
+import com.barber.backend.citas.repository.ListaEsperaRepository;
+import com.barber.backend.login.security.AppUserPrincipal;
+import jakarta.persistence.EntityNotFoundException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lista de espera: el cliente se inscribe con un servicio, los barberos que le sirven y
+ * las ventanas en que podría ir. Al cancelarse una cita a futuro, {@link #ofrecer} busca
+ * en {@link ListaEsperaIndex} a quién le cabe el hueco y se lo ofrece a los primeros por
+ * prioridad; la oferta sale como evento de agenda (outbox) para quien la notifique.
+ */
+@Service
+public class ListaEsperaService {
+
+    private static final List<Estado> VIGENTES = List.of(Estado.ACTIVA, Estado.OFRECIDA);
+    private static final int MAX_LISTADO = 500;
+    private static final Duration MAX_VENTANA = Duration.ofDays(14);
+
+    private final ListaEsperaRepository repo;
+    private final ServicioRepository servicioRepo;
+    private final BarberoRepository barberoRepo;
+    private final ClientePerfilResolver clientePerfilResolver;
+    private final ListaEsperaIndex index;
+    private final AgendaEventos eventos;
+    private final AgendaProperties agendaProps;
+    private final CitasProperties props;
+
+    public ListaEsperaService(
+            ListaEsperaRepository repo,
+            ServicioRepository servicioRepo,
+            BarberoRepository barberoRepo,
+            ClientePerfilResolver clientePerfilResolver,
+            ListaEsperaIndex index,
+            AgendaEventos eventos,
+            AgendaProperties agendaProps,
+            CitasProperties props) {
+        this.repo = repo;
+        this.servicioRepo = servicioRepo;
+        this.barberoRepo = barberoRepo;
+        this.clientePerfilResolver = clientePerfilResolver;
+        this.index = index;
+        this.eventos = eventos;
+        this.agendaProps = agendaProps;
+        this.props = props;
+    }
+
+    @Transactional
+    public ListaEsperaDTO create(ListaEsperaRequest in, AppUserPrincipal principal) {
+        Servicio servicio = servicioRepo.findById(in.servicioId())
+                .orElseThrow(() -> new EntityNotFoundException("Servicio no encontrado"));
+        Set<Long> barberoIds = new LinkedHashSet<>(in.barberoIds());
+        if (barberoRepo.findAllById(barberoIds).size() != barberoIds.size()) {
+            throw new EntityNotFoundException("Barbero no encontrado");
+        }
+        int durMin = servicio.getDuracionMin() != null ? servicio.getDuracionMin() : 0;
+        List<ListaEsperaVentana> ventanas = validarVentanas(in.ventanas(), Duration.ofMinutes(Math.max(1, durMin)));
+
+        // Mismas reglas de nombre/teléfono que una reserva normal
+        ClientePerfilResolver.ClienteData cliente = clientePerfilResolver.resolve(
+                new CitaSaveRequest(null, in.servicioId(), in.clienteNombre(), in.clienteTelE164(),
+                        null, null, null, null, null),
+                principal, null, null);
+
+        ListaEspera l = new ListaEspera();
+        l.setUsuarioId(principal.getUserId());
+        l.setServicio(servicio);
+        l.setBarberoIds(barberoIds);
+        l.setVentanas(ventanas);
+        l.setClienteNombre(cliente.nombre());
+        l.setClienteTelE164(cliente.telefono());
+        l.setPrioridad(in.prioridad() != null && principal.hasRole("ADMIN") ? in.prioridad() : 0);
+        ListaEspera saved = repo.save(l);
+        index.agregar(saved);
+        return toDTO(saved);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ListaEsperaDTO> mias(AppUserPrincipal principal) {
+        if (principal == null || principal.getUserId() == null) {
+            throw new IllegalStateException("Debes iniciar sesión");
+        }
+        return repo.findByUsuarioIdAndEstadoInOrderByIdDesc(principal.getUserId(), VIGENTES)
+                .stream().map(this::toDTO).toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ListaEsperaDTO> todas() {
+        return repo.findByEstadoInOrderByPrioridadDescIdAsc(VIGENTES, Limit.of(MAX_LISTADO))
+                .stream().map(this::toDTO).toList();
+    }
+
+    /** Quién recibiría el hueco [inicio, fin) del barbero, en orden; sólo consulta el índice. */
+    @Transactional(readOnly = true)
+    public List<ListaEsperaDTO> coincidencias(Long barberoId, Instant inicio, Instant fin) {
+        if (!inicio.isBefore(fin)) {
+            throw new IllegalArgumentException("'inicio' debe ser anterior a 'fin'");
+        }
+        List<Long> ids = index.candidatos(barberoId, inicio, fin).stream()
+                .map(ListaEsperaIndex.Candidato::listaId)
+                .toList();
+        Map<Long, ListaEspera> porId = new HashMap<>();
+        for (ListaEspera l : repo.findAllById(ids)) porId.put(l.getId(), l);
+        List<ListaEsperaDTO> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            ListaEspera l = porId.get(id);
+            if (l != null) out.add(toDTO(l));
+        }
+        return out;
+    }
+
+    @Transactional
+    public void cancelar(Long id, AppUserPrincipal principal) {
+        ListaEspera l = propia(id, principal);
+        if (l.getEstado() == Estado.CERRADA) return;
+        l.setEstado(Estado.CERRADA);
+        index.quitar(List.of(l.getId()));
+    }
+
+    /** Vuelve a la lista a quien rechazó (o no alcanzó) el hueco ofrecido. */
+    @Transactional
+    public ListaEsperaDTO reactivar(Long id, AppUserPrincipal principal) {
+        ListaEspera l = propia(id, principal);
+        if (l.getEstado() != Estado.OFRECIDA) {
+            throw new IllegalStateException("Sólo se puede reactivar una inscripción con oferta");
+        }
+        l.setEstado(Estado.ACTIVA);
+        index.agregar(l);
+        return toDTO(l);
+    }
+
+    /**
+     * Ofrece el hueco que dejó una cita cancelada. Corre dentro de la transacción de la
+     * cancelación: las inscripciones pasan a OFRECIDA, la oferta queda en el outbox y el
+     * índice se actualiza al confirmar. Si algo falla aquí, la cancelación tampoco queda.
+     * A cada una se le ofrece el horario concreto que le cabe (ver
+     * {@link ListaEsperaIndex#candidatos}), no el hueco completo.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ofrecer(Long barberoId, Instant inicio, Instant fin) {
+        if (!props.isListaEsperaEnabled() || !inicio.isAfter(Instant.now())) return;
+        List<ListaEsperaIndex.Candidato> candidatos = index.candidatos(barberoId, inicio, fin);
+        if (candidatos.isEmpty()) return;
+
+        int ofertas = Math.max(1, props.getListaEsperaOfertasPorHueco());
+        // Algunas pueden estar ya tomadas por otra cancelación: se piden de más y se salta a las bloqueadas
+        List<ListaEsperaIndex.Candidato> primeros = candidatos.subList(0, Math.min(candidatos.size(), ofertas * 3));
+        List<Long> pedir = new ArrayList<>(primeros.size());
+        Map<Long, Integer> turno = new HashMap<>();
+        Map<Long, ListaEsperaIndex.Candidato> porLista = new HashMap<>();
+        for (ListaEsperaIndex.Candidato c : primeros) {
+            turno.put(c.listaId(), pedir.size());
+            porLista.put(c.listaId(), c);
+            pedir.add(c.listaId());
+        }
+        List<ListaEspera> elegidas = repo.findActivasParaOfrecer(pedir).stream()
+                .sorted(Comparator.comparing(l -> turno.get(l.getId())))
+                .limit(ofertas)
+                .toList();
+        if (elegidas.isEmpty()) return;
+
+        Instant ahora = Instant.now();
+        List<AgendaEvento> avisos = new ArrayList<>(elegidas.size());
+        for (ListaEspera l : elegidas) {
+            ListaEsperaIndex.Candidato c = porLista.get(l.getId());
+            l.setEstado(Estado.OFRECIDA);
+            l.setOfertaBarberoId(barberoId);
+            l.setOfertaInicio(c.inicio());
+            l.setOfertaFin(c.fin());
+            l.setOfertaEn(ahora);
+            avisos.add(new AgendaEvento(null, Tipo.LISTA_ESPERA_OFERTA, l.getId(), barberoId,
+                    c.inicio(), c.fin(), Estado.OFRECIDA.name(), null));
+        }
+        eventos.publicar(avisos);
+        index.quitar(elegidas.stream().map(ListaEspera::getId).toList());
+    }
+
+    private List<ListaEsperaVentana> validarVentanas(List<ListaEsperaRequest.Ventana> in, Duration duracion) {
+        Instant ahora = Instant.now();
+        Instant horizonte = ahora.plus(Duration.ofDays(agendaProps.getMaxAdvanceDays()));
+        List<ListaEsperaVentana> out = new ArrayList<>(in.size());
+        for (ListaEsperaRequest.Ventana v : in) {
+            if (!v.inicio().isBefore(v.fin())) {
+                throw new IllegalArgumentException("Cada ventana debe tener 'inicio' anterior a 'fin'");
+            }
+            if (!v.fin().isAfter(ahora)) {
+                throw new IllegalArgumentException("Las ventanas deben terminar en el futuro");
+            }
+            if (v.inicio().isAfter(horizonte)) {
+                throw new IllegalArgumentException(
+                        "Las ventanas no pueden empezar a más de " + agendaProps.getMaxAdvanceDays() + " días");
+            }
+            Duration largo = Duration.between(v.inicio(), v.fin());
+            if (largo.compareTo(MAX_VENTANA) > 0) {
+                throw new IllegalArgumentException("Cada ventana puede cubrir a lo más 14 días");
+            }
+            if (largo.compareTo(duracion) < 0) {
+                throw new IllegalArgumentException("La ventana es más corta que el servicio");
+            }
+            out.add(new ListaEsperaVentana(v.inicio(), v.fin()));
+        }
+        return out;
+    }
+
+    private ListaEspera propia(Long id, AppUserPrincipal principal) {
+        ListaEspera l = repo.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Inscripción no encontrada"));
+        boolean admin = principal != null && principal.hasRole("ADMIN");
+        boolean duenio = principal != null && principal.getUserId() != null
+                && principal.getUserId().equals(l.getUsuarioId());
+        if (!admin && !duenio) {
+            throw new AccessDeniedException("No autorizado para esta inscripción");
+        }
+        return l;
+    }
+
+    private ListaEsperaDTO toDTO(ListaEspera l) {
+        return new ListaEsperaDTO(
+                l.getId(),
+                l.getServicio().getId(),
+                List.copyOf(l.getBarberoIds()),
+                l.getVentanas().stream()
+                        .map(v -> new ListaEsperaRequest.Ventana(v.getInicio(), v.getFin()))
+                        .toList(),
+                l.getClienteNombre(),
+                l.getClienteTelE164(),
+                l.getPrioridad(),
+                l.getEstado(),
+                l.getCreadoEn(),
+                l.getOfertaBarberoId(),
+                l.getOfertaInicio(),
+                l.getOfertaFin(),
+                l.getOfertaEn());
+    }
+}
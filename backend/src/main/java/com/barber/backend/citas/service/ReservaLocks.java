@@ -0,0 +1,53 @@
+package com.barber.backend.citas.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Serializa las reservas por barbero dentro de la JVM: locks a rayas (un número fijo de
+ * locks, cada barbero cae siempre en el mismo). Reservas de barberos distintos casi
+ * nunca compiten; dos reservas del mismo barbero se ejecutan una tras otra.
+ *
+ * El lock se suelta al terminar la transacción (commit o rollback), no al salir del
+ * método: así la siguiente reserva ya ve la cita confirmada al contar solapes. Entre
+ * varias instancias del backend la garantía la da el lock de fila del barbero en BD.
+ */
+@Component
+class ReservaLocks {
+
+    private static final int RAYAS = 64;
+    private static final long ESPERA_MAX_MS = 5_000;
+
+    private final ReentrantLock[] locks = new ReentrantLock[RAYAS];
+
+    ReservaLocks() {
+        for (int i = 0; i < RAYAS; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /** Toma el lock del barbero hasta que la transacción en curso termine. */
+    void bloquear(Long barberoId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("La reserva debe ejecutarse dentro de una transacción");
+        }
+        ReentrantLock lock = locks[Math.floorMod(Long.hashCode(barberoId), RAYAS)];
+        try {
+            if (!lock.tryLock(ESPERA_MAX_MS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("La agenda del barbero está ocupada, intenta de nuevo");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reserva interrumpida", e);
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+    }
+}
@@ -4,6 +4,8 @@ import com.barber.backend.login.model.Usuario;
 import java.time.Instant;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByFirebaseUid(String firebaseUid);
@@ -15,5 +17,32 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     long countByRolAndTelefonoVerificadoTrue(Usuario.Rol rol);
 
     long countByRolAndCreadoEnBetween(Usuario.Rol rol, Instant desde, Instant hasta);
+
+    interface ResumenClientes {
+        Number getClientesActivos();
+        Number getClientesVerificados();
+        Number getNuevosClientes();
+        Number getBarberosActivos();
+        Number getServiciosActivos();
+    }
+
+    /**
+     * Contadores de usuarios del tablero de admin en una pasada sobre los clientes; los
+     * catálogos (barberos, servicios) van como subconsultas para no gastar otro viaje.
+     */
+    @Query(value = """
+            SELECT
+              COALESCE(SUM(CASE WHEN u.activo = 1 THEN 1 END), 0) AS clientesActivos,
+              COALESCE(SUM(CASE WHEN u.telefono_verificado = 1 THEN 1 END), 0) AS clientesVerificados,
+              COALESCE(SUM(CASE WHEN u.creado_en >= :nuevosDesde AND u.creado_en < :nuevosHasta
+                                THEN 1 END), 0) AS nuevosClientes,
+              (SELECT COUNT(*) FROM barberos b WHERE b.activo = 1) AS barberosActivos,
+              (SELECT COUNT(*) FROM servicios s WHERE s.activo = 1) AS serviciosActivos
+            FROM usuarios u
+            WHERE u.rol = 'CLIENTE'
+            """, nativeQuery = true)
+    ResumenClientes resumenClientes(
+            @Param("nuevosDesde") Instant nuevosDesde,
+            @Param("nuevosHasta") Instant nuevosHasta);
 }
 
@@ -0,0 +1,152 @@
+-- Esquema base: lo que hasta ahora generaba Hibernate con ddl-auto=update.
+-- En bases ya existentes no se ejecuta: Flyway las marca como versión 1
+-- (spring.flyway.baseline-on-migrate) y sigue con V2 en adelante.
+-- Los enums van como VARCHAR para poder agregar valores sin tocar el esquema.
+
+CREATE TABLE barberos (
+  id                 BIGINT       NOT NULL AUTO_INCREMENT,
+  nombre             VARCHAR(120) NOT NULL,
+  telefono_e164      VARCHAR(20),
+  descripcion        VARCHAR(500),
+  avatar_url         VARCHAR(300),
+  email_profesional  VARCHAR(160),
+  instagram_handle   VARCHAR(80),
+  portafolio_url     VARCHAR(300),
+  slogan             VARCHAR(160),
+  experiencia_anos   INT,
+  activo             BIT          NOT NULL,
+  creado_en          DATETIME(6)  NOT NULL,
+  actualizado_en     DATETIME(6),
+  PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE servicios (
+  id               BIGINT       NOT NULL AUTO_INCREMENT,
+  nombre           VARCHAR(120) NOT NULL,
+  descripcion      VARCHAR(500),
+  duracion_min     INT          NOT NULL,
+  precio_centavos  INT          NOT NULL,
+  activo           BIT          NOT NULL,
+  creado_en        DATETIME(6)  NOT NULL,
+  actualizado_en   DATETIME(6)  NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_servicios_nombre UNIQUE (nombre)
+) ENGINE = InnoDB;
+
+CREATE TABLE barbero_servicio (
+  barbero_id   BIGINT NOT NULL,
+  servicio_id  BIGINT NOT NULL,
+  PRIMARY KEY (barbero_id, servicio_id),
+  CONSTRAINT fk_barbero_servicio_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id),
+  CONSTRAINT fk_barbero_servicio_servicio FOREIGN KEY (servicio_id) REFERENCES servicios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE barbero_especialidades (
+  barbero_id    BIGINT      NOT NULL,
+  especialidad  VARCHAR(80),
+  CONSTRAINT fk_barbero_especialidades_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE barbero_horario_semanal (
+  id          BIGINT  NOT NULL AUTO_INCREMENT,
+  barbero_id  BIGINT  NOT NULL,
+  dow         INT     NOT NULL,
+  desde       TIME    NOT NULL,
+  hasta       TIME    NOT NULL,
+  activo      BIT     NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_horario_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE barbero_bloqueo (
+  id          BIGINT       NOT NULL AUTO_INCREMENT,
+  barbero_id  BIGINT       NOT NULL,
+  inicio      DATETIME(6)  NOT NULL,
+  fin         DATETIME(6)  NOT NULL,
+  motivo      VARCHAR(255),
+  creado_en   DATETIME(6)  NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT fk_bloqueo_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE citas (
+  id                        BIGINT        NOT NULL AUTO_INCREMENT,
+  barbero_id                BIGINT        NOT NULL,
+  servicio_id               BIGINT        NOT NULL,
+  cliente_nombre            VARCHAR(200)  NOT NULL,
+  cliente_tel_e164          VARCHAR(32),
+  inicio                    DATETIME(6)   NOT NULL,
+  fin                       DATETIME(6)   NOT NULL,
+  estado                    VARCHAR(20)   NOT NULL,
+  override_duracion_min     INT,
+  override_precio_centavos  INT,
+  notas                     VARCHAR(1000),
+  creado_en                 DATETIME(6)   NOT NULL,
+  actualizado_en            DATETIME(6),
+  PRIMARY KEY (id),
+  CONSTRAINT fk_citas_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id),
+  CONSTRAINT fk_citas_servicio FOREIGN KEY (servicio_id) REFERENCES servicios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE usuarios (
+  id                   BIGINT        NOT NULL AUTO_INCREMENT,
+  nombre               VARCHAR(100),
+  apellido             VARCHAR(100),
+  email                VARCHAR(150),
+  username             VARCHAR(60),
+  password_hash        VARCHAR(255),
+  telefono_e164        VARCHAR(20),
+  telefono_verificado  BIT           NOT NULL,
+  proveedor            VARCHAR(20)   NOT NULL,
+  proveedor_id         VARCHAR(191),
+  avatar_url           VARCHAR(255),
+  firebase_uid         VARCHAR(191),
+  activo               BIT           NOT NULL,
+  creado_en            DATETIME(6)   NOT NULL,
+  actualizado_en       DATETIME(6)   NOT NULL,
+  rol                  VARCHAR(20)   NOT NULL,
+  barbero_id           BIGINT,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_usuarios_email UNIQUE (email),
+  CONSTRAINT uk_usuarios_username UNIQUE (username),
+  CONSTRAINT uk_usuarios_telefono UNIQUE (telefono_e164),
+  CONSTRAINT uk_usuarios_firebase_uid UNIQUE (firebase_uid),
+  CONSTRAINT uk_usuarios_barbero UNIQUE (barbero_id),
+  CONSTRAINT fk_usuarios_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_usuarios_email ON usuarios (email);
+CREATE INDEX idx_usuarios_username ON usuarios (username);
+CREATE INDEX idx_usuarios_firebase_uid ON usuarios (firebase_uid);
+CREATE INDEX idx_usuarios_rol ON usuarios (rol);
+
+CREATE TABLE refresh_tokens (
+  id          BIGINT        NOT NULL AUTO_INCREMENT,
+  usuario_id  BIGINT        NOT NULL,
+  jti         VARCHAR(40)   NOT NULL,
+  token_hash  VARCHAR(100)  NOT NULL,
+  expira_en   DATETIME(6)   NOT NULL,
+  revocado    BIT           NOT NULL,
+  user_agent  VARCHAR(255),
+  ip          VARCHAR(255),
+  creado_en   DATETIME(6)   NOT NULL,
+  PRIMARY KEY (id),
+  CONSTRAINT uk_refresh_tokens_jti UNIQUE (jti)
+) ENGINE = InnoDB;
+
+CREATE INDEX idx_refresh_tokens_usuario ON refresh_tokens (usuario_id);
+CREATE INDEX idx_refresh_tokens_token_hash ON refresh_tokens (token_hash);
+
+CREATE TABLE phone_otps (
+  id             BIGINT        NOT NULL AUTO_INCREMENT,
+  telefono_e164  VARCHAR(20)   NOT NULL,
+  code_hash      VARCHAR(100)  NOT NULL,
+  vence_en       DATETIME(6)   NOT NULL,
+  intentos       INT,
+  max_intentos   INT           NOT NULL,
+  canal          VARCHAR(20),
+  purpose        VARCHAR(10)   NOT NULL,
+  consumido      BIT           NOT NULL,
+  creado_en      DATETIME(6),
+  PRIMARY KEY (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,16 @@
+-- Índices compuestos para los predicados calientes de agenda, dashboard y analytics.
+
+-- Solapes (countOverlaps*), slots y agendas por barbero: barbero + estado fijos, rango en inicio/fin
+CREATE INDEX idx_citas_barbero_estado_inicio_fin ON citas (barbero_id, estado, inicio, fin);
+
+-- Dashboard del cliente: próximas / últimas citas por teléfono
+CREATE INDEX idx_citas_cliente_estado_inicio ON citas (cliente_tel_e164, estado, inicio);
+
+-- Analytics: conteos e ingresos por estado en un rango
+CREATE INDEX idx_citas_estado_inicio ON citas (estado, inicio);
+
+-- Listado sin filtros y cursor (inicio, id): InnoDB agrega la PK al final del índice
+CREATE INDEX idx_citas_inicio ON citas (inicio);
+
+-- Bloqueos que traslapan un rango por barbero
+CREATE INDEX idx_bloqueo_barbero_inicio_fin ON barbero_bloqueo (barbero_id, inicio, fin);
@@ -0,0 +1,4 @@
+-- NO_ASISTIO: nuevo estado de cita. Las bases creadas con ddl-auto=update tienen
+-- citas.estado como ENUM de MySQL; se pasa a VARCHAR para aceptar el valor nuevo
+-- (y los que vengan) sin más cambios de esquema.
+ALTER TABLE citas MODIFY estado VARCHAR(20) NOT NULL;
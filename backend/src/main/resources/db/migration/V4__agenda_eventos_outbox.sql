@@ -0,0 +1,19 @@
+-- Outbox de eventos de agenda: cada cambio de cita, bloqueo u horario deja una fila en
+-- la misma transacción que lo produce; AgendaEventosDespachador las entrega después.
+-- El índice (procesado_en, id) sirve para leer las pendientes en orden y para purgar.
+
+CREATE TABLE agenda_eventos_outbox (
+  id            BIGINT       NOT NULL AUTO_INCREMENT,
+  tipo          VARCHAR(40)  NOT NULL,
+  entidad_id    BIGINT       NOT NULL,
+  barbero_id    BIGINT       NOT NULL,
+  inicio        DATETIME(6),
+  fin           DATETIME(6),
+  estado        VARCHAR(20),
+  creado_en     DATETIME(6)  NOT NULL,
+  procesado_en  DATETIME(6),
+  intentos      INT          NOT NULL DEFAULT 0,
+  ultimo_error  VARCHAR(500),
+  PRIMARY KEY (id),
+  KEY idx_agenda_eventos_procesado_id (procesado_en, id)
+) ENGINE = InnoDB;
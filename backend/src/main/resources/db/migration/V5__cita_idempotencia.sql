@@ -0,0 +1,13 @@
+-- Claves Idempotency-Key de POST /api/citas: la PK hace de candado entre reintentos y
+-- la huella detecta que una clave se reutilizó con otra solicitud. Se purgan por creado_en.
+-- Si la cita se borra, su clave se va con ella.
+
+CREATE TABLE cita_idempotencia (
+  clave      VARCHAR(100) NOT NULL,
+  cita_id    BIGINT       NOT NULL,
+  huella     CHAR(64)     NOT NULL,
+  creado_en  DATETIME(6)  NOT NULL,
+  PRIMARY KEY (clave),
+  KEY idx_cita_idempotencia_creado (creado_en),
+  CONSTRAINT fk_cita_idempotencia_cita FOREIGN KEY (cita_id) REFERENCES citas (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
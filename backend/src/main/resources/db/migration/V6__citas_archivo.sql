@@ -0,0 +1,26 @@
+-- Histórico frío de citas: CitaArchivoJob mueve aquí por lotes las citas cerradas con
+-- más antigüedad que citas.archivo-retencion-dias. Mismo id y columnas que citas (más
+-- archivado_en); sin FKs, las filas sólo se leen. Los listados y analytics la unen a
+-- citas sólo cuando el rango pedido llega a fechas archivadas.
+
+CREATE TABLE citas_archivo (
+  id                        BIGINT        NOT NULL,
+  barbero_id                BIGINT        NOT NULL,
+  servicio_id               BIGINT        NOT NULL,
+  cliente_nombre            VARCHAR(200)  NOT NULL,
+  cliente_tel_e164          VARCHAR(32),
+  inicio                    DATETIME(6)   NOT NULL,
+  fin                       DATETIME(6)   NOT NULL,
+  estado                    VARCHAR(20)   NOT NULL,
+  override_duracion_min     INT,
+  override_precio_centavos  INT,
+  notas                     VARCHAR(1000),
+  creado_en                 DATETIME(6)   NOT NULL,
+  actualizado_en            DATETIME(6),
+  archivado_en              DATETIME(6)   NOT NULL,
+  PRIMARY KEY (id),
+  KEY idx_citas_archivo_inicio (inicio),
+  KEY idx_citas_archivo_barbero_estado_inicio (barbero_id, estado, inicio),
+  KEY idx_citas_archivo_cliente_estado_inicio (cliente_tel_e164, estado, inicio),
+  KEY idx_citas_archivo_estado_inicio (estado, inicio)
+) ENGINE = InnoDB;
@@ -0,0 +1,38 @@
+-- Lista de espera: el cliente indica servicio, barberos y ventanas de tiempo que aceptaría.
+-- Al cancelarse una cita, ListaEsperaIndex (en memoria) encuentra a quién ofrecer el hueco;
+-- aquí sólo se guarda la inscripción y la última oferta.
+
+CREATE TABLE lista_espera (
+  id                 BIGINT        NOT NULL AUTO_INCREMENT,
+  usuario_id         BIGINT,
+  servicio_id        BIGINT        NOT NULL,
+  cliente_nombre     VARCHAR(200)  NOT NULL,
+  cliente_tel_e164   VARCHAR(32)   NOT NULL,
+  prioridad          INT           NOT NULL DEFAULT 0,
+  estado             VARCHAR(20)   NOT NULL,
+  creado_en          DATETIME(6)   NOT NULL,
+  oferta_barbero_id  BIGINT,
+  oferta_inicio      DATETIME(6),
+  oferta_fin         DATETIME(6),
+  oferta_en          DATETIME(6),
+  PRIMARY KEY (id),
+  KEY idx_lista_espera_estado (estado, prioridad, id),
+  KEY idx_lista_espera_usuario (usuario_id, estado),
+  CONSTRAINT fk_lista_espera_servicio FOREIGN KEY (servicio_id) REFERENCES servicios (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE lista_espera_barbero (
+  lista_espera_id  BIGINT NOT NULL,
+  barbero_id       BIGINT NOT NULL,
+  PRIMARY KEY (lista_espera_id, barbero_id),
+  CONSTRAINT fk_lista_espera_barbero_lista FOREIGN KEY (lista_espera_id) REFERENCES lista_espera (id) ON DELETE CASCADE,
+  CONSTRAINT fk_lista_espera_barbero_barbero FOREIGN KEY (barbero_id) REFERENCES barberos (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE lista_espera_ventana (
+  lista_espera_id  BIGINT       NOT NULL,
+  inicio           DATETIME(6)  NOT NULL,
+  fin              DATETIME(6)  NOT NULL,
+  KEY idx_lista_espera_ventana_lista (lista_espera_id),
+  CONSTRAINT fk_lista_espera_ventana_lista FOREIGN KEY (lista_espera_id) REFERENCES lista_espera (id) ON DELETE CASCADE
+) ENGINE = InnoDB;
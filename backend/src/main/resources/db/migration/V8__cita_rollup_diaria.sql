@@ -0,0 +1,14 @@
+-- Resumen diario de citas para los tableros: cuántas citas y cuántos centavos hay por
+-- (día local de agenda.timezone, barbero, estado). CitaRollup lo ajusta con deltas en la
+-- misma transacción de cada alta, cambio o baja; CitaRollupJob lo reconstruye desde
+-- citas + citas_archivo (carga inicial y reparación de los últimos días).
+
+CREATE TABLE cita_rollup_diaria (
+  dia                DATE         NOT NULL,
+  barbero_id         BIGINT       NOT NULL,
+  estado             VARCHAR(20)  NOT NULL,
+  citas              INT          NOT NULL DEFAULT 0,
+  ingresos_centavos  BIGINT       NOT NULL DEFAULT 0,
+  PRIMARY KEY (dia, barbero_id, estado),
+  KEY idx_cita_rollup_barbero_estado_dia (barbero_id, estado, dia)
+) ENGINE = InnoDB;
@@ -0,0 +1,5 @@
+-- Entrega por suscriptor: nombres (separados por coma) de los suscriptores que ya
+-- recibieron el evento. Si uno falla, el reintento sólo vuelve a llamar a los que faltan.
+
+ALTER TABLE agenda_eventos_outbox
+  ADD COLUMN entregado_a VARCHAR(500) NULL AFTER ultimo_error;
@@ -0,0 +1,126 @@
+package com.barber.backend;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Parameter;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Revisa todas las consultas de los repositorios sin base de datos, para que corra en
+ * cualquier build (el EXPLAIN de ConsultasIndexadasTests necesita Docker).
+ *
+ * Hibernate arranca sin conectarse (dialecto fijo, sin metadatos JDBC). Al crear los
+ * repositorios Spring Data ya compila cada JPQL contra el modelo; aquí además cada
+ * consulta nativa se prepara y se le ligan sus parámetros con nombre: uno que falte
+ * en el método, o que sobre, falla. La sintaxis del SQL nativo la valida MySQL.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:mysql://localhost:1/sin_bd",
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.show-sql=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.MySQLDialect",
+        "spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false",
+        "spring.datasource.hikari.initialization-fail-timeout=-1",
+})
+class ConsultasRepositoriosTests {
+
+    /** Parámetros que Spring Data aplica aparte; no son marcadores del SQL. */
+    private static final Set<Class<?>> ESPECIALES = Set.of(Pageable.class, Sort.class, Limit.class);
+
+    @Autowired ApplicationContext context;
+    @Autowired EntityManager em;
+
+    @Test
+    void lasConsultasJpqlCompilanAlArrancar() {
+        // Si alguna JPQL no compila el contexto no arranca; además debe haber repositorios
+        assertThat(context.getBeansOfType(Repository.class)).isNotEmpty();
+    }
+
+    @Test
+    void lasConsultasNativasLiganSusParametros() {
+        List<String> errores = new ArrayList<>();
+        int revisadas = 0;
+        for (Class<?> repo : repositorios()) {
+            for (Method m : repo.getDeclaredMethods()) {
+                Query q = m.getAnnotation(Query.class);
+                if (q == null || !q.nativeQuery()) continue;
+                Set<String> delMetodo = parametros(m);
+                revisadas++;
+                revisar(repo, m, q.value(), delMetodo, errores);
+                if (!q.countQuery().isBlank()) revisar(repo, m, q.countQuery(), delMetodo, errores);
+            }
+        }
+        assertThat(revisadas).isPositive();
+        assertThat(errores).isEmpty();
+    }
+
+    private void revisar(Class<?> repo, Method m, String sql, Set<String> delMetodo, List<String> errores) {
+        String donde = repo.getSimpleName() + "." + m.getName();
+        if (sql.contains(":#{")) return; // SpEL: lo resuelve Spring Data al ejecutar
+        try {
+            jakarta.persistence.Query nativa = em.createNativeQuery(sql);
+            Set<String> delSql = nativa.getParameters().stream()
+                    .map(Parameter::getName)
+                    .filter(n -> n != null)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if (!delSql.equals(delMetodo)) {
+                errores.add(donde + ": el SQL usa " + delSql + " y el método liga " + delMetodo);
+                return;
+            }
+            for (String nombre : delSql) {
+                nativa.setParameter(nombre, null);
+            }
+        } catch (RuntimeException e) {
+            errores.add(donde + ": " + e.getMessage());
+        }
+    }
+
+    private static Set<String> parametros(Method m) {
+        Set<String> out = new TreeSet<>();
+        for (java.lang.reflect.Parameter p : m.getParameters()) {
+            if (ESPECIALES.stream().anyMatch(c -> c.isAssignableFrom(p.getType()))) continue;
+            Param param = p.getAnnotation(Param.class);
+            if (param != null) out.add(param.value());
+            else if (p.isNamePresent()) out.add(p.getName());
+        }
+        return out;
+    }
+
+    /** Interfaces de repositorio de la aplicación (no las de Spring Data). */
+    private List<Class<?>> repositorios() {
+        List<Class<?>> out = new ArrayList<>();
+        for (Map.Entry<String, Repository> e : context.getBeansOfType(Repository.class).entrySet()) {
+            for (Class<?> i : e.getValue().getClass().getInterfaces()) {
+                if (i.getName().startsWith("com.barber.backend.") && Repository.class.isAssignableFrom(i)) {
+                    out.add(i);
+                }
+            }
+        }
+        return out;
+    }
+}
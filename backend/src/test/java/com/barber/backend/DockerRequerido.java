@@ -0,0 +1,33 @@
+package com.barber.backend;
+
+import org.junit.jupiter.api.extension.ConditionEvaluationResult;
+import org.junit.jupiter.api.extension.ExecutionCondition;
+import org.junit.jupiter.api.extension.ExtensionConfigurationException;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.testcontainers.DockerClientFactory;
+
+/**
+ * Condición de las pruebas contra MySQL en Testcontainers. En local, sin Docker, se
+ * omiten; en CI ({@code CI=true}) o con {@code -Dpruebas.docker=requerido} la falta de
+ * Docker hace fallar la prueba en vez de omitirla en silencio.
+ */
+public class DockerRequerido implements ExecutionCondition {
+
+    @Override
+    public ConditionEvaluationResult evaluateExecutionCondition(ExtensionContext context) {
+        if (DockerClientFactory.instance().isDockerAvailable()) {
+            return ConditionEvaluationResult.enabled("Docker disponible");
+        }
+        if (requerido()) {
+            throw new ExtensionConfigurationException(
+                    "Docker no está disponible y estas pruebas son obligatorias (CI o -Dpruebas.docker=requerido)");
+        }
+        return ConditionEvaluationResult.disabled(
+                "Sin Docker: prueba contra MySQL omitida (en CI es obligatoria)");
+    }
+
+    private static boolean requerido() {
+        return "requerido".equalsIgnoreCase(System.getProperty("pruebas.docker"))
+                || "true".equalsIgnoreCase(System.getenv("CI"));
+    }
+}
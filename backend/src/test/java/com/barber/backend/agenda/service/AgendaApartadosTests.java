@@ -0,0 +1,57 @@
+package com.barber.backend.agenda.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.ApartadoDTO;
+import com.barber.backend.agenda.dto.SlotDTO;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** Un apartado sólo lo libera su dueño o un admin; al reservar se libera sin revisar dueño. */
+class AgendaApartadosTests {
+
+    private static final Long BARBERO = 1L;
+    private static final Instant INICIO = Instant.now().plusSeconds(86_400);
+    private static final Instant FIN = INICIO.plusSeconds(1_800);
+
+    private final AgendaApartados apartados = new AgendaApartados(new AgendaProperties());
+
+    @Test
+    void otroUsuarioNoPuedeLiberarlo() {
+        ApartadoDTO a = apartados.apartar("ana", BARBERO, INICIO, FIN);
+
+        assertThat(apartados.liberar(a.id(), "beto", false)).isFalse();
+        assertThat(apartados.liberar(a.id(), null, false)).isFalse();
+        assertThat(ocupado()).isTrue();
+
+        assertThat(apartados.liberar(a.id(), "ana", false)).isTrue();
+        assertThat(ocupado()).isFalse();
+        assertThat(apartados.liberar(a.id(), "ana", false)).isFalse();
+    }
+
+    @Test
+    void unAdminPuedeLiberarlo() {
+        ApartadoDTO a = apartados.apartar("ana", BARBERO, INICIO, FIN);
+
+        assertThat(apartados.liberar(a.id(), "admin", true)).isTrue();
+        assertThat(ocupado()).isFalse();
+    }
+
+    @Test
+    void alReservarSeLiberaSinRevisarDueno() {
+        ApartadoDTO a = apartados.apartar("ana", BARBERO, INICIO, FIN);
+
+        apartados.liberarAlConfirmar(a.id());
+
+        assertThat(ocupado()).isFalse();
+        // y el tope del usuario ya no lo cuenta
+        apartados.apartar("ana", BARBERO, INICIO.plusSeconds(3_600), FIN.plusSeconds(3_600));
+        apartados.apartar("ana", BARBERO, INICIO.plusSeconds(7_200), FIN.plusSeconds(7_200));
+    }
+
+    private boolean ocupado() {
+        return apartados.ocultar(BARBERO, List.of(new SlotDTO(INICIO, FIN))).isEmpty();
+    }
+}
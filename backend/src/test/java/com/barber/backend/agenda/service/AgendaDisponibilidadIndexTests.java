@@ -0,0 +1,183 @@
+package com.barber.backend.agenda.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.model.BarberoHorarioSemanal;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.agenda.repository.BarberoHorarioSemanalRepository;
+import com.barber.backend.barberos.model.Barbero;
+import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.repository.CitaRepository;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Cargas del índice que se cruzan con escrituras: la lectura de BD puede ser anterior al
+ * commit de una cita cuyo afterCommit llega mientras la carga aún no se instala. En ningún
+ * orden debe quedar instalado un bitmap que ofrezca el hueco ya reservado.
+ */
+class AgendaDisponibilidadIndexTests {
+
+    private static final Long BARBERO = 1L;
+    private static final int RONDAS = 500;
+
+    private final AgendaProperties props = new AgendaProperties();
+    private final ZoneId tz = ZoneId.of(props.getTimezone());
+    private final LocalDate dia = LocalDate.now(tz).plusDays(1);
+    private final Instant ini = dia.atTime(LocalTime.of(10, 0)).atZone(tz).toInstant();
+    private final Instant fin = ini.plusSeconds(30 * 60);
+
+    /** "BD": lo que ve una lectura; la cita se agrega al confirmar, antes de su afterCommit. */
+    private final List<Cita> citas = new CopyOnWriteArrayList<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+    /** Citas de otro día: alargan la instalación, que es justo la ventana a cubrir. */
+    private final List<Cita> otrosDias = new ArrayList<>();
+
+    {
+        for (int i = 0; i < 20_000; i++) {
+            otrosDias.add(cita(1_000_000L + i, ini.plusSeconds(2 * 86_400L)));
+        }
+    }
+
+    @AfterEach
+    void cerrar() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void escrituraDuranteLaLecturaObligaARecargar() throws Exception {
+        CountDownLatch leyendo = new CountDownLatch(1);
+        CountDownLatch escrita = new CountDownLatch(1);
+        AtomicBoolean primera = new AtomicBoolean(true);
+        AgendaDisponibilidadIndex index = nuevoIndice(() -> {
+            // La primera lectura ve la BD antes del commit y espera a que llegue el afterCommit
+            if (primera.getAndSet(false)) {
+                List<Cita> antes = new ArrayList<>(citas);
+                leyendo.countDown();
+                await(escrita);
+                return antes;
+            }
+            return citas;
+        });
+
+        Future<long[]> carga = pool.submit(() -> index.ventanasLibres(BARBERO, dia));
+        assertThat(leyendo.await(10, TimeUnit.SECONDS)).isTrue();
+        Cita c = cita(10L, ini);
+        citas.add(c);
+        index.citaGuardada(c);
+        escrita.countDown();
+
+        assertThat(libre(carga.get(10, TimeUnit.SECONDS))).isFalse();
+        assertThat(libre(index.ventanasLibres(BARBERO, dia))).isFalse();
+    }
+
+    @Test
+    void cargasYEscriturasConcurrentesNoDejanHuecosReservados() throws Exception {
+        for (int r = 0; r < RONDAS; r++) {
+            citas.clear();
+            citas.addAll(otrosDias);
+            AgendaDisponibilidadIndex index = nuevoIndice(() -> citas);
+            Cita c = cita(100L + r, ini);
+            CyclicBarrier salida = new CyclicBarrier(2);
+
+            Future<?> carga = pool.submit(() -> {
+                salida.await();
+                return index.ventanasLibres(BARBERO, dia);
+            });
+            Future<?> escritura = pool.submit(() -> {
+                salida.await();
+                citas.add(c);
+                index.citaGuardada(c);
+                return null;
+            });
+            carga.get(10, TimeUnit.SECONDS);
+            escritura.get(10, TimeUnit.SECONDS);
+
+            assertThat(libre(index.ventanasLibres(BARBERO, dia)))
+                    .as("ronda %d: el índice ofrece un hueco ya reservado", r)
+                    .isFalse();
+        }
+    }
+
+    private interface LecturaCitas {
+        List<Cita> leer();
+    }
+
+    private AgendaDisponibilidadIndex nuevoIndice(LecturaCitas lectura) {
+        BarberoRepository barberoRepo = mock(BarberoRepository.class);
+        when(barberoRepo.existsById(anyLong())).thenReturn(true);
+
+        List<BarberoHorarioSemanal> horario = new ArrayList<>();
+        for (int dow = 0; dow < 7; dow++) {
+            BarberoHorarioSemanal h = new BarberoHorarioSemanal();
+            h.setDow(dow);
+            h.setDesde(LocalTime.of(9, 0));
+            h.setHasta(LocalTime.of(18, 0));
+            h.setActivo(true);
+            horario.add(h);
+        }
+        BarberoHorarioSemanalRepository horarioRepo = mock(BarberoHorarioSemanalRepository.class);
+        when(horarioRepo.findByBarbero_IdOrderByDowAsc(anyLong())).thenReturn(horario);
+
+        BarberoBloqueoRepository bloqueoRepo = mock(BarberoBloqueoRepository.class);
+        when(bloqueoRepo.findByBarbero_IdAndFinGreaterThanAndInicioLessThan(anyLong(), any(), any()))
+                .thenReturn(List.of());
+
+        CitaRepository citaRepo = mock(CitaRepository.class);
+        when(citaRepo.findAgendadasDelBarberoEnRango(anyLong(), any(), any()))
+                .thenAnswer(inv -> List.copyOf(lectura.leer()));
+
+        return new AgendaDisponibilidadIndex(props, barberoRepo, mock(ServicioRepository.class),
+                horarioRepo, bloqueoRepo, citaRepo, mock(AgendaSlotsCache.class));
+    }
+
+    private Cita cita(Long id, Instant inicio) {
+        Barbero b = new Barbero();
+        b.setId(BARBERO);
+        Cita c = new Cita();
+        ReflectionTestUtils.setField(c, "id", id);
+        c.setBarbero(b);
+        c.setInicio(inicio);
+        c.setFin(inicio.plusSeconds(30 * 60));
+        c.setEstado(Cita.Estado.AGENDADA);
+        return c;
+    }
+
+    /** Si alguna ventana libre cubre la cita [ini, fin). */
+    private boolean libre(long[] ventanas) {
+        for (int i = 0; i + 1 < ventanas.length; i += 2) {
+            if (ventanas[i] < fin.getEpochSecond() && ini.getEpochSecond() < ventanas[i + 1]) return true;
+        }
+        return false;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.barber.backend.agenda.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.agenda.model.AgendaEventoOutbox;
+import com.barber.backend.agenda.repository.AgendaEventoOutboxRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Un suscriptor que falla con un evento no debe provocar que los demás reciban el lote
+ * otra vez, ni dejar pendientes los eventos que sí pudo procesar.
+ */
+class AgendaEventosDespachadorTests {
+
+    private static final long VENENO = 3L;
+
+    private final List<AgendaEventoOutbox> outbox = new ArrayList<>();
+    private final Registro sano = new Sano();
+    private final Registro fallon = new Fallon();
+
+    @Test
+    void soloElEventoQueFallaQuedaPendienteYSoloParaQuienFallo() {
+        for (long id = 1; id <= 5; id++) outbox.add(fila(id));
+        AgendaEventosDespachador despachador = nuevoDespachador();
+
+        assertThat(despachador.despachar()).isEqualTo(4);
+        assertThat(sano.recibidos).containsExactly(1L, 2L, 3L, 4L, 5L);
+        // el lote completo falla; de uno en uno sólo el 3
+        assertThat(fallon.recibidos).containsExactly(1L, 2L, 4L, 5L);
+
+        AgendaEventoOutbox veneno = outbox.get((int) VENENO - 1);
+        assertThat(veneno.getProcesadoEn()).isNull();
+        assertThat(veneno.getIntentos()).isEqualTo(1);
+        assertThat(veneno.getUltimoError()).startsWith("Fallon: ");
+        assertThat(outbox).filteredOn(f -> f.getId() != VENENO)
+                .allSatisfy(f -> assertThat(f.getProcesadoEn()).isNotNull())
+                .allSatisfy(f -> assertThat(f.getIntentos()).isZero());
+
+        // La siguiente pasada sólo reintenta el 3, y sólo con el suscriptor que falló
+        despachador.despachar();
+        assertThat(sano.recibidos).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(veneno.getIntentos()).isEqualTo(2);
+    }
+
+    @Test
+    void alAgotarIntentosElEventoSeDescarta() {
+        outbox.add(fila(VENENO));
+        AgendaEventosDespachador despachador = nuevoDespachador();
+
+        for (int i = 0; i < 10; i++) despachador.despachar();
+
+        assertThat(outbox.get(0).getIntentos()).isEqualTo(10);
+        assertThat(outbox.get(0).getProcesadoEn()).isNotNull();
+        assertThat(sano.recibidos).containsExactly(VENENO);
+    }
+
+    private AgendaEventosDespachador nuevoDespachador() {
+        AgendaEventoOutboxRepository repo = mock(AgendaEventoOutboxRepository.class);
+        when(repo.findPendientes(any())).thenAnswer(inv -> outbox.stream()
+                .filter(f -> f.getProcesadoEn() == null)
+                .toList());
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<AgendaEventoSuscriptor> suscriptores = mock(ObjectProvider.class);
+        when(suscriptores.orderedStream()).thenAnswer(inv -> Stream.of(sano, fallon));
+
+        return new AgendaEventosDespachador(repo, suscriptores, new AgendaProperties(),
+                mock(PlatformTransactionManager.class));
+    }
+
+    private static AgendaEventoOutbox fila(long id) {
+        AgendaEventoOutbox f = new AgendaEventoOutbox();
+        f.setId(id);
+        f.setTipo(AgendaEvento.Tipo.CITA_CREADA);
+        f.setEntidadId(id);
+        f.setBarberoId(1L);
+        f.setCreadoEn(Instant.parse("2030-01-07T15:00:00Z"));
+        return f;
+    }
+
+    /**
+     * Anota los ids que procesó; el que falla rechaza cualquier lote que traiga el veneno.
+     * Clases distintas porque el despachador registra la entrega por nombre de clase.
+     */
+    private abstract static class Registro implements AgendaEventoSuscriptor {
+        private final boolean fallaConVeneno;
+        final List<Long> recibidos = new ArrayList<>();
+
+        Registro(boolean fallaConVeneno) {
+            this.fallaConVeneno = fallaConVeneno;
+        }
+
+        @Override
+        public void alRecibir(List<AgendaEvento> eventos) {
+            if (fallaConVeneno && eventos.stream().anyMatch(e -> e.id() == VENENO)) {
+                throw new IllegalStateException("evento inválido");
+            }
+            eventos.forEach(e -> recibidos.add(e.id()));
+        }
+    }
+
+    private static final class Sano extends Registro {
+        Sano() {
+            super(false);
+        }
+    }
+
+    private static final class Fallon extends Registro {
+        Fallon() {
+            super(true);
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.barber.backend.agenda.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * SlotEngine debe dar exactamente los mismos slots que el cálculo anterior con listas de
+ * ventanas (restar bloqueos, restar citas, anticipos, buffer y slots alineados), que se
+ * conserva aquí como referencia. Se comparan casos fijos en los bordes y miles de agendas
+ * al azar (semilla fija) en zonas con y sin horario de verano.
+ */
+class SlotEngineTests {
+
+    private static final ZoneId[] ZONAS = {
+            ZoneId.of("America/Mexico_City"),
+            ZoneId.of("America/New_York"),
+            ZoneId.of("Europe/London"),
+            ZoneId.of("Asia/Kolkata"),
+            ZoneId.of("UTC"),
+    };
+    /** Cambios de horario de 2030 (EE. UU. y Europa) más días comunes. */
+    private static final LocalDate[] DIAS = {
+            LocalDate.of(2030, 3, 10),
+            LocalDate.of(2030, 11, 3),
+            LocalDate.of(2030, 3, 31),
+            LocalDate.of(2030, 10, 27),
+            LocalDate.of(2030, 6, 12),
+            LocalDate.of(2030, 1, 2),
+    };
+    private static final int[] TAMANOS = { 5, 10, 15, 20, 30, 45, 60 };
+
+    private final SlotEngine engine = new SlotEngine();
+
+    @Test
+    void agendasAlAzarDanLosMismosSlots() {
+        Random rnd = new Random(20300310L);
+        for (int caso = 0; caso < 20_000; caso++) {
+            ZoneId tz = ZONAS[rnd.nextInt(ZONAS.length)];
+            LocalDate dia = DIAS[rnd.nextInt(DIAS.length)];
+            Instant inicioDia = dia.atStartOfDay(tz).toInstant();
+
+            List<Window> base = new ArrayList<>();
+            int franjas = 1 + rnd.nextInt(3);
+            for (int i = 0; i < franjas; i++) {
+                // Horas locales en minutos: en días de cambio pueden caer en el hueco o repetirse
+                LocalTime desde = LocalTime.of(rnd.nextInt(20), rnd.nextInt(60));
+                LocalTime hasta = desde.plusMinutes(30 + rnd.nextInt(8 * 60));
+                if (hasta.isBefore(desde)) hasta = LocalTime.of(23, 59);
+                Instant ini = ZonedDateTime.of(dia, desde, tz).toInstant();
+                Instant fin = ZonedDateTime.of(dia, hasta, tz).toInstant();
+                if (fin.isAfter(ini)) base.add(new Window(ini, fin));
+            }
+
+            List<Window> bloqueos = new ArrayList<>();
+            List<Window> citas = new ArrayList<>();
+            int n = rnd.nextInt(8);
+            for (int i = 0; i < n; i++) {
+                // Segundos sueltos a propósito: los inicios no caen en la rejilla de minutos
+                Instant ini = inicioDia.plusSeconds(rnd.nextInt(26 * 3600) - 3600);
+                Window w = new Window(ini, ini.plusSeconds(60 + rnd.nextInt(3 * 3600)));
+                (rnd.nextBoolean() ? bloqueos : citas).add(w);
+                if (rnd.nextInt(3) == 0) {
+                    // Par bloqueo/cita que se encima con el anterior
+                    Instant otro = w.inicio().plusSeconds(rnd.nextInt(1800));
+                    citas.add(new Window(otro, otro.plusSeconds(60 + rnd.nextInt(3600))));
+                }
+            }
+
+            Instant minStart = inicioDia.plusSeconds(rnd.nextInt(24 * 3600) - 6 * 3600);
+            Instant maxStart = rnd.nextInt(4) == 0
+                    ? minStart.plusSeconds(rnd.nextInt(12 * 3600))
+                    : inicioDia.plusSeconds(40L * 86_400);
+            int bufferMin = rnd.nextInt(3) == 0 ? 0 : rnd.nextInt(20);
+            int slotSizeMin = TAMANOS[rnd.nextInt(TAMANOS.length)];
+            int duracionMin = 5 + rnd.nextInt(120);
+
+            comparar("caso " + caso, base, bloqueos, citas, minStart, maxStart, bufferMin, tz,
+                    slotSizeMin, duracionMin);
+        }
+    }
+
+    @Test
+    void bordes() {
+        ZoneId ny = ZoneId.of("America/New_York");
+        LocalDate dia = LocalDate.of(2030, 3, 10); // 02:00 → 03:00
+        List<Window> base = List.of(
+                new Window(at(dia, "00:00", ny), at(dia, "06:00", ny)),
+                new Window(at(dia, "09:00", ny), at(dia, "12:00", ny)));
+
+        // Ocupados que terminan con segundos: el inicio libre cae fuera de la rejilla
+        List<Window> bloqueos = List.of(new Window(at(dia, "00:00", ny), at(dia, "01:10", ny).plusSeconds(17)));
+        // Cita y bloqueo encimados, y otro que sólo toca el borde de la ventana
+        List<Window> citas = List.of(
+                new Window(at(dia, "09:30", ny), at(dia, "10:15", ny)),
+                new Window(at(dia, "09:45", ny).plusSeconds(30), at(dia, "10:40", ny)),
+                new Window(at(dia, "12:00", ny), at(dia, "13:00", ny)),
+                new Window(at(dia, "08:00", ny), at(dia, "09:00", ny)));
+        Instant min = at(dia, "00:00", ny).minusSeconds(3600);
+        Instant max = at(dia, "00:00", ny).plusSeconds(2 * 86_400L);
+
+        for (int buffer : new int[] { 0, 5, 10 }) {
+            for (int tam : new int[] { 10, 15, 30 }) {
+                comparar("buffer " + buffer + " tamaño " + tam, base, bloqueos, citas, min, max, buffer, ny, tam, 30);
+            }
+        }
+        // Anticipo con segundos, justo dentro de una ventana
+        comparar("anticipo", base, List.of(), List.of(), at(dia, "09:07", ny).plusSeconds(42), max, 0, ny, 15, 30);
+    }
+
+    @Test
+    void respetaElTramoDeOcupadosIndicado() {
+        ZoneId tz = ZoneId.of("UTC");
+        LocalDate dia = LocalDate.of(2030, 6, 12);
+        long[] base = { at(dia, "09:00", tz).getEpochSecond(), at(dia, "11:00", tz).getEpochSecond() };
+        // El primer par (de otro día) queda fuera del tramo y no debe restarse
+        long[] ocupados = {
+                at(dia, "09:00", tz).getEpochSecond(), at(dia, "11:00", tz).getEpochSecond(),
+                at(dia, "10:00", tz).getEpochSecond(), at(dia, "10:30", tz).getEpochSecond() };
+
+        int n = engine.calcular(base, 2, ocupados, 2, 4, 0, Long.MAX_VALUE, 0, tz.getRules(), 30, 30);
+
+        List<Instant> inicios = new ArrayList<>();
+        for (int i = 0; i < n; i++) inicios.add(Instant.ofEpochSecond(engine.inicioSlot(i)));
+        assertThat(inicios).containsExactly(at(dia, "09:00", tz), at(dia, "09:30", tz), at(dia, "10:30", tz));
+    }
+
+    private void comparar(String caso, List<Window> base, List<Window> bloqueos, List<Window> citas,
+            Instant minStart, Instant maxStart, int bufferMin, ZoneId tz, int slotSizeMin, int duracionMin) {
+        List<Instant> esperados = referencia(base, bloqueos, citas, minStart, maxStart, bufferMin, tz,
+                slotSizeMin, duracionMin);
+
+        long[] b = pares(base);
+        List<Window> todos = new ArrayList<>(bloqueos);
+        todos.addAll(citas);
+        long[] oc = pares(todos);
+        int n = engine.calcular(b, b.length, oc, 0, oc.length,
+                minStart.getEpochSecond(), maxStart.getEpochSecond(), bufferMin * 60L,
+                tz.getRules(), slotSizeMin, duracionMin);
+        List<Instant> obtenidos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) obtenidos.add(Instant.ofEpochSecond(engine.inicioSlot(i)));
+
+        esperados.sort(Comparator.naturalOrder());
+        obtenidos.sort(Comparator.naturalOrder());
+        assertThat(obtenidos).as(caso).isEqualTo(esperados);
+    }
+
+    private static long[] pares(List<Window> ws) {
+        long[] out = new long[ws.size() * 2];
+        for (int i = 0; i < ws.size(); i++) {
+            out[2 * i] = ws.get(i).inicio().getEpochSecond();
+            out[2 * i + 1] = ws.get(i).fin().getEpochSecond();
+        }
+        return out;
+    }
+
+    private static Instant at(LocalDate dia, String hhmm, ZoneId tz) {
+        return ZonedDateTime.of(dia, LocalTime.parse(hhmm), tz).toInstant();
+    }
+
+    // ===== Cálculo anterior (restarVentanas, aplicarAnticipos, aplicarBuffer, generarSlots) =====
+
+    private record Window(Instant inicio, Instant fin) { }
+
+    private static List<Instant> referencia(List<Window> base, List<Window> bloqueos, List<Window> citas,
+            Instant minStart, Instant maxStart, int bufferMin, ZoneId tz, int slotSizeMin, int duracionMin) {
+        List<Window> ventanas = restarVentanas(restarVentanas(base, bloqueos), citas);
+        if (ventanas.isEmpty()) return new ArrayList<>();
+        ventanas = aplicarAnticipos(ventanas, minStart, maxStart);
+        ventanas = aplicarBuffer(ventanas, bufferMin);
+        return generarSlots(ventanas, tz, slotSizeMin, duracionMin);
+    }
+
+    private static List<Window> restarVentanas(List<Window> base, List<Window> restas) {
+        List<Window> result = new ArrayList<>(base);
+        for (Window r : restas) {
+            List<Window> next = new ArrayList<>();
+            for (Window w : result) {
+                if (r.fin().isBefore(w.inicio()) || r.inicio().isAfter(w.fin())) {
+                    next.add(w);
+                    continue;
+                }
+                if (r.inicio().isAfter(w.inicio())) next.add(new Window(w.inicio(), r.inicio()));
+                if (r.fin().isBefore(w.fin())) next.add(new Window(r.fin(), w.fin()));
+            }
+            result = next.stream().filter(x -> x.inicio().isBefore(x.fin())).toList();
+        }
+        return result;
+    }
+
+    private static List<Window> aplicarAnticipos(List<Window> ventanas, Instant minStart, Instant maxStart) {
+        List<Window> out = new ArrayList<>();
+        for (Window w : ventanas) {
+            if (!w.fin().isAfter(minStart)) continue;
+            if (!w.inicio().isBefore(maxStart)) continue;
+            Instant recIni = w.inicio().isBefore(minStart) ? minStart : w.inicio();
+            Instant recFin = w.fin().isAfter(maxStart) ? maxStart : w.fin();
+            if (recIni.isBefore(recFin)) out.add(new Window(recIni, recFin));
+        }
+        return out;
+    }
+
+    private static List<Window> aplicarBuffer(List<Window> ventanas, int bufferMin) {
+        long bsec = bufferMin * 60L;
+        return ventanas.stream()
+                .map(w -> new Window(w.inicio().plusSeconds(bsec), w.fin().minusSeconds(bsec)))
+                .filter(w -> w.inicio().isBefore(w.fin()))
+                .toList();
+    }
+
+    private static List<Instant> generarSlots(List<Window> ventanas, ZoneId tz, int slotSizeMin, int duracionMin) {
+        List<Instant> out = new ArrayList<>();
+        for (Window w : ventanas) {
+            Instant cursor = alignTo(w.inicio(), tz, slotSizeMin);
+            Instant lastPossibleStart = w.fin().minusSeconds(duracionMin * 60L);
+            while (!cursor.isAfter(lastPossibleStart)) {
+                out.add(cursor);
+                cursor = cursor.plusSeconds(slotSizeMin * 60L);
+            }
+        }
+        return out;
+    }
+
+    private static Instant alignTo(Instant instant, ZoneId tz, int minutes) {
+        var zdt = instant.atZone(tz);
+        int m = zdt.getMinute();
+        int mod = m % minutes;
+        if (mod == 0 && zdt.getSecond() == 0 && zdt.getNano() == 0) return instant;
+        var next = zdt.withSecond(0).withNano(0).plusMinutes(mod == 0 ? 0 : (minutes - mod));
+        return next.toInstant();
+    }
+}
@@ -0,0 +1,104 @@
+package com.barber.backend.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.barber.backend.agenda.dto.AgendaEvento;
+import com.barber.backend.analytics.config.AnalyticsProperties;
+import com.barber.backend.analytics.service.DashboardCache.CitasCliente;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Fallos simultáneos de la misma clave calculan una sola vez, y cada consulta a la caché
+ * queda contada como hit o miss en las métricas de Caffeine.
+ */
+class DashboardCacheTests {
+
+    private static final String TEL = "+5215555555555";
+    private static final CitasCliente CITAS = new CitasCliente(1, 2, null, null);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DashboardCache cache = new DashboardCache(new AnalyticsProperties(), registry);
+    private final ExecutorService pool = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void cerrar() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void dosFallosConcurrentesCalculanUnaVez() throws Exception {
+        AtomicInteger calculos = new AtomicInteger();
+        CountDownLatch calculando = new CountDownLatch(1);
+        CountDownLatch soltar = new CountDownLatch(1);
+
+        Future<CitasCliente> primero = pool.submit(() -> cache.cliente(TEL, () -> {
+            calculos.incrementAndGet();
+            calculando.countDown();
+            esperar(soltar);
+            return CITAS;
+        }));
+        assertThat(calculando.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<CitasCliente> segundo = pool.submit(() -> cache.cliente(TEL, () -> {
+            calculos.incrementAndGet();
+            return new CitasCliente(9, 9, null, null);
+        }));
+        // el segundo ya encontró el futuro en curso y lo espera
+        Thread.sleep(100);
+        soltar.countDown();
+
+        assertThat(primero.get(5, TimeUnit.SECONDS)).isSameAs(CITAS);
+        assertThat(segundo.get(5, TimeUnit.SECONDS)).isSameAs(CITAS);
+        assertThat(calculos).hasValue(1);
+        assertThat(gets("miss")).isEqualTo(1);
+        assertThat(gets("hit")).isEqualTo(1);
+
+        cache.cliente(TEL, () -> CITAS);
+        assertThat(gets("hit")).isEqualTo(2);
+    }
+
+    @Test
+    void unCalculoFallidoNoSeQuedaEnLaCache() {
+        assertThatThrownBy(() -> cache.cliente(TEL, () -> {
+            throw new IllegalStateException("BD caída");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("BD caída");
+
+        assertThat(cache.cliente(TEL, () -> CITAS)).isSameAs(CITAS);
+        assertThat(gets("miss")).isEqualTo(2);
+    }
+
+    @Test
+    void unEventoDeCitaInvalidaALosClientes() {
+        cache.cliente(TEL, () -> CITAS);
+        cache.alRecibir(List.of(new AgendaEvento(1L, AgendaEvento.Tipo.CITA_ESTADO, 10L, 3L,
+                null, null, "CANCELADA", null)));
+
+        CitasCliente nuevas = new CitasCliente(0, 3, null, null);
+        assertThat(cache.cliente(TEL, () -> nuevas)).isSameAs(nuevas);
+    }
+
+    private double gets(String resultado) {
+        return registry.get("cache.gets")
+                .tag("cache", "analytics.dashboard.cliente")
+                .tag("result", resultado)
+                .functionCounter()
+                .count();
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.barber.backend.analytics.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+import com.barber.backend.analytics.config.AnalyticsProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Un tablero tiene un solo plazo para todas sus consultas, la falla de una cancela a las
+ * demás en vez de esperarlas y, con el pool lleno, se rechaza (nunca corre en la petición).
+ */
+class DashboardEjecutorTests {
+
+    private static final long TIMEOUT_MS = 400;
+
+    private DashboardEjecutor ejecutor;
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.destroy();
+    }
+
+    @Test
+    void elPlazoEsDelTableroNoDeCadaConsulta() {
+        // Un hilo: las tres corren en serie y cada una por sí sola cabe en el plazo
+        ejecutor = nuevoEjecutor(1);
+        AtomicBoolean terceraCorrio = new AtomicBoolean();
+        CompletableFuture<Integer> a = ejecutor.lanzar("a", () -> dormir(300));
+        CompletableFuture<Integer> b = ejecutor.lanzar("b", () -> dormir(300));
+        CompletableFuture<Integer> c = ejecutor.lanzar("c", () -> {
+            terceraCorrio.set(true);
+            return dormir(300);
+        });
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> ejecutor.esperarTodas(a, b, c))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("tardó más de");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(TIMEOUT_MS + 250);
+
+        dormir(700);
+        // cancelada mientras esperaba en cola: nunca tomó hilo ni conexión
+        assertThat(terceraCorrio).isFalse();
+        assertThat(c).isCancelled();
+    }
+
+    @Test
+    void laPrimeraFallaTerminaLaEsperaYCancelaLasDemas() {
+        ejecutor = nuevoEjecutor(2);
+        CountDownLatch nunca = new CountDownLatch(1);
+        CompletableFuture<Integer> lenta = ejecutor.lanzar("lenta", () -> {
+            try {
+                nunca.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        CompletableFuture<Integer> falla = ejecutor.lanzar("falla", () -> {
+            throw new IllegalArgumentException("consulta inválida");
+        });
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(() -> ejecutor.esperarTodas(lenta, falla))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("consulta inválida");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio)).isLessThan(TIMEOUT_MS);
+        assertThat(lenta).isCancelled();
+        nunca.countDown();
+    }
+
+    @Test
+    void conElPoolSaturadoRechazaEnVezDeConsultarEnLaPeticion() {
+        // Un hilo y una plaza de cola: la tercera consulta ya no cabe
+        ejecutor = nuevoEjecutor(1, 1);
+        CountDownLatch soltar = new CountDownLatch(1);
+        CompletableFuture<Integer> ocupa = ejecutor.lanzar("ocupa", () -> {
+            try {
+                soltar.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 1;
+        });
+        CompletableFuture<Integer> enCola = ejecutor.lanzar("enCola", () -> 2);
+        String hiloPeticion = Thread.currentThread().getName();
+        AtomicBoolean corrioEnLaPeticion = new AtomicBoolean();
+        CompletableFuture<Integer> sobra = ejecutor.lanzar("sobra", () -> {
+            corrioEnLaPeticion.set(Thread.currentThread().getName().equals(hiloPeticion));
+            return 3;
+        });
+
+        assertThat(corrioEnLaPeticion).isFalse();
+        assertThatThrownBy(() -> ejecutor.esperarTodas(ocupa, enCola, sobra))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(enCola).isCancelled();
+        soltar.countDown();
+    }
+
+    @Test
+    void todasATiempoDejanSusResultadosListos() {
+        ejecutor = nuevoEjecutor(2);
+        CompletableFuture<Integer> a = ejecutor.lanzar("a", () -> dormir(50));
+        CompletableFuture<Integer> b = ejecutor.lanzar("b", () -> 2);
+
+        ejecutor.esperarTodas(a, b);
+
+        assertThat(a.join()).isEqualTo(50);
+        assertThat(b.join()).isEqualTo(2);
+    }
+
+    private static DashboardEjecutor nuevoEjecutor(int hilos) {
+        return nuevoEjecutor(hilos, new AnalyticsProperties().getDashboardColaMax());
+    }
+
+    private static DashboardEjecutor nuevoEjecutor(int hilos, int colaMax) {
+        AnalyticsProperties props = new AnalyticsProperties();
+        props.setDashboardHilos(hilos);
+        props.setDashboardColaMax(colaMax);
+        props.setDashboardTimeoutMs(TIMEOUT_MS);
+        return new DashboardEjecutor(props, mock(PlatformTransactionManager.class), new SimpleMeterRegistry());
+    }
+
+    private static int dormir(int ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return ms;
+    }
+}
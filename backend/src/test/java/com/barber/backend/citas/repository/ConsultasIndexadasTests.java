@@ -0,0 +1,395 @@
+package com.barber.backend.citas.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.barber.backend.DockerRequerido;
+import com.barber.backend.agenda.repository.AgendaEventoOutboxRepository;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.model.ListaEspera;
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.PreparedQuery;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Corre las migraciones de Flyway en un MySQL real, ejecuta cada consulta de
+ * CitaRepository y BarberoBloqueoRepository y revisa su EXPLAIN: ninguna tabla grande
+ * puede leerse completa (type ALL) ni por índice completo (type index). Los catálogos
+ * chicos (servicios, barberos) sí pueden recorrerse: para el optimizador es lo barato.
+ *
+ * El SQL se captura con un interceptor del driver, que lo entrega ya con los valores
+ * ligados, igual a como lo ve el optimizador. Sin Docker la prueba se omite.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(DockerRequerido.class)
+@Testcontainers
+class ConsultasIndexadasTests {
+
+    private static final int BARBEROS = 20;
+    private static final int CITAS = 8_000;
+    private static final int BLOQUEOS = 2_000;
+    private static final long MAX_FILAS_ESCANEO = 100;
+    private static final Instant AHORA = Instant.parse("2030-06-01T15:00:00Z");
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url",
+                () -> MYSQL.getJdbcUrl() + "?queryInterceptors=" + Grabadora.class.getName());
+        r.add("spring.datasource.username", MYSQL::getUsername);
+        r.add("spring.datasource.password", MYSQL::getPassword);
+        r.add("spring.flyway.enabled", () -> "true");
+        r.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        r.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    private static boolean sembrado;
+
+    @Autowired CitaRepository citas;
+    @Autowired BarberoBloqueoRepository bloqueos;
+    @Autowired AgendaEventoOutboxRepository outbox;
+    @Autowired CitaArchivadaRepository archivo;
+    @Autowired ListaEsperaRepository listaEspera;
+    @Autowired CitaRollupRepository rollup;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    @BeforeEach
+    void sembrar() {
+        if (sembrado) return;
+        Timestamp creado = Timestamp.from(AHORA);
+        List<Object[]> barberos = new ArrayList<>();
+        for (int i = 1; i <= BARBEROS; i++) {
+            barberos.add(new Object[] { i, "Barbero " + i, creado });
+        }
+        jdbc.batchUpdate("INSERT INTO barberos (id, nombre, activo, creado_en) VALUES (?, ?, 1, ?)", barberos);
+        jdbc.update("""
+                INSERT INTO servicios (id, nombre, duracion_min, precio_centavos, activo, creado_en, actualizado_en)
+                VALUES (1, 'Corte', 30, 20000, 1, ?, ?)
+                """, creado, creado);
+
+        // Dos años hacia atrás y dos meses hacia adelante, como una agenda con historia
+        Estado[] estados = Estado.values();
+        long spanSeg = Duration.ofDays(790).toSeconds();
+        Instant origen = AHORA.minus(Duration.ofDays(730)).truncatedTo(ChronoUnit.HOURS);
+        List<Object[]> filas = new ArrayList<>();
+        for (int i = 0; i < CITAS; i++) {
+            Instant ini = origen.plusSeconds((spanSeg / CITAS) * i / 900 * 900);
+            filas.add(new Object[] {
+                    1 + i % BARBEROS,
+                    "Cliente " + i,
+                    String.format("+52155%08d", i % 1_500),
+                    Timestamp.from(ini),
+                    Timestamp.from(ini.plusSeconds(1_800)),
+                    estados[i % estados.length].name(),
+                    creado });
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO citas (barbero_id, servicio_id, cliente_nombre, cliente_tel_e164,
+                                   inicio, fin, estado, creado_en)
+                VALUES (?, 1, ?, ?, ?, ?, ?, ?)
+                """, filas);
+
+        filas.clear();
+        for (int i = 0; i < BLOQUEOS; i++) {
+            Instant ini = origen.plusSeconds((spanSeg / BLOQUEOS) * i / 900 * 900);
+            filas.add(new Object[] {
+                    1 + i % BARBEROS, Timestamp.from(ini), Timestamp.from(ini.plusSeconds(3_600)), creado });
+        }
+        jdbc.batchUpdate(
+                "INSERT INTO barbero_bloqueo (barbero_id, inicio, fin, creado_en) VALUES (?, ?, ?, ?)", filas);
+
+        // Outbox casi todo entregado, con unas cuantas pendientes al final
+        filas.clear();
+        for (int i = 0; i < CITAS; i++) {
+            Timestamp ts = Timestamp.from(origen.plusSeconds((spanSeg / CITAS) * i));
+            filas.add(new Object[] { 1 + i, 1 + i % BARBEROS, ts, i < CITAS - 50 ? ts : null });
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO agenda_eventos_outbox (tipo, entidad_id, barbero_id, creado_en, procesado_en)
+                VALUES ('CITA_CREADA', ?, ?, ?, ?)
+                """, filas);
+
+        // Histórico frío: copia de las citas cerradas de hace más de seis meses
+        jdbc.update("""
+                INSERT INTO citas_archivo (id, barbero_id, servicio_id, cliente_nombre, cliente_tel_e164,
+                                           inicio, fin, estado, creado_en, archivado_en)
+                SELECT id, barbero_id, servicio_id, cliente_nombre, cliente_tel_e164,
+                       inicio, fin, estado, creado_en, ?
+                FROM citas
+                WHERE inicio < ? AND estado <> 'AGENDADA'
+                """, creado, Timestamp.from(AHORA.minus(Duration.ofDays(180))));
+
+        // Lista de espera con historia: casi todas cerradas, unas cuantas activas
+        filas.clear();
+        for (int i = 1; i <= BLOQUEOS; i++) {
+            filas.add(new Object[] { i, "Cliente " + i, String.format("+52155%08d", i),
+                    i > BLOQUEOS - 40 ? "ACTIVA" : "CERRADA", creado });
+        }
+        jdbc.batchUpdate("""
+                INSERT INTO lista_espera (id, servicio_id, cliente_nombre, cliente_tel_e164, prioridad, estado, creado_en)
+                VALUES (?, 1, ?, ?, 0, ?, ?)
+                """, filas);
+        jdbc.update("INSERT INTO lista_espera_barbero (lista_espera_id, barbero_id) SELECT id, 1 + id % ? FROM lista_espera",
+                BARBEROS);
+        jdbc.update("""
+                INSERT INTO lista_espera_ventana (lista_espera_id, inicio, fin)
+                SELECT id, ?, ? FROM lista_espera
+                """, creado, Timestamp.from(AHORA.plus(Duration.ofDays(2))));
+
+        // Rollup diario como lo dejaría la carga inicial (día UTC basta para los planes)
+        jdbc.update("""
+                INSERT INTO cita_rollup_diaria (dia, barbero_id, estado, citas, ingresos_centavos)
+                SELECT DATE(inicio), barbero_id, estado, COUNT(*), COUNT(*) * 20000
+                FROM citas
+                GROUP BY DATE(inicio), barbero_id, estado
+                """);
+
+        jdbc.execute("ANALYZE TABLE citas, citas_archivo, barbero_bloqueo, barberos, servicios, agenda_eventos_outbox, "
+                + "lista_espera, lista_espera_barbero, lista_espera_ventana, cita_rollup_diaria");
+        sembrado = true;
+    }
+
+    @Test
+    void consultasDeCitasUsanIndices() {
+        Instant desde = AHORA;
+        Instant hasta = AHORA.plus(Duration.ofDays(7));
+        Instant inicioMin = desde.minus(Duration.ofDays(1));
+        Instant mesAtras = AHORA.minus(Duration.ofDays(30));
+        String tel = "+5215500000042";
+        PageRequest pagina = PageRequest.of(0, 10, Sort.by("inicio"));
+
+        sinEscaneoCompleto("findByFiltro (todos)",
+                () -> citas.findByFiltro(null, null, desde, hasta, inicioMin, pagina));
+        sinEscaneoCompleto("findByFiltro (barbero/estado)",
+                () -> citas.findByFiltro(3L, Estado.AGENDADA, desde, hasta, inicioMin, pagina));
+        sinEscaneoCompleto("findByFiltroDesdeCursor",
+                () -> citas.findByFiltroDesdeCursor(null, null, desde, hasta, inicioMin,
+                        desde.plus(Duration.ofDays(2)), 99L, Limit.of(51)));
+        sinEscaneoCompleto("streamByFiltro", () -> new TransactionTemplate(txManager).executeWithoutResult(
+                tx -> citas.streamByFiltro(null, null, desde, hasta, inicioMin).close()));
+        sinEscaneoCompleto("findEstadoActualParaCambio", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> citas.findEstadoActualParaCambio(List.of(1L, 2L, 3L))));
+        sinEscaneoCompleto("findAgendadasParaCambio", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> citas.findAgendadasParaCambio(3L, desde, desde.plus(Duration.ofDays(1)))));
+        sinEscaneoCompleto("findParaArchivar", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> citas.findParaArchivar(
+                        AHORA.minus(Duration.ofDays(180)), Instant.EPOCH, 0L, Limit.of(500))));
+        sinEscaneoCompleto("findVencidasParaCerrar", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> citas.findVencidasParaCerrar(
+                        mesAtras, Instant.EPOCH, 0L, Limit.of(200))));
+        sinEscaneoCompleto("countOverlaps",
+                () -> citas.countOverlaps(3L, desde, desde.plusSeconds(1_800)));
+        sinEscaneoCompleto("countOverlapsExcludingId",
+                () -> citas.countOverlapsExcludingId(3L, desde, desde.plusSeconds(1_800), 1L));
+        sinEscaneoCompleto("findAgendadasDelBarberoEnRango",
+                () -> citas.findAgendadasDelBarberoEnRango(3L, desde, hasta));
+        sinEscaneoCompleto("findIntervalosAgendados",
+                () -> citas.findIntervalosAgendados(3L, desde, desde.plus(Duration.ofDays(180)), inicioMin));
+        sinEscaneoCompleto("findAgendadasDeBarberosEnRango",
+                () -> citas.findAgendadasDeBarberosEnRango(List.of(1L, 2L, 3L), desde, hasta));
+        sinEscaneoCompleto("countByEstadoBetween",
+                () -> citas.countByEstadoBetween(Estado.COMPLETADA, mesAtras, AHORA));
+        sinEscaneoCompleto("sumIngresosCompletadasBetween",
+                () -> citas.sumIngresosCompletadasBetween(mesAtras, AHORA));
+        sinEscaneoCompleto("countByBarberoAndEstadoBetween",
+                () -> citas.countByBarberoAndEstadoBetween(3L, Estado.COMPLETADA, mesAtras, AHORA));
+        sinEscaneoCompleto("sumIngresosCompletadasBarberoBetween",
+                () -> citas.sumIngresosCompletadasBarberoBetween(3L, mesAtras, AHORA));
+        sinEscaneoCompleto("findProximasCitasBarbero",
+                () -> citas.findProximasCitasBarbero(3L, AHORA, PageRequest.of(0, 5)));
+        sinEscaneoCompleto("findProximasCitasCliente",
+                () -> citas.findProximasCitasCliente(tel, AHORA, PageRequest.of(0, 5)));
+        sinEscaneoCompleto("countByClienteTelE164AndEstado",
+                () -> citas.countByClienteTelE164AndEstado(tel, Estado.COMPLETADA));
+        sinEscaneoCompleto("countByClienteTelE164AndEstadoAndInicioAfter",
+                () -> citas.countByClienteTelE164AndEstadoAndInicioAfter(tel, Estado.AGENDADA, AHORA));
+        sinEscaneoCompleto("findUltimasCitasCliente",
+                () -> citas.findUltimasCitasCliente(tel, PageRequest.of(0, 5)));
+    }
+
+    @Test
+    void consultasDeBloqueosUsanIndices() {
+        Instant desde = AHORA;
+        Instant hasta = AHORA.plus(Duration.ofDays(1));
+
+        sinEscaneoCompleto("findByBarberoIdAndInicioLessThanAndFinGreaterThan",
+                () -> bloqueos.findByBarberoIdAndInicioLessThanAndFinGreaterThan(3L, hasta, desde));
+        sinEscaneoCompleto("findByBarbero_IdAndFinGreaterThanAndInicioLessThan",
+                () -> bloqueos.findByBarbero_IdAndFinGreaterThanAndInicioLessThan(3L, desde, hasta));
+        sinEscaneoCompleto("findIntervalosByBarbero_IdAndFinGreaterThanAndInicioLessThanOrderByInicioAsc",
+                () -> bloqueos.findIntervalosByBarbero_IdAndFinGreaterThanAndInicioLessThanOrderByInicioAsc(
+                        3L, desde, hasta));
+        sinEscaneoCompleto("findByBarbero_IdInAndFinGreaterThanAndInicioLessThan",
+                () -> bloqueos.findByBarbero_IdInAndFinGreaterThanAndInicioLessThan(List.of(1L, 2L), desde, hasta));
+        sinEscaneoCompleto("countByBarbero_IdAndFinGreaterThanAndInicioLessThan",
+                () -> bloqueos.countByBarbero_IdAndFinGreaterThanAndInicioLessThan(3L, desde, hasta));
+        sinEscaneoCompleto("countByBarbero_IdAndIdNotAndFinGreaterThanAndInicioLessThan",
+                () -> bloqueos.countByBarbero_IdAndIdNotAndFinGreaterThanAndInicioLessThan(3L, 1L, desde, hasta));
+        sinEscaneoCompleto("findTop5ByBarbero_IdAndFinAfterOrderByInicioAsc",
+                () -> bloqueos.findTop5ByBarbero_IdAndFinAfterOrderByInicioAsc(3L, AHORA));
+    }
+
+    @Test
+    void consultasDelArchivoUsanIndices() {
+        Instant desde = AHORA.minus(Duration.ofDays(400));
+        Instant hasta = desde.plus(Duration.ofDays(7));
+        Instant inicioMin = desde.minus(Duration.ofDays(1));
+        Instant mesHasta = desde.plus(Duration.ofDays(30));
+        String tel = "+5215500000042";
+
+        sinEscaneoCompleto("archivo.findMaxInicio", () -> archivo.findMaxInicio());
+        sinEscaneoCompleto("archivo.findDtoById", () -> archivo.findDtoById(42L));
+        sinEscaneoCompleto("archivo.findByFiltro",
+                () -> archivo.findByFiltro(null, null, desde, hasta, inicioMin, PageRequest.of(0, 10, Sort.by("inicio"))));
+        sinEscaneoCompleto("archivo.findByFiltroDesdeCursor",
+                () -> archivo.findByFiltroDesdeCursor(3L, Estado.COMPLETADA, desde, hasta, inicioMin,
+                        desde.plus(Duration.ofDays(2)), 99L, Limit.of(51)));
+        sinEscaneoCompleto("archivo.countByClienteTelE164AndEstado",
+                () -> archivo.countByClienteTelE164AndEstado(tel, Estado.COMPLETADA));
+        sinEscaneoCompleto("archivo.findUltimasCitasCliente",
+                () -> archivo.findUltimasCitasCliente(tel, PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void consultasDelOutboxUsanIndices() {
+        sinEscaneoCompleto("findPendientes", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> outbox.findPendientes(Limit.of(200))));
+    }
+
+    @Test
+    void consultasDeListaEsperaUsanIndices() {
+        List<Long> ids = List.of((long) BLOQUEOS, BLOQUEOS - 1L, BLOQUEOS - 2L);
+        sinEscaneoCompleto("listaEspera.findVentanasActivas", () -> listaEspera.findVentanasActivas(AHORA));
+        sinEscaneoCompleto("listaEspera.findActivasParaOfrecer", () -> new TransactionTemplate(txManager)
+                .executeWithoutResult(tx -> listaEspera.findActivasParaOfrecer(ids)));
+        sinEscaneoCompleto("listaEspera.findByUsuarioIdAndEstadoIn",
+                () -> listaEspera.findByUsuarioIdAndEstadoInOrderByIdDesc(7L,
+                        List.of(ListaEspera.Estado.ACTIVA, ListaEspera.Estado.OFRECIDA)));
+        sinEscaneoCompleto("listaEspera.findByEstadoIn",
+                () -> listaEspera.findByEstadoInOrderByPrioridadDescIdAsc(
+                        List.of(ListaEspera.Estado.ACTIVA, ListaEspera.Estado.OFRECIDA), Limit.of(500)));
+    }
+
+    @Test
+    void consultasDelRollupUsanIndices() {
+        LocalDate hoy = LocalDate.ofInstant(AHORA, ZoneOffset.UTC);
+        LocalDate mes = hoy.withDayOfMonth(1);
+        Instant desde = AHORA.minus(Duration.ofDays(400));
+        Instant hasta = desde.plus(Duration.ofDays(1));
+
+        LocalDate semana = hoy.minusDays(hoy.getDayOfWeek().getValue() - 1L);
+        sinEscaneoCompleto("rollup.resumenAdmin", () -> rollup.resumenAdmin(
+                mes.minusMonths(1), mes.plusMonths(1), hoy, semana, semana.plusDays(7),
+                mes.minusMonths(1), mes, mes.plusMonths(1)));
+        sinEscaneoCompleto("rollup.sumCitasByBarberoAndEstadoBetween",
+                () -> rollup.sumCitasByBarberoAndEstadoBetween(3L, Estado.CANCELADA, hoy, hoy.plusDays(7)));
+        sinEscaneoCompleto("rollup.sumIngresosCompletadasBarberoBetween",
+                () -> rollup.sumIngresosCompletadasBarberoBetween(3L, mes, mes.plusMonths(1)));
+        sinEscaneoCompleto("rollup.findPrimerDia", () -> rollup.findPrimerDia());
+        sinEscaneoCompleto("rollup.findPrimerInicioCitas", () -> rollup.findPrimerInicioCitas());
+        sinEscaneoCompleto("rollup.findPrimerInicioArchivo", () -> rollup.findPrimerInicioArchivo());
+        sinEscaneoCompleto("rollup.findUltimoInicioCitas", () -> rollup.findUltimoInicioCitas());
+        sinEscaneoCompleto("rollup.agregar", () -> new TransactionTemplate(txManager).executeWithoutResult(tx -> {
+            rollup.agregarArchivo(desde, hasta);
+            rollup.agregarCitas(desde, hasta);
+        }));
+        sinEscaneoCompleto("findPrecios", () -> citas.findPrecios(List.of(10L, 20L, 30L)));
+    }
+
+    /** Ejecuta la consulta, toma cada SELECT que mandó el driver y revisa su plan. */
+    private void sinEscaneoCompleto(String nombre, Runnable consulta) {
+        Grabadora.SQL.clear();
+        consulta.run();
+        List<String> selects = List.copyOf(Grabadora.SQL);
+        Grabadora.SQL.clear();
+        assertThat(selects).as("%s no emitió SQL", nombre).isNotEmpty();
+
+        for (String sql : selects) {
+            for (Map<String, Object> fila : jdbc.queryForList("EXPLAIN " + sql)) {
+                Object tipo = fila.get("type");
+                Number filas = (Number) fila.get("rows");
+                boolean completo = "ALL".equals(tipo) || "index".equals(tipo);
+                assertThat(completo && filas != null && filas.longValue() > MAX_FILAS_ESCANEO)
+                        .as("%s recorre completa la tabla %s (type=%s, rows=%s)%n%s",
+                                nombre, fila.get("table"), tipo, filas, sql)
+                        .isFalse();
+            }
+        }
+    }
+
+    /** Interceptor de Connector/J: guarda los SELECT tal como salen, con valores ya ligados. */
+    public static class Grabadora implements QueryInterceptor {
+
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+            return this;
+        }
+
+        @Override
+        public <T extends Resultset> T preProcess(Supplier<String> sql, Query query) {
+            String texto = query instanceof PreparedQuery pq ? pq.asSql() : sql.get();
+            if (texto != null && texto.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")) {
+                SQL.add(texto);
+            }
+            return null;
+        }
+
+        @Override
+        public boolean executeTopLevelOnly() {
+            return true;
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public <T extends Resultset> T postProcess(
+                Supplier<String> sql, Query query, T resultado, ServerSession session) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.barber.backend.citas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.dto.CitaDTO;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaArchivadaRepository;
+import com.barber.backend.citas.repository.CitaRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.springframework.data.domain.Limit;
+
+/**
+ * Recorrido del tramo histórico de la exportación: ambas tablas por páginas con cursor,
+ * fusionadas en orden (inicio, id) y sin pedir nunca más de una página por consulta.
+ */
+class CitaArchivoTests {
+
+    private static final Instant BASE = Instant.parse("2024-01-01T15:00:00Z");
+    private static final int PAGINA = 4;
+
+    private final CitaRepository repo = mock(CitaRepository.class);
+    private final CitaArchivadaRepository archivoRepo = mock(CitaArchivadaRepository.class);
+    private final CitaArchivo archivo = new CitaArchivo(repo, archivoRepo, new CitasProperties());
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    @Test
+    void recorreAmbasTablasPorPaginasEnOrden() {
+        // Calientes en los minutos pares, archivadas en los impares; 11 y 10 filas: páginas
+        // llenas, una corta y, para las archivadas, una vacía al final
+        List<CitaDTO> calientes = new ArrayList<>();
+        List<CitaDTO> frias = new ArrayList<>();
+        for (int i = 0; i < 21; i++) {
+            (i % 2 == 0 ? calientes : frias).add(cita(i + 1L, BASE.plusSeconds(i * 60L)));
+        }
+        when(repo.findByFiltroDesdeCursor(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> pagina(calientes, inv));
+        when(archivoRepo.findByFiltroDesdeCursor(any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(inv -> pagina(frias, inv));
+
+        List<Long> ids = new ArrayList<>();
+        Iterator<CitaDTO> filas = archivo.recorrer(null, Estado.COMPLETADA, BASE, BASE.plusSeconds(3_600),
+                BASE.minusSeconds(86_400), PAGINA);
+        filas.forEachRemaining(c -> ids.add(c.id()));
+
+        List<Long> esperados = new ArrayList<>();
+        for (long i = 1; i <= 21; i++) esperados.add(i);
+        assertThat(ids).isEqualTo(esperados);
+        // 11 calientes: 4 + 4 + 3; 10 archivadas: 4 + 4 + 2
+        assertThat(consultas.get()).isEqualTo(6);
+    }
+
+    @Test
+    void sinFilasNoConsultaDeMas() {
+        when(repo.findByFiltroDesdeCursor(any(), any(), any(), any(), any(), any(), any(), eq(Limit.of(PAGINA))))
+                .thenAnswer(inv -> pagina(List.of(), inv));
+        when(archivoRepo.findByFiltroDesdeCursor(any(), any(), any(), any(), any(), any(), any(), eq(Limit.of(PAGINA))))
+                .thenAnswer(inv -> pagina(List.of(), inv));
+
+        assertThat(archivo.recorrer(null, null, BASE, BASE.plusSeconds(60), BASE, PAGINA).hasNext()).isFalse();
+        assertThat(consultas.get()).isEqualTo(2);
+    }
+
+    /** Simula el keyset de la consulta: filas después de (cursorInicio, cursorId), hasta el límite. */
+    private List<CitaDTO> pagina(List<CitaDTO> tabla, InvocationOnMock inv) {
+        consultas.incrementAndGet();
+        Instant cursorInicio = inv.getArgument(5);
+        Long cursorId = inv.getArgument(6);
+        Limit limit = inv.getArgument(7);
+        assertThat(limit.max()).isEqualTo(PAGINA);
+        return tabla.stream()
+                .filter(c -> cursorInicio == null
+                        || c.inicio().isAfter(cursorInicio)
+                        || (c.inicio().equals(cursorInicio) && c.id() > cursorId))
+                .limit(limit.max())
+                .toList();
+    }
+
+    private static CitaDTO cita(Long id, Instant inicio) {
+        return new CitaDTO(id, 1L, 1L, "Cliente", "+5215555555555", inicio, inicio.plusSeconds(1_800),
+                Estado.COMPLETADA, null, null, null, inicio, inicio);
+    }
+}
@@ -0,0 +1,375 @@
+package com.barber.backend.citas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.barberos.model.Barbero;
+import com.barber.backend.catalogo.model.Servicio;
+import com.barber.backend.citas.config.CitasProperties;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.model.Cita.Estado;
+import com.barber.backend.citas.repository.CitaRepository;
+import com.barber.backend.citas.repository.CitaRepository.EstadoActual;
+import com.barber.backend.citas.repository.CitaRollupRepository;
+import com.barber.backend.citas.repository.CitaRollupRepository.Agregado;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Deltas por transacción de CitaRollup contra la reconstrucción de CitaRollupJob: la tabla
+ * de citas y cita_rollup_diaria viven en memoria, y cada transacción llama al rollup igual
+ * que CitaService / CitaEstadoMasivoService. Después de cada paso, reconstruir esos días no
+ * debe cambiar ninguna fila (salvo borrar las que quedaron en cero).
+ */
+class CitaRollupTests {
+
+    private static final ZoneId TZ = ZoneId.of("America/Mexico_City");
+    private static final LocalDate DIA1 = LocalDate.of(2025, 3, 10);
+    private static final LocalDate DIA2 = DIA1.plusDays(1);
+    private static final LocalDate DIA3 = DIA1.plusDays(2);
+
+    private final Map<Long, Cita> citas = new HashMap<>();
+    private final Map<CitaRollup.Clave, long[]> tabla = new HashMap<>();
+    private final List<CitaRollup.Clave> escrituras = new ArrayList<>();
+
+    private final CitaRollupRepository repo = mock(CitaRollupRepository.class);
+    private final CitaRepository citaRepo = mock(CitaRepository.class);
+    private final TransactionTemplate tx = new TransactionTemplate(new TxEnMemoria());
+    private final CitaRollup rollup;
+    private final CitaRollupJob job;
+
+    private final Barbero ana = barbero(1L);
+    private final Barbero beto = barbero(2L);
+    private final Servicio corte = servicio(25_000);
+
+    CitaRollupTests() {
+        AgendaProperties agendaProps = new AgendaProperties();
+        agendaProps.setTimezone(TZ.getId());
+        rollup = new CitaRollup(repo, citaRepo, agendaProps);
+        job = new CitaRollupJob(repo, rollup, new CitasProperties(), new TxEnMemoria());
+
+        when(repo.sumarDelta(any(), anyLong(), anyString(), anyInt(), anyLong())).thenAnswer(inv -> {
+            CitaRollup.Clave k = new CitaRollup.Clave(
+                    inv.getArgument(0), inv.getArgument(1), Estado.valueOf(inv.getArgument(2)));
+            escrituras.add(k);
+            long[] fila = tabla.computeIfAbsent(k, x -> new long[2]);
+            fila[0] += inv.<Integer>getArgument(3);
+            fila[1] += inv.<Long>getArgument(4);
+            return 1;
+        });
+        when(repo.borrarDia(any())).thenAnswer(inv -> {
+            LocalDate dia = inv.getArgument(0);
+            int antes = tabla.size();
+            tabla.keySet().removeIf(k -> k.dia().equals(dia));
+            return antes - tabla.size();
+        });
+        when(repo.agregarArchivo(any(), any())).thenReturn(List.of());
+        when(repo.agregarCitas(any(), any())).thenAnswer(inv -> agregar(inv.getArgument(0), inv.getArgument(1)));
+        when(citaRepo.findPrecios(any())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().map(id -> precio(id, precio(citas.get(id)))).toList();
+        });
+    }
+
+    @Test
+    void crearMoverCancelarCerrarYBorrarDejaLoMismoQueReconstruir() {
+        // 23:30 en la zona del negocio ya es el día siguiente en UTC: cuenta a DIA1
+        Cita a = cita(1L, ana, DIA1, 23, 30);
+        Cita b = cita(2L, beto, DIA1, 10, 0);
+        Cita c = cita(3L, ana, DIA2, 12, 0);
+        enTransaccion(() -> {
+            crear(a);
+            crear(b);
+            crear(c);
+        });
+        assertFila(DIA1, 1L, Estado.AGENDADA, 1, 25_000);
+        assertIgualAReconstruir();
+
+        // Mover de día y de precio: resta de DIA1 al precio viejo, suma en DIA2 al nuevo
+        enTransaccion(() -> actualizar(a, cambio -> {
+            cambio.setInicio(en(DIA2, 9, 0));
+            cambio.setOverridePrecioCentavos(30_000);
+        }));
+        assertFila(DIA1, 1L, Estado.AGENDADA, 0, 0);
+        assertFila(DIA2, 1L, Estado.AGENDADA, 2, 55_000);
+        assertIgualAReconstruir();
+
+        // Sólo precio, mismo día
+        enTransaccion(() -> actualizar(b, cambio -> cambio.setOverridePrecioCentavos(18_000)));
+        assertFila(DIA1, 2L, Estado.AGENDADA, 1, 18_000);
+        assertIgualAReconstruir();
+
+        enTransaccion(() -> cambiarEstado(a, Estado.CANCELADA));
+        assertFila(DIA2, 1L, Estado.CANCELADA, 1, 30_000);
+        assertIgualAReconstruir();
+
+        // Cierre en bloque / auto-cierre: UPDATE directo y cerradas() con el estado previo
+        enTransaccion(() -> cerrarEnBloque(Estado.COMPLETADA, b, c));
+        assertFila(DIA1, 2L, Estado.COMPLETADA, 1, 18_000);
+        assertFila(DIA2, 1L, Estado.COMPLETADA, 1, 25_000);
+        assertIgualAReconstruir();
+
+        enTransaccion(() -> borrar(a));
+        enTransaccion(() -> borrar(b));
+        assertFila(DIA2, 1L, Estado.CANCELADA, 0, 0);
+        assertIgualAReconstruir();
+        assertThat(filas()).containsOnlyKeys(new CitaRollup.Clave(DIA2, 1L, Estado.COMPLETADA));
+    }
+
+    @Test
+    void todoEnUnaTransaccionSeNeteaEnUnaEscrituraPorLlave() {
+        Cita a = cita(1L, ana, DIA1, 10, 0);
+        Cita b = cita(2L, ana, DIA1, 11, 0);
+        enTransaccion(() -> {
+            crear(a);
+            crear(b);
+            actualizar(a, cambio -> {
+                cambio.setInicio(en(DIA3, 10, 0));
+                cambio.setOverridePrecioCentavos(40_000);
+            });
+            actualizar(a, cambio -> cambio.setOverridePrecioCentavos(35_000));
+            cambiarEstado(a, Estado.CANCELADA);
+            borrar(b);
+        });
+
+        // AGENDADA de DIA1 y DIA3 suman cero: no se escriben; queda sólo la cancelada
+        assertThat(escrituras).containsExactly(new CitaRollup.Clave(DIA3, 1L, Estado.CANCELADA));
+        assertFila(DIA3, 1L, Estado.CANCELADA, 1, 35_000);
+        assertIgualAReconstruir();
+    }
+
+    @Test
+    void unCambioQueNoMueveNadaNoEscribe() {
+        Cita a = cita(1L, ana, DIA1, 10, 0);
+        enTransaccion(() -> crear(a));
+        escrituras.clear();
+
+        enTransaccion(() -> actualizar(a, cambio -> cambio.setNotas("Trae su propia navaja")));
+        enTransaccion(() -> {
+            Cita b = cita(2L, beto, DIA2, 10, 0);
+            crear(b);
+            borrar(b);
+        });
+
+        assertThat(escrituras).isEmpty();
+        assertIgualAReconstruir();
+    }
+
+    @Test
+    void escribeJustoAntesDelCommitYEnOrdenDeLlave() {
+        Cita a = cita(1L, beto, DIA2, 10, 0);
+        Cita b = cita(2L, ana, DIA2, 10, 0);
+        Cita c = cita(3L, beto, DIA1, 10, 0);
+        Cita d = cita(4L, ana, DIA1, 10, 0);
+        enTransaccion(() -> {
+            crear(a);
+            crear(b);
+            crear(c);
+            crear(d);
+            cambiarEstado(a, Estado.NO_ASISTIO);
+            cambiarEstado(d, Estado.CANCELADA);
+            assertThat(escrituras).isEmpty();
+        });
+
+        assertThat(escrituras)
+                .hasSize(4)
+                .isSortedAccordingTo(Comparator.comparing(CitaRollup.Clave::dia)
+                        .thenComparing(CitaRollup.Clave::barberoId)
+                        .thenComparing(CitaRollup.Clave::estado));
+        assertIgualAReconstruir();
+    }
+
+    @Test
+    void unaTransaccionRevertidaNoEscribe() {
+        Cita a = cita(1L, ana, DIA1, 10, 0);
+        tx.executeWithoutResult(s -> {
+            rollup.sumar(a);
+            s.setRollbackOnly();
+        });
+        assertThat(escrituras).isEmpty();
+        assertThat(TransactionSynchronizationManager.getResource(rollup)).isNull();
+
+        // La siguiente transacción arranca con deltas limpios
+        enTransaccion(() -> crear(a));
+        assertFila(DIA1, 1L, Estado.AGENDADA, 1, 25_000);
+    }
+
+    /* ===== Escrituras como las hace CitaService ===== */
+
+    private void crear(Cita c) {
+        citas.put(c.getId(), c);
+        rollup.sumar(c);
+    }
+
+    private void actualizar(Cita c, Consumer<Cita> cambio) {
+        rollup.restar(c);
+        cambio.accept(c);
+        rollup.sumar(c);
+    }
+
+    private void cambiarEstado(Cita c, Estado nuevo) {
+        rollup.restar(c);
+        c.setEstado(nuevo);
+        rollup.sumar(c);
+    }
+
+    private void borrar(Cita c) {
+        citas.remove(c.getId());
+        rollup.restar(c);
+    }
+
+    private void cerrarEnBloque(Estado nuevo, Cita... porCerrar) {
+        List<EstadoActual> actuales = new ArrayList<>();
+        for (Cita c : porCerrar) {
+            actuales.add(estadoActual(c));
+            c.setEstado(nuevo);
+        }
+        rollup.cerradas(actuales, nuevo);
+    }
+
+    private void enTransaccion(Runnable cuerpo) {
+        tx.executeWithoutResult(s -> cuerpo.run());
+    }
+
+    /* ===== Comparación con la reconstrucción ===== */
+
+    private void assertIgualAReconstruir() {
+        Map<CitaRollup.Clave, List<Long>> incremental = filas();
+        job.reconstruir(DIA1, DIA3);
+        assertThat(filas()).isEqualTo(incremental);
+    }
+
+    private void assertFila(LocalDate dia, Long barberoId, Estado estado, long citas, long ingresos) {
+        long[] fila = tabla.getOrDefault(new CitaRollup.Clave(dia, barberoId, estado), new long[2]);
+        assertThat(fila).containsExactly(citas, ingresos);
+    }
+
+    /** Filas con algo; una fila en cero equivale a que no exista. */
+    private Map<CitaRollup.Clave, List<Long>> filas() {
+        Map<CitaRollup.Clave, List<Long>> r = new HashMap<>();
+        tabla.forEach((k, f) -> {
+            if (f[0] != 0 || f[1] != 0) r.put(k, List.of(f[0], f[1]));
+        });
+        return r;
+    }
+
+    // Lo que hacen agregarArchivo/agregarCitas en SQL: GROUP BY barbero, estado en [desde, hasta)
+    private List<Agregado> agregar(Instant desde, Instant hasta) {
+        Map<List<Object>, long[]> grupos = new LinkedHashMap<>();
+        for (Cita c : citas.values()) {
+            if (c.getInicio().isBefore(desde) || !c.getInicio().isBefore(hasta)) continue;
+            long[] g = grupos.computeIfAbsent(List.of(c.getBarbero().getId(), c.getEstado()), k -> new long[2]);
+            g[0]++;
+            g[1] += precio(c);
+        }
+        List<Agregado> r = new ArrayList<>();
+        grupos.forEach((k, g) -> r.add(agregado((Long) k.get(0), (Estado) k.get(1), g[0], g[1])));
+        return r;
+    }
+
+    /* ===== Datos ===== */
+
+    private Cita cita(Long id, Barbero barbero, LocalDate dia, int hora, int minuto) {
+        Cita c = new Cita();
+        ReflectionTestUtils.setField(c, "id", id);
+        c.setBarbero(barbero);
+        c.setServicio(corte);
+        c.setInicio(en(dia, hora, minuto));
+        c.setFin(c.getInicio().plusSeconds(1_800));
+        c.setEstado(Estado.AGENDADA);
+        return c;
+    }
+
+    private static Instant en(LocalDate dia, int hora, int minuto) {
+        return LocalDateTime.of(dia, LocalTime.of(hora, minuto)).atZone(TZ).toInstant();
+    }
+
+    private static long precio(Cita c) {
+        return c.getOverridePrecioCentavos() != null
+                ? c.getOverridePrecioCentavos()
+                : c.getServicio().getPrecioCentavos();
+    }
+
+    private static Barbero barbero(Long id) {
+        Barbero b = new Barbero();
+        b.setId(id);
+        return b;
+    }
+
+    private static Servicio servicio(int precioCentavos) {
+        Servicio s = new Servicio();
+        s.setId(1L);
+        s.setPrecioCentavos(precioCentavos);
+        return s;
+    }
+
+    private static EstadoActual estadoActual(Cita c) {
+        Long barberoId = c.getBarbero().getId();
+        Estado estado = c.getEstado();
+        return new EstadoActual() {
+            @Override public Long getId() { return c.getId(); }
+            @Override public Long getBarberoId() { return barberoId; }
+            @Override public Estado getEstado() { return estado; }
+            @Override public Instant getInicio() { return c.getInicio(); }
+            @Override public Instant getFin() { return c.getFin(); }
+        };
+    }
+
+    private static CitaRepository.Precio precio(Long id, long centavos) {
+        return new CitaRepository.Precio() {
+            @Override public Long getId() { return id; }
+            @Override public Integer getPrecioCentavos() { return (int) centavos; }
+        };
+    }
+
+    private static Agregado agregado(Long barberoId, Estado estado, long citas, long ingresos) {
+        return new Agregado() {
+            @Override public Long getBarberoId() { return barberoId; }
+            @Override public String getEstado() { return estado.name(); }
+            @Override public Number getCitas() { return citas; }
+            @Override public Number getIngresosCentavos() { return ingresos; }
+        };
+    }
+
+    /** Transacciones sin BD: sólo activan la sincronización para que corra beforeCommit. */
+    private static final class TxEnMemoria extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) { }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) { }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) { }
+    }
+}
@@ -0,0 +1,172 @@
+package com.barber.backend.citas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.agenda.service.AgendaApartados;
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.barberos.model.Barbero;
+import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.catalogo.model.Servicio;
+import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.repository.CitaRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Estrés de reservas: muchos hilos reservan a la vez horarios que se traslapan y al final
+ * no puede haber dos citas del mismo barbero encimadas. El repositorio falso hace
+ * countOverlaps lento a propósito, que es justo la ventana del count-then-insert.
+ */
+class CitaServiceConcurrenciaTests {
+
+    private static final int BARBEROS = 4;
+    private static final int HILOS = 32;
+    private static final int RESERVAS_POR_HILO = 50;
+    private static final Instant BASE = Instant.parse("2030-01-07T15:00:00Z");
+
+    private final List<Cita> guardadas = new CopyOnWriteArrayList<>();
+
+    @Test
+    void reservasConcurrentesNoSeEnciman() throws Exception {
+        CitaService service = nuevoServicio();
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+
+        for (int h = 0; h < HILOS; h++) {
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                    long barberoId = 1 + rnd.nextInt(BARBEROS);
+                    // inicios cada 10 min con servicios de 30: casi todo choca con algo
+                    Instant inicio = BASE.plusSeconds(rnd.nextInt(24) * 600L);
+                    CitaSaveRequest req = new CitaSaveRequest(
+                            barberoId, 1L, "Cliente", "+5215555555555", inicio,
+                            null, null, null, null);
+                    if (!reservar(service, req)) rechazadas.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertThat(guardadas).isNotEmpty();
+        assertThat(rechazadas.get()).isPositive();
+        for (Cita a : guardadas) {
+            for (Cita b : guardadas) {
+                if (a == b || !a.getBarbero().getId().equals(b.getBarbero().getId())) continue;
+                boolean encimadas = a.getInicio().isBefore(b.getFin()) && b.getInicio().isBefore(a.getFin());
+                assertThat(encimadas)
+                        .as("citas encimadas %s-%s y %s-%s",
+                                a.getInicio(), a.getFin(), b.getInicio(), b.getFin())
+                        .isFalse();
+            }
+        }
+    }
+
+    /** Simula la transacción: create dentro de una sincronización y commit/rollback al salir. */
+    private static boolean reservar(CitaService service, CitaSaveRequest req) {
+        TransactionSynchronizationManager.initSynchronization();
+        boolean ok = false;
+        try {
+            service.create(req, null);
+            ok = true;
+        } catch (IllegalStateException e) {
+            // solape: la reserva se rechaza como en producción
+        } finally {
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization s : syncs) {
+                if (ok) s.afterCommit();
+            }
+            for (TransactionSynchronization s : syncs) {
+                s.afterCompletion(ok
+                        ? TransactionSynchronization.STATUS_COMMITTED
+                        : TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        }
+        return ok;
+    }
+
+    private CitaService nuevoServicio() {
+        Servicio servicio = new Servicio();
+        servicio.setId(1L);
+        servicio.setDuracionMin(30);
+
+        BarberoRepository barberoRepo = mock(BarberoRepository.class);
+        when(barberoRepo.findByIdParaReservar(anyLong())).thenAnswer(inv -> {
+            Barbero b = new Barbero();
+            b.setId(inv.getArgument(0));
+            return Optional.of(b);
+        });
+        ServicioRepository servicioRepo = mock(ServicioRepository.class);
+        when(servicioRepo.findById(1L)).thenReturn(Optional.of(servicio));
+
+        CitaRepository repo = mock(CitaRepository.class);
+        when(repo.countOverlaps(anyLong(), any(), any())).thenAnswer(inv -> {
+            Long barberoId = inv.getArgument(0);
+            Instant ini = inv.getArgument(1);
+            Instant fin = inv.getArgument(2);
+            long n = guardadas.stream()
+                    .filter(c -> c.getBarbero().getId().equals(barberoId))
+                    .filter(c -> c.getInicio().isBefore(fin) && ini.isBefore(c.getFin()))
+                    .count();
+            Thread.sleep(1); // ensancha la ventana entre contar e insertar
+            return n;
+        });
+        when(repo.save(any(Cita.class))).thenAnswer(inv -> {
+            Cita c = inv.getArgument(0);
+            c.prePersist();
+            guardadas.add(c);
+            return c;
+        });
+
+        ClientePerfilResolver resolver = mock(ClientePerfilResolver.class);
+        when(resolver.resolve(any(), any(), any(), any()))
+                .thenReturn(new ClientePerfilResolver.ClienteData("Cliente", "+5215555555555"));
+
+        return new CitaService(
+                repo,
+                barberoRepo,
+                servicioRepo,
+                resolver,
+                mock(AgendaDisponibilidadIndex.class),
+                mock(AgendaApartados.class),
+                new ReservaLocks(),
+                mock(BarberoBloqueoRepository.class),
+                new AgendaProperties(),
+                mock(AgendaEventos.class),
+                mock(CitaIdempotencia.class),
+                mock(CitaArchivo.class),
+                mock(ListaEsperaService.class),
+                mock(CitaRollup.class));
+    }
+}
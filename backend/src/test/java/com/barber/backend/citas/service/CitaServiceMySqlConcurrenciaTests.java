@@ -0,0 +1,243 @@
+package com.barber.backend.citas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.DockerRequerido;
+import com.barber.backend.agenda.config.AgendaProperties;
+import com.barber.backend.agenda.repository.BarberoBloqueoRepository;
+import com.barber.backend.agenda.service.AgendaApartados;
+import com.barber.backend.agenda.service.AgendaDisponibilidadIndex;
+import com.barber.backend.agenda.service.AgendaEventos;
+import com.barber.backend.barberos.repository.BarberoRepository;
+import com.barber.backend.catalogo.repository.ServicioRepository;
+import com.barber.backend.citas.dto.CitaSaveRequest;
+import com.barber.backend.citas.model.Cita;
+import com.barber.backend.citas.repository.CitaRepository;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Estrés de reservas contra un MySQL real: la garantía entre instancias es el
+ * SELECT ... FOR UPDATE sobre la fila del barbero, no el lock a rayas de la JVM.
+ *
+ * Hay dos CitaService, cada uno con su propio ReservaLocks, como dos instancias del
+ * backend: los hilos se reparten entre ambos, así que solo la BD puede serializar las
+ * reservas del mismo barbero. Al final no puede haber dos citas AGENDADAS encimadas.
+ * Igual con los cambios de estado y borrados de una misma cita: sólo uno la aplica.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ExtendWith(DockerRequerido.class)
+@Testcontainers
+class CitaServiceMySqlConcurrenciaTests {
+
+    private static final int BARBEROS = 3;
+    private static final int HILOS = 16;
+    private static final int RESERVAS_POR_HILO = 25;
+    private static final Instant BASE = Instant.parse("2030-01-07T15:00:00Z");
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @DynamicPropertySource
+    static void propiedades(DynamicPropertyRegistry r) {
+        r.add("spring.datasource.url", MYSQL::getJdbcUrl);
+        r.add("spring.datasource.username", MYSQL::getUsername);
+        r.add("spring.datasource.password", MYSQL::getPassword);
+        r.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(HILOS + 4));
+        r.add("spring.flyway.enabled", () -> "true");
+        r.add("spring.jpa.hibernate.ddl-auto", () -> "none");
+        r.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @Autowired CitaRepository citas;
+    @Autowired BarberoRepository barberos;
+    @Autowired ServicioRepository servicios;
+    @Autowired BarberoBloqueoRepository bloqueos;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired PlatformTransactionManager txManager;
+
+    @Test
+    void dosInstanciasNoEncimanCitas() throws Exception {
+        sembrar();
+        CitaService[] instancias = {
+                nuevoServicio(mock(CitaRollup.class), mock(ListaEsperaService.class)),
+                nuevoServicio(mock(CitaRollup.class), mock(ListaEsperaService.class)) };
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+
+        AtomicInteger rechazadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            CitaService service = instancias[h % instancias.length];
+            tareas.add(pool.submit(() -> {
+                salida.await();
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                for (int i = 0; i < RESERVAS_POR_HILO; i++) {
+                    long barberoId = 1 + rnd.nextInt(BARBEROS);
+                    // inicios cada 10 min con servicios de 30: casi todo choca con algo
+                    Instant inicio = BASE.plusSeconds(rnd.nextInt(24) * 600L);
+                    CitaSaveRequest req = new CitaSaveRequest(
+                            barberoId, 1L, "Cliente", "+5215555555555", inicio,
+                            null, null, null, null);
+                    try {
+                        tx.executeWithoutResult(s -> service.create(req, null));
+                    } catch (IllegalStateException e) {
+                        rechazadas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(5, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        Integer creadas = jdbc.queryForObject("SELECT COUNT(*) FROM citas", Integer.class);
+        Integer encimadas = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM citas a
+                JOIN citas b ON b.barbero_id = a.barbero_id AND b.id > a.id
+                 AND b.inicio < a.fin AND a.inicio < b.fin
+                WHERE a.estado = 'AGENDADA' AND b.estado = 'AGENDADA'
+                """, Integer.class);
+        Integer repetidas = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM (
+                  SELECT barbero_id, inicio FROM citas GROUP BY barbero_id, inicio HAVING COUNT(*) > 1
+                ) r
+                """, Integer.class);
+
+        assertThat(creadas).isPositive();
+        assertThat(rechazadas.get()).isPositive();
+        assertThat(repetidas).as("slots con más de una cita").isZero();
+        assertThat(encimadas).as("pares de citas encimadas").isZero();
+    }
+
+    @Test
+    void cambiosYBorradosConcurrentesSeAplicanUnaVez() throws Exception {
+        sembrar();
+        CitaRollup rollup = mock(CitaRollup.class);
+        ListaEsperaService listaEspera = mock(ListaEsperaService.class);
+        CitaService[] instancias = { nuevoServicio(rollup, listaEspera), nuevoServicio(rollup, listaEspera) };
+        TransactionTemplate tx = new TransactionTemplate(txManager);
+        Long id = tx.execute(s -> instancias[0].create(new CitaSaveRequest(
+                1L, 1L, "Cliente", "+5215555555555", BASE, null, null, null, null), null).id());
+
+        int cancelaron = concurrentes(i -> tx.execute(s -> instancias[i % 2].cambiarEstado(id, Cita.Estado.CANCELADA)));
+        assertThat(cancelaron).isEqualTo(1);
+        verify(rollup, times(1)).restar(any());
+        verify(listaEspera, times(1)).ofrecer(eq(1L), any(), any());
+
+        concurrentes(i -> {
+            tx.executeWithoutResult(s -> instancias[i % 2].delete(id));
+            return null;
+        });
+        verify(rollup, times(2)).restar(any());
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM citas", Integer.class)).isZero();
+    }
+
+    private interface Accion {
+        Object ejecutar(int hilo) throws Exception;
+    }
+
+    /** Corre la acción a la vez en todos los hilos; devuelve cuántos no fueron rechazados. */
+    private int concurrentes(Accion accion) throws Exception {
+        AtomicInteger aplicadas = new AtomicInteger();
+        CountDownLatch salida = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(HILOS);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int h = 0; h < HILOS; h++) {
+            int hilo = h;
+            tareas.add(pool.submit((Callable<Void>) () -> {
+                salida.await();
+                try {
+                    accion.ejecutar(hilo);
+                    aplicadas.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    // ya la cerró otro hilo
+                }
+                return null;
+            }));
+        }
+        salida.countDown();
+        for (Future<?> t : tareas) {
+            t.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return aplicadas.get();
+    }
+
+    private void sembrar() {
+        // Cada prueba arranca de cero: corren sin transacción, nada se revierte
+        jdbc.update("DELETE FROM citas");
+        jdbc.update("DELETE FROM servicios");
+        jdbc.update("DELETE FROM barberos");
+        Timestamp creado = Timestamp.from(BASE);
+        for (int i = 1; i <= BARBEROS; i++) {
+            jdbc.update("INSERT INTO barberos (id, nombre, activo, creado_en) VALUES (?, ?, 1, ?)",
+                    i, "Barbero " + i, creado);
+        }
+        jdbc.update("""
+                INSERT INTO servicios (id, nombre, duracion_min, precio_centavos, activo, creado_en, actualizado_en)
+                VALUES (1, 'Corte', 30, 20000, 1, ?, ?)
+                """, creado, creado);
+    }
+
+    /** Repositorios reales; índice, eventos y demás efectos laterales simulados. */
+    private CitaService nuevoServicio(CitaRollup rollup, ListaEsperaService listaEspera) {
+        ClientePerfilResolver resolver = mock(ClientePerfilResolver.class);
+        when(resolver.resolve(any(), any(), any(), any()))
+                .thenReturn(new ClientePerfilResolver.ClienteData("Cliente", "+5215555555555"));
+        AgendaProperties agendaProps = new AgendaProperties();
+
+        return new CitaService(
+                citas,
+                barberos,
+                servicios,
+                resolver,
+                mock(AgendaDisponibilidadIndex.class),
+                new AgendaApartados(agendaProps),
+                new ReservaLocks(),
+                bloqueos,
+                agendaProps,
+                mock(AgendaEventos.class),
+                mock(CitaIdempotencia.class),
+                mock(CitaArchivo.class),
+                listaEspera,
+                rollup);
+    }
+}
@@ -0,0 +1,112 @@
+package com.barber.backend.citas.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.barber.backend.citas.repository.ListaEsperaRepository;
+import com.barber.backend.citas.repository.ListaEsperaRepository.VentanaActiva;
+import com.barber.backend.citas.service.ListaEsperaIndex.Candidato;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Búsqueda de candidatos para un hueco liberado: cualquier ventana que se cruce con el
+ * hueco sirve si en la intersección cabe el servicio, y el horario ofrecido es el primero
+ * posible dentro de esa intersección.
+ */
+class ListaEsperaIndexTests {
+
+    private static final long BARBERO = 7L;
+    private static final Instant DIA = Instant.parse("2030-03-04T00:00:00Z");
+
+    private final List<VentanaActiva> activas = new ArrayList<>();
+
+    @Test
+    void ventanaQueEmpiezaDentroDelHuecoRecibeSuHorario() {
+        // hueco 10:00–11:00; la ventana 10:30–12:00 con servicio de 30 cabe a las 10:30
+        ventana(1L, 0, 30, "10:30", "12:00");
+
+        List<Candidato> c = index().candidatos(BARBERO, hora("10:00"), hora("11:00"));
+
+        assertThat(c).containsExactly(new Candidato(1L, hora("10:30"), hora("11:00")));
+    }
+
+    @Test
+    void laInterseccionDebeAlcanzarParaElServicio() {
+        ventana(1L, 0, 30, "10:45", "12:00");  // sólo quedan 15 min del hueco
+        ventana(2L, 0, 30, "09:00", "10:20");  // sólo 20 min
+        ventana(3L, 0, 90, "09:00", "12:00");  // el servicio no cabe en el hueco
+        ventana(4L, 0, 30, "08:00", "10:00");  // termina justo al empezar el hueco
+        ventana(5L, 0, 30, "11:00", "12:00");  // empieza justo al terminar
+
+        assertThat(index().candidatos(BARBERO, hora("10:00"), hora("11:00"))).isEmpty();
+    }
+
+    @Test
+    void ordenaPorPrioridadYLuegoPorAntiguedad() {
+        ventana(30L, 0, 30, "09:00", "12:00");
+        ventana(20L, 5, 30, "10:15", "11:00");
+        ventana(10L, 0, 30, "10:30", "11:30");
+        ventana(40L, 5, 30, "09:30", "10:40");
+
+        List<Candidato> c = index().candidatos(BARBERO, hora("10:00"), hora("11:00"));
+
+        assertThat(c).extracting(Candidato::listaId).containsExactly(20L, 40L, 10L, 30L);
+        assertThat(c).extracting(Candidato::inicio)
+                .containsExactly(hora("10:15"), hora("10:00"), hora("10:30"), hora("10:00"));
+    }
+
+    @Test
+    void conVariasVentanasSeOfreceLaMasTemprana() {
+        ventana(1L, 0, 30, "10:30", "11:00");
+        ventana(1L, 0, 30, "10:10", "10:50");
+
+        assertThat(index().candidatos(BARBERO, hora("10:00"), hora("11:00")))
+                .containsExactly(new Candidato(1L, hora("10:10"), hora("10:40")));
+    }
+
+    @Test
+    void unHuecoQueCruzaMedianocheVeLasVentanasDelDiaSiguiente() {
+        activas.add(fila(1L, 0, 30, DIA.plusSeconds(86_400), DIA.plusSeconds(86_400 + 3_600)));
+
+        assertThat(index().candidatos(BARBERO, hora("23:30"), DIA.plusSeconds(86_400 + 1_800)))
+                .containsExactly(new Candidato(1L, DIA.plusSeconds(86_400), DIA.plusSeconds(86_400 + 1_800)));
+    }
+
+    @Test
+    void otroBarberoNoCuenta() {
+        ventana(1L, 0, 30, "10:00", "11:00");
+
+        assertThat(index().candidatos(BARBERO + 1, hora("10:00"), hora("11:00"))).isEmpty();
+    }
+
+    private ListaEsperaIndex index() {
+        ListaEsperaRepository repo = mock(ListaEsperaRepository.class);
+        when(repo.findVentanasActivas(any())).thenReturn(activas);
+        return new ListaEsperaIndex(repo);
+    }
+
+    private void ventana(Long id, int prioridad, int durMin, String desde, String hasta) {
+        activas.add(fila(id, prioridad, durMin, hora(desde), hora(hasta)));
+    }
+
+    private static VentanaActiva fila(Long id, int prioridad, int durMin, Instant inicio, Instant fin) {
+        return new VentanaActiva() {
+            @Override public Long getId() { return id; }
+            @Override public Integer getPrioridad() { return prioridad; }
+            @Override public Integer getDuracionMin() { return durMin; }
+            @Override public Long getBarberoId() { return BARBERO; }
+            @Override public Instant getInicio() { return inicio; }
+            @Override public Instant getFin() { return fin; }
+        };
+    }
+
+    private static Instant hora(String hhmm) {
+        String[] p = hhmm.split(":");
+        return DIA.plusSeconds(Integer.parseInt(p[0]) * 3_600L + Integer.parseInt(p[1]) * 60L);
+    }
+}
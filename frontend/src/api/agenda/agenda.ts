@@ -21,12 +21,134 @@ export async function getSlots(params: {
   slotSizeMin?: number;
   duracionMin?: number;
 }): Promise<SlotsResponse> {
-  const { data } = await http.post<SlotsResponse>("/api/agenda/slots", {
+  // GET con ETag: el navegador revalida con If-None-Match y reutiliza la respuesta si es 304
+  const { data } = await http.get<SlotsResponse>("/api/agenda/slots", {
+    params: {
+      barberoId: params.barberoId,
+      servicioId: params.servicioId,
+      fecha: params.fecha,
+      slotSizeMin: params.slotSizeMin ?? 15,
+      duracionMin: params.duracionMin ?? 20,
+    },
+  });
+  return data; // 🔹 ahora regresa solo el objeto con `slots`
+}
+
+export type SlotsDia = {
+  fecha: string;        // YYYY-MM-DD
+  slots: SlotDTO[];
+};
+
+export type SlotsRangoResponse = {
+  barberoId: number;
+  servicioId: number;
+  desde: string;        // YYYY-MM-DD
+  hasta: string;        // YYYY-MM-DD
+  slotSizeMin: number;
+  duracionMin: number;
+  dias: SlotsDia[];
+};
+
+// Un solo request para pintar semana/mes en lugar de uno por día
+export async function getSlotsRango(params: {
+  barberoId: number;
+  servicioId: number;
+  desde: string;
+  hasta: string;
+  slotSizeMin?: number;
+  duracionMin?: number;
+}): Promise<SlotsRangoResponse> {
+  const { data } = await http.post<SlotsRangoResponse>("/api/agenda/slots/rango", {
     barberoId: params.barberoId,
+    servicioId: params.servicioId,
+    desde: params.desde,
+    hasta: params.hasta,
+    slotSizeMin: params.slotSizeMin ?? 15,
+    duracionMin: params.duracionMin ?? 20,
+  });
+  return data;
+}
+
+export type SlotBarberos = SlotDTO & {
+  barberoIds: number[]; // barberos libres en ese slot
+};
+
+export type SlotsCualquierBarberoResponse = {
+  servicioId: number;
+  fecha: string;        // YYYY-MM-DD
+  slotSizeMin: number;
+  duracionMin: number;
+  slots: SlotBarberos[];
+};
+
+// Slots del servicio con cualquier barbero (sin pedir uno por uno)
+export async function getSlotsCualquierBarbero(params: {
+  servicioId: number;
+  fecha: string;
+  slotSizeMin?: number;
+  duracionMin?: number;
+}): Promise<SlotsCualquierBarberoResponse> {
+  const { data } = await http.post<SlotsCualquierBarberoResponse>("/api/agenda/slots/cualquier-barbero", {
     servicioId: params.servicioId,
     fecha: params.fecha,
     slotSizeMin: params.slotSizeMin ?? 15,
     duracionMin: params.duracionMin ?? 20,
   });
-  return data; // 🔹 ahora regresa solo el objeto con `slots`
+  return data;
+}
+
+export type SlotsProximosResponse = {
+  barberoId: number | null; // null = cualquier barbero
+  servicioId: number;
+  slotSizeMin: number;
+  duracionMin: number;
+  slots: SlotBarberos[];
+};
+
+// Próximos N slots libres desde ahora (una sola llamada en lugar de recorrer días)
+export async function getSlotsProximos(params: {
+  barberoId?: number;
+  servicioId: number;
+  cantidad?: number;
+  slotSizeMin?: number;
+  duracionMin?: number;
+}): Promise<SlotsProximosResponse> {
+  const { data } = await http.post<SlotsProximosResponse>("/api/agenda/slots/proximos", {
+    barberoId: params.barberoId ?? null,
+    servicioId: params.servicioId,
+    cantidad: params.cantidad ?? 5,
+    slotSizeMin: params.slotSizeMin ?? 15,
+    duracionMin: params.duracionMin ?? 20,
+  });
+  return data;
+}
+
+export type Apartado = {
+  id: string;          // se manda como holdId al crear la cita
+  barberoId: number;
+  inicio: string;      // ISO
+  fin: string;         // ISO
+  expiraEn: string;    // ISO
+};
+
+// Aparta el slot elegido unos minutos para que nadie más lo tome mientras se confirma
+export async function apartarSlot(params: {
+  barberoId: number;
+  servicioId: number;
+  inicio: string;
+  duracionMin?: number;
+  slotSizeMin?: number; // el mismo con que se pidieron los slots
+}): Promise<Apartado> {
+  const { data } = await http.post<Apartado>("/api/agenda/apartados", {
+    barberoId: params.barberoId,
+    servicioId: params.servicioId,
+    inicio: params.inicio,
+    duracionMin: params.duracionMin ?? null,
+    slotSizeMin: params.slotSizeMin ?? null,
+  });
+  return data;
+}
+
+export async function liberarApartado(id: string): Promise<void> {
+  await http.delete(`/api/agenda/apartados/${id}`);
 }
@@ -1,10 +1,21 @@
 // api/citas/index.ts
 import { http } from "@/api/http";
-import type { Page, CitaDTO, CitaSaveReq } from "./types";
+import type {
+  Page,
+  CursorPage,
+  CitaDTO,
+  CitaSaveReq,
+  CitaEstadoMasivoReq,
+  CitaEstadoMasivoRes,
+  CitaSerieReq,
+  CitaSerieRes,
+  ListaEsperaReq,
+  ListaEsperaDTO,
+} from "./types";
 
 export async function listCitas(params: {
   barberoId?: number;
-  estado?: "AGENDADA" | "CANCELADA" | "COMPLETADA";
+  estado?: CitaDTO["estado"];
   desde: string; // ISO
   hasta: string; // ISO
   page: number;
@@ -15,13 +26,45 @@ export async function listCitas(params: {
   return data;
 }
 
+export async function listCitasCursor(params: {
+  barberoId?: number;
+  estado?: CitaDTO["estado"];
+  desde: string; // ISO
+  hasta: string; // ISO
+  cursor?: string | null;
+  size?: number;
+}): Promise<CursorPage<CitaDTO>> {
+  const { data } = await http.get<CursorPage<CitaDTO>>("/api/citas/cursor", { params });
+  return data;
+}
+
+// Solo ADMIN. Descarga completa en streaming; respeta los mismos filtros que listCitas
+export async function exportCitas(params: {
+  barberoId?: number;
+  estado?: CitaDTO["estado"];
+  desde: string; // ISO
+  hasta: string; // ISO
+  formato?: "csv" | "ndjson";
+}): Promise<Blob> {
+  const { data } = await http.get<Blob>("/api/citas/export", { params, responseType: "blob" });
+  return data;
+}
+
 export async function getCita(id: number): Promise<CitaDTO> {
   const { data } = await http.get<CitaDTO>(`/api/citas/${id}`);
   return data;
 }
 
-export async function createCita(body: CitaSaveReq): Promise<CitaDTO> {
-  const { data } = await http.post<CitaDTO>("/api/citas", body);
+/** Con `idempotencyKey` (p. ej. crypto.randomUUID() por intento de reserva) los reintentos no duplican la cita. */
+export async function createCita(body: CitaSaveReq, idempotencyKey?: string): Promise<CitaDTO> {
+  const { data } = await http.post<CitaDTO>("/api/citas", body, {
+    headers: idempotencyKey ? { "Idempotency-Key": idempotencyKey } : undefined,
+  });
+  return data;
+}
+
+export async function createSerieCitas(body: CitaSerieReq): Promise<CitaSerieRes> {
+  const { data } = await http.post<CitaSerieRes>("/api/citas/serie", body);
   return data;
 }
 
@@ -40,6 +83,36 @@ export async function cancelarCita(id: number): Promise<CitaDTO> {
   return data;
 }
 
+export async function cambiarEstadoMasivo(body: CitaEstadoMasivoReq): Promise<CitaEstadoMasivoRes> {
+  const { data } = await http.post<CitaEstadoMasivoRes>("/api/citas/estado", body);
+  return data;
+}
+
 export async function deleteCita(id: number): Promise<void> {
   await http.delete<void>(`/api/citas/${id}`);
-}
\ No newline at end of file
+}
+
+export async function inscribirListaEspera(body: ListaEsperaReq): Promise<ListaEsperaDTO> {
+  const { data } = await http.post<ListaEsperaDTO>("/api/lista-espera", body);
+  return data;
+}
+
+export async function listMisListaEspera(): Promise<ListaEsperaDTO[]> {
+  const { data } = await http.get<ListaEsperaDTO[]>("/api/lista-espera");
+  return data;
+}
+
+// ADMIN o BARBERO
+export async function listListaEspera(): Promise<ListaEsperaDTO[]> {
+  const { data } = await http.get<ListaEsperaDTO[]>("/api/lista-espera/todas");
+  return data;
+}
+
+export async function cancelarListaEspera(id: number): Promise<void> {
+  await http.delete<void>(`/api/lista-espera/${id}`);
+}
+
+export async function reactivarListaEspera(id: number): Promise<ListaEsperaDTO> {
+  const { data } = await http.post<ListaEsperaDTO>(`/api/lista-espera/${id}/reactivar`, {});
+  return data;
+}
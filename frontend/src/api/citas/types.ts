@@ -10,7 +10,7 @@ export type CitaDTO = {
   inicio: string;
   fin: string;
   precioCentavos: number;               // <- ya resuelto por backend (override o base)
-  estado: "AGENDADA" | "CANCELADA" | "COMPLETADA";
+  estado: "AGENDADA" | "CANCELADA" | "COMPLETADA" | "NO_ASISTIO";
   notas?: string | null;
 };
 
@@ -23,6 +23,7 @@ export type CitaSaveReq = {
   overrideDuracionMin?: number | null;
   overridePrecioCentavos?: number | null;
   notas?: string | null;
+  holdId?: string | null; // apartado del slot (ver apartarSlot)
 };
 
 export type Page<T> = {
@@ -32,3 +33,71 @@ export type Page<T> = {
   number: number; // page index
   size: number;
 };
+
+// Listado por cursor (GET /api/citas/cursor): sin totales; nextCursor null = fin
+export type CursorPage<T> = {
+  content: T[];
+  size: number;
+  nextCursor: string | null;
+};
+
+// Cambio de estado en bloque (POST /api/citas/estado): ids, o barberoId + fecha (YYYY-MM-DD)
+export type CitaEstadoMasivoReq = {
+  estado: "CANCELADA" | "COMPLETADA" | "NO_ASISTIO";
+  ids?: number[];
+  barberoId?: number;
+  fecha?: string;
+};
+
+export type CitaEstadoMasivoRes = {
+  estado: CitaDTO["estado"];
+  actualizadas: number;
+  resultados: { id: number; resultado: "ACTUALIZADA" | "NO_ENCONTRADA" | "YA_CERRADA" }[];
+};
+
+// Serie recurrente (POST /api/citas/serie): misma hora local cada N semanas
+export type CitaSerieReq = Omit<CitaSaveReq, "holdId"> & {
+  cadaSemanas: number; // 1..12
+  repeticiones: number; // 2..26
+  todasONinguna?: boolean;
+};
+
+export type CitaSerieRes = {
+  creadas: number;
+  conflictos: number;
+  ocurrencias: {
+    numero: number;
+    inicio: string;
+    fin: string;
+    resultado: "CREADA" | "CHOCA_CITA" | "CHOCA_BLOQUEO" | "CHOCA_APARTADO" | "OMITIDA";
+    citaId: number | null;
+  }[];
+};
+
+// Lista de espera (/api/lista-espera): se ofrece el hueco al cancelarse una cita
+export type ListaEsperaVentana = { inicio: string; fin: string };
+
+export type ListaEsperaReq = {
+  servicioId: number;
+  barberoIds: number[]; // 1..5
+  ventanas: ListaEsperaVentana[]; // 1..20, cada una de a lo más 14 días
+  clienteNombre?: string;
+  clienteTelE164?: string;
+  prioridad?: number; // solo ADMIN
+};
+
+export type ListaEsperaDTO = {
+  id: number;
+  servicioId: number;
+  barberoIds: number[];
+  ventanas: ListaEsperaVentana[];
+  clienteNombre: string;
+  clienteTelE164: string;
+  prioridad: number;
+  estado: "ACTIVA" | "OFRECIDA" | "CERRADA";
+  creadoEn: string;
+  ofertaBarberoId: number | null;
+  ofertaInicio: string | null;
+  ofertaFin: string | null;
+  ofertaEn: string | null;
+};
@@ -4,6 +4,7 @@ import toast from "react-hot-toast";
 import { CalendarClock, CheckCircle2, Scissors, UserRound } from "lucide-react";
 
 import { createCita } from "@/api/citas";
+import { apartarSlot, liberarApartado } from "@/api/agenda/agenda";
 import type { CitaSaveReq } from "@/api/citas/types";
 import { listBarberosLite, type BarberoLite } from "@/api/barberos";
 import BookingDateStep from "@/components/booking/BookingDateStep";
@@ -61,6 +62,7 @@ export default function BookingPage() {
   const [barberoId, setBarberoId] = useState<number | "">("");
   const [fecha, setFecha] = useState<string>(() => new Date().toISOString().slice(0, 10));
   const [hhmm, setHhmm] = useState<string>("");
+  const [holdId, setHoldId] = useState<string | null>(null);
 
   const [nombre, setNombre] = useState(sessionNombre);
   const [tel, setTel] = useState(sessionTel);
@@ -130,6 +132,30 @@ export default function BookingPage() {
   const precioCentavos = selectedServicio?.precioCentavos ?? 0;
   const duracion = selectedServicio?.duracionMin ?? null;
 
+  // Al elegir un horario se aparta por unos minutos; el anterior se libera
+  const elegirSlot = async (nuevo: string) => {
+    const previo = holdId;
+    setHhmm(nuevo);
+    setHoldId(null);
+    if (previo) liberarApartado(previo).catch(() => undefined);
+    if (!nuevo || !servicioId || !barberoId) return;
+    try {
+      const apartado = await apartarSlot({
+        barberoId: Number(barberoId),
+        servicioId: Number(servicioId),
+        inicio: localInputToIso(`${fecha}T${nuevo}:00`),
+      });
+      setHoldId(apartado.id);
+    } catch (error: any) {
+      const msg = error?.response?.data?.message ?? error?.message ?? "";
+      if (String(msg).toLowerCase().includes("apartado")) {
+        toast.error("Otro cliente está reservando ese horario, elige otro");
+        setHhmm("");
+      }
+      // otros errores: se intenta reservar sin apartado
+    }
+  };
+
   const reservar = async () => {
     if (submitting) return;
     try {
@@ -160,6 +186,7 @@ export default function BookingPage() {
         overrideDuracionMin: null,
         overridePrecioCentavos: null,
         notas: null,
+        holdId,
       };
 
       if (nombreTrim && (!sessionNombre || nombreTrim !== sessionNombre)) {
@@ -177,6 +204,7 @@ export default function BookingPage() {
       await createCita(body);
       toast.success("Cita reservada correctamente");
       setHhmm("");
+      setHoldId(null);
       setFecha(new Date().toISOString().slice(0, 10));
     } catch (error: any) {
       const status = error?.response?.status;
@@ -289,7 +317,7 @@ export default function BookingPage() {
               servicioId={Number(servicioId) || 0}
               fecha={fecha}
               onFechaChange={setFecha}
-              onPickSlot={setHhmm}
+              onPickSlot={elegirSlot}
               selectedSlot={hhmm}
             />
             {hhmm ? (
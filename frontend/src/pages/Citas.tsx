@@ -29,6 +29,7 @@ function StatusBadge({ s }: { s: CitaDTO["estado"] }) {
     AGENDADA: "bg-emerald-900/30 text-emerald-300 ring-1 ring-emerald-700/40",
     COMPLETADA: "bg-sky-900/30 text-sky-300 ring-1 ring-sky-700/40",
     CANCELADA: "bg-rose-900/30 text-rose-300 ring-1 ring-rose-700/40",
+    NO_ASISTIO: "bg-amber-900/30 text-amber-300 ring-1 ring-amber-700/40",
   };
   return (
     <span className={`inline-flex items-center px-2.5 py-0.5 rounded-full text-xs font-medium ${map[s]}`}>
@@ -42,7 +43,7 @@ export default function CitasPage() {
   const [desde, setDesde] = useState<string>(() => toIso(startOfLocalDay(new Date())));
   const [hasta, setHasta] = useState<string>(() => toIso(endOfLocalDay(new Date())));
   const [barberoId, setBarberoId] = useState<number | "">("");
-  const [estado, setEstado] = useState<"AGENDADA" | "CANCELADA" | "COMPLETADA" | "">("");
+  const [estado, setEstado] = useState<CitaDTO["estado"] | "">("");
   const [page, setPage] = useState(0);
   const [size, setSize] = useState(10);
   const [sort, setSort] = useState("inicio,asc");
@@ -208,6 +209,7 @@ export default function CitasPage() {
                 <option value="AGENDADA">Agendada</option>
                 <option value="COMPLETADA">Completada</option>
                 <option value="CANCELADA">Cancelada</option>
+                <option value="NO_ASISTIO">No asistió</option>
               </select>
               <select
                 value={sort}